@@ -0,0 +1,52 @@
+package br.com.tourapp.config;
+
+import br.com.tourapp.service.GatewayPagamento;
+import br.com.tourapp.service.GatewayPagamentoResiliente;
+import br.com.tourapp.service.GatewayPagamentoSimulado;
+import br.com.tourapp.service.MercadoPagoGateway;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Gateway de pagamentos: Mercado Pago real ou simulado, sempre atrás da camada de resiliência.
+ */
+@Configuration
+public class GatewayPagamentoConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(GatewayPagamentoConfig.class);
+
+    @Bean(destroyMethod = "encerrar")
+    public GatewayPagamentoResiliente gatewayPagamento(
+            MeterRegistry meterRegistry,
+            @Value("${app.pagamentos.gateway.tipo:mercadopago}") String tipo,
+            @Value("${app.pagamentos.gateway.max-concorrentes:20}") int maxConcorrentes,
+            @Value("${app.pagamentos.gateway.espera-bulkhead-ms:100}") long esperaBulkheadMs,
+            @Value("${app.pagamentos.gateway.timeout-conexao-ms:2000}") int timeoutConexaoMs,
+            @Value("${app.pagamentos.gateway.timeout-criacao-ms:8000}") int timeoutCriacaoMs,
+            @Value("${app.pagamentos.gateway.timeout-consulta-ms:3000}") int timeoutConsultaMs,
+            @Value("${app.pagamentos.gateway.circuito.janela:20}") int janela,
+            @Value("${app.pagamentos.gateway.circuito.minimo-chamadas:10}") int minimoChamadas,
+            @Value("${app.pagamentos.gateway.circuito.taxa-falha:0.5}") double taxaFalha,
+            @Value("${app.pagamentos.gateway.circuito.aberto-ms:30000}") long abertoMs,
+            @Value("${app.pagamentos.gateway.circuito.chamadas-meio-aberto:3}") int chamadasMeioAberto,
+            @Value("${app.pagamentos.simulado.latencia-minima-ms:50}") long latenciaMinimaMs,
+            @Value("${app.pagamentos.simulado.latencia-maxima-ms:400}") long latenciaMaximaMs,
+            @Value("${app.pagamentos.simulado.taxa-erro:0.02}") double taxaErro,
+            @Value("${app.pagamentos.simulado.status:approved}") String statusSimulado) {
+        GatewayPagamento delegado;
+        if ("simulado".equalsIgnoreCase(tipo)) {
+            logger.warn("Usando gateway de pagamentos SIMULADO - nenhuma cobrança real será criada");
+            delegado = new GatewayPagamentoSimulado(latenciaMinimaMs, latenciaMaximaMs, taxaErro, statusSimulado);
+        } else {
+            delegado = new MercadoPagoGateway(timeoutConexaoMs, timeoutCriacaoMs, timeoutConsultaMs);
+        }
+
+        return new GatewayPagamentoResiliente(delegado, meterRegistry, maxConcorrentes, esperaBulkheadMs,
+                timeoutCriacaoMs, timeoutConsultaMs, janela, minimoChamadas, taxaFalha, abertoMs,
+                chamadasMeioAberto);
+    }
+}
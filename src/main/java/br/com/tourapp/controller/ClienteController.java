@@ -1,8 +1,10 @@
 package br.com.tourapp.controller;
 
 import br.com.tourapp.dto.request.UpdateUserRequest;
+import br.com.tourapp.dto.response.CaixaNotificacoesResponse;
 import br.com.tourapp.dto.response.InscricaoResponse;
 import br.com.tourapp.dto.response.UserInfoResponse;
+import br.com.tourapp.service.CaixaNotificacaoService;
 import br.com.tourapp.service.InscricaoService;
 import br.com.tourapp.dto.SecurityUser;
 import br.com.tourapp.service.UserUseCase;
@@ -23,10 +25,13 @@ public class ClienteController {
 
     private final UserUseCase clienteService;
     private final InscricaoService inscricaoService;
+    private final CaixaNotificacaoService caixaNotificacaoService;
 
-    public ClienteController(UserUseCase clienteService, InscricaoService inscricaoService) {
+    public ClienteController(UserUseCase clienteService, InscricaoService inscricaoService,
+                             CaixaNotificacaoService caixaNotificacaoService) {
         this.clienteService = clienteService;
         this.inscricaoService = inscricaoService;
+        this.caixaNotificacaoService = caixaNotificacaoService;
     }
 
     @GetMapping("/perfil")
@@ -59,6 +64,34 @@ public class ClienteController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/notificacoes")
+    public ResponseEntity<CaixaNotificacoesResponse> listarNotificacoes(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int tamanho,
+            @AuthenticationPrincipal SecurityUser user) {
+        CaixaNotificacoesResponse response = caixaNotificacaoService.listar(user.getId(), cursor, tamanho);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/notificacoes/nao-lidas")
+    public ResponseEntity<Integer> contarNotificacoesNaoLidas(@AuthenticationPrincipal SecurityUser user) {
+        return ResponseEntity.ok(caixaNotificacaoService.contarNaoLidas(user.getId()));
+    }
+
+    @PutMapping("/notificacoes/{id}/lida")
+    public ResponseEntity<Void> marcarNotificacaoComoLida(
+            @PathVariable UUID id,
+            @AuthenticationPrincipal SecurityUser user) {
+        caixaNotificacaoService.marcarComoLida(user.getId(), id);
+        return ResponseEntity.ok().build();
+    }
+
+    @PutMapping("/notificacoes/lidas")
+    public ResponseEntity<Void> marcarTodasNotificacoesComoLidas(@AuthenticationPrincipal SecurityUser user) {
+        caixaNotificacaoService.marcarTodasComoLidas(user.getId());
+        return ResponseEntity.ok().build();
+    }
+
     @PutMapping("/notificacoes/push-token")
     public ResponseEntity<Void> atualizarPushToken(
             @RequestParam String pushToken,
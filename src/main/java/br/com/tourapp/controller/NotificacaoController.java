@@ -1,6 +1,7 @@
 package br.com.tourapp.controller;
 
 import br.com.tourapp.dto.request.NotificacaoRequest;
+import br.com.tourapp.dto.response.EstatisticasNotificacaoResponse;
 import br.com.tourapp.dto.response.NotificacaoResponse;
 import br.com.tourapp.dto.response.UserInfoResponse;
 import br.com.tourapp.service.NotificationUseCase;
@@ -43,6 +44,14 @@ public class NotificacaoController {
         return ResponseEntity.ok().build();
     }
 
+    @GetMapping("/{id}/estatisticas")
+    public ResponseEntity<EstatisticasNotificacaoResponse> obterEstatisticas(
+            @PathVariable UUID id,
+            @AuthenticationPrincipal SecurityUser user) {
+        EstatisticasNotificacaoResponse response = notificacaoService.obterEstatisticas(id, user.getId());
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping
     public ResponseEntity<Page<NotificacaoResponse>> listarNotificacoes(
             @AuthenticationPrincipal SecurityUser user,
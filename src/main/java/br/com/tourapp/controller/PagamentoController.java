@@ -1,15 +1,30 @@
 package br.com.tourapp.controller;
 
 import br.com.tourapp.dto.request.PagamentoCartaoRequest;
+import br.com.tourapp.dto.request.PagamentoPixGrupoRequest;
 import br.com.tourapp.dto.request.PagamentoPixRequest;
 import br.com.tourapp.dto.response.PagamentoResponse;
+import br.com.tourapp.service.ArtefatoPixService;
+import br.com.tourapp.service.ArtefatoPixService.ImagemQrCode;
+import br.com.tourapp.service.CanalStatusPagamentoService;
+import br.com.tourapp.service.FilaAdmissaoService;
+import br.com.tourapp.service.IdempotenciaService;
 import br.com.tourapp.service.PaymentUseCase;
 import br.com.tourapp.dto.SecurityUser;
+import br.com.tourapp.util.Constants;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/pagamentos")
@@ -17,25 +32,93 @@ import org.springframework.web.bind.annotation.*;
 public class PagamentoController {
 
     private final PaymentUseCase pagamentoService;
+    private final FilaAdmissaoService filaAdmissaoService;
+    private final IdempotenciaService idempotenciaService;
+    private final ArtefatoPixService artefatoPixService;
+    private final CanalStatusPagamentoService canalStatusPagamento;
+    private final CacheControl cacheQrCode;
 
-    public PagamentoController(PaymentUseCase pagamentoService) {
+    public PagamentoController(PaymentUseCase pagamentoService, FilaAdmissaoService filaAdmissaoService,
+                               IdempotenciaService idempotenciaService, ArtefatoPixService artefatoPixService,
+                               CanalStatusPagamentoService canalStatusPagamento,
+                               @Value("${app.pix.qrcode.cache-segundos:1800}") long cacheSegundos) {
         this.pagamentoService = pagamentoService;
+        this.filaAdmissaoService = filaAdmissaoService;
+        this.idempotenciaService = idempotenciaService;
+        this.artefatoPixService = artefatoPixService;
+        this.canalStatusPagamento = canalStatusPagamento;
+        // A imagem de um pagamento nunca muda; só o cliente dono pode guardá-la
+        this.cacheQrCode = CacheControl.maxAge(Duration.ofSeconds(cacheSegundos)).cachePrivate().immutable();
     }
 
     @PostMapping("/pix")
     public ResponseEntity<PagamentoResponse> criarPagamentoPix(
             @Valid @RequestBody PagamentoPixRequest request,
+            @RequestHeader(value = Constants.FILA_TICKET_HEADER, required = false) String ticket,
+            @RequestHeader(value = Constants.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @AuthenticationPrincipal SecurityUser user) {
-        PagamentoResponse response = pagamentoService.criarPagamentoPix(request, user.getId());
+        PagamentoResponse response = idempotenciaService.executar(idempotencyKey, user.getId(),
+                "POST /pagamentos/pix", request, PagamentoResponse.class, () -> {
+                    filaAdmissaoService.admitirPagamento(request.getInscricaoId(), user.getId(), ticket);
+                    return pagamentoService.criarPagamentoPix(request, user.getId());
+                });
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/pix/grupo")
+    public ResponseEntity<PagamentoResponse> criarPagamentoPixGrupo(
+            @Valid @RequestBody PagamentoPixGrupoRequest request,
+            @RequestHeader(value = Constants.FILA_TICKET_HEADER, required = false) String ticket,
+            @RequestHeader(value = Constants.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @AuthenticationPrincipal SecurityUser user) {
+        PagamentoResponse response = idempotenciaService.executar(idempotencyKey, user.getId(),
+                "POST /pagamentos/pix/grupo", request, PagamentoResponse.class, () -> {
+                    filaAdmissaoService.admitirPagamentoGrupo(request.getGrupoId(), user.getId(), ticket);
+                    return pagamentoService.criarPagamentoPixGrupo(request, user.getId());
+                });
         return ResponseEntity.ok(response);
     }
 
     @PostMapping("/cartao")
     public ResponseEntity<PagamentoResponse> criarPagamentoCartao(
             @Valid @RequestBody PagamentoCartaoRequest request,
+            @RequestHeader(value = Constants.FILA_TICKET_HEADER, required = false) String ticket,
+            @RequestHeader(value = Constants.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @AuthenticationPrincipal SecurityUser user) {
-        PagamentoResponse response = pagamentoService.criarPagamentoCartao(request, user.getId());
+        PagamentoResponse response = idempotenciaService.executar(idempotencyKey, user.getId(),
+                "POST /pagamentos/cartao", request, PagamentoResponse.class, () -> {
+                    filaAdmissaoService.admitirPagamento(request.getInscricaoId(), user.getId(), ticket);
+                    return pagamentoService.criarPagamentoCartao(request, user.getId(), idempotencyKey);
+                });
         return ResponseEntity.ok(response);
     }
-}
 
+    @GetMapping("/{pagamentoId}/qrcode")
+    public ResponseEntity<byte[]> obterQrCode(
+            @PathVariable UUID pagamentoId,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+            @AuthenticationPrincipal SecurityUser user) {
+        ImagemQrCode imagem = artefatoPixService.obterImagem(pagamentoId, user.getId());
+        String etag = "\"" + imagem.etag() + "\"";
+
+        if (ifNoneMatch != null && ifNoneMatch.contains(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheQrCode).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheQrCode)
+                .contentType(MediaType.IMAGE_PNG)
+                .body(imagem.png());
+    }
+
+    /**
+     * Stream SSE com o status do pagamento da inscrição (eventos "status"), no lugar do polling.
+     * Em inscrições de grupo, qualquer inscrição do grupo recebe o status da cobrança do grupo.
+     */
+    @GetMapping(value = "/inscricoes/{inscricaoId}/status", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter acompanharStatus(
+            @PathVariable UUID inscricaoId,
+            @AuthenticationPrincipal SecurityUser user) {
+        return canalStatusPagamento.assinar(inscricaoId, user.getId());
+    }
+}
@@ -1,11 +1,20 @@
 package br.com.tourapp.controller;
 
+import br.com.tourapp.dto.request.InscricaoGrupoRequest;
 import br.com.tourapp.dto.request.InscricaoRequest;
+import br.com.tourapp.dto.response.CatalogoExcursoesResponse;
 import br.com.tourapp.dto.response.ExcursaoResponse;
+import br.com.tourapp.dto.response.InscricaoGrupoResponse;
 import br.com.tourapp.dto.response.InscricaoResponse;
+import br.com.tourapp.dto.response.ListaEsperaResponse;
+import br.com.tourapp.service.CatalogoExcursaoService;
 import br.com.tourapp.service.ExcursaoService;
+import br.com.tourapp.service.FilaAdmissaoService;
+import br.com.tourapp.service.IdempotenciaService;
 import br.com.tourapp.service.InscricaoService;
+import br.com.tourapp.service.ListaEsperaService;
 import br.com.tourapp.dto.SecurityUser;
+import br.com.tourapp.util.Constants;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -20,10 +29,28 @@ public class PublicController {
 
     private final ExcursaoService excursaoService;
     private final InscricaoService inscricaoService;
+    private final ListaEsperaService listaEsperaService;
+    private final FilaAdmissaoService filaAdmissaoService;
+    private final IdempotenciaService idempotenciaService;
+    private final CatalogoExcursaoService catalogoExcursaoService;
 
-    public PublicController(ExcursaoService excursaoService, InscricaoService inscricaoService) {
+    public PublicController(ExcursaoService excursaoService, InscricaoService inscricaoService,
+                            ListaEsperaService listaEsperaService, FilaAdmissaoService filaAdmissaoService,
+                            IdempotenciaService idempotenciaService, CatalogoExcursaoService catalogoExcursaoService) {
         this.excursaoService = excursaoService;
         this.inscricaoService = inscricaoService;
+        this.listaEsperaService = listaEsperaService;
+        this.filaAdmissaoService = filaAdmissaoService;
+        this.idempotenciaService = idempotenciaService;
+        this.catalogoExcursaoService = catalogoExcursaoService;
+    }
+
+    @GetMapping("/excursoes")
+    public ResponseEntity<CatalogoExcursoesResponse> listarCatalogo(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int tamanho) {
+        CatalogoExcursoesResponse response = catalogoExcursaoService.listar(cursor, tamanho);
+        return ResponseEntity.ok(response);
     }
 
     @GetMapping("/excursoes/{id}")
@@ -36,11 +63,56 @@ public class PublicController {
     public ResponseEntity<InscricaoResponse> inscreverNaExcursao(
             @PathVariable UUID excursaoId,
             @Valid @RequestBody InscricaoRequest request,
+            @RequestHeader(value = Constants.FILA_TICKET_HEADER, required = false) String ticket,
+            @RequestHeader(value = Constants.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @AuthenticationPrincipal SecurityUser user) {
+        InscricaoResponse response = idempotenciaService.executar(idempotencyKey, user.getId(),
+                "POST /public/excursoes/" + excursaoId + "/inscricoes", request, InscricaoResponse.class, () -> {
+                    filaAdmissaoService.admitirInscricao(excursaoId, user.getId(), ticket);
+                    return inscricaoService.criarInscricao(excursaoId, request, user.getId());
+                });
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/excursoes/{excursaoId}/inscricoes/grupo")
+    public ResponseEntity<InscricaoGrupoResponse> inscreverGrupoNaExcursao(
+            @PathVariable UUID excursaoId,
+            @Valid @RequestBody InscricaoGrupoRequest request,
+            @RequestHeader(value = Constants.FILA_TICKET_HEADER, required = false) String ticket,
+            @RequestHeader(value = Constants.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @AuthenticationPrincipal SecurityUser user) {
+        InscricaoGrupoResponse response = idempotenciaService.executar(idempotencyKey, user.getId(),
+                "POST /public/excursoes/" + excursaoId + "/inscricoes/grupo", request, InscricaoGrupoResponse.class, () -> {
+                    filaAdmissaoService.admitirInscricao(excursaoId, user.getId(), ticket);
+                    return inscricaoService.criarInscricaoGrupo(excursaoId, request, user.getId());
+                });
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/excursoes/{excursaoId}/lista-espera")
+    public ResponseEntity<ListaEsperaResponse> entrarNaListaEspera(
+            @PathVariable UUID excursaoId,
             @AuthenticationPrincipal SecurityUser user) {
-        InscricaoResponse response = inscricaoService.criarInscricao(excursaoId, request, user.getId());
+        ListaEsperaResponse response = listaEsperaService.entrar(excursaoId, user.getId());
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/excursoes/{excursaoId}/lista-espera")
+    public ResponseEntity<ListaEsperaResponse> obterPosicaoListaEspera(
+            @PathVariable UUID excursaoId,
+            @AuthenticationPrincipal SecurityUser user) {
+        ListaEsperaResponse response = listaEsperaService.obterPosicao(excursaoId, user.getId());
+        return ResponseEntity.ok(response);
+    }
+
+    @DeleteMapping("/excursoes/{excursaoId}/lista-espera")
+    public ResponseEntity<Void> sairDaListaEspera(
+            @PathVariable UUID excursaoId,
+            @AuthenticationPrincipal SecurityUser user) {
+        listaEsperaService.sair(excursaoId, user.getId());
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/health")
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("OK");
@@ -1,6 +1,6 @@
 package br.com.tourapp.controller;
 
-import br.com.tourapp.service.PaymentUseCase;
+import br.com.tourapp.service.WebhookInboxService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -11,27 +11,16 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class WebhookController {
 
-    private final PaymentUseCase pagamentoService;
+    private final WebhookInboxService webhookInboxService;
 
-    public WebhookController(PaymentUseCase pagamentoService) {
-        this.pagamentoService = pagamentoService;
+    public WebhookController(WebhookInboxService webhookInboxService) {
+        this.webhookInboxService = webhookInboxService;
     }
 
     @PostMapping("/mercadopago")
     public ResponseEntity<String> webhookMercadoPago(@RequestBody Map<String, Object> payload) {
-        try {
-            // Verificar se é um evento de pagamento
-            if ("payment".equals(payload.get("type"))) {
-                Map<String, Object> data = (Map<String, Object>) payload.get("data");
-                String paymentId = (String) data.get("id");
-
-                pagamentoService.processarWebhookMercadoPago(paymentId);
-            }
-
-            return ResponseEntity.ok("OK");
-        } catch (Exception e) {
-            System.err.println("Erro ao processar webhook: " + e.getMessage());
-            return ResponseEntity.ok("OK"); // Sempre retornar OK para o MP
-        }
+        // Só grava na inbox; o processamento é assíncrono. Se a gravação falhar, o MP reenvia
+        webhookInboxService.registrar(payload);
+        return ResponseEntity.ok("OK");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,8 @@
+package br.com.tourapp.dto;
+
+import java.util.UUID;
+
+/**
+ * Payload dos eventos PIX_VENCIDO e REEMBOLSO_SOLICITADO no outbox: a cobrança a cancelar ou reembolsar.
+ */
+public record CobrancaMercadoPagoEvento(UUID pagamentoId, String mercadoPagoPaymentId) {}
@@ -0,0 +1,9 @@
+package br.com.tourapp.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Payload do evento PAGAMENTO_CONFIRMADO no outbox. grupoId só vem em reservas em grupo.
+ */
+public record PagamentoConfirmadoEvento(UUID grupoId, List<UUID> inscricaoIds) {}
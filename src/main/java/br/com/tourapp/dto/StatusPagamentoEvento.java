@@ -0,0 +1,13 @@
+package br.com.tourapp.dto;
+
+import br.com.tourapp.enums.StatusPagamento;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Mudança de status de pagamento enviada por SSE. canal é o id da inscrição, ou o grupoId nas
+ * cobranças de grupo.
+ */
+public record StatusPagamentoEvento(UUID canal, UUID pagamentoId, StatusPagamento status,
+                                    LocalDateTime atualizadoEm) {}
@@ -0,0 +1,32 @@
+package br.com.tourapp.dto.request;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+public class InscricaoGrupoRequest {
+
+    @NotNull(message = "Quantidade de vagas é obrigatória")
+    @Min(value = 2, message = "Reserva em grupo deve ter pelo menos 2 vagas")
+    @Max(value = 40, message = "Reserva em grupo deve ter no máximo 40 vagas")
+    private Integer quantidade;
+
+    @Size(max = 2000, message = "Observações devem ter no máximo 2000 caracteres")
+    private String observacoesCliente;
+
+    // Construtores
+    public InscricaoGrupoRequest() {}
+
+    public InscricaoGrupoRequest(Integer quantidade, String observacoesCliente) {
+        this.quantidade = quantidade;
+        this.observacoesCliente = observacoesCliente;
+    }
+
+    // Getters e Setters
+    public Integer getQuantidade() { return quantidade; }
+    public void setQuantidade(Integer quantidade) { this.quantidade = quantidade; }
+
+    public String getObservacoesCliente() { return observacoesCliente; }
+    public void setObservacoesCliente(String observacoesCliente) { this.observacoesCliente = observacoesCliente; }
+}
@@ -0,0 +1,22 @@
+package br.com.tourapp.dto.request;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.UUID;
+
+public class PagamentoPixGrupoRequest {
+
+    @NotNull(message = "ID do grupo é obrigatório")
+    private UUID grupoId;
+
+    // Construtores
+    public PagamentoPixGrupoRequest() {}
+
+    public PagamentoPixGrupoRequest(UUID grupoId) {
+        this.grupoId = grupoId;
+    }
+
+    // Getters e Setters
+    public UUID getGrupoId() { return grupoId; }
+    public void setGrupoId(UUID grupoId) { this.grupoId = grupoId; }
+}
@@ -0,0 +1,31 @@
+package br.com.tourapp.dto.response;
+
+import br.com.tourapp.enums.TipoNotificacao;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+public class CaixaNotificacoesResponse {
+
+    private List<ItemCaixa> itens;
+
+    // Nulo na última página
+    private String proximoCursor;
+
+    private Integer naoLidas;
+
+    @Data
+    public static class ItemCaixa {
+        private UUID id;
+        private String titulo;
+        private String mensagem;
+        private TipoNotificacao tipo;
+        private LocalDateTime enviadaEm;
+        private UUID excursaoId;
+        private String tituloExcursao;
+        private Boolean lida;
+    }
+}
@@ -0,0 +1,29 @@
+package br.com.tourapp.dto.response;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+public class CatalogoExcursoesResponse {
+
+    private List<ItemCatalogo> itens;
+
+    // Nulo na última página
+    private String proximoCursor;
+
+    @Data
+    public static class ItemCatalogo {
+        private UUID id;
+        private String titulo;
+        private LocalDateTime dataSaida;
+        private LocalDateTime dataRetorno;
+        private BigDecimal preco;
+        private Integer vagasDisponiveis;
+        private String localSaida;
+        private String localDestino;
+    }
+}
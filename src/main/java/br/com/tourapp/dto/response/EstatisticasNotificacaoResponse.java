@@ -0,0 +1,34 @@
+package br.com.tourapp.dto.response;
+
+import br.com.tourapp.enums.CanalNotificacao;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+@Data
+public class EstatisticasNotificacaoResponse {
+
+    private UUID notificacaoId;
+    private Long totalDestinatarios;
+    private LocalDateTime enviadaEm;
+
+    // Somadas entre os canais
+    private Long enfileiradas;
+    private Long entregues;
+    private Long falhas;
+    private Long pendentes;
+    private LocalDateTime ultimaEntregaEm;
+
+    private Map<CanalNotificacao, EstatisticaCanal> porCanal;
+
+    @Data
+    public static class EstatisticaCanal {
+        private Long enfileiradas;
+        private Long entregues;
+        private Long falhas;
+        private Long pendentes;
+        private LocalDateTime ultimaEntregaEm;
+    }
+}
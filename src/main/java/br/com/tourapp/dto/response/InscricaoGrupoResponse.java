@@ -0,0 +1,36 @@
+package br.com.tourapp.dto.response;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+public class InscricaoGrupoResponse {
+
+    private UUID grupoId;
+    private Integer quantidade;
+    private BigDecimal valorTotal;
+    private List<InscricaoResponse> inscricoes;
+
+    // Construtores
+    public InscricaoGrupoResponse() {}
+
+    public InscricaoGrupoResponse(UUID grupoId, BigDecimal valorTotal, List<InscricaoResponse> inscricoes) {
+        this.grupoId = grupoId;
+        this.quantidade = inscricoes.size();
+        this.valorTotal = valorTotal;
+        this.inscricoes = inscricoes;
+    }
+
+    // Getters e Setters
+    public UUID getGrupoId() { return grupoId; }
+    public void setGrupoId(UUID grupoId) { this.grupoId = grupoId; }
+
+    public Integer getQuantidade() { return quantidade; }
+    public void setQuantidade(Integer quantidade) { this.quantidade = quantidade; }
+
+    public BigDecimal getValorTotal() { return valorTotal; }
+    public void setValorTotal(BigDecimal valorTotal) { this.valorTotal = valorTotal; }
+
+    public List<InscricaoResponse> getInscricoes() { return inscricoes; }
+    public void setInscricoes(List<InscricaoResponse> inscricoes) { this.inscricoes = inscricoes; }
+}
@@ -13,6 +13,7 @@ public class InscricaoResponse {
     private StatusPagamento statusPagamento;
     private String observacoesCliente;
     private LocalDateTime createdAt;
+    private UUID grupoId;
 
     // Dados da excursão
     private UUID excursaoId;
@@ -47,6 +48,9 @@ public class InscricaoResponse {
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
+    public UUID getGrupoId() { return grupoId; }
+    public void setGrupoId(UUID grupoId) { this.grupoId = grupoId; }
+
     public UUID getExcursaoId() { return excursaoId; }
     public void setExcursaoId(UUID excursaoId) { this.excursaoId = excursaoId; }
 
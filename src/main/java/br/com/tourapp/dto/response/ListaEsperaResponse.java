@@ -0,0 +1,38 @@
+package br.com.tourapp.dto.response;
+
+import br.com.tourapp.enums.StatusListaEspera;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public class ListaEsperaResponse {
+
+    private UUID id;
+    private UUID excursaoId;
+    private String tituloExcursao;
+    private StatusListaEspera status;
+    private Long posicao;
+    private LocalDateTime createdAt;
+
+    // Construtores
+    public ListaEsperaResponse() {}
+
+    // Getters e Setters
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+
+    public UUID getExcursaoId() { return excursaoId; }
+    public void setExcursaoId(UUID excursaoId) { this.excursaoId = excursaoId; }
+
+    public String getTituloExcursao() { return tituloExcursao; }
+    public void setTituloExcursao(String tituloExcursao) { this.tituloExcursao = tituloExcursao; }
+
+    public StatusListaEspera getStatus() { return status; }
+    public void setStatus(StatusListaEspera status) { this.status = status; }
+
+    public Long getPosicao() { return posicao; }
+    public void setPosicao(Long posicao) { this.posicao = posicao; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
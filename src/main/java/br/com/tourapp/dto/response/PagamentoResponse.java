@@ -14,12 +14,13 @@ public class PagamentoResponse {
     private MetodoPagamento metodoPagamento;
     private StatusPagamento status;
     private String qrCode;
-    private String qrCodeBase64;
+    private String qrCodeUrl;
     private String mercadoPagoPaymentId;
     private LocalDateTime dataVencimento;
     private LocalDateTime dataProcessamento;
     private String linkPagamento;
     private String observacoes;
+    private UUID grupoId;
 
     // Construtores
     public PagamentoResponse() {}
@@ -40,8 +41,8 @@ public class PagamentoResponse {
     public String getQrCode() { return qrCode; }
     public void setQrCode(String qrCode) { this.qrCode = qrCode; }
 
-    public String getQrCodeBase64() { return qrCodeBase64; }
-    public void setQrCodeBase64(String qrCodeBase64) { this.qrCodeBase64 = qrCodeBase64; }
+    public String getQrCodeUrl() { return qrCodeUrl; }
+    public void setQrCodeUrl(String qrCodeUrl) { this.qrCodeUrl = qrCodeUrl; }
 
     public String getMercadoPagoPaymentId() { return mercadoPagoPaymentId; }
     public void setMercadoPagoPaymentId(String mercadoPagoPaymentId) { this.mercadoPagoPaymentId = mercadoPagoPaymentId; }
@@ -57,4 +58,7 @@ public class PagamentoResponse {
 
     public String getObservacoes() { return observacoes; }
     public void setObservacoes(String observacoes) { this.observacoes = observacoes; }
-}
\ No newline at end of file
+
+    public UUID getGrupoId() { return grupoId; }
+    public void setGrupoId(UUID grupoId) { this.grupoId = grupoId; }
+}
@@ -0,0 +1,38 @@
+package br.com.tourapp.dto.response;
+
+public class TicketFilaResponse {
+
+    private String mensagem;
+    private String ticket;
+    private Long posicao;
+    private Long pessoasAFrente;
+    private Long esperaEstimadaSegundos;
+
+    // Construtores
+    public TicketFilaResponse() {}
+
+    public TicketFilaResponse(String mensagem, String ticket, Long posicao, Long pessoasAFrente,
+                              Long esperaEstimadaSegundos) {
+        this.mensagem = mensagem;
+        this.ticket = ticket;
+        this.posicao = posicao;
+        this.pessoasAFrente = pessoasAFrente;
+        this.esperaEstimadaSegundos = esperaEstimadaSegundos;
+    }
+
+    // Getters e Setters
+    public String getMensagem() { return mensagem; }
+    public void setMensagem(String mensagem) { this.mensagem = mensagem; }
+
+    public String getTicket() { return ticket; }
+    public void setTicket(String ticket) { this.ticket = ticket; }
+
+    public Long getPosicao() { return posicao; }
+    public void setPosicao(Long posicao) { this.posicao = posicao; }
+
+    public Long getPessoasAFrente() { return pessoasAFrente; }
+    public void setPessoasAFrente(Long pessoasAFrente) { this.pessoasAFrente = pessoasAFrente; }
+
+    public Long getEsperaEstimadaSegundos() { return esperaEstimadaSegundos; }
+    public void setEsperaEstimadaSegundos(Long esperaEstimadaSegundos) { this.esperaEstimadaSegundos = esperaEstimadaSegundos; }
+}
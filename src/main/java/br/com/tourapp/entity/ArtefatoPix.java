@@ -0,0 +1,42 @@
+package br.com.tourapp.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Imagem do QR Code de uma cobrança PIX, guardada fora da tabela pagamentos para que
+ * as leituras de pagamento não carreguem o PNG.
+ */
+@Entity
+@Table(name = "pix_artefatos")
+public class ArtefatoPix extends BaseEntity {
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "pagamento_id", nullable = false, unique = true)
+    private Pagamento pagamento;
+
+    // PNG decodificado do qr_code_base64 devolvido pelo Mercado Pago
+    @Column(nullable = false, length = 65536)
+    private byte[] imagem;
+
+    @Column(nullable = false, length = 64)
+    private String etag;
+
+    // Construtores
+    public ArtefatoPix() {}
+
+    public ArtefatoPix(Pagamento pagamento, byte[] imagem, String etag) {
+        this.pagamento = pagamento;
+        this.imagem = imagem;
+        this.etag = etag;
+    }
+
+    // Getters e Setters
+    public Pagamento getPagamento() { return pagamento; }
+    public void setPagamento(Pagamento pagamento) { this.pagamento = pagamento; }
+
+    public byte[] getImagem() { return imagem; }
+    public void setImagem(byte[] imagem) { this.imagem = imagem; }
+
+    public String getEtag() { return etag; }
+    public void setEtag(String etag) { this.etag = etag; }
+}
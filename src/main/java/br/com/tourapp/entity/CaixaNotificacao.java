@@ -0,0 +1,43 @@
+package br.com.tourapp.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Estado de leitura da caixa de notificações de um cliente: o contador de não lidas e a marca
+ * "lidas até". Notificações enviadas até {@code lidasAte} contam como lidas; as posteriores são
+ * lidas uma a uma (leituras_notificacao).
+ */
+@Entity
+@Table(name = "caixas_notificacao")
+public class CaixaNotificacao extends BaseEntity {
+
+    @Column(name = "user_id", nullable = false, unique = true)
+    private UUID userId;
+
+    @Column(name = "nao_lidas", nullable = false)
+    private Integer naoLidas = 0;
+
+    @Column(name = "lidas_ate")
+    private LocalDateTime lidasAte;
+
+    // Construtores
+    public CaixaNotificacao() {}
+
+    // Métodos auxiliares
+    public boolean isLida(LocalDateTime enviadaEm) {
+        return lidasAte != null && enviadaEm != null && !enviadaEm.isAfter(lidasAte);
+    }
+
+    // Getters e Setters
+    public UUID getUserId() { return userId; }
+    public void setUserId(UUID userId) { this.userId = userId; }
+
+    public Integer getNaoLidas() { return naoLidas; }
+    public void setNaoLidas(Integer naoLidas) { this.naoLidas = naoLidas; }
+
+    public LocalDateTime getLidasAte() { return lidasAte; }
+    public void setLidasAte(LocalDateTime lidasAte) { this.lidasAte = lidasAte; }
+}
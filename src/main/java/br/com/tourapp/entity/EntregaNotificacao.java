@@ -0,0 +1,93 @@
+package br.com.tourapp.entity;
+
+import br.com.tourapp.enums.CanalNotificacao;
+import br.com.tourapp.enums.StatusEntregaNotificacao;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Entrega de uma notificação a um destinatário por um canal. As linhas são gravadas todas quando a
+ * notificação é enviada e consumidas pelos workers; as que esgotam as tentativas ficam como FALHOU
+ * (dead letter) e só voltam para a fila num reenvio.
+ */
+@Entity
+@Table(name = "entregas_notificacao")
+public class EntregaNotificacao extends BaseEntity {
+
+    @Column(name = "notificacao_id", nullable = false)
+    private UUID notificacaoId;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private CanalNotificacao canal;
+
+    @Column(nullable = false, length = 512)
+    private String destino;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StatusEntregaNotificacao status = StatusEntregaNotificacao.PENDENTE;
+
+    @Column(nullable = false)
+    private Integer tentativas = 0;
+
+    @Column(name = "proxima_tentativa_em", nullable = false)
+    private LocalDateTime proximaTentativaEm;
+
+    @Column(name = "bloqueado_ate")
+    private LocalDateTime bloqueadoAte;
+
+    @Column(name = "entregue_em")
+    private LocalDateTime entregueEm;
+
+    @Column(name = "ultimo_erro", columnDefinition = "TEXT")
+    private String ultimoErro;
+
+    // Construtores
+    public EntregaNotificacao() {}
+
+    public EntregaNotificacao(UUID notificacaoId, UUID userId, CanalNotificacao canal, String destino,
+                              LocalDateTime proximaTentativaEm) {
+        this.notificacaoId = notificacaoId;
+        this.userId = userId;
+        this.canal = canal;
+        this.destino = destino;
+        this.proximaTentativaEm = proximaTentativaEm;
+    }
+
+    // Getters e Setters
+    public UUID getNotificacaoId() { return notificacaoId; }
+    public void setNotificacaoId(UUID notificacaoId) { this.notificacaoId = notificacaoId; }
+
+    public UUID getUserId() { return userId; }
+    public void setUserId(UUID userId) { this.userId = userId; }
+
+    public CanalNotificacao getCanal() { return canal; }
+    public void setCanal(CanalNotificacao canal) { this.canal = canal; }
+
+    public String getDestino() { return destino; }
+    public void setDestino(String destino) { this.destino = destino; }
+
+    public StatusEntregaNotificacao getStatus() { return status; }
+    public void setStatus(StatusEntregaNotificacao status) { this.status = status; }
+
+    public Integer getTentativas() { return tentativas; }
+    public void setTentativas(Integer tentativas) { this.tentativas = tentativas; }
+
+    public LocalDateTime getProximaTentativaEm() { return proximaTentativaEm; }
+    public void setProximaTentativaEm(LocalDateTime proximaTentativaEm) { this.proximaTentativaEm = proximaTentativaEm; }
+
+    public LocalDateTime getBloqueadoAte() { return bloqueadoAte; }
+    public void setBloqueadoAte(LocalDateTime bloqueadoAte) { this.bloqueadoAte = bloqueadoAte; }
+
+    public LocalDateTime getEntregueEm() { return entregueEm; }
+    public void setEntregueEm(LocalDateTime entregueEm) { this.entregueEm = entregueEm; }
+
+    public String getUltimoErro() { return ultimoErro; }
+    public void setUltimoErro(String ultimoErro) { this.ultimoErro = ultimoErro; }
+}
@@ -0,0 +1,62 @@
+package br.com.tourapp.entity;
+
+import br.com.tourapp.enums.CanalNotificacao;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Contadores de entrega de uma notificação por canal, mantidos pelos workers da fila a cada lote.
+ * Pendentes são as enfileiradas que ainda não foram entregues nem foram para dead letter.
+ */
+@Entity
+@Table(name = "estatisticas_notificacao")
+public class EstatisticaNotificacao extends BaseEntity {
+
+    @Column(name = "notificacao_id", nullable = false)
+    private UUID notificacaoId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private CanalNotificacao canal;
+
+    @Column(nullable = false)
+    private Long enfileiradas = 0L;
+
+    @Column(nullable = false)
+    private Long entregues = 0L;
+
+    @Column(nullable = false)
+    private Long falhas = 0L;
+
+    @Column(name = "ultima_entrega_em")
+    private LocalDateTime ultimaEntregaEm;
+
+    // Construtores
+    public EstatisticaNotificacao() {}
+
+    // Métodos auxiliares
+    public long getPendentes() {
+        return Math.max(0, enfileiradas - entregues - falhas);
+    }
+
+    // Getters e Setters
+    public UUID getNotificacaoId() { return notificacaoId; }
+    public void setNotificacaoId(UUID notificacaoId) { this.notificacaoId = notificacaoId; }
+
+    public CanalNotificacao getCanal() { return canal; }
+    public void setCanal(CanalNotificacao canal) { this.canal = canal; }
+
+    public Long getEnfileiradas() { return enfileiradas; }
+    public void setEnfileiradas(Long enfileiradas) { this.enfileiradas = enfileiradas; }
+
+    public Long getEntregues() { return entregues; }
+    public void setEntregues(Long entregues) { this.entregues = entregues; }
+
+    public Long getFalhas() { return falhas; }
+    public void setFalhas(Long falhas) { this.falhas = falhas; }
+
+    public LocalDateTime getUltimaEntregaEm() { return ultimaEntregaEm; }
+    public void setUltimaEntregaEm(LocalDateTime ultimaEntregaEm) { this.ultimaEntregaEm = ultimaEntregaEm; }
+}
@@ -0,0 +1,93 @@
+package br.com.tourapp.entity;
+
+import br.com.tourapp.enums.StatusEventoOutbox;
+import br.com.tourapp.enums.TipoEventoOutbox;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Efeito colateral (email, push...) gravado na mesma transação da mudança que o originou.
+ * Cada consumidor recebe sua própria linha, com tentativas independentes; as que esgotam as
+ * tentativas ficam como FALHOU (dead letter).
+ */
+@Entity
+@Table(name = "outbox_eventos")
+public class EventoOutbox extends BaseEntity {
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50)
+    private TipoEventoOutbox tipo;
+
+    @Column(nullable = false, length = 50)
+    private String consumidor;
+
+    @Column(name = "agregado_id", nullable = false)
+    private UUID agregadoId;
+
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StatusEventoOutbox status = StatusEventoOutbox.PENDENTE;
+
+    @Column(nullable = false)
+    private Integer tentativas = 0;
+
+    @Column(name = "proxima_tentativa_em", nullable = false)
+    private LocalDateTime proximaTentativaEm;
+
+    @Column(name = "bloqueado_ate")
+    private LocalDateTime bloqueadoAte;
+
+    @Column(name = "processado_em")
+    private LocalDateTime processadoEm;
+
+    @Column(name = "ultimo_erro", columnDefinition = "TEXT")
+    private String ultimoErro;
+
+    // Construtores
+    public EventoOutbox() {}
+
+    public EventoOutbox(TipoEventoOutbox tipo, String consumidor, UUID agregadoId, String payload,
+                        LocalDateTime proximaTentativaEm) {
+        this.tipo = tipo;
+        this.consumidor = consumidor;
+        this.agregadoId = agregadoId;
+        this.payload = payload;
+        this.proximaTentativaEm = proximaTentativaEm;
+    }
+
+    // Getters e Setters
+    public TipoEventoOutbox getTipo() { return tipo; }
+    public void setTipo(TipoEventoOutbox tipo) { this.tipo = tipo; }
+
+    public String getConsumidor() { return consumidor; }
+    public void setConsumidor(String consumidor) { this.consumidor = consumidor; }
+
+    public UUID getAgregadoId() { return agregadoId; }
+    public void setAgregadoId(UUID agregadoId) { this.agregadoId = agregadoId; }
+
+    public String getPayload() { return payload; }
+    public void setPayload(String payload) { this.payload = payload; }
+
+    public StatusEventoOutbox getStatus() { return status; }
+    public void setStatus(StatusEventoOutbox status) { this.status = status; }
+
+    public Integer getTentativas() { return tentativas; }
+    public void setTentativas(Integer tentativas) { this.tentativas = tentativas; }
+
+    public LocalDateTime getProximaTentativaEm() { return proximaTentativaEm; }
+    public void setProximaTentativaEm(LocalDateTime proximaTentativaEm) { this.proximaTentativaEm = proximaTentativaEm; }
+
+    public LocalDateTime getBloqueadoAte() { return bloqueadoAte; }
+    public void setBloqueadoAte(LocalDateTime bloqueadoAte) { this.bloqueadoAte = bloqueadoAte; }
+
+    public LocalDateTime getProcessadoEm() { return processadoEm; }
+    public void setProcessadoEm(LocalDateTime processadoEm) { this.processadoEm = processadoEm; }
+
+    public String getUltimoErro() { return ultimoErro; }
+    public void setUltimoErro(String ultimoErro) { this.ultimoErro = ultimoErro; }
+}
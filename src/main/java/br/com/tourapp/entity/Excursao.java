@@ -40,7 +40,8 @@ public class Excursao extends BaseEntity {
     @Column(name = "vagas_total", nullable = false)
     private Integer vagasTotal;
 
-    @Column(name = "vagas_ocupadas", nullable = false)
+    // Controlado apenas pelos updates condicionais do ExcursaoRepository (ver ReservaVagaService)
+    @Column(name = "vagas_ocupadas", nullable = false, updatable = false)
     private Integer vagasOcupadas = 0;
 
     @Column(name = "local_saida", length = 300)
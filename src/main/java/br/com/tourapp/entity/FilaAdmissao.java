@@ -0,0 +1,41 @@
+package br.com.tourapp.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Estado compartilhado entre os nós da fila de admissão de uma excursão.
+ *
+ * {@code ultimaPosicao} é a última posição já distribuída (em blocos) aos nós;
+ * {@code fronteira} é a maior posição já admitida.
+ */
+@Entity
+@Table(name = "fila_admissao")
+public class FilaAdmissao extends BaseEntity {
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "excursao_id", nullable = false, unique = true)
+    private Excursao excursao;
+
+    @Column(name = "ultima_posicao", nullable = false)
+    private Long ultimaPosicao = 0L;
+
+    @Column(nullable = false)
+    private Long fronteira = 0L;
+
+    // Construtores
+    public FilaAdmissao() {}
+
+    public FilaAdmissao(Excursao excursao) {
+        this.excursao = excursao;
+    }
+
+    // Getters e Setters
+    public Excursao getExcursao() { return excursao; }
+    public void setExcursao(Excursao excursao) { this.excursao = excursao; }
+
+    public Long getUltimaPosicao() { return ultimaPosicao; }
+    public void setUltimaPosicao(Long ultimaPosicao) { this.ultimaPosicao = ultimaPosicao; }
+
+    public Long getFronteira() { return fronteira; }
+    public void setFronteira(Long fronteira) { this.fronteira = fronteira; }
+}
@@ -0,0 +1,72 @@
+package br.com.tourapp.entity;
+
+import br.com.tourapp.enums.StatusIdempotencia;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Resposta gravada para uma Idempotency-Key, devolvida nas repetições da mesma requisição.
+ */
+@Entity
+@Table(name = "idempotencia_requisicoes",
+        uniqueConstraints = @UniqueConstraint(name = "uk_idempotencia_user_chave", columnNames = {"user_id", "chave"}))
+public class IdempotenciaRequisicao extends BaseEntity {
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(nullable = false)
+    private String chave;
+
+    @Column(nullable = false, length = 100)
+    private String operacao;
+
+    @Column(name = "hash_requisicao", nullable = false, length = 64)
+    private String hashRequisicao;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StatusIdempotencia status = StatusIdempotencia.EM_ANDAMENTO;
+
+    @Column(name = "corpo_resposta", columnDefinition = "TEXT")
+    private String corpoResposta;
+
+    @Column(name = "expira_em", nullable = false)
+    private LocalDateTime expiraEm;
+
+    // Construtores
+    public IdempotenciaRequisicao() {}
+
+    public IdempotenciaRequisicao(UUID userId, String chave, String operacao, String hashRequisicao,
+                                  LocalDateTime expiraEm) {
+        this.userId = userId;
+        this.chave = chave;
+        this.operacao = operacao;
+        this.hashRequisicao = hashRequisicao;
+        this.expiraEm = expiraEm;
+    }
+
+    // Getters e Setters
+    public UUID getUserId() { return userId; }
+    public void setUserId(UUID userId) { this.userId = userId; }
+
+    public String getChave() { return chave; }
+    public void setChave(String chave) { this.chave = chave; }
+
+    public String getOperacao() { return operacao; }
+    public void setOperacao(String operacao) { this.operacao = operacao; }
+
+    public String getHashRequisicao() { return hashRequisicao; }
+    public void setHashRequisicao(String hashRequisicao) { this.hashRequisicao = hashRequisicao; }
+
+    public StatusIdempotencia getStatus() { return status; }
+    public void setStatus(StatusIdempotencia status) { this.status = status; }
+
+    public String getCorpoResposta() { return corpoResposta; }
+    public void setCorpoResposta(String corpoResposta) { this.corpoResposta = corpoResposta; }
+
+    public LocalDateTime getExpiraEm() { return expiraEm; }
+    public void setExpiraEm(LocalDateTime expiraEm) { this.expiraEm = expiraEm; }
+}
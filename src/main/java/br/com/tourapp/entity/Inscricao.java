@@ -7,6 +7,7 @@ import jakarta.validation.constraints.NotNull;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.UUID;
 
 @Entity
 @Table(name = "inscricoes")
@@ -35,6 +36,10 @@ public class Inscricao extends BaseEntity {
     @OneToMany(mappedBy = "inscricao", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Pagamento> pagamentos;
 
+    // Inscrições feitas juntas (reserva em grupo) compartilham o mesmo grupo
+    @Column(name = "grupo_id")
+    private UUID grupoId;
+
     //TODO companiaId //TODO resolver com a Claude
 
     // Construtores
@@ -73,4 +78,7 @@ public class Inscricao extends BaseEntity {
 
     public List<Pagamento> getPagamentos() { return pagamentos; }
     public void setPagamentos(List<Pagamento> pagamentos) { this.pagamentos = pagamentos; }
+
+    public UUID getGrupoId() { return grupoId; }
+    public void setGrupoId(UUID grupoId) { this.grupoId = grupoId; }
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package br.com.tourapp.entity;
+
+import br.com.tourapp.enums.StatusListaEspera;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entrada de um cliente na lista de espera de uma excursão lotada.
+ * A ordem da fila é a data de entrada (created_at).
+ */
+@Entity
+@Table(name = "lista_espera")
+public class ListaEspera extends BaseEntity {
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "excursao_id", nullable = false)
+    private Excursao excursao;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private UserEntity user;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StatusListaEspera status = StatusListaEspera.AGUARDANDO;
+
+    @Column(name = "promovida_em")
+    private LocalDateTime promovidaEm;
+
+    // Inscrição criada quando a entrada é promovida
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "inscricao_id")
+    private Inscricao inscricao;
+
+    // Construtores
+    public ListaEspera() {}
+
+    public ListaEspera(Excursao excursao, UserEntity user) {
+        this.excursao = excursao;
+        this.user = user;
+    }
+
+    // Getters e Setters
+    public Excursao getExcursao() { return excursao; }
+    public void setExcursao(Excursao excursao) { this.excursao = excursao; }
+
+    public UserEntity getUser() { return user; }
+    public void setUser(UserEntity user) { this.user = user; }
+
+    public StatusListaEspera getStatus() { return status; }
+    public void setStatus(StatusListaEspera status) { this.status = status; }
+
+    public LocalDateTime getPromovidaEm() { return promovidaEm; }
+    public void setPromovidaEm(LocalDateTime promovidaEm) { this.promovidaEm = promovidaEm; }
+
+    public Inscricao getInscricao() { return inscricao; }
+    public void setInscricao(Inscricao inscricao) { this.inscricao = inscricao; }
+}
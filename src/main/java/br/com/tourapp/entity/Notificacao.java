@@ -53,6 +53,10 @@ public class Notificacao extends BaseEntity {
     @Column(name = "enviada", nullable = false)
     private Boolean enviada = false;
 
+    // Calculado na criação e atualizado no envio, para a listagem não contar a audiência
+    @Column(name = "total_destinatarios")
+    private Long totalDestinatarios;
+
     // Construtores
     public Notificacao() {}
 
@@ -112,4 +116,7 @@ public class Notificacao extends BaseEntity {
 
     public Boolean getEnviada() { return enviada; }
     public void setEnviada(Boolean enviada) { this.enviada = enviada; }
+
+    public Long getTotalDestinatarios() { return totalDestinatarios; }
+    public void setTotalDestinatarios(Long totalDestinatarios) { this.totalDestinatarios = totalDestinatarios; }
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ import jakarta.validation.constraints.NotNull;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 @Entity
 @Table(name = "pagamentos")
@@ -39,9 +40,6 @@ public class Pagamento extends BaseEntity {
     @Column(name = "qr_code")
     private String qrCode;
 
-    @Column(name = "qr_code_base64", columnDefinition = "TEXT")
-    private String qrCodeBase64;
-
     @Column(name = "data_processamento")
     private LocalDateTime dataProcessamento;
 
@@ -51,6 +49,18 @@ public class Pagamento extends BaseEntity {
     @Column(name = "observacoes", columnDefinition = "TEXT")
     private String observacoes;
 
+    // Pagamento único de uma reserva em grupo (quita todas as inscrições do grupo)
+    @Column(name = "grupo_id")
+    private UUID grupoId;
+
+    // Última conferência do status com o Mercado Pago pela conciliação
+    @Column(name = "conciliado_em")
+    private LocalDateTime conciliadoEm;
+
+    // PIX expirado localmente: quando o Mercado Pago confirmou que a cobrança não pode mais ser paga
+    @Column(name = "cancelamento_confirmado_em")
+    private LocalDateTime cancelamentoConfirmadoEm;
+
     // Construtores
     public Pagamento() {}
 
@@ -82,9 +92,6 @@ public class Pagamento extends BaseEntity {
     public String getQrCode() { return qrCode; }
     public void setQrCode(String qrCode) { this.qrCode = qrCode; }
 
-    public String getQrCodeBase64() { return qrCodeBase64; }
-    public void setQrCodeBase64(String qrCodeBase64) { this.qrCodeBase64 = qrCodeBase64; }
-
     public LocalDateTime getDataProcessamento() { return dataProcessamento; }
     public void setDataProcessamento(LocalDateTime dataProcessamento) { this.dataProcessamento = dataProcessamento; }
 
@@ -93,5 +100,13 @@ public class Pagamento extends BaseEntity {
 
     public String getObservacoes() { return observacoes; }
     public void setObservacoes(String observacoes) { this.observacoes = observacoes; }
-}
 
+    public UUID getGrupoId() { return grupoId; }
+    public void setGrupoId(UUID grupoId) { this.grupoId = grupoId; }
+
+    public LocalDateTime getConciliadoEm() { return conciliadoEm; }
+    public void setConciliadoEm(LocalDateTime conciliadoEm) { this.conciliadoEm = conciliadoEm; }
+
+    public LocalDateTime getCancelamentoConfirmadoEm() { return cancelamentoConfirmadoEm; }
+    public void setCancelamentoConfirmadoEm(LocalDateTime cancelamentoConfirmadoEm) { this.cancelamentoConfirmadoEm = cancelamentoConfirmadoEm; }
+}
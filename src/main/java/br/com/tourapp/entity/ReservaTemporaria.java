@@ -0,0 +1,59 @@
+package br.com.tourapp.entity;
+
+import br.com.tourapp.enums.StatusReservaTemporaria;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Vaga segurada para uma inscrição enquanto o pagamento não é confirmado.
+ * Ao expirar, a vaga volta para a excursão.
+ */
+@Entity
+@Table(name = "reservas_temporarias")
+public class ReservaTemporaria extends BaseEntity {
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "inscricao_id", nullable = false, unique = true)
+    private Inscricao inscricao;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "excursao_id", nullable = false)
+    private Excursao excursao;
+
+    @Column(nullable = false)
+    private Integer quantidade = 1;
+
+    @Column(name = "expira_em", nullable = false)
+    private LocalDateTime expiraEm;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StatusReservaTemporaria status = StatusReservaTemporaria.ATIVA;
+
+    // Construtores
+    public ReservaTemporaria() {}
+
+    public ReservaTemporaria(Inscricao inscricao, Excursao excursao, Integer quantidade, LocalDateTime expiraEm) {
+        this.inscricao = inscricao;
+        this.excursao = excursao;
+        this.quantidade = quantidade;
+        this.expiraEm = expiraEm;
+    }
+
+    // Getters e Setters
+    public Inscricao getInscricao() { return inscricao; }
+    public void setInscricao(Inscricao inscricao) { this.inscricao = inscricao; }
+
+    public Excursao getExcursao() { return excursao; }
+    public void setExcursao(Excursao excursao) { this.excursao = excursao; }
+
+    public Integer getQuantidade() { return quantidade; }
+    public void setQuantidade(Integer quantidade) { this.quantidade = quantidade; }
+
+    public LocalDateTime getExpiraEm() { return expiraEm; }
+    public void setExpiraEm(LocalDateTime expiraEm) { this.expiraEm = expiraEm; }
+
+    public StatusReservaTemporaria getStatus() { return status; }
+    public void setStatus(StatusReservaTemporaria status) { this.status = status; }
+}
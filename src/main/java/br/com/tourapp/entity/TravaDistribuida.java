@@ -0,0 +1,43 @@
+package br.com.tourapp.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Trava com prazo (lease) compartilhada entre os nós, usada para eleger um único executor de jobs.
+ *
+ * O nó {@code dono} detém a trava até {@code expiraEm}; depois disso qualquer nó pode tomá-la.
+ */
+@Entity
+@Table(name = "travas_distribuidas")
+public class TravaDistribuida extends BaseEntity {
+
+    @Column(nullable = false, unique = true, length = 100)
+    private String nome;
+
+    @Column(nullable = false)
+    private String dono;
+
+    @Column(name = "expira_em", nullable = false)
+    private LocalDateTime expiraEm;
+
+    // Construtores
+    public TravaDistribuida() {}
+
+    public TravaDistribuida(String nome, String dono, LocalDateTime expiraEm) {
+        this.nome = nome;
+        this.dono = dono;
+        this.expiraEm = expiraEm;
+    }
+
+    // Getters e Setters
+    public String getNome() { return nome; }
+    public void setNome(String nome) { this.nome = nome; }
+
+    public String getDono() { return dono; }
+    public void setDono(String dono) { this.dono = dono; }
+
+    public LocalDateTime getExpiraEm() { return expiraEm; }
+    public void setExpiraEm(LocalDateTime expiraEm) { this.expiraEm = expiraEm; }
+}
@@ -0,0 +1,81 @@
+package br.com.tourapp.entity;
+
+import br.com.tourapp.enums.StatusWebhook;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Notificação do Mercado Pago gravada na inbox para processamento assíncrono.
+ * Notificações que esgotam as tentativas ficam como FALHOU (dead letter).
+ */
+@Entity
+@Table(name = "webhook_inbox")
+public class WebhookRecebido extends BaseEntity {
+
+    @Column(name = "payment_id", nullable = false, length = 50)
+    private String paymentId;
+
+    @Column(nullable = false, length = 50)
+    private String tipo;
+
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StatusWebhook status = StatusWebhook.PENDENTE;
+
+    @Column(nullable = false)
+    private Integer tentativas = 0;
+
+    @Column(name = "proxima_tentativa_em", nullable = false)
+    private LocalDateTime proximaTentativaEm;
+
+    @Column(name = "bloqueado_ate")
+    private LocalDateTime bloqueadoAte;
+
+    @Column(name = "processado_em")
+    private LocalDateTime processadoEm;
+
+    @Column(name = "ultimo_erro", columnDefinition = "TEXT")
+    private String ultimoErro;
+
+    // Construtores
+    public WebhookRecebido() {}
+
+    public WebhookRecebido(String paymentId, String tipo, String payload, LocalDateTime proximaTentativaEm) {
+        this.paymentId = paymentId;
+        this.tipo = tipo;
+        this.payload = payload;
+        this.proximaTentativaEm = proximaTentativaEm;
+    }
+
+    // Getters e Setters
+    public String getPaymentId() { return paymentId; }
+    public void setPaymentId(String paymentId) { this.paymentId = paymentId; }
+
+    public String getTipo() { return tipo; }
+    public void setTipo(String tipo) { this.tipo = tipo; }
+
+    public String getPayload() { return payload; }
+    public void setPayload(String payload) { this.payload = payload; }
+
+    public StatusWebhook getStatus() { return status; }
+    public void setStatus(StatusWebhook status) { this.status = status; }
+
+    public Integer getTentativas() { return tentativas; }
+    public void setTentativas(Integer tentativas) { this.tentativas = tentativas; }
+
+    public LocalDateTime getProximaTentativaEm() { return proximaTentativaEm; }
+    public void setProximaTentativaEm(LocalDateTime proximaTentativaEm) { this.proximaTentativaEm = proximaTentativaEm; }
+
+    public LocalDateTime getBloqueadoAte() { return bloqueadoAte; }
+    public void setBloqueadoAte(LocalDateTime bloqueadoAte) { this.bloqueadoAte = bloqueadoAte; }
+
+    public LocalDateTime getProcessadoEm() { return processadoEm; }
+    public void setProcessadoEm(LocalDateTime processadoEm) { this.processadoEm = processadoEm; }
+
+    public String getUltimoErro() { return ultimoErro; }
+    public void setUltimoErro(String ultimoErro) { this.ultimoErro = ultimoErro; }
+}
@@ -0,0 +1,16 @@
+package br.com.tourapp.enums;
+
+public enum CanalNotificacao {
+    EMAIL("Email"),
+    PUSH("Push");
+
+    private final String descricao;
+
+    CanalNotificacao(String descricao) {
+        this.descricao = descricao;
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+}
@@ -0,0 +1,18 @@
+package br.com.tourapp.enums;
+
+public enum StatusEntregaNotificacao {
+    PENDENTE("Pendente"),
+    PROCESSANDO("Processando"),
+    ENTREGUE("Entregue"),
+    FALHOU("Falhou");
+
+    private final String descricao;
+
+    StatusEntregaNotificacao(String descricao) {
+        this.descricao = descricao;
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+}
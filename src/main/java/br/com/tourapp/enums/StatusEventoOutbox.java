@@ -0,0 +1,18 @@
+package br.com.tourapp.enums;
+
+public enum StatusEventoOutbox {
+    PENDENTE("Pendente"),
+    PROCESSANDO("Processando"),
+    PROCESSADO("Processado"),
+    FALHOU("Falhou");
+
+    private final String descricao;
+
+    StatusEventoOutbox(String descricao) {
+        this.descricao = descricao;
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+}
@@ -0,0 +1,16 @@
+package br.com.tourapp.enums;
+
+public enum StatusIdempotencia {
+    EM_ANDAMENTO("Em andamento"),
+    CONCLUIDA("Concluída");
+
+    private final String descricao;
+
+    StatusIdempotencia(String descricao) {
+        this.descricao = descricao;
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+}
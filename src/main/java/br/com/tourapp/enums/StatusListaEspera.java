@@ -0,0 +1,17 @@
+package br.com.tourapp.enums;
+
+public enum StatusListaEspera {
+    AGUARDANDO("Aguardando"),
+    PROMOVIDA("Promovida"),
+    CANCELADA("Cancelada");
+
+    private final String descricao;
+
+    StatusListaEspera(String descricao) {
+        this.descricao = descricao;
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+}
@@ -0,0 +1,18 @@
+package br.com.tourapp.enums;
+
+public enum StatusReservaTemporaria {
+    ATIVA("Ativa"),
+    CONFIRMADA("Confirmada"),
+    EXPIRADA("Expirada"),
+    CANCELADA("Cancelada");
+
+    private final String descricao;
+
+    StatusReservaTemporaria(String descricao) {
+        this.descricao = descricao;
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+}
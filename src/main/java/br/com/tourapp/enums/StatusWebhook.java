@@ -0,0 +1,18 @@
+package br.com.tourapp.enums;
+
+public enum StatusWebhook {
+    PENDENTE("Pendente"),
+    PROCESSANDO("Processando"),
+    PROCESSADO("Processado"),
+    FALHOU("Falhou");
+
+    private final String descricao;
+
+    StatusWebhook(String descricao) {
+        this.descricao = descricao;
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+}
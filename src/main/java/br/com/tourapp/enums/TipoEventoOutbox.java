@@ -0,0 +1,17 @@
+package br.com.tourapp.enums;
+
+public enum TipoEventoOutbox {
+    PAGAMENTO_CONFIRMADO("Pagamento confirmado"),
+    PIX_VENCIDO("PIX vencido"),
+    REEMBOLSO_SOLICITADO("Reembolso solicitado");
+
+    private final String descricao;
+
+    TipoEventoOutbox(String descricao) {
+        this.descricao = descricao;
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+}
@@ -0,0 +1,21 @@
+package br.com.tourapp.exception;
+
+import br.com.tourapp.dto.response.TicketFilaResponse;
+
+/**
+ * Exceção lançada quando a requisição não foi admitida e o cliente deve aguardar na fila.
+ * Carrega o ticket que deve ser reenviado na próxima tentativa.
+ */
+public class FilaAdmissaoException extends RuntimeException {
+
+    private final TicketFilaResponse ticket;
+
+    public FilaAdmissaoException(TicketFilaResponse ticket) {
+        super(ticket.getMensagem());
+        this.ticket = ticket;
+    }
+
+    public TicketFilaResponse getTicket() {
+        return ticket;
+    }
+}
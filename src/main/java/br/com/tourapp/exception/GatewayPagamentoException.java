@@ -0,0 +1,14 @@
+package br.com.tourapp.exception;
+
+/**
+ * Provedor de pagamentos indisponível, lento ou protegido pelo circuit breaker.
+ */
+public class GatewayPagamentoException extends RuntimeException {
+    public GatewayPagamentoException(String message) {
+        super(message);
+    }
+
+    public GatewayPagamentoException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
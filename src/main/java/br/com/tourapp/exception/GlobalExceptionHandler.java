@@ -1,6 +1,8 @@
 package br.com.tourapp.exception;
 
+import br.com.tourapp.dto.response.TicketFilaResponse;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -267,6 +269,45 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    /**
+     * Trata conflitos (recurso duplicado ou requisição idempotente ainda em processamento)
+     */
+    @ExceptionHandler(DuplicateResourceException.class)
+    public ResponseEntity<ErrorResponse> handleDuplicateResourceException(DuplicateResourceException ex, WebRequest request) {
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.CONFLICT.value(),
+                ex.getMessage(),
+                request.getDescription(false).replace("uri=", ""),
+                LocalDateTime.now()
+        );
+        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+    }
+
+    /**
+     * Trata requisições retidas na fila de admissão (lançamentos concorridos)
+     */
+    @ExceptionHandler(FilaAdmissaoException.class)
+    public ResponseEntity<TicketFilaResponse> handleFilaAdmissaoException(FilaAdmissaoException ex) {
+        TicketFilaResponse ticket = ex.getTicket();
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ticket.getEsperaEstimadaSegundos()))
+                .body(ticket);
+    }
+
+    /**
+     * Trata indisponibilidade do provedor de pagamentos (prazo, bulkhead cheio ou circuito aberto)
+     */
+    @ExceptionHandler(GatewayPagamentoException.class)
+    public ResponseEntity<ErrorResponse> handleGatewayPagamentoException(GatewayPagamentoException ex, WebRequest request) {
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                ex.getMessage(),
+                request.getDescription(false).replace("uri=", ""),
+                LocalDateTime.now()
+        );
+        return new ResponseEntity<>(error, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     /**
      * Fallback para qualquer exceção não capturada
      */
@@ -0,0 +1,24 @@
+package br.com.tourapp.repository;
+
+import br.com.tourapp.entity.ArtefatoPix;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface ArtefatoPixRepository extends JpaRepository<ArtefatoPix, UUID> {
+
+    @Query("SELECT a.imagem AS imagem, a.etag AS etag, a.pagamento.inscricao.user.id AS clienteId " +
+            "FROM ArtefatoPix a WHERE a.pagamento.id = :pagamentoId")
+    Optional<ImagemPix> findImagemByPagamentoId(@Param("pagamentoId") UUID pagamentoId);
+
+    interface ImagemPix {
+        byte[] getImagem();
+        String getEtag();
+        UUID getClienteId();
+    }
+}
@@ -0,0 +1,46 @@
+package br.com.tourapp.repository;
+
+import br.com.tourapp.entity.CaixaNotificacao;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface CaixaNotificacaoRepository extends JpaRepository<CaixaNotificacao, UUID> {
+
+    Optional<CaixaNotificacao> findByUserId(UUID userId);
+
+    // "Marcar todas como lidas": um único comando, crie ou não a caixa
+    @Modifying
+    @Query(value = "INSERT INTO caixas_notificacao (user_id, nao_lidas, lidas_ate) VALUES (:userId, 0, :agora) " +
+            "ON CONFLICT (user_id) DO UPDATE SET nao_lidas = 0, lidas_ate = EXCLUDED.lidas_ate",
+            nativeQuery = true)
+    int marcarTodasLidas(@Param("userId") UUID userId, @Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query("UPDATE CaixaNotificacao c SET c.naoLidas = c.naoLidas - 1, c.updatedAt = :agora " +
+            "WHERE c.userId = :userId AND c.naoLidas > 0")
+    int decrementarNaoLidas(@Param("userId") UUID userId, @Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query(value = "INSERT INTO leituras_notificacao (user_id, notificacao_id, lida_em) " +
+            "VALUES (:userId, :notificacaoId, :agora) " +
+            "ON CONFLICT (user_id, notificacao_id) DO NOTHING",
+            nativeQuery = true)
+    int registrarLeitura(@Param("userId") UUID userId,
+                         @Param("notificacaoId") UUID notificacaoId,
+                         @Param("agora") LocalDateTime agora);
+
+    @Query(value = "SELECT l.notificacao_id FROM leituras_notificacao l " +
+            "WHERE l.user_id = :userId AND l.notificacao_id IN (:notificacaoIds)",
+            nativeQuery = true)
+    List<UUID> findLidas(@Param("userId") UUID userId, @Param("notificacaoIds") Collection<UUID> notificacaoIds);
+}
@@ -0,0 +1,72 @@
+package br.com.tourapp.repository;
+
+import br.com.tourapp.entity.EntregaNotificacao;
+import br.com.tourapp.enums.CanalNotificacao;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface EntregaNotificacaoRepository extends JpaRepository<EntregaNotificacao, UUID> {
+
+    // Linhas já reservadas por outro worker são puladas em vez de esperadas
+    @Query(value = "SELECT e.id FROM entregas_notificacao e " +
+            "WHERE e.status = 'PENDENTE' AND e.proxima_tentativa_em <= :agora " +
+            "ORDER BY e.proxima_tentativa_em " +
+            "LIMIT :lote " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<UUID> reservarProximas(@Param("agora") LocalDateTime agora, @Param("lote") int lote);
+
+    @Modifying
+    @Query("UPDATE EntregaNotificacao e SET e.status = 'PROCESSANDO', e.tentativas = e.tentativas + 1, " +
+            "e.bloqueadoAte = :bloqueadoAte, e.updatedAt = :agora WHERE e.id IN :ids")
+    int marcarProcessando(@Param("ids") Collection<UUID> ids,
+                          @Param("bloqueadoAte") LocalDateTime bloqueadoAte,
+                          @Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query("UPDATE EntregaNotificacao e SET e.status = 'ENTREGUE', e.entregueEm = :agora, " +
+            "e.bloqueadoAte = null, e.ultimoErro = null, e.updatedAt = :agora " +
+            "WHERE e.id IN :ids AND e.status = 'PROCESSANDO'")
+    int marcarEntregues(@Param("ids") Collection<UUID> ids, @Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query("UPDATE EntregaNotificacao e SET e.status = 'PENDENTE', e.proximaTentativaEm = :proximaTentativa, " +
+            "e.bloqueadoAte = null, e.ultimoErro = :erro, e.updatedAt = :agora " +
+            "WHERE e.id IN :ids AND e.status = 'PROCESSANDO'")
+    int reagendar(@Param("ids") Collection<UUID> ids,
+                  @Param("proximaTentativa") LocalDateTime proximaTentativa,
+                  @Param("erro") String erro,
+                  @Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query("UPDATE EntregaNotificacao e SET e.status = 'FALHOU', e.bloqueadoAte = null, e.ultimoErro = :erro, " +
+            "e.updatedAt = :agora WHERE e.id IN :ids AND e.status = 'PROCESSANDO'")
+    int marcarFalha(@Param("ids") Collection<UUID> ids, @Param("erro") String erro, @Param("agora") LocalDateTime agora);
+
+    // Entregas presas por um worker que caiu durante o envio
+    @Modifying
+    @Query("UPDATE EntregaNotificacao e SET e.status = 'PENDENTE', e.proximaTentativaEm = :agora, " +
+            "e.bloqueadoAte = null, e.updatedAt = :agora " +
+            "WHERE e.status = 'PROCESSANDO' AND e.bloqueadoAte < :agora")
+    int liberarBloqueiosVencidos(@Param("agora") LocalDateTime agora);
+
+    // Reenvio: só o que foi para dead letter volta para a fila, com as tentativas zeradas
+    @Modifying
+    @Query("UPDATE EntregaNotificacao e SET e.status = 'PENDENTE', e.tentativas = 0, " +
+            "e.proximaTentativaEm = :agora, e.updatedAt = :agora " +
+            "WHERE e.notificacaoId = :notificacaoId AND e.canal = :canal AND e.status = 'FALHOU'")
+    int reabrirFalhas(@Param("notificacaoId") UUID notificacaoId,
+                      @Param("canal") CanalNotificacao canal,
+                      @Param("agora") LocalDateTime agora);
+
+    @Query("SELECT COUNT(e) FROM EntregaNotificacao e WHERE e.status = 'PENDENTE'")
+    long countPendentes();
+}
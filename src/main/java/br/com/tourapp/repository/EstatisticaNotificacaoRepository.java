@@ -0,0 +1,14 @@
+package br.com.tourapp.repository;
+
+import br.com.tourapp.entity.EstatisticaNotificacao;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface EstatisticaNotificacaoRepository extends JpaRepository<EstatisticaNotificacao, UUID> {
+
+    List<EstatisticaNotificacao> findByNotificacaoId(UUID notificacaoId);
+}
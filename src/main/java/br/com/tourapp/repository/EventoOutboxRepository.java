@@ -0,0 +1,72 @@
+package br.com.tourapp.repository;
+
+import br.com.tourapp.entity.EventoOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface EventoOutboxRepository extends JpaRepository<EventoOutbox, UUID> {
+
+    // Linhas já reservadas por outro nó são puladas em vez de esperadas
+    @Query(value = "SELECT e.id FROM outbox_eventos e " +
+            "WHERE e.status = 'PENDENTE' AND e.proxima_tentativa_em <= :agora " +
+            "ORDER BY e.proxima_tentativa_em " +
+            "LIMIT :lote " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<UUID> reservarProximos(@Param("agora") LocalDateTime agora, @Param("lote") int lote);
+
+    @Modifying
+    @Query("UPDATE EventoOutbox e SET e.status = 'PROCESSANDO', e.tentativas = e.tentativas + 1, " +
+            "e.bloqueadoAte = :bloqueadoAte, e.updatedAt = :agora WHERE e.id IN :ids")
+    int marcarProcessando(@Param("ids") Collection<UUID> ids,
+                          @Param("bloqueadoAte") LocalDateTime bloqueadoAte,
+                          @Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query("UPDATE EventoOutbox e SET e.status = 'PROCESSADO', e.processadoEm = :agora, " +
+            "e.bloqueadoAte = null, e.ultimoErro = null, e.updatedAt = :agora " +
+            "WHERE e.id = :id AND e.status = 'PROCESSANDO'")
+    int marcarProcessado(@Param("id") UUID id, @Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query("UPDATE EventoOutbox e SET e.status = 'PENDENTE', e.proximaTentativaEm = :proximaTentativa, " +
+            "e.bloqueadoAte = null, e.ultimoErro = :erro, e.updatedAt = :agora " +
+            "WHERE e.id = :id AND e.status = 'PROCESSANDO'")
+    int reagendar(@Param("id") UUID id,
+                  @Param("proximaTentativa") LocalDateTime proximaTentativa,
+                  @Param("erro") String erro,
+                  @Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query("UPDATE EventoOutbox e SET e.status = 'FALHOU', e.bloqueadoAte = null, e.ultimoErro = :erro, " +
+            "e.updatedAt = :agora WHERE e.id = :id AND e.status = 'PROCESSANDO'")
+    int marcarFalha(@Param("id") UUID id, @Param("erro") String erro, @Param("agora") LocalDateTime agora);
+
+    // Eventos presos por um nó que caiu durante o processamento
+    @Modifying
+    @Query("UPDATE EventoOutbox e SET e.status = 'PENDENTE', e.proximaTentativaEm = :agora, " +
+            "e.bloqueadoAte = null, e.updatedAt = :agora " +
+            "WHERE e.status = 'PROCESSANDO' AND e.bloqueadoAte < :agora")
+    int liberarBloqueiosVencidos(@Param("agora") LocalDateTime agora);
+
+    @Query("SELECT COUNT(e) AS quantidade, MIN(e.createdAt) AS maisAntigo " +
+            "FROM EventoOutbox e WHERE e.status = 'PENDENTE'")
+    ResumoOutbox resumirPendentes();
+
+    @Modifying
+    @Query("DELETE FROM EventoOutbox e WHERE e.status = 'PROCESSADO' AND e.processadoEm < :limite")
+    int removerProcessadosAte(@Param("limite") LocalDateTime limite);
+
+    interface ResumoOutbox {
+        Long getQuantidade();
+        LocalDateTime getMaisAntigo();
+    }
+}
@@ -5,10 +5,12 @@ import br.com.tourapp.enums.StatusExcursao;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -30,8 +32,17 @@ public interface ExcursaoRepository extends JpaRepository<Excursao, UUID> {
     @Query("SELECT e FROM Excursao e WHERE e.status = 'ATIVA' AND e.dataSaida > :now")
     List<Excursao> findExcursoesAtivas(@Param("now") LocalDateTime now);
 
-    @Query("SELECT e FROM Excursao e WHERE e.status = 'ATIVA' AND e.dataSaida > :now")
-    Page<Excursao> findExcursoesAtivasPageable(@Param("now") LocalDateTime now, Pageable pageable);
+    // CATÁLOGO PÚBLICO - paginação por cursor em (dataSaida, id), só colunas do índice de V29
+    @Query("SELECT e.id AS id, e.titulo AS titulo, e.dataSaida AS dataSaida, e.dataRetorno AS dataRetorno, " +
+            "e.preco AS preco, e.vagasTotal AS vagasTotal, e.vagasOcupadas AS vagasOcupadas, " +
+            "e.localSaida AS localSaida, e.localDestino AS localDestino " +
+            "FROM Excursao e WHERE e.status = 'ATIVA' AND e.dataSaida > :now " +
+            "AND (e.dataSaida > :cursorSaida OR (e.dataSaida = :cursorSaida AND e.id > :cursorId)) " +
+            "ORDER BY e.dataSaida, e.id")
+    List<ItemCatalogoExcursao> findCatalogo(@Param("now") LocalDateTime now,
+                                            @Param("cursorSaida") LocalDateTime cursorSaida,
+                                            @Param("cursorId") UUID cursorId,
+                                            Pageable pageable);
 
     @Query("SELECT COUNT(e) FROM Excursao e WHERE e.organizador.id = :organizadorId AND e.status = :status")
     Long countByOrganizadorIdAndStatus(@Param("organizadorId") UUID organizadorId,
@@ -43,7 +54,8 @@ public interface ExcursaoRepository extends JpaRepository<Excursao, UUID> {
                                                           @Param("dataInicio") LocalDateTime dataInicio,
                                                           @Param("dataFim") LocalDateTime dataFim);
 
-    @Query("SELECT e FROM Excursao e WHERE e.dataSaida BETWEEN :hoje AND :amanha AND e.status = 'ATIVA'")
+    // Usado pelos lembretes automáticos: excursões lotadas também saem
+    @Query("SELECT e FROM Excursao e WHERE e.dataSaida BETWEEN :hoje AND :amanha AND e.status IN ('ATIVA', 'LOTADA')")
     List<Excursao> findExcursoesProximasSaida(@Param("hoje") LocalDateTime hoje,
                                               @Param("amanha") LocalDateTime amanha);
 
@@ -64,5 +76,43 @@ public interface ExcursaoRepository extends JpaRepository<Excursao, UUID> {
 
     @Query("SELECT COUNT(i) FROM Inscricao i WHERE i.excursao.id = :excursaoId")
     Long countByExcursaoId(@Param("excursaoId") UUID excursaoId);
-}
 
+    // RESERVA DE VAGAS - update condicional (sem read-modify-write). Incrementa a versão para que uma
+    // Excursao carregada antes não seja gravada por cima; a já gerenciada é recarregada pelo ReservaVagaService
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Excursao e SET e.vagasOcupadas = e.vagasOcupadas + :quantidade, " +
+            "e.status = CASE WHEN e.vagasOcupadas + :quantidade >= e.vagasTotal " +
+            "THEN :lotada ELSE e.status END, " +
+            "e.updatedAt = :agora, e.version = e.version + 1 " +
+            "WHERE e.id = :excursaoId AND e.status = :ativa " +
+            "AND e.vagasOcupadas + :quantidade <= e.vagasTotal")
+    int reservarVagas(@Param("excursaoId") UUID excursaoId,
+                      @Param("quantidade") int quantidade,
+                      @Param("ativa") StatusExcursao ativa,
+                      @Param("lotada") StatusExcursao lotada,
+                      @Param("agora") LocalDateTime agora);
+
+    // LIBERAÇÃO DE VAGAS - devolve vagas e reabre excursões LOTADAS, também incrementando a versão
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Excursao e SET e.vagasOcupadas = e.vagasOcupadas - :quantidade, " +
+            "e.status = CASE WHEN e.status = :lotada THEN :ativa ELSE e.status END, " +
+            "e.updatedAt = :agora, e.version = e.version + 1 " +
+            "WHERE e.id = :excursaoId AND e.vagasOcupadas >= :quantidade")
+    int liberarVagas(@Param("excursaoId") UUID excursaoId,
+                     @Param("quantidade") int quantidade,
+                     @Param("ativa") StatusExcursao ativa,
+                     @Param("lotada") StatusExcursao lotada,
+                     @Param("agora") LocalDateTime agora);
+
+    interface ItemCatalogoExcursao {
+        UUID getId();
+        String getTitulo();
+        LocalDateTime getDataSaida();
+        LocalDateTime getDataRetorno();
+        BigDecimal getPreco();
+        Integer getVagasTotal();
+        Integer getVagasOcupadas();
+        String getLocalSaida();
+        String getLocalDestino();
+    }
+}
@@ -0,0 +1,54 @@
+package br.com.tourapp.repository;
+
+import br.com.tourapp.entity.FilaAdmissao;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface FilaAdmissaoRepository extends JpaRepository<FilaAdmissao, UUID> {
+
+    @Query("SELECT f.ultimaPosicao AS ultimaPosicao, f.fronteira AS fronteira " +
+            "FROM FilaAdmissao f WHERE f.excursao.id = :excursaoId")
+    Optional<PosicoesFila> findPosicoes(@Param("excursaoId") UUID excursaoId);
+
+    // Reserva um bloco de posições para este nó; o lock da linha serializa os nós
+    @Modifying
+    @Query("UPDATE FilaAdmissao f SET f.ultimaPosicao = f.ultimaPosicao + :bloco, f.updatedAt = :agora " +
+            "WHERE f.excursao.id = :excursaoId")
+    int reservarBloco(@Param("excursaoId") UUID excursaoId,
+                      @Param("bloco") long bloco,
+                      @Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query("UPDATE FilaAdmissao f SET f.fronteira = CASE WHEN f.fronteira + :quantidade > f.ultimaPosicao " +
+            "THEN f.ultimaPosicao ELSE f.fronteira + :quantidade END, f.updatedAt = :agora " +
+            "WHERE f.excursao.id = :excursaoId")
+    int avancarFronteira(@Param("excursaoId") UUID excursaoId,
+                         @Param("quantidade") long quantidade,
+                         @Param("agora") LocalDateTime agora);
+
+    // Marca o ticket como usado; 0 se ele já tinha admitido uma requisição (neste ou em outro nó)
+    @Modifying
+    @Query(value = "INSERT INTO fila_admissao_tickets_usados (excursao_id, posicao, usado_em) " +
+            "VALUES (:excursaoId, :posicao, :agora) ON CONFLICT (excursao_id, posicao) DO NOTHING",
+            nativeQuery = true)
+    int consumirTicket(@Param("excursaoId") UUID excursaoId,
+                       @Param("posicao") long posicao,
+                       @Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query(value = "DELETE FROM fila_admissao_tickets_usados WHERE usado_em < :limite", nativeQuery = true)
+    int removerTicketsUsadosAntesDe(@Param("limite") LocalDateTime limite);
+
+    interface PosicoesFila {
+        Long getUltimaPosicao();
+        Long getFronteira();
+    }
+}
@@ -0,0 +1,35 @@
+package br.com.tourapp.repository;
+
+import br.com.tourapp.entity.IdempotenciaRequisicao;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface IdempotenciaRequisicaoRepository extends JpaRepository<IdempotenciaRequisicao, UUID> {
+
+    Optional<IdempotenciaRequisicao> findByUserIdAndChave(UUID userId, String chave);
+
+    @Modifying
+    @Query("UPDATE IdempotenciaRequisicao r SET r.status = 'CONCLUIDA', r.corpoResposta = :corpo, " +
+            "r.expiraEm = :expiraEm, r.updatedAt = :agora WHERE r.id = :id AND r.status = 'EM_ANDAMENTO'")
+    int concluir(@Param("id") UUID id,
+                 @Param("corpo") String corpo,
+                 @Param("expiraEm") LocalDateTime expiraEm,
+                 @Param("agora") LocalDateTime agora);
+
+    // Libera a chave quando a requisição falha, para que uma nova tentativa seja executada
+    @Modifying
+    @Query("DELETE FROM IdempotenciaRequisicao r WHERE r.id = :id AND r.status = 'EM_ANDAMENTO'")
+    int liberar(@Param("id") UUID id);
+
+    @Modifying
+    @Query("DELETE FROM IdempotenciaRequisicao r WHERE r.expiraEm < :agora")
+    int removerExpiradas(@Param("agora") LocalDateTime agora);
+}
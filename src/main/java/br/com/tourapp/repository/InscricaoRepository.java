@@ -5,12 +5,14 @@ import br.com.tourapp.enums.StatusPagamento;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -70,4 +72,38 @@ public interface InscricaoRepository extends JpaRepository<Inscricao, UUID> {
 
     @Query("SELECT COUNT(i) FROM Inscricao i WHERE i.excursao.id = :excursaoId")
     Long countByExcursaoId(UUID excursaoId);
+
+    @Query("SELECT i FROM Inscricao i JOIN FETCH i.excursao JOIN FETCH i.user " +
+            "WHERE i.grupoId = :grupoId ORDER BY i.createdAt, i.id")
+    List<Inscricao> findByGrupoId(@Param("grupoId") UUID grupoId);
+
+    @Query("SELECT i FROM Inscricao i JOIN FETCH i.excursao JOIN FETCH i.user " +
+            "WHERE i.id IN :ids ORDER BY i.createdAt, i.id")
+    List<Inscricao> findComExcursaoEUsuario(@Param("ids") Collection<UUID> ids);
+
+    @Query("SELECT i.excursao.id FROM Inscricao i WHERE i.id = :inscricaoId")
+    Optional<UUID> findExcursaoIdById(@Param("inscricaoId") UUID inscricaoId);
+
+    @Query("SELECT DISTINCT i.excursao.id FROM Inscricao i WHERE i.grupoId = :grupoId")
+    Optional<UUID> findExcursaoIdByGrupoId(@Param("grupoId") UUID grupoId);
+
+    // Canais de status de pagamento (grupo ou inscrição) das inscrições ainda pendentes
+    @Query("SELECT DISTINCT COALESCE(i.grupoId, i.id) FROM Inscricao i " +
+            "WHERE i.id IN :ids AND i.statusPagamento = 'PENDENTE'")
+    List<UUID> findCanaisPendentes(@Param("ids") Collection<UUID> ids);
+
+    // Inscrições ainda pendentes cobertas pelos pagamentos informados (individuais ou de grupo)
+    @Query("SELECT i.id FROM Inscricao i WHERE i.statusPagamento = 'PENDENTE' AND EXISTS (" +
+            "SELECT 1 FROM Pagamento p WHERE p.id IN :pagamentoIds AND p.status = :statusPagamento AND (" +
+            "(p.grupoId IS NULL AND p.inscricao.id = i.id) OR (p.grupoId IS NOT NULL AND p.grupoId = i.grupoId)))")
+    List<UUID> findIdsPendentesDosPagamentos(@Param("pagamentoIds") Collection<UUID> pagamentoIds,
+                                             @Param("statusPagamento") StatusPagamento statusPagamento);
+
+    @Modifying
+    @Query("UPDATE Inscricao i SET i.statusPagamento = :novoStatus, i.updatedAt = :agora, " +
+            "i.version = i.version + 1 " +
+            "WHERE i.id IN :ids AND i.statusPagamento = 'PENDENTE'")
+    int atualizarStatusPendentes(@Param("ids") Collection<UUID> ids,
+                                 @Param("novoStatus") StatusPagamento novoStatus,
+                                 @Param("agora") LocalDateTime agora);
 }
@@ -0,0 +1,47 @@
+package br.com.tourapp.repository;
+
+import br.com.tourapp.entity.ListaEspera;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface ListaEsperaRepository extends JpaRepository<ListaEspera, UUID> {
+
+    @Query("SELECT l.id FROM ListaEspera l WHERE l.excursao.id = :excursaoId AND l.status = 'AGUARDANDO' " +
+            "ORDER BY l.createdAt, l.id")
+    List<UUID> findIdsAguardando(@Param("excursaoId") UUID excursaoId, Pageable pageable);
+
+    @Query("SELECT l FROM ListaEspera l WHERE l.excursao.id = :excursaoId AND l.user.id = :userId " +
+            "AND l.status = 'AGUARDANDO'")
+    Optional<ListaEspera> findAguardandoByExcursaoIdAndUserId(@Param("excursaoId") UUID excursaoId,
+                                                              @Param("userId") UUID userId);
+
+    @Query("SELECT COUNT(l) FROM ListaEspera l WHERE l.excursao.id = :excursaoId AND l.status = 'AGUARDANDO' " +
+            "AND l.createdAt <= :createdAt")
+    Long countPosicao(@Param("excursaoId") UUID excursaoId, @Param("createdAt") LocalDateTime createdAt);
+
+    // Promove a entrada apenas se ela ainda aguarda e for a primeira da fila no banco.
+    // O lock da linha garante que dois nós nunca promovam a mesma entrada.
+    @Modifying
+    @Query("UPDATE ListaEspera l SET l.status = 'PROMOVIDA', l.promovidaEm = :agora, l.updatedAt = :agora " +
+            "WHERE l.id = :id AND l.status = 'AGUARDANDO' AND NOT EXISTS (" +
+            "SELECT 1 FROM ListaEspera o WHERE o.excursao = l.excursao AND o.status = 'AGUARDANDO' " +
+            "AND (o.createdAt < l.createdAt OR (o.createdAt = l.createdAt AND o.id < l.id)))")
+    int promoverSePrimeira(@Param("id") UUID id, @Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query("UPDATE ListaEspera l SET l.status = 'CANCELADA', l.updatedAt = :agora " +
+            "WHERE l.excursao.id = :excursaoId AND l.user.id = :userId AND l.status = 'AGUARDANDO'")
+    int cancelarAguardando(@Param("excursaoId") UUID excursaoId,
+                           @Param("userId") UUID userId,
+                           @Param("agora") LocalDateTime agora);
+}
@@ -12,11 +12,19 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface NotificacaoRepository extends JpaRepository<Notificacao, UUID> {
 
+    // Mesmas regras de DestinatarioNotificacaoService: excursão, depois "todos", depois clientes alvo
+    String DA_CAIXA_DO_USUARIO = "n.enviada = true AND (" +
+            "(e IS NOT NULL AND EXISTS (SELECT 1 FROM Inscricao i WHERE i.user.id = :userId AND i.excursao = e " +
+            "AND i.statusPagamento = 'APROVADO')) " +
+            "OR (e IS NULL AND n.enviarParaTodos = true) " +
+            "OR (e IS NULL AND :userId MEMBER OF n.clientesAlvo))";
+
     @Query("SELECT n FROM Notificacao n WHERE n.organizador.id = :organizadorId")
     Page<Notificacao> findByOrganizadorId(@Param("organizadorId") UUID organizadorId, Pageable pageable);
 
@@ -29,9 +37,60 @@ public interface NotificacaoRepository extends JpaRepository<Notificacao, UUID>
 
     List<Notificacao> findByTipo(TipoNotificacao tipo);
 
-    @Query("SELECT n FROM Notificacao n WHERE n.enviada = false AND n.createdAt < :tempo")
-    List<Notificacao> findNotificacoesPendentes(@Param("tempo") LocalDateTime tempo);
+    // Usado pelos workers de entrega, fora de transação: o template do email precisa da compania
+    @Query("SELECT n FROM Notificacao n JOIN FETCH n.compania WHERE n.id = :id")
+    Optional<Notificacao> findComCompania(@Param("id") UUID id);
+
+    // Só os ids: a tarefa agendada filtra a sua partição e carrega cada notificação na hora de enviar
+    @Query("SELECT n.id FROM Notificacao n WHERE n.enviada = false AND n.createdAt < :tempo")
+    List<UUID> findIdsNotificacoesPendentes(@Param("tempo") LocalDateTime tempo);
+
+    // Criações mais recentes dentro da janela de cota, no máximo o limite (índices de V25)
+    @Query("SELECT n.createdAt FROM Notificacao n " +
+            "WHERE n.organizador.id = :organizadorId AND n.tipo = :tipo AND n.createdAt > :desde " +
+            "ORDER BY n.createdAt DESC")
+    List<LocalDateTime> findCriacoesRecentesDoOrganizador(@Param("organizadorId") UUID organizadorId,
+                                                          @Param("tipo") TipoNotificacao tipo,
+                                                          @Param("desde") LocalDateTime desde,
+                                                          Pageable pageable);
+
+    @Query("SELECT n.createdAt FROM Notificacao n " +
+            "WHERE n.compania.id = :companiaId AND n.tipo = :tipo AND n.createdAt > :desde " +
+            "ORDER BY n.createdAt DESC")
+    List<LocalDateTime> findCriacoesRecentesDaCompania(@Param("companiaId") UUID companiaId,
+                                                       @Param("tipo") TipoNotificacao tipo,
+                                                       @Param("desde") LocalDateTime desde,
+                                                       Pageable pageable);
+
+    // Caixa do cliente montada na leitura, por cursor em (enviadaEm, id) decrescente
+    @Query("SELECT n.id AS id, n.titulo AS titulo, n.mensagem AS mensagem, n.tipo AS tipo, " +
+            "n.enviadaEm AS enviadaEm, e.id AS excursaoId, e.titulo AS tituloExcursao " +
+            "FROM Notificacao n LEFT JOIN n.excursao e " +
+            "WHERE " + DA_CAIXA_DO_USUARIO + " " +
+            "AND (n.enviadaEm < :cursorEm OR (n.enviadaEm = :cursorEm AND n.id < :cursorId)) " +
+            "ORDER BY n.enviadaEm DESC, n.id DESC")
+    List<ItemCaixaNotificacao> findCaixaDoUsuario(@Param("userId") UUID userId,
+                                                  @Param("cursorEm") LocalDateTime cursorEm,
+                                                  @Param("cursorId") UUID cursorId,
+                                                  Pageable pageable);
+
+    @Query("SELECT n.id AS id, n.titulo AS titulo, n.mensagem AS mensagem, n.tipo AS tipo, " +
+            "n.enviadaEm AS enviadaEm, e.id AS excursaoId, e.titulo AS tituloExcursao " +
+            "FROM Notificacao n LEFT JOIN n.excursao e " +
+            "WHERE n.id = :notificacaoId AND " + DA_CAIXA_DO_USUARIO)
+    Optional<ItemCaixaNotificacao> findNaCaixaDoUsuario(@Param("userId") UUID userId,
+                                                        @Param("notificacaoId") UUID notificacaoId);
 
     @Query("SELECT COUNT(n) FROM Notificacao n WHERE n.organizador.id = :organizadorId AND n.enviada = true")
     Long countEnviadasByOrganizadorId(@Param("organizadorId") UUID organizadorId);
-}
\ No newline at end of file
+
+    interface ItemCaixaNotificacao {
+        UUID getId();
+        String getTitulo();
+        String getMensagem();
+        TipoNotificacao getTipo();
+        LocalDateTime getEnviadaEm();
+        UUID getExcursaoId();
+        String getTituloExcursao();
+    }
+}
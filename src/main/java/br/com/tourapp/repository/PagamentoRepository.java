@@ -3,12 +3,15 @@ package br.com.tourapp.repository;
 import br.com.tourapp.entity.Pagamento;
 import br.com.tourapp.enums.MetodoPagamento;
 import br.com.tourapp.enums.StatusPagamento;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -33,4 +36,97 @@ public interface PagamentoRepository extends JpaRepository<Pagamento, UUID> {
     @Query("SELECT COUNT(p) FROM Pagamento p WHERE p.status = :status AND p.metodoPagamento = :metodo")
     Long countByStatusAndMetodoPagamento(@Param("status") StatusPagamento status,
                                          @Param("metodo") MetodoPagamento metodo);
+
+    // Conciliação: pagamentos em aberto há tempo demais, e PIX expirados aqui sem cancelamento confirmado
+    // no Mercado Pago, em ordem de (createdAt, id) para paginar por chave
+    @Query("SELECT p.id AS id, p.mercadoPagoPaymentId AS mercadoPagoPaymentId, p.status AS status, " +
+            "p.metodoPagamento AS metodoPagamento, p.dataVencimento AS dataVencimento, p.createdAt AS createdAt " +
+            "FROM Pagamento p " +
+            "WHERE (p.status IN ('PENDENTE', 'PROCESSANDO') OR (p.status = 'EXPIRADO' " +
+            "AND p.metodoPagamento = 'PIX' AND p.cancelamentoConfirmadoEm IS NULL)) " +
+            "AND p.mercadoPagoPaymentId IS NOT NULL " +
+            "AND p.createdAt < :criadoAntesDe " +
+            "AND (p.conciliadoEm IS NULL OR p.conciliadoEm < :conciliadoAntesDe) " +
+            "AND (p.createdAt > :ultimoCriadoEm OR (p.createdAt = :ultimoCriadoEm AND p.id > :ultimoId)) " +
+            "ORDER BY p.createdAt, p.id")
+    List<PagamentoPendente> findPendentesParaConciliar(@Param("criadoAntesDe") LocalDateTime criadoAntesDe,
+                                                       @Param("conciliadoAntesDe") LocalDateTime conciliadoAntesDe,
+                                                       @Param("ultimoCriadoEm") LocalDateTime ultimoCriadoEm,
+                                                       @Param("ultimoId") UUID ultimoId,
+                                                       Pageable pageable);
+
+    @Query("SELECT COUNT(p) AS total, MIN(p.createdAt) AS maisAntigo FROM Pagamento p " +
+            "WHERE (p.status IN ('PENDENTE', 'PROCESSANDO') OR (p.status = 'EXPIRADO' " +
+            "AND p.metodoPagamento = 'PIX' AND p.cancelamentoConfirmadoEm IS NULL)) " +
+            "AND p.mercadoPagoPaymentId IS NOT NULL " +
+            "AND p.createdAt < :criadoAntesDe " +
+            "AND (p.conciliadoEm IS NULL OR p.conciliadoEm < :conciliadoAntesDe)")
+    ResumoConciliacao resumirPendentesDeConciliacao(@Param("criadoAntesDe") LocalDateTime criadoAntesDe,
+                                                    @Param("conciliadoAntesDe") LocalDateTime conciliadoAntesDe);
+
+    @Modifying
+    @Query("UPDATE Pagamento p SET p.conciliadoEm = :agora WHERE p.id IN :ids")
+    int marcarConciliados(@Param("ids") Collection<UUID> ids,
+                          @Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query("UPDATE Pagamento p SET p.status = :novoStatus, p.dataProcessamento = :agora, p.updatedAt = :agora, " +
+            "p.conciliadoEm = :agora, p.version = p.version + 1 " +
+            "WHERE p.id IN :ids AND p.status = 'PENDENTE'")
+    int atualizarStatusPendentes(@Param("ids") Collection<UUID> ids,
+                                 @Param("novoStatus") StatusPagamento novoStatus,
+                                 @Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query("UPDATE Pagamento p SET p.status = :novoStatus, p.dataProcessamento = :agora, p.updatedAt = :agora, " +
+            "p.version = p.version + 1 " +
+            "WHERE p.inscricao.id IN :inscricaoIds AND p.status = 'PENDENTE'")
+    int atualizarStatusPendentesPorInscricao(@Param("inscricaoIds") Collection<UUID> inscricaoIds,
+                                             @Param("novoStatus") StatusPagamento novoStatus,
+                                             @Param("agora") LocalDateTime agora);
+
+    // Cobranças PIX ainda pendentes das inscrições cuja reserva expirou, para cancelar no Mercado Pago
+    @Query("SELECT DISTINCT p.id AS id, p.mercadoPagoPaymentId AS mercadoPagoPaymentId FROM Pagamento p " +
+            "WHERE p.inscricao.id IN :inscricaoIds AND p.status = 'PENDENTE' AND p.metodoPagamento = 'PIX' " +
+            "AND p.mercadoPagoPaymentId IS NOT NULL")
+    List<CobrancaPix> findPixPendentesPorInscricao(@Param("inscricaoIds") Collection<UUID> inscricaoIds);
+
+    @Modifying
+    @Query("UPDATE Pagamento p SET p.cancelamentoConfirmadoEm = :agora, p.updatedAt = :agora " +
+            "WHERE p.id = :id AND p.cancelamentoConfirmadoEm IS NULL")
+    int confirmarCancelamento(@Param("id") UUID id, @Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query("UPDATE Pagamento p SET p.cancelamentoConfirmadoEm = :agora, p.conciliadoEm = :agora, p.updatedAt = :agora " +
+            "WHERE p.id IN :ids AND p.cancelamentoConfirmadoEm IS NULL")
+    int confirmarCancelamentos(@Param("ids") Collection<UUID> ids, @Param("agora") LocalDateTime agora);
+
+    // Canal de status (grupo ou inscrição) dos pagamentos ainda pendentes, antes de um UPDATE em lote
+    @Query("SELECT p.id AS pagamentoId, COALESCE(p.grupoId, p.inscricao.id) AS canal FROM Pagamento p " +
+            "WHERE p.id IN :ids AND p.status = 'PENDENTE'")
+    List<CanalPagamento> findCanaisPendentes(@Param("ids") Collection<UUID> ids);
+
+    interface CanalPagamento {
+        UUID getPagamentoId();
+        UUID getCanal();
+    }
+
+    interface CobrancaPix {
+        UUID getId();
+        String getMercadoPagoPaymentId();
+    }
+
+    interface PagamentoPendente {
+        UUID getId();
+        String getMercadoPagoPaymentId();
+        StatusPagamento getStatus();
+        MetodoPagamento getMetodoPagamento();
+        LocalDateTime getDataVencimento();
+        LocalDateTime getCreatedAt();
+    }
+
+    interface ResumoConciliacao {
+        Long getTotal();
+        LocalDateTime getMaisAntigo();
+    }
 }
@@ -0,0 +1,66 @@
+package br.com.tourapp.repository;
+
+import br.com.tourapp.entity.ReservaTemporaria;
+import br.com.tourapp.enums.StatusReservaTemporaria;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface ReservaTemporariaRepository extends JpaRepository<ReservaTemporaria, UUID> {
+
+    @Query("SELECT r FROM ReservaTemporaria r WHERE r.inscricao.id = :inscricaoId AND r.status = :status")
+    Optional<ReservaTemporaria> findByInscricaoIdAndStatus(@Param("inscricaoId") UUID inscricaoId,
+                                                           @Param("status") StatusReservaTemporaria status);
+
+    @Query("SELECT r.id FROM ReservaTemporaria r WHERE r.inscricao.id IN :inscricaoIds AND r.status = :status")
+    List<UUID> findIdsByInscricaoIdsAndStatus(@Param("inscricaoIds") Collection<UUID> inscricaoIds,
+                                              @Param("status") StatusReservaTemporaria status);
+
+    // Usa o índice parcial (expira_em) WHERE status = 'ATIVA' - nunca varre a tabela inteira
+    @Query("SELECT r.id AS id, r.expiraEm AS expiraEm FROM ReservaTemporaria r " +
+            "WHERE r.status = 'ATIVA' AND r.expiraEm < :limite ORDER BY r.expiraEm")
+    List<PrazoReserva> findPrazosAtivosAte(@Param("limite") LocalDateTime limite, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE ReservaTemporaria r SET r.status = :novoStatus, r.updatedAt = :agora " +
+            "WHERE r.id = :id AND r.status = :statusAtual")
+    int alterarStatus(@Param("id") UUID id,
+                      @Param("statusAtual") StatusReservaTemporaria statusAtual,
+                      @Param("novoStatus") StatusReservaTemporaria novoStatus,
+                      @Param("agora") LocalDateTime agora);
+
+    // Só expira se o prazo ainda estiver vencido (pode ter sido prorrogado por outro nó)
+    @Modifying
+    @Query("UPDATE ReservaTemporaria r SET r.status = 'EXPIRADA', r.updatedAt = :agora " +
+            "WHERE r.id = :id AND r.status = 'ATIVA' AND r.expiraEm <= :agora")
+    int expirarSeVencida(@Param("id") UUID id, @Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query("UPDATE ReservaTemporaria r SET r.expiraEm = :expiraEm, r.updatedAt = :agora " +
+            "WHERE r.id = :id AND r.status = 'ATIVA'")
+    int prorrogar(@Param("id") UUID id,
+                  @Param("expiraEm") LocalDateTime expiraEm,
+                  @Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query("UPDATE ReservaTemporaria r SET r.expiraEm = :expiraEm, r.updatedAt = :agora " +
+            "WHERE r.id IN :ids AND r.status = 'ATIVA'")
+    int prorrogarTodas(@Param("ids") Collection<UUID> ids,
+                       @Param("expiraEm") LocalDateTime expiraEm,
+                       @Param("agora") LocalDateTime agora);
+
+    interface PrazoReserva {
+        UUID getId();
+        LocalDateTime getExpiraEm();
+    }
+}
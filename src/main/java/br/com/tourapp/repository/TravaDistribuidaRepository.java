@@ -0,0 +1,33 @@
+package br.com.tourapp.repository;
+
+import br.com.tourapp.entity.TravaDistribuida;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Repository
+public interface TravaDistribuidaRepository extends JpaRepository<TravaDistribuida, UUID> {
+
+    boolean existsByNome(String nome);
+
+    // Toma a trava vencida ou renova a que já é deste nó
+    @Modifying
+    @Query("UPDATE TravaDistribuida t SET t.dono = :dono, t.expiraEm = :expiraEm, t.updatedAt = :agora " +
+            "WHERE t.nome = :nome AND (t.dono = :dono OR t.expiraEm < :agora)")
+    int tomar(@Param("nome") String nome,
+              @Param("dono") String dono,
+              @Param("expiraEm") LocalDateTime expiraEm,
+              @Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query("UPDATE TravaDistribuida t SET t.expiraEm = :agora, t.updatedAt = :agora " +
+            "WHERE t.nome = :nome AND t.dono = :dono")
+    int liberar(@Param("nome") String nome,
+                @Param("dono") String dono,
+                @Param("agora") LocalDateTime agora);
+}
@@ -4,11 +4,13 @@ import br.com.tourapp.entity.UserEntity;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -170,4 +172,55 @@ public interface UserRepository extends JpaRepository<UserEntity, UUID> {
     @Query("SELECT u FROM UserEntity u " +
             "WHERE  u.smsNotifications = true AND u.active = true")
     List<UserEntity> findByAtivoTrue();
+
+    // Destinatários de notificações, lidos em blocos por keyset no id (sem carregar a entidade nem roles)
+    @Query("SELECT u.id AS id, u.email AS email, u.pushToken AS pushToken, " +
+            "u.emailNotifications AS emailNotifications " +
+            "FROM UserEntity u " +
+            "WHERE u.active = true AND u.id > :ultimoId " +
+            "ORDER BY u.id")
+    List<DestinatarioNotificacao> findDestinatariosAtivos(@Param("ultimoId") UUID ultimoId, Pageable pageable);
+
+    @Query("SELECT u.id AS id, u.email AS email, u.pushToken AS pushToken, " +
+            "u.emailNotifications AS emailNotifications " +
+            "FROM UserEntity u " +
+            "WHERE u.active = true AND u.id > :ultimoId " +
+            "AND EXISTS (SELECT 1 FROM Inscricao i WHERE i.user = u AND i.excursao.id = :excursaoId " +
+            "AND i.statusPagamento = 'APROVADO') " +
+            "ORDER BY u.id")
+    List<DestinatarioNotificacao> findDestinatariosDaExcursao(@Param("excursaoId") UUID excursaoId,
+                                                              @Param("ultimoId") UUID ultimoId,
+                                                              Pageable pageable);
+
+    @Query("SELECT u.id AS id, u.email AS email, u.pushToken AS pushToken, " +
+            "u.emailNotifications AS emailNotifications " +
+            "FROM UserEntity u " +
+            "WHERE u.active = true AND u.id IN :ids " +
+            "ORDER BY u.id")
+    List<DestinatarioNotificacao> findDestinatariosPorIds(@Param("ids") Collection<UUID> ids);
+
+    // Tamanho da audiência de uma notificação, com os mesmos filtros das consultas acima
+    @Query("SELECT COUNT(u) FROM UserEntity u WHERE u.active = true")
+    long countDestinatariosAtivos();
+
+    @Query("SELECT COUNT(u) FROM UserEntity u " +
+            "WHERE u.active = true " +
+            "AND EXISTS (SELECT 1 FROM Inscricao i WHERE i.user = u AND i.excursao.id = :excursaoId " +
+            "AND i.statusPagamento = 'APROVADO')")
+    long countDestinatariosDaExcursao(@Param("excursaoId") UUID excursaoId);
+
+    @Query("SELECT COUNT(u) FROM UserEntity u WHERE u.active = true AND u.id IN :ids")
+    long countDestinatariosPorIds(@Param("ids") Collection<UUID> ids);
+
+    // Tokens que o FCM informou como não registrados ou inválidos
+    @Modifying
+    @Query("UPDATE UserEntity u SET u.pushToken = null, u.updatedAt = :agora WHERE u.pushToken IN :tokens")
+    int limparPushTokens(@Param("tokens") Collection<String> tokens, @Param("agora") LocalDateTime agora);
+
+    interface DestinatarioNotificacao {
+        UUID getId();
+        String getEmail();
+        String getPushToken();
+        Boolean getEmailNotifications();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package br.com.tourapp.repository;
+
+import br.com.tourapp.entity.WebhookRecebido;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface WebhookRecebidoRepository extends JpaRepository<WebhookRecebido, UUID> {
+
+    // Só a notificação mais antiga de cada pagamento é elegível, e nenhuma enquanto outra do mesmo
+    // pagamento está em processamento. SKIP LOCKED deixa vários nós drenarem a inbox sem disputa.
+    @Query(value = "SELECT w.id FROM webhook_inbox w " +
+            "WHERE w.status = 'PENDENTE' AND w.proxima_tentativa_em <= :agora " +
+            "AND NOT EXISTS (SELECT 1 FROM webhook_inbox a WHERE a.payment_id = w.payment_id " +
+            "    AND (a.status = 'PROCESSANDO' " +
+            "         OR (a.status = 'PENDENTE' AND (a.created_at < w.created_at " +
+            "             OR (a.created_at = w.created_at AND a.id < w.id))))) " +
+            "ORDER BY w.created_at " +
+            "LIMIT :lote " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<UUID> reservarProximos(@Param("agora") LocalDateTime agora, @Param("lote") int lote);
+
+    @Query("SELECT w FROM WebhookRecebido w WHERE w.paymentId IN :paymentIds AND w.status = 'PENDENTE'")
+    List<WebhookRecebido> findPendentesByPaymentIds(@Param("paymentIds") Collection<String> paymentIds);
+
+    @Modifying
+    @Query("UPDATE WebhookRecebido w SET w.status = 'PROCESSANDO', w.tentativas = w.tentativas + 1, " +
+            "w.bloqueadoAte = :bloqueadoAte, w.updatedAt = :agora WHERE w.id IN :ids")
+    int marcarProcessando(@Param("ids") Collection<UUID> ids,
+                          @Param("bloqueadoAte") LocalDateTime bloqueadoAte,
+                          @Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query("UPDATE WebhookRecebido w SET w.status = 'PROCESSADO', w.processadoEm = :agora, " +
+            "w.bloqueadoAte = null, w.ultimoErro = null, w.updatedAt = :agora " +
+            "WHERE w.id IN :ids AND w.status = 'PROCESSANDO'")
+    int marcarProcessados(@Param("ids") Collection<UUID> ids, @Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query("UPDATE WebhookRecebido w SET w.status = 'PENDENTE', w.proximaTentativaEm = :proximaTentativa, " +
+            "w.bloqueadoAte = null, w.ultimoErro = :erro, w.updatedAt = :agora " +
+            "WHERE w.id IN :ids AND w.status = 'PROCESSANDO'")
+    int reagendar(@Param("ids") Collection<UUID> ids,
+                  @Param("proximaTentativa") LocalDateTime proximaTentativa,
+                  @Param("erro") String erro,
+                  @Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query("UPDATE WebhookRecebido w SET w.status = 'FALHOU', w.bloqueadoAte = null, w.ultimoErro = :erro, " +
+            "w.updatedAt = :agora WHERE w.id IN :ids AND w.status = 'PROCESSANDO'")
+    int marcarFalha(@Param("ids") Collection<UUID> ids, @Param("erro") String erro, @Param("agora") LocalDateTime agora);
+
+    // Notificações presas por um nó que caiu durante o processamento
+    @Modifying
+    @Query("UPDATE WebhookRecebido w SET w.status = 'PENDENTE', w.proximaTentativaEm = :agora, " +
+            "w.bloqueadoAte = null, w.updatedAt = :agora " +
+            "WHERE w.status = 'PROCESSANDO' AND w.bloqueadoAte < :agora")
+    int liberarBloqueiosVencidos(@Param("agora") LocalDateTime agora);
+
+    @Query("SELECT COUNT(w) AS quantidade, MIN(w.createdAt) AS maisAntigo " +
+            "FROM WebhookRecebido w WHERE w.status = 'PENDENTE'")
+    ResumoInbox resumirPendentes();
+
+    @Modifying
+    @Query("DELETE FROM WebhookRecebido w WHERE w.status = 'PROCESSADO' AND w.processadoEm < :limite")
+    int removerProcessadosAte(@Param("limite") LocalDateTime limite);
+
+    interface ResumoInbox {
+        Long getQuantidade();
+        LocalDateTime getMaisAntigo();
+    }
+}
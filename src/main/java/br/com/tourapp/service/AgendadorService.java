@@ -0,0 +1,274 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.service.TarefaAgendada.Particao;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Executa as {@link TarefaAgendada} de forma segura em vários nós.
+ *
+ * Cada partição de cada tarefa tem uma trava em travas_distribuidas. Quem a adquire executa a
+ * partição e, ao terminar, renova a trava por mais um intervalo sem liberá-la: os outros nós só
+ * conseguem assumir a partição quando o intervalo passar, então ela roda uma vez por intervalo no
+ * cluster inteiro. Enquanto a partição executa, cada tick renova a trava a cada terço da margem, para
+ * uma execução mais longa que a margem não perder a trava para outro nó no meio do caminho. Se o
+ * dono cair, a trava vence e outro nó assume. As partições são percorridas a
+ * partir de uma posição aleatória e cada nó roda no máximo {@code app.agendador.paralelismo} ao
+ * mesmo tempo, o que espalha as partições entre os nós.
+ */
+@Service
+public class AgendadorService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgendadorService.class);
+
+    private static final String PREFIXO_TRAVA = "agendador:";
+    // Partição com trava de outro nó: tenta de novo depois disso, sem esperar o intervalo inteiro
+    private static final long ESPERA_TRAVA_OCUPADA_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final List<TarefaAgendada> tarefas;
+    private final TravaDistribuidaService travaDistribuidaService;
+    private final Consumer<Runnable> executor;
+    private final ExecutorService workers;
+    private final boolean habilitado;
+    private final Semaphore paralelismo;
+    private final Duration margemTrava;
+    private final long renovacaoNanos;
+
+    private final Map<String, EstadoParticao> estados = new ConcurrentHashMap<>();
+    private final Map<String, MetricasTarefa> metricas = new HashMap<>();
+
+    @Autowired
+    public AgendadorService(List<TarefaAgendada> tarefas,
+                            TravaDistribuidaService travaDistribuidaService,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.agendador.habilitado:true}") boolean habilitado,
+                            @Value("${app.agendador.paralelismo:2}") int paralelismo,
+                            @Value("${app.agendador.margem-trava-segundos:300}") long margemTravaSegundos) {
+        this(tarefas, travaDistribuidaService, meterRegistry, null, habilitado, paralelismo, margemTravaSegundos);
+    }
+
+    AgendadorService(List<TarefaAgendada> tarefas,
+                     TravaDistribuidaService travaDistribuidaService,
+                     MeterRegistry meterRegistry,
+                     Consumer<Runnable> executor,
+                     boolean habilitado,
+                     int paralelismo,
+                     long margemTravaSegundos) {
+        this.tarefas = tarefas;
+        this.travaDistribuidaService = travaDistribuidaService;
+        this.workers = executor == null ? Executors.newVirtualThreadPerTaskExecutor() : null;
+        this.executor = executor != null ? executor : workers::execute;
+        this.habilitado = habilitado;
+        this.paralelismo = new Semaphore(Math.max(1, paralelismo));
+        this.margemTrava = Duration.ofSeconds(margemTravaSegundos);
+        this.renovacaoNanos = margemTrava.toNanos() / 3;
+
+        for (TarefaAgendada tarefa : tarefas) {
+            metricas.put(tarefa.getNome(), new MetricasTarefa(tarefa.getNome(), meterRegistry));
+        }
+    }
+
+    /**
+     * Verifica quais partições estão vencidas e dispara as que este nó conseguir travar.
+     */
+    @Scheduled(fixedDelayString = "${app.agendador.tick-ms:1000}",
+            initialDelayString = "${app.agendador.atraso-inicial-ms:15000}")
+    public void disparar() {
+        if (!habilitado) {
+            return;
+        }
+
+        renovarEmExecucao();
+        for (TarefaAgendada tarefa : tarefas) {
+            int total = Math.max(1, tarefa.getParticoes());
+            int inicio = ThreadLocalRandom.current().nextInt(total);
+            for (int i = 0; i < total; i++) {
+                Particao particao = new Particao((inicio + i) % total, total);
+                EstadoParticao estado = estados.computeIfAbsent(nomeTrava(tarefa, particao),
+                        nome -> new EstadoParticao(System.nanoTime()));
+                if (estado.emExecucao || System.nanoTime() < estado.proximaTentativa) {
+                    continue;
+                }
+                if (!paralelismo.tryAcquire()) {
+                    return;
+                }
+                if (!travar(tarefa, particao, estado)) {
+                    paralelismo.release();
+                    continue;
+                }
+
+                estado.emExecucao = true;
+                estado.proximaRenovacao = System.nanoTime() + renovacaoNanos;
+                try {
+                    executor.accept(() -> executar(tarefa, particao, estado));
+                } catch (RuntimeException e) {
+                    estado.emExecucao = false;
+                    paralelismo.release();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        if (workers != null) {
+            workers.shutdown();
+        }
+    }
+
+    /**
+     * Renova a trava de execução das partições que este nó está rodando, antes que ela vença.
+     */
+    private void renovarEmExecucao() {
+        for (TarefaAgendada tarefa : tarefas) {
+            int total = Math.max(1, tarefa.getParticoes());
+            for (int indice = 0; indice < total; indice++) {
+                Particao particao = new Particao(indice, total);
+                EstadoParticao estado = estados.get(nomeTrava(tarefa, particao));
+                if (estado == null || !estado.emExecucao || System.nanoTime() < estado.proximaRenovacao) {
+                    continue;
+                }
+                estado.proximaRenovacao = System.nanoTime() + renovacaoNanos;
+                try {
+                    if (!travaDistribuidaService.adquirir(nomeTrava(tarefa, particao), tarefa.getIntervalo().plus(margemTrava))) {
+                        logger.warn("Tarefa {} (partição {}/{}) perdeu a trava durante a execução",
+                                tarefa.getNome(), particao.indice() + 1, particao.total());
+                    }
+                } catch (RuntimeException e) {
+                    // Tenta de novo no próximo tick; a trava ainda cobre pelo menos dois terços da margem
+                    estado.proximaRenovacao = System.nanoTime();
+                    logger.warn("Erro ao renovar trava da tarefa {} durante a execução: {}",
+                            tarefa.getNome(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private boolean travar(TarefaAgendada tarefa, Particao particao, EstadoParticao estado) {
+        try {
+            // Enquanto executa, a trava cobre o intervalo mais a margem para execuções longas
+            if (travaDistribuidaService.adquirir(nomeTrava(tarefa, particao), tarefa.getIntervalo().plus(margemTrava))) {
+                return true;
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Erro ao adquirir trava da tarefa {} (partição {}): {}",
+                    tarefa.getNome(), particao.indice(), e.getMessage());
+        }
+        estado.proximaTentativa = System.nanoTime()
+                + Math.min(tarefa.getIntervalo().toNanos(), ESPERA_TRAVA_OCUPADA_NANOS);
+        return false;
+    }
+
+    private void executar(TarefaAgendada tarefa, Particao particao, EstadoParticao estado) {
+        MetricasTarefa metricasTarefa = metricas.get(tarefa.getNome());
+        long inicio = System.nanoTime();
+        metricasTarefa.atrasoSegundos.set(TimeUnit.NANOSECONDS.toSeconds(Math.max(0, inicio - estado.vencimento)));
+        try {
+            int itens = tarefa.executar(particao);
+            metricasTarefa.sucessos.increment();
+            metricasTarefa.itens.increment(itens);
+            if (itens > 0) {
+                logger.info("Tarefa {} (partição {}/{}) processou {} item(ns)",
+                        tarefa.getNome(), particao.indice() + 1, particao.total(), itens);
+            }
+        } catch (Exception e) {
+            metricasTarefa.falhas.increment();
+            logger.error("Erro na tarefa {} (partição {}/{}): {}",
+                    tarefa.getNome(), particao.indice() + 1, particao.total(), e.getMessage(), e);
+        } finally {
+            long fim = System.nanoTime();
+            metricasTarefa.duracao.record(fim - inicio, TimeUnit.NANOSECONDS);
+            renovar(tarefa, particao);
+            estado.vencimento = fim + tarefa.getIntervalo().toNanos();
+            estado.proximaTentativa = estado.vencimento;
+            estado.emExecucao = false;
+            paralelismo.release();
+        }
+    }
+
+    /**
+     * Mantém a trava por mais um intervalo a partir de agora, para nenhum nó repetir a partição antes.
+     */
+    private void renovar(TarefaAgendada tarefa, Particao particao) {
+        try {
+            travaDistribuidaService.adquirir(nomeTrava(tarefa, particao), tarefa.getIntervalo());
+        } catch (RuntimeException e) {
+            // Sem a renovação, a trava de execução vence sozinha e a partição pode rodar mais cedo
+            logger.warn("Erro ao renovar trava da tarefa {}: {}", tarefa.getNome(), e.getMessage());
+        }
+    }
+
+    private static String nomeTrava(TarefaAgendada tarefa, Particao particao) {
+        return PREFIXO_TRAVA + tarefa.getNome() + ":" + particao.indice() + "/" + particao.total();
+    }
+
+    private static final class EstadoParticao {
+
+        private volatile long vencimento;
+        private volatile long proximaTentativa;
+        private volatile long proximaRenovacao;
+        private volatile boolean emExecucao;
+
+        private EstadoParticao(long vencimento) {
+            this.vencimento = vencimento;
+            this.proximaTentativa = vencimento;
+        }
+    }
+
+    private static final class MetricasTarefa {
+
+        private final Counter sucessos;
+        private final Counter falhas;
+        private final Counter itens;
+        private final Timer duracao;
+        private final AtomicLong atrasoSegundos = new AtomicLong();
+
+        private MetricasTarefa(String nome, MeterRegistry meterRegistry) {
+            this.sucessos = Counter.builder("tourapp.agendador.execucoes")
+                    .description("Execuções de tarefas agendadas por resultado")
+                    .tag("tarefa", nome)
+                    .tag("resultado", "sucesso")
+                    .register(meterRegistry);
+            this.falhas = Counter.builder("tourapp.agendador.execucoes")
+                    .description("Execuções de tarefas agendadas por resultado")
+                    .tag("tarefa", nome)
+                    .tag("resultado", "falhou")
+                    .register(meterRegistry);
+            this.itens = Counter.builder("tourapp.agendador.itens")
+                    .description("Itens processados pelas tarefas agendadas")
+                    .tag("tarefa", nome)
+                    .register(meterRegistry);
+            this.duracao = Timer.builder("tourapp.agendador.duracao")
+                    .description("Duração da execução de uma partição")
+                    .tag("tarefa", nome)
+                    .register(meterRegistry);
+            Gauge.builder("tourapp.agendador.atraso.segundos", atrasoSegundos, AtomicLong::get)
+                    .description("Atraso da última execução em relação ao horário previsto")
+                    .tag("tarefa", nome)
+                    .register(meterRegistry);
+        }
+    }
+}
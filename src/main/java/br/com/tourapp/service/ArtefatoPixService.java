@@ -0,0 +1,105 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.entity.ArtefatoPix;
+import br.com.tourapp.entity.Pagamento;
+import br.com.tourapp.exception.NotFoundException;
+import br.com.tourapp.repository.ArtefatoPixRepository;
+import br.com.tourapp.util.LruCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Imagens de QR Code PIX: gravadas em pix_artefatos na criação da cobrança e servidas por um endpoint
+ * próprio, com um LRU em memória na frente do banco. A imagem de um pagamento nunca muda.
+ */
+@Service
+public class ArtefatoPixService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArtefatoPixService.class);
+
+    private final ArtefatoPixRepository artefatoPixRepository;
+    private final LruCache<UUID, ImagemQrCode> imagens;
+
+    private final Counter acertosCache;
+    private final Counter faltasCache;
+
+    public ArtefatoPixService(ArtefatoPixRepository artefatoPixRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.pix.qrcode.cache-tamanho:2000}") int tamanhoCache) {
+        this.artefatoPixRepository = artefatoPixRepository;
+        this.imagens = new LruCache<>(tamanhoCache);
+
+        this.acertosCache = Counter.builder("tourapp.pix.qrcode.cache")
+                .description("Leituras de QR Code PIX por resultado no cache")
+                .tag("resultado", "acerto")
+                .register(meterRegistry);
+        this.faltasCache = Counter.builder("tourapp.pix.qrcode.cache")
+                .description("Leituras de QR Code PIX por resultado no cache")
+                .tag("resultado", "falta")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Grava a imagem do QR Code na mesma transação do pagamento. Sem imagem, não grava nada.
+     */
+    @Transactional
+    public void salvar(Pagamento pagamento, String qrCodeBase64) {
+        if (qrCodeBase64 == null || qrCodeBase64.isBlank()) {
+            return;
+        }
+
+        byte[] imagem;
+        try {
+            imagem = Base64.getMimeDecoder().decode(qrCodeBase64);
+        } catch (IllegalArgumentException e) {
+            logger.warn("QR Code PIX inválido recebido para o pagamento {}: {}", pagamento.getId(), e.getMessage());
+            return;
+        }
+        artefatoPixRepository.save(new ArtefatoPix(pagamento, imagem, calcularEtag(imagem)));
+    }
+
+    /**
+     * @throws NotFoundException se o pagamento não tem QR Code ou não pertence ao cliente
+     */
+    @Transactional(readOnly = true)
+    public ImagemQrCode obterImagem(UUID pagamentoId, UUID clienteId) {
+        ImagemQrCode imagem = imagens.get(pagamentoId);
+        if (imagem != null) {
+            acertosCache.increment();
+        } else {
+            faltasCache.increment();
+            imagem = artefatoPixRepository.findImagemByPagamentoId(pagamentoId)
+                    .map(encontrada -> new ImagemQrCode(encontrada.getImagem(), encontrada.getEtag(),
+                            encontrada.getClienteId()))
+                    .orElseThrow(() -> new NotFoundException("QR Code não encontrado para o pagamento"));
+            imagens.put(pagamentoId, imagem);
+        }
+
+        // Mesmo 404 para pagamento de outro cliente, para não revelar que ele existe
+        if (!imagem.clienteId().equals(clienteId)) {
+            throw new NotFoundException("QR Code não encontrado para o pagamento");
+        }
+        return imagem;
+    }
+
+    private static String calcularEtag(byte[] imagem) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(imagem));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record ImagemQrCode(byte[] png, String etag, UUID clienteId) {}
+}
@@ -0,0 +1,136 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.dto.response.CaixaNotificacoesResponse;
+import br.com.tourapp.dto.response.CaixaNotificacoesResponse.ItemCaixa;
+import br.com.tourapp.entity.CaixaNotificacao;
+import br.com.tourapp.exception.NotFoundException;
+import br.com.tourapp.repository.CaixaNotificacaoRepository;
+import br.com.tourapp.repository.NotificacaoRepository;
+import br.com.tourapp.repository.NotificacaoRepository.ItemCaixaNotificacao;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Caixa de notificações dos clientes.
+ *
+ * As notificações não são copiadas para cada cliente: a caixa é montada na leitura a partir das
+ * notificações enviadas que o alcançam (excursão em que está inscrito, "todos" ou clientes alvo),
+ * paginada por cursor em (enviadaEm, id). Cada cliente tem uma linha em caixas_notificacao com o
+ * contador de não lidas, somado no enfileiramento e zerado por "marcar todas como lidas" junto com
+ * a marca lidasAte; leituras individuais depois da marca ficam em leituras_notificacao.
+ */
+@Service
+public class CaixaNotificacaoService {
+
+    private static final String SQL_NOVAS =
+            "INSERT INTO caixas_notificacao (user_id, nao_lidas) VALUES (?, 1) " +
+            "ON CONFLICT (user_id) DO UPDATE SET nao_lidas = caixas_notificacao.nao_lidas + 1";
+
+    private static final int TAMANHO_MAXIMO_PAGINA = 100;
+    // Cursor da primeira página: depois de qualquer notificação
+    private static final LocalDateTime INICIO_EM = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final UUID INICIO_ID = new UUID(-1L, -1L);
+
+    private final NotificacaoRepository notificacaoRepository;
+    private final CaixaNotificacaoRepository caixaRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public CaixaNotificacaoService(NotificacaoRepository notificacaoRepository,
+                                   CaixaNotificacaoRepository caixaRepository,
+                                   JdbcTemplate jdbcTemplate) {
+        this.notificacaoRepository = notificacaoRepository;
+        this.caixaRepository = caixaRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Soma uma não lida na caixa de cada destinatário. Chamado no enfileiramento, bloco a bloco.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarNovas(Collection<UUID> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(SQL_NOVAS, userIds.stream().map(userId -> new Object[]{userId}).toList());
+    }
+
+    @Transactional(readOnly = true)
+    public CaixaNotificacoesResponse listar(UUID userId, String cursor, int tamanho) {
+        int tamanhoPagina = Math.max(1, Math.min(tamanho, TAMANHO_MAXIMO_PAGINA));
+        CursorKeyset posicao = cursor == null || cursor.isBlank()
+                ? new CursorKeyset(INICIO_EM, INICIO_ID)
+                : CursorKeyset.decodificar(cursor);
+
+        // Um item a mais indica se existe próxima página
+        List<ItemCaixaNotificacao> itens = notificacaoRepository.findCaixaDoUsuario(userId, posicao.instante(),
+                posicao.id(), PageRequest.of(0, tamanhoPagina + 1));
+        boolean temMais = itens.size() > tamanhoPagina;
+        List<ItemCaixaNotificacao> pagina = temMais ? itens.subList(0, tamanhoPagina) : itens;
+
+        Optional<CaixaNotificacao> caixa = caixaRepository.findByUserId(userId);
+        Set<UUID> lidas = pagina.isEmpty() ? Set.of()
+                : new HashSet<>(caixaRepository.findLidas(userId, pagina.stream().map(ItemCaixaNotificacao::getId).toList()));
+
+        CaixaNotificacoesResponse response = new CaixaNotificacoesResponse();
+        response.setItens(pagina.stream().map(item -> converter(item,
+                lidas.contains(item.getId()) || caixa.map(c -> c.isLida(item.getEnviadaEm())).orElse(false))).toList());
+        response.setProximoCursor(temMais ? codificar(pagina.get(pagina.size() - 1)) : null);
+        response.setNaoLidas(caixa.map(CaixaNotificacao::getNaoLidas).orElse(0));
+        return response;
+    }
+
+    @Transactional(readOnly = true)
+    public int contarNaoLidas(UUID userId) {
+        return caixaRepository.findByUserId(userId).map(CaixaNotificacao::getNaoLidas).orElse(0);
+    }
+
+    @Transactional
+    public void marcarComoLida(UUID userId, UUID notificacaoId) {
+        ItemCaixaNotificacao item = notificacaoRepository.findNaCaixaDoUsuario(userId, notificacaoId)
+                .orElseThrow(() -> new NotFoundException("Notificação não encontrada"));
+
+        Optional<CaixaNotificacao> caixa = caixaRepository.findByUserId(userId);
+        if (caixa.isEmpty() || caixa.get().isLida(item.getEnviadaEm())) {
+            return;
+        }
+
+        LocalDateTime agora = LocalDateTime.now();
+        // Só a primeira leitura desconta do contador
+        if (caixaRepository.registrarLeitura(userId, notificacaoId, agora) > 0) {
+            caixaRepository.decrementarNaoLidas(userId, agora);
+        }
+    }
+
+    @Transactional
+    public void marcarTodasComoLidas(UUID userId) {
+        caixaRepository.marcarTodasLidas(userId, LocalDateTime.now());
+    }
+
+    private ItemCaixa converter(ItemCaixaNotificacao item, boolean lida) {
+        ItemCaixa response = new ItemCaixa();
+        response.setId(item.getId());
+        response.setTitulo(item.getTitulo());
+        response.setMensagem(item.getMensagem());
+        response.setTipo(item.getTipo());
+        response.setEnviadaEm(item.getEnviadaEm());
+        response.setExcursaoId(item.getExcursaoId());
+        response.setTituloExcursao(item.getTituloExcursao());
+        response.setLida(lida);
+        return response;
+    }
+
+    static String codificar(ItemCaixaNotificacao item) {
+        return new CursorKeyset(item.getEnviadaEm(), item.getId()).codificar();
+    }
+}
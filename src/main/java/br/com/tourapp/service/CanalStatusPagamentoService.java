@@ -0,0 +1,314 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.dto.StatusPagamentoEvento;
+import br.com.tourapp.entity.Inscricao;
+import br.com.tourapp.entity.Pagamento;
+import br.com.tourapp.enums.StatusPagamento;
+import br.com.tourapp.exception.NotFoundException;
+import br.com.tourapp.repository.InscricaoRepository;
+import br.com.tourapp.util.TransactionUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Envia por SSE as mudanças de status de pagamento, no lugar do polling do app durante o checkout.
+ *
+ * Cada nó guarda as conexões abertas em um registro em memória, indexado pelo canal (id da inscrição,
+ * ou grupoId nas cobranças de grupo). {@link #publicar} faz um pg_notify dentro da transação que mudou
+ * o status; o PostgreSQL só entrega a notificação no commit, para todos os nós que estão em LISTEN, e
+ * cada um repassa às conexões que tem. Fora do PostgreSQL (testes com H2) a entrega é só local,
+ * depois do commit.
+ */
+@Service
+public class CanalStatusPagamentoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CanalStatusPagamentoService.class);
+
+    static final String CANAL_NOTIFY = "pagamento_status";
+    private static final long ESPERA_NOTIFICACOES_MS = 10_000;
+    private static final long ESPERA_RECONEXAO_MS = 5_000;
+
+    private final InscricaoRepository inscricaoRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final String urlBanco;
+    private final String usuarioBanco;
+    private final String senhaBanco;
+    private final long timeoutConexaoMs;
+    private final boolean usarNotify;
+
+    private final Map<UUID, Set<SseEmitter>> assinaturas = new ConcurrentHashMap<>();
+    private final AtomicLong conexoesAbertas = new AtomicLong();
+    private final ExecutorService envios = Executors.newVirtualThreadPerTaskExecutor();
+    private final Counter eventosEnviados;
+    private final Counter enviosFalhos;
+
+    private volatile boolean ativo = true;
+    private volatile Thread ouvinte;
+    private volatile Connection conexaoListen;
+
+    public CanalStatusPagamentoService(InscricaoRepository inscricaoRepository,
+                                       JdbcTemplate jdbcTemplate,
+                                       ObjectMapper objectMapper,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${spring.datasource.url}") String urlBanco,
+                                       @Value("${spring.datasource.username:}") String usuarioBanco,
+                                       @Value("${spring.datasource.password:}") String senhaBanco,
+                                       @Value("${app.pagamentos.sse.timeout-ms:300000}") long timeoutConexaoMs) {
+        this.inscricaoRepository = inscricaoRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.urlBanco = urlBanco;
+        this.usuarioBanco = usuarioBanco;
+        this.senhaBanco = senhaBanco;
+        this.timeoutConexaoMs = timeoutConexaoMs;
+        this.usarNotify = urlBanco.startsWith("jdbc:postgresql:");
+
+        this.eventosEnviados = Counter.builder("tourapp.pagamentos.sse.eventos")
+                .description("Eventos de status de pagamento enviados por SSE")
+                .tag("resultado", "enviado")
+                .register(meterRegistry);
+        this.enviosFalhos = Counter.builder("tourapp.pagamentos.sse.eventos")
+                .description("Eventos de status de pagamento enviados por SSE")
+                .tag("resultado", "falhou")
+                .register(meterRegistry);
+        Gauge.builder("tourapp.pagamentos.sse.conexoes", conexoesAbertas, AtomicLong::get)
+                .description("Conexões SSE de status de pagamento abertas neste nó")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        if (!usarNotify) {
+            logger.info("Banco sem LISTEN/NOTIFY; status de pagamento por SSE só será entregue neste nó");
+            return;
+        }
+        ouvinte = Thread.ofPlatform().name("pagamento-status-listen").daemon(true).start(this::ouvir);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        ativo = false;
+        fecharConexaoListen();
+        if (ouvinte != null) {
+            ouvinte.interrupt();
+        }
+        assinaturas.values().forEach(emissores -> emissores.forEach(SseEmitter::complete));
+        envios.shutdown();
+    }
+
+    /**
+     * Abre a conexão SSE do cliente com a inscrição. O primeiro evento traz o status atual, então o
+     * app não perde uma mudança que aconteça entre a criação do PIX e a assinatura.
+     */
+    @Transactional(readOnly = true)
+    public SseEmitter assinar(UUID inscricaoId, UUID clienteId) {
+        Inscricao inscricao = inscricaoRepository.findByIdAndClienteId(inscricaoId, clienteId)
+                .orElseThrow(() -> new NotFoundException("Inscrição não encontrada"));
+        UUID canal = inscricao.getGrupoId() != null ? inscricao.getGrupoId() : inscricao.getId();
+
+        SseEmitter emissor = new SseEmitter(timeoutConexaoMs);
+        registrar(canal, emissor);
+
+        StatusPagamentoEvento atual = new StatusPagamentoEvento(canal, null, inscricao.getStatusPagamento(),
+                LocalDateTime.now());
+        if (enviar(canal, emissor, atual) && finalizado(atual.status())) {
+            emissor.complete();
+        }
+        return emissor;
+    }
+
+    /**
+     * Publica a mudança de status. Precisa ser chamado na transação que alterou o pagamento: nada é
+     * enviado se ela for desfeita.
+     */
+    public void publicar(Pagamento pagamento) {
+        UUID canal = pagamento.getGrupoId() != null ? pagamento.getGrupoId() : pagamento.getInscricao().getId();
+        publicar(canal, pagamento.getId(), pagamento.getStatus());
+    }
+
+    /**
+     * Publica a mudança de status de um canal alterado por UPDATE em lote, sem a entidade carregada.
+     * pagamentoId pode ser nulo (ex.: reserva que expirou antes de gerar cobrança).
+     */
+    public void publicar(UUID canal, UUID pagamentoId, StatusPagamento status) {
+        StatusPagamentoEvento evento = new StatusPagamentoEvento(canal, pagamentoId, status, LocalDateTime.now());
+
+        if (!usarNotify) {
+            TransactionUtil.aposCommit(() -> entregar(evento));
+            return;
+        }
+        // O payload do NOTIFY é limitado a 8000 bytes; o evento tem poucas dezenas
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CANAL_NOTIFY, serializar(evento));
+    }
+
+    /**
+     * Mantém as conexões vivas através de proxies e descarta as de clientes que sumiram.
+     */
+    @Scheduled(fixedDelayString = "${app.pagamentos.sse.heartbeat-ms:15000}")
+    public void enviarHeartbeat() {
+        assinaturas.forEach((canal, emissores) -> emissores.forEach(emissor -> {
+            try {
+                emissor.send(SseEmitter.event().comment("ping"));
+            } catch (IOException | IllegalStateException e) {
+                remover(canal, emissor);
+            }
+        }));
+    }
+
+    /**
+     * Repassa o evento às conexões deste nó assinadas no canal.
+     */
+    void entregar(StatusPagamentoEvento evento) {
+        Set<SseEmitter> emissores = assinaturas.get(evento.canal());
+        if (emissores == null) {
+            return;
+        }
+        for (SseEmitter emissor : emissores) {
+            // Um cliente lento não pode atrasar a entrega aos demais
+            envios.execute(() -> {
+                if (enviar(evento.canal(), emissor, evento) && finalizado(evento.status())) {
+                    emissor.complete();
+                }
+            });
+        }
+    }
+
+    int getConexoesAbertas() {
+        return (int) conexoesAbertas.get();
+    }
+
+    private void registrar(UUID canal, SseEmitter emissor) {
+        assinaturas.computeIfAbsent(canal, chave -> new CopyOnWriteArraySet<>()).add(emissor);
+        conexoesAbertas.incrementAndGet();
+        emissor.onCompletion(() -> remover(canal, emissor));
+        emissor.onTimeout(emissor::complete);
+        emissor.onError(erro -> remover(canal, emissor));
+    }
+
+    private void remover(UUID canal, SseEmitter emissor) {
+        assinaturas.computeIfPresent(canal, (chave, emissores) -> {
+            if (emissores.remove(emissor)) {
+                conexoesAbertas.decrementAndGet();
+            }
+            return emissores.isEmpty() ? null : emissores;
+        });
+    }
+
+    private boolean enviar(UUID canal, SseEmitter emissor, StatusPagamentoEvento evento) {
+        try {
+            emissor.send(SseEmitter.event().name("status").data(evento));
+            eventosEnviados.increment();
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            enviosFalhos.increment();
+            remover(canal, emissor);
+            return false;
+        }
+    }
+
+    // Depois destes status o app não espera mais nenhuma mudança
+    private boolean finalizado(StatusPagamento status) {
+        return status == StatusPagamento.APROVADO || status == StatusPagamento.REJEITADO
+                || status == StatusPagamento.CANCELADO || status == StatusPagamento.EXPIRADO
+                || status == StatusPagamento.REEMBOLSADO;
+    }
+
+    private void ouvir() {
+        while (ativo) {
+            try (Connection conexao = DriverManager.getConnection(urlBanco, usuarioBanco, senhaBanco)) {
+                conexaoListen = conexao;
+                try (Statement statement = conexao.createStatement()) {
+                    statement.execute("LISTEN " + CANAL_NOTIFY);
+                }
+                logger.info("Escutando notificações de status de pagamento no canal {}", CANAL_NOTIFY);
+
+                PGConnection pgConexao = conexao.unwrap(PGConnection.class);
+                while (ativo) {
+                    PGNotification[] notificacoes = pgConexao.getNotifications((int) ESPERA_NOTIFICACOES_MS);
+                    if (notificacoes == null) {
+                        continue;
+                    }
+                    for (PGNotification notificacao : notificacoes) {
+                        receber(notificacao.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!ativo) {
+                    return;
+                }
+                // Eventos publicados enquanto a conexão estava fora se perdem; o app recebe o status atual ao reconectar
+                logger.error("Conexão LISTEN de status de pagamento caiu, reconectando: {}", e.getMessage());
+                aguardarReconexao();
+            } finally {
+                conexaoListen = null;
+            }
+        }
+    }
+
+    private void receber(String payload) {
+        try {
+            entregar(objectMapper.readValue(payload, StatusPagamentoEvento.class));
+        } catch (JsonProcessingException e) {
+            logger.warn("Notificação de status de pagamento inválida: {}", payload);
+        }
+    }
+
+    private void aguardarReconexao() {
+        try {
+            Thread.sleep(ESPERA_RECONEXAO_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void fecharConexaoListen() {
+        Connection conexao = conexaoListen;
+        if (conexao == null) {
+            return;
+        }
+        try {
+            conexao.close();
+        } catch (SQLException e) {
+            logger.debug("Erro ao fechar conexão LISTEN: {}", e.getMessage());
+        }
+    }
+
+    private String serializar(StatusPagamentoEvento evento) {
+        try {
+            return objectMapper.writeValueAsString(evento);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Não foi possível serializar evento de status de pagamento", e);
+        }
+    }
+}
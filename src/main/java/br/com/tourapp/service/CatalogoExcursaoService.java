@@ -0,0 +1,71 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.dto.response.CatalogoExcursoesResponse;
+import br.com.tourapp.dto.response.CatalogoExcursoesResponse.ItemCatalogo;
+import br.com.tourapp.repository.ExcursaoRepository;
+import br.com.tourapp.repository.ExcursaoRepository.ItemCatalogoExcursao;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Catálogo público de excursões ativas, da saída mais próxima para a mais distante.
+ *
+ * A paginação é por cursor em (dataSaida, id): cada página continua depois do último item da
+ * anterior, pelo índice de V29, em vez de descartar as linhas das páginas anteriores com OFFSET.
+ * Os itens são projeções só com as colunas do índice, sem carregar a entidade nem as imagens.
+ */
+@Service
+public class CatalogoExcursaoService {
+
+    private static final int TAMANHO_MAXIMO_PAGINA = 100;
+    // Primeira página: o filtro dataSaida > agora já exclui a própria data do cursor
+    private static final UUID INICIO_ID = new UUID(0L, 0L);
+
+    private final ExcursaoRepository excursaoRepository;
+
+    public CatalogoExcursaoService(ExcursaoRepository excursaoRepository) {
+        this.excursaoRepository = excursaoRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public CatalogoExcursoesResponse listar(String cursor, int tamanho) {
+        int tamanhoPagina = Math.max(1, Math.min(tamanho, TAMANHO_MAXIMO_PAGINA));
+        LocalDateTime agora = LocalDateTime.now();
+        CursorKeyset posicao = cursor == null || cursor.isBlank()
+                ? new CursorKeyset(agora, INICIO_ID)
+                : CursorKeyset.decodificar(cursor);
+
+        // Lê tamanhoPagina + 1: o excedente só diz se há próxima página
+        List<ItemCatalogoExcursao> itens = excursaoRepository.findCatalogo(agora, posicao.instante(),
+                posicao.id(), PageRequest.of(0, tamanhoPagina + 1));
+        boolean temMais = itens.size() > tamanhoPagina;
+        List<ItemCatalogoExcursao> pagina = temMais ? itens.subList(0, tamanhoPagina) : itens;
+
+        CatalogoExcursoesResponse response = new CatalogoExcursoesResponse();
+        response.setItens(pagina.stream().map(this::converter).toList());
+        response.setProximoCursor(temMais ? codificar(pagina.get(pagina.size() - 1)) : null);
+        return response;
+    }
+
+    private ItemCatalogo converter(ItemCatalogoExcursao item) {
+        ItemCatalogo response = new ItemCatalogo();
+        response.setId(item.getId());
+        response.setTitulo(item.getTitulo());
+        response.setDataSaida(item.getDataSaida());
+        response.setDataRetorno(item.getDataRetorno());
+        response.setPreco(item.getPreco());
+        response.setVagasDisponiveis(item.getVagasTotal() - item.getVagasOcupadas());
+        response.setLocalSaida(item.getLocalSaida());
+        response.setLocalDestino(item.getLocalDestino());
+        return response;
+    }
+
+    static String codificar(ItemCatalogoExcursao item) {
+        return new CursorKeyset(item.getDataSaida(), item.getId()).codificar();
+    }
+}
@@ -0,0 +1,23 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.entity.EventoOutbox;
+import br.com.tourapp.enums.TipoEventoOutbox;
+
+/**
+ * Destino dos eventos do outbox. Cada consumidor registrado recebe uma linha própria por evento
+ * que consome; basta declarar um novo bean para passar a receber eventos.
+ *
+ * A entrega é pelo menos uma vez: {@link #processar} pode ser chamado de novo para o mesmo evento
+ * se o nó cair antes de marcá-lo como processado. Qualquer exceção agenda nova tentativa.
+ */
+public interface ConsumidorOutbox {
+
+    /**
+     * Nome gravado em outbox_eventos.consumidor; não deve mudar enquanto houver eventos pendentes.
+     */
+    String getNome();
+
+    boolean consome(TipoEventoOutbox tipo);
+
+    void processar(EventoOutbox evento) throws Exception;
+}
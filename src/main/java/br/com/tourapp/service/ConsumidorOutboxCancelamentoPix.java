@@ -0,0 +1,69 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.dto.CobrancaMercadoPagoEvento;
+import br.com.tourapp.entity.EventoOutbox;
+import br.com.tourapp.enums.TipoEventoOutbox;
+import br.com.tourapp.exception.BusinessException;
+import br.com.tourapp.repository.PagamentoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cancela no Mercado Pago o PIX cuja reserva de vaga expirou, para que não possa mais ser pago.
+ *
+ * Roda sem transação durante a chamada ao Mercado Pago. Se a cobrança já não estiver pendente
+ * (paga no meio tempo), não há o que cancelar: o webhook ou a conciliação aplicam o novo status.
+ */
+@Component
+public class ConsumidorOutboxCancelamentoPix implements ConsumidorOutbox {
+
+    private final GatewayPagamento gatewayPagamento;
+    private final PagamentoRepository pagamentoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    public ConsumidorOutboxCancelamentoPix(GatewayPagamento gatewayPagamento,
+                                           PagamentoRepository pagamentoRepository,
+                                           PlatformTransactionManager transactionManager,
+                                           ObjectMapper objectMapper) {
+        this.gatewayPagamento = gatewayPagamento;
+        this.pagamentoRepository = pagamentoRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String getNome() {
+        return "cancelamento-pix";
+    }
+
+    @Override
+    public boolean consome(TipoEventoOutbox tipo) {
+        return tipo == TipoEventoOutbox.PIX_VENCIDO;
+    }
+
+    @Override
+    public void processar(EventoOutbox evento) throws Exception {
+        CobrancaMercadoPagoEvento cobranca = objectMapper.readValue(evento.getPayload(), CobrancaMercadoPagoEvento.class);
+
+        String status;
+        try {
+            status = gatewayPagamento.cancelar(cobranca.mercadoPagoPaymentId()).status();
+        } catch (BusinessException e) {
+            // Recusado: a cobrança pode já ter sido cancelada ou paga
+            status = gatewayPagamento.consultar(cobranca.mercadoPagoPaymentId()).status();
+            if ("pending".equalsIgnoreCase(status) || "in_process".equalsIgnoreCase(status)) {
+                throw e;
+            }
+        }
+
+        if ("cancelled".equalsIgnoreCase(status)) {
+            transactionTemplate.executeWithoutResult(tx ->
+                    pagamentoRepository.confirmarCancelamento(cobranca.pagamentoId(), LocalDateTime.now()));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.dto.PagamentoConfirmadoEvento;
+import br.com.tourapp.entity.EventoOutbox;
+import br.com.tourapp.entity.Inscricao;
+import br.com.tourapp.enums.TipoEventoOutbox;
+import br.com.tourapp.repository.InscricaoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Envia por email os eventos do outbox.
+ */
+@Component
+public class ConsumidorOutboxEmail implements ConsumidorOutbox {
+
+    private final EmailService emailService;
+    private final InscricaoRepository inscricaoRepository;
+    private final ObjectMapper objectMapper;
+
+    public ConsumidorOutboxEmail(EmailService emailService,
+                                 InscricaoRepository inscricaoRepository,
+                                 ObjectMapper objectMapper) {
+        this.emailService = emailService;
+        this.inscricaoRepository = inscricaoRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String getNome() {
+        return "email";
+    }
+
+    @Override
+    public boolean consome(TipoEventoOutbox tipo) {
+        return tipo == TipoEventoOutbox.PAGAMENTO_CONFIRMADO;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void processar(EventoOutbox evento) throws Exception {
+        PagamentoConfirmadoEvento pagamento = objectMapper.readValue(evento.getPayload(), PagamentoConfirmadoEvento.class);
+        List<Inscricao> inscricoes = inscricaoRepository.findComExcursaoEUsuario(pagamento.inscricaoIds());
+        if (inscricoes.isEmpty()) {
+            return;
+        }
+
+        if (pagamento.grupoId() != null) {
+            emailService.enviarConfirmacaoPagamentoGrupo(inscricoes);
+        } else {
+            emailService.enviarConfirmacaoPagamento(inscricoes.get(0));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.dto.PagamentoConfirmadoEvento;
+import br.com.tourapp.entity.EventoOutbox;
+import br.com.tourapp.entity.Inscricao;
+import br.com.tourapp.entity.UserEntity;
+import br.com.tourapp.enums.TipoEventoOutbox;
+import br.com.tourapp.repository.InscricaoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Envia por push (FCM) os eventos do outbox ao cliente que fez a inscrição.
+ */
+@Component
+public class ConsumidorOutboxPush implements ConsumidorOutbox {
+
+    private final FirebaseService firebaseService;
+    private final InscricaoRepository inscricaoRepository;
+    private final ObjectMapper objectMapper;
+
+    public ConsumidorOutboxPush(FirebaseService firebaseService,
+                                InscricaoRepository inscricaoRepository,
+                                ObjectMapper objectMapper) {
+        this.firebaseService = firebaseService;
+        this.inscricaoRepository = inscricaoRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String getNome() {
+        return "push";
+    }
+
+    @Override
+    public boolean consome(TipoEventoOutbox tipo) {
+        return tipo == TipoEventoOutbox.PAGAMENTO_CONFIRMADO;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void processar(EventoOutbox evento) throws Exception {
+        PagamentoConfirmadoEvento pagamento = objectMapper.readValue(evento.getPayload(), PagamentoConfirmadoEvento.class);
+        List<Inscricao> inscricoes = inscricaoRepository.findComExcursaoEUsuario(pagamento.inscricaoIds());
+        if (inscricoes.isEmpty()) {
+            return;
+        }
+
+        // Em grupo, todas as inscrições são do mesmo cliente
+        Inscricao inscricao = inscricoes.get(0);
+        UserEntity cliente = inscricao.getUser();
+        if (!cliente.temPushToken()) {
+            return;
+        }
+
+        String mensagem = pagamento.grupoId() != null
+                ? "Pagamento das " + inscricoes.size() + " inscrições em " + inscricao.getExcursao().getTitulo() + " confirmado"
+                : "Sua inscrição em " + inscricao.getExcursao().getTitulo() + " está confirmada";
+        firebaseService.enviarNotificacaoPushSincrona(cliente.getPushToken(), "Pagamento confirmado", mensagem);
+    }
+}
@@ -0,0 +1,48 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.dto.CobrancaMercadoPagoEvento;
+import br.com.tourapp.entity.EventoOutbox;
+import br.com.tourapp.enums.TipoEventoOutbox;
+import br.com.tourapp.exception.BusinessException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reembolsa no Mercado Pago os pagamentos aprovados que não puderam ocupar vaga (ex.: PIX pago
+ * depois que a reserva expirou e a excursão lotou). O status REEMBOLSADO chega depois pelo webhook.
+ */
+@Component
+public class ConsumidorOutboxReembolso implements ConsumidorOutbox {
+
+    private final GatewayPagamento gatewayPagamento;
+    private final ObjectMapper objectMapper;
+
+    public ConsumidorOutboxReembolso(GatewayPagamento gatewayPagamento, ObjectMapper objectMapper) {
+        this.gatewayPagamento = gatewayPagamento;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String getNome() {
+        return "reembolso";
+    }
+
+    @Override
+    public boolean consome(TipoEventoOutbox tipo) {
+        return tipo == TipoEventoOutbox.REEMBOLSO_SOLICITADO;
+    }
+
+    @Override
+    public void processar(EventoOutbox evento) throws Exception {
+        CobrancaMercadoPagoEvento cobranca = objectMapper.readValue(evento.getPayload(), CobrancaMercadoPagoEvento.class);
+        try {
+            gatewayPagamento.reembolsar(cobranca.mercadoPagoPaymentId());
+        } catch (BusinessException e) {
+            // Entrega repetida: o reembolso da tentativa anterior já foi feito
+            String status = gatewayPagamento.consultar(cobranca.mercadoPagoPaymentId()).status();
+            if (!"refunded".equalsIgnoreCase(status)) {
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.enums.TipoNotificacao;
+import br.com.tourapp.exception.BusinessException;
+import br.com.tourapp.repository.NotificacaoRepository;
+import br.com.tourapp.util.JanelaDeslizante;
+import br.com.tourapp.util.LruCache;
+import br.com.tourapp.util.TransactionUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Cotas de criação de notificações por tipo, em janela deslizante.
+ *
+ * URGENTE é limitada por organizador; os demais tipos, quando configurados, por compania. Cada dono
+ * e tipo tem uma {@link JanelaDeslizante} em um LRU, carregada das criações dentro da janela (no
+ * máximo o limite, pelos índices de V25) e recarregada a cada {@code recarga-segundos} para
+ * enxergar o que outros nós criaram. Se a transação da criação for desfeita, o registro é devolvido.
+ */
+@Service
+public class CotaNotificacaoService {
+
+    private final NotificacaoRepository notificacaoRepository;
+    private final Map<TipoNotificacao, Cota> cotas;
+    private final LruCache<ChaveCota, Janela> janelas;
+    private final long recargaMillis;
+
+    private final Counter permitidas;
+    private final Counter recusadas;
+
+    @Autowired
+    public CotaNotificacaoService(NotificacaoRepository notificacaoRepository,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.notificacoes.cotas.cache-tamanho:10000}") int tamanhoCache,
+                                  @Value("${app.notificacoes.cotas.recarga-segundos:60}") long recargaSegundos,
+                                  @Value("${app.notificacoes.cotas.janela-horas:24}") long janelaHoras,
+                                  @Value("${app.notificacoes.cotas.urgente.limite-organizador:3}") int limiteUrgente,
+                                  @Value("${app.notificacoes.cotas.info.limite-compania:0}") int limiteInfo,
+                                  @Value("${app.notificacoes.cotas.promocao.limite-compania:0}") int limitePromocao,
+                                  @Value("${app.notificacoes.cotas.lembrete.limite-compania:0}") int limiteLembrete,
+                                  @Value("${app.notificacoes.cotas.confirmacao.limite-compania:0}") int limiteConfirmacao,
+                                  @Value("${app.notificacoes.cotas.cancelamento.limite-compania:0}") int limiteCancelamento) {
+        this(notificacaoRepository, meterRegistry, tamanhoCache, recargaSegundos, cotasConfiguradas(
+                Duration.ofHours(janelaHoras), limiteUrgente, limiteInfo, limitePromocao, limiteLembrete,
+                limiteConfirmacao, limiteCancelamento));
+    }
+
+    CotaNotificacaoService(NotificacaoRepository notificacaoRepository,
+                           MeterRegistry meterRegistry,
+                           int tamanhoCache,
+                           long recargaSegundos,
+                           Map<TipoNotificacao, Cota> cotas) {
+        this.notificacaoRepository = notificacaoRepository;
+        this.cotas = cotas;
+        this.janelas = new LruCache<>(tamanhoCache);
+        this.recargaMillis = Duration.ofSeconds(recargaSegundos).toMillis();
+
+        this.permitidas = Counter.builder("tourapp.notificacoes.cotas")
+                .description("Criações de notificação verificadas pela cota, por resultado")
+                .tag("resultado", "permitida")
+                .register(meterRegistry);
+        this.recusadas = Counter.builder("tourapp.notificacoes.cotas")
+                .description("Criações de notificação verificadas pela cota, por resultado")
+                .tag("resultado", "recusada")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Consome uma unidade da cota do tipo, ou recusa a criação se ela já estiver esgotada.
+     * Deve ser chamado na transação que grava a notificação.
+     */
+    public void consumir(TipoNotificacao tipo, UUID organizadorId, UUID companiaId) {
+        Cota cota = cotas.get(tipo);
+        if (cota == null || cota.limite() <= 0) {
+            return;
+        }
+
+        boolean porOrganizador = cota.escopo() == Escopo.ORGANIZADOR;
+        ChaveCota chave = new ChaveCota(cota.escopo(), porOrganizador ? organizadorId : companiaId, tipo);
+        long agora = System.currentTimeMillis();
+        JanelaDeslizante janela = obterJanela(chave, cota, agora);
+
+        if (!janela.tentarRegistrar(agora, cota.limite())) {
+            recusadas.increment();
+            throw new BusinessException(String.format("Limite de %d notificações do tipo %s %s nas últimas %d horas atingido",
+                    cota.limite(), tipo.getDescricao(), porOrganizador ? "por organizador" : "por compania",
+                    cota.janela().toHours()));
+        }
+        permitidas.increment();
+        TransactionUtil.aposRollback(() -> janela.remover(agora));
+    }
+
+    private JanelaDeslizante obterJanela(ChaveCota chave, Cota cota, long agora) {
+        Janela atual = janelas.get(chave);
+        if (atual != null && agora - atual.carregadaEm() < recargaMillis) {
+            return atual.contador();
+        }
+
+        Janela carregada = new Janela(carregar(chave, cota), agora);
+        if (atual == null) {
+            Janela existente = janelas.putIfAbsent(chave, carregada);
+            // Outra thread carregou a mesma chave ao mesmo tempo
+            return existente != null ? existente.contador() : carregada.contador();
+        }
+        janelas.put(chave, carregada);
+        return carregada.contador();
+    }
+
+    private JanelaDeslizante carregar(ChaveCota chave, Cota cota) {
+        LocalDateTime desde = LocalDateTime.now().minus(cota.janela());
+        PageRequest limite = PageRequest.of(0, cota.limite());
+        List<LocalDateTime> criacoes = chave.escopo() == Escopo.ORGANIZADOR
+                ? notificacaoRepository.findCriacoesRecentesDoOrganizador(chave.donoId(), chave.tipo(), desde, limite)
+                : notificacaoRepository.findCriacoesRecentesDaCompania(chave.donoId(), chave.tipo(), desde, limite);
+
+        // A consulta vem da mais recente para a mais antiga
+        ZoneId zona = ZoneId.systemDefault();
+        return new JanelaDeslizante(cota.janela().toMillis(), criacoes.reversed().stream()
+                .map(criacao -> criacao.atZone(zona).toInstant().toEpochMilli())
+                .toList());
+    }
+
+    private static Map<TipoNotificacao, Cota> cotasConfiguradas(Duration janela, int limiteUrgente, int limiteInfo,
+                                                               int limitePromocao, int limiteLembrete,
+                                                               int limiteConfirmacao, int limiteCancelamento) {
+        Map<TipoNotificacao, Cota> cotas = new EnumMap<>(TipoNotificacao.class);
+        cotas.put(TipoNotificacao.URGENTE, new Cota(Escopo.ORGANIZADOR, limiteUrgente, janela));
+        cotas.put(TipoNotificacao.INFO, new Cota(Escopo.COMPANIA, limiteInfo, janela));
+        cotas.put(TipoNotificacao.PROMOCAO, new Cota(Escopo.COMPANIA, limitePromocao, janela));
+        cotas.put(TipoNotificacao.LEMBRETE, new Cota(Escopo.COMPANIA, limiteLembrete, janela));
+        cotas.put(TipoNotificacao.CONFIRMACAO, new Cota(Escopo.COMPANIA, limiteConfirmacao, janela));
+        cotas.put(TipoNotificacao.CANCELAMENTO, new Cota(Escopo.COMPANIA, limiteCancelamento, janela));
+        return cotas;
+    }
+
+    enum Escopo { ORGANIZADOR, COMPANIA }
+
+    /**
+     * @param limite criações permitidas dentro da janela; 0 desliga a cota
+     */
+    record Cota(Escopo escopo, int limite, Duration janela) {}
+
+    private record ChaveCota(Escopo escopo, UUID donoId, TipoNotificacao tipo) {}
+
+    private record Janela(JanelaDeslizante contador, long carregadaEm) {}
+}
@@ -0,0 +1,32 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Posição de uma paginação por cursor em (instante, id), como o catálogo de excursões e a caixa de
+ * notificações. Vai para o cliente como Base64 URL-safe e volta sem conferência de origem: um valor
+ * adulterado só muda a página devolvida, nunca o filtro de quem pode vê-la.
+ */
+record CursorKeyset(LocalDateTime instante, UUID id) {
+
+    String codificar() {
+        String valor = instante + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static CursorKeyset decodificar(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = valor.indexOf('|');
+            return new CursorKeyset(LocalDateTime.parse(valor.substring(0, separador)),
+                    UUID.fromString(valor.substring(separador + 1)));
+        } catch (RuntimeException e) {
+            throw new BusinessException("Cursor inválido");
+        }
+    }
+}
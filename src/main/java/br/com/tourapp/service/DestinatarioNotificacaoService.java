@@ -0,0 +1,115 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.entity.Notificacao;
+import br.com.tourapp.repository.UserRepository;
+import br.com.tourapp.repository.UserRepository.DestinatarioNotificacao;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Resolve os destinatários de uma notificação em blocos de tamanho fixo.
+ *
+ * Cada bloco traz só id, email, pushToken e emailNotifications (projeção, fora do contexto de
+ * persistência) e é lido por keyset no id do usuário, então a memória não cresce com a audiência e
+ * o custo de cada bloco não depende de quantos já foram lidos. O tamanho da audiência sai de um
+ * COUNT com os mesmos filtros, sem ler os destinatários.
+ */
+@Service
+public class DestinatarioNotificacaoService {
+
+    private static final UUID MENOR_UUID = new UUID(0L, 0L);
+
+    private final UserRepository userRepository;
+    private final int tamanhoLote;
+
+    public DestinatarioNotificacaoService(UserRepository userRepository,
+                                          @Value("${app.notificacoes.destinatarios.lote:1000}") int tamanhoLote) {
+        this.userRepository = userRepository;
+        this.tamanhoLote = tamanhoLote;
+    }
+
+    /**
+     * Entrega os destinatários ativos da notificação a {@code porLote}, um bloco por vez.
+     *
+     * @return quantidade de destinatários percorridos
+     */
+    @Transactional(readOnly = true)
+    public long percorrer(Notificacao notificacao, Consumer<List<DestinatarioNotificacao>> porLote) {
+        if (notificacao.getExcursao() != null) {
+            // Com excursão, "enviar para todos" vale só para os inscritos com pagamento aprovado
+            UUID excursaoId = notificacao.getExcursao().getId();
+            return percorrerPorKeyset(ultimoId ->
+                    userRepository.findDestinatariosDaExcursao(excursaoId, ultimoId, PageRequest.of(0, tamanhoLote)), porLote);
+        }
+        if (Boolean.TRUE.equals(notificacao.getEnviarParaTodos())) {
+            return percorrerPorKeyset(ultimoId ->
+                    userRepository.findDestinatariosAtivos(ultimoId, PageRequest.of(0, tamanhoLote)), porLote);
+        }
+        if (notificacao.getClientesAlvo() != null && !notificacao.getClientesAlvo().isEmpty()) {
+            return percorrerClientesAlvo(notificacao.getClientesAlvo(), porLote);
+        }
+        return 0;
+    }
+
+    /**
+     * Quantidade de destinatários ativos da notificação, pelas mesmas regras de {@link #percorrer}.
+     */
+    @Transactional(readOnly = true)
+    public long contar(Notificacao notificacao) {
+        if (notificacao.getExcursao() != null) {
+            return userRepository.countDestinatariosDaExcursao(notificacao.getExcursao().getId());
+        }
+        if (Boolean.TRUE.equals(notificacao.getEnviarParaTodos())) {
+            return userRepository.countDestinatariosAtivos();
+        }
+        if (notificacao.getClientesAlvo() != null && !notificacao.getClientesAlvo().isEmpty()) {
+            List<UUID> ids = notificacao.getClientesAlvo().stream().distinct().toList();
+            long total = 0;
+            for (int inicio = 0; inicio < ids.size(); inicio += tamanhoLote) {
+                total += userRepository.countDestinatariosPorIds(
+                        ids.subList(inicio, Math.min(inicio + tamanhoLote, ids.size())));
+            }
+            return total;
+        }
+        return 0;
+    }
+
+    private long percorrerPorKeyset(Function<UUID, List<DestinatarioNotificacao>> proximoLote,
+                                    Consumer<List<DestinatarioNotificacao>> porLote) {
+        long total = 0;
+        UUID ultimoId = MENOR_UUID;
+        while (true) {
+            List<DestinatarioNotificacao> lote = proximoLote.apply(ultimoId);
+            if (lote.isEmpty()) {
+                return total;
+            }
+            porLote.accept(lote);
+            total += lote.size();
+            if (lote.size() < tamanhoLote) {
+                return total;
+            }
+            ultimoId = lote.get(lote.size() - 1).getId();
+        }
+    }
+
+    private long percorrerClientesAlvo(List<UUID> clientesAlvo, Consumer<List<DestinatarioNotificacao>> porLote) {
+        List<UUID> ids = clientesAlvo.stream().distinct().sorted().toList();
+        long total = 0;
+        for (int inicio = 0; inicio < ids.size(); inicio += tamanhoLote) {
+            List<DestinatarioNotificacao> lote = userRepository.findDestinatariosPorIds(
+                    ids.subList(inicio, Math.min(inicio + tamanhoLote, ids.size())));
+            if (!lote.isEmpty()) {
+                porLote.accept(lote);
+                total += lote.size();
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,293 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.repository.UserRepository;
+import com.google.firebase.messaging.BatchResponse;
+import com.google.firebase.messaging.FirebaseMessaging;
+import com.google.firebase.messaging.FirebaseMessagingException;
+import com.google.firebase.messaging.MessagingErrorCode;
+import com.google.firebase.messaging.MulticastMessage;
+import com.google.firebase.messaging.Notification;
+import com.google.firebase.messaging.SendResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Envio de push em massa pelo FCM.
+ *
+ * Os tokens são divididos em lotes de até 500 (limite do sendEachForMulticast) enviados em paralelo,
+ * limitados por {@code app.push.paralelismo}. Falhas transitórias (UNAVAILABLE, INTERNAL,
+ * QUOTA_EXCEEDED) são retentadas com backoff só para os tokens que falharam; tokens que o FCM
+ * informa como não registrados ou inválidos são removidos de users.push_token ao final do envio.
+ */
+@Service
+public class DisparoPushService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DisparoPushService.class);
+
+    static final int LIMITE_TOKENS_FCM = 500;
+    private static final int LOTE_LIMPEZA_TOKENS = 1000;
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final EnvioMulticast envioMulticast;
+    private final int tamanhoLote;
+    private final Semaphore paralelismo;
+    private final int maxTentativas;
+    private final long backoffInicialMs;
+
+    private final Counter lotesSucesso;
+    private final Counter lotesParciais;
+    private final Counter lotesFalhos;
+    private final Counter mensagensEnviadas;
+    private final Counter mensagensFalhas;
+    private final Counter tokensInvalidos;
+    private final Timer duracaoLote;
+
+    @Autowired
+    public DisparoPushService(UserRepository userRepository,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.push.lote:500}") int tamanhoLote,
+                              @Value("${app.push.paralelismo:4}") int paralelismo,
+                              @Value("${app.push.max-tentativas:3}") int maxTentativas,
+                              @Value("${app.push.backoff-inicial-ms:500}") long backoffInicialMs) {
+        this(userRepository, transactionManager, meterRegistry,
+                (tokens, titulo, mensagem) -> FirebaseMessaging.getInstance()
+                        .sendEachForMulticast(criarMensagem(tokens, titulo, mensagem)),
+                tamanhoLote, paralelismo, maxTentativas, backoffInicialMs);
+    }
+
+    DisparoPushService(UserRepository userRepository,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       EnvioMulticast envioMulticast,
+                       int tamanhoLote,
+                       int paralelismo,
+                       int maxTentativas,
+                       long backoffInicialMs) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.envioMulticast = envioMulticast;
+        this.tamanhoLote = Math.min(Math.max(1, tamanhoLote), LIMITE_TOKENS_FCM);
+        this.paralelismo = new Semaphore(Math.max(1, paralelismo));
+        this.maxTentativas = Math.max(1, maxTentativas);
+        this.backoffInicialMs = backoffInicialMs;
+
+        this.lotesSucesso = contador(meterRegistry, "tourapp.push.lotes", "Lotes de push enviados ao FCM por resultado", "sucesso");
+        this.lotesParciais = contador(meterRegistry, "tourapp.push.lotes", "Lotes de push enviados ao FCM por resultado", "parcial");
+        this.lotesFalhos = contador(meterRegistry, "tourapp.push.lotes", "Lotes de push enviados ao FCM por resultado", "falhou");
+        this.mensagensEnviadas = contador(meterRegistry, "tourapp.push.mensagens", "Mensagens push por resultado", "enviada");
+        this.mensagensFalhas = contador(meterRegistry, "tourapp.push.mensagens", "Mensagens push por resultado", "falhou");
+        this.tokensInvalidos = contador(meterRegistry, "tourapp.push.mensagens", "Mensagens push por resultado", "token_invalido");
+        this.duracaoLote = Timer.builder("tourapp.push.lote.duracao")
+                .description("Duração do envio de um lote ao FCM, incluindo retentativas")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Envia a mesma notificação a todos os tokens e remove os tokens mortos.
+     */
+    public ResultadoDisparo enviar(List<String> tokens, String titulo, String mensagem) {
+        List<String> distintos = tokens.stream()
+                .filter(token -> token != null && !token.isBlank())
+                .distinct()
+                .toList();
+        if (distintos.isEmpty()) {
+            return new ResultadoDisparo(0, 0, 0, Set.of(), Set.of());
+        }
+
+        List<List<String>> lotes = new ArrayList<>();
+        for (int inicio = 0; inicio < distintos.size(); inicio += tamanhoLote) {
+            lotes.add(distintos.subList(inicio, Math.min(inicio + tamanhoLote, distintos.size())));
+        }
+
+        List<Future<ResultadoLote>> execucoes = new ArrayList<>(lotes.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (List<String> lote : lotes) {
+                execucoes.add(executor.submit(() -> enviarComLimite(lote, titulo, mensagem)));
+            }
+        }
+
+        int enviados = 0;
+        int falhas = 0;
+        Set<String> entregues = new LinkedHashSet<>();
+        Set<String> invalidos = new LinkedHashSet<>();
+        for (int i = 0; i < execucoes.size(); i++) {
+            try {
+                ResultadoLote resultado = execucoes.get(i).get();
+                enviados += resultado.enviados();
+                falhas += resultado.falhas();
+                entregues.addAll(resultado.entregues());
+                invalidos.addAll(resultado.invalidos());
+            } catch (ExecutionException e) {
+                falhas += lotes.get(i).size();
+                logger.error("Erro inesperado no lote de push: {}", e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                falhas += lotes.get(i).size();
+            }
+        }
+
+        int removidos = removerTokens(invalidos);
+        logger.info("Push para {} tokens: {} enviados, {} falhas, {} tokens inválidos removidos",
+                distintos.size(), enviados, falhas, removidos);
+        return new ResultadoDisparo(enviados, falhas, removidos, entregues, invalidos);
+    }
+
+    private ResultadoLote enviarComLimite(List<String> lote, String titulo, String mensagem) throws InterruptedException {
+        paralelismo.acquire();
+        long inicio = System.nanoTime();
+        try {
+            return enviarLote(lote, titulo, mensagem);
+        } finally {
+            duracaoLote.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            paralelismo.release();
+        }
+    }
+
+    ResultadoLote enviarLote(List<String> lote, String titulo, String mensagem) throws InterruptedException {
+        List<String> pendentes = lote;
+        List<String> entregues = new ArrayList<>();
+        List<String> invalidos = new ArrayList<>();
+
+        for (int tentativa = 1; tentativa <= maxTentativas && !pendentes.isEmpty(); tentativa++) {
+            if (tentativa > 1) {
+                Thread.sleep(backoffInicialMs << (tentativa - 2));
+            }
+
+            BatchResponse resposta;
+            try {
+                resposta = envioMulticast.enviar(pendentes, titulo, mensagem);
+            } catch (FirebaseMessagingException e) {
+                if (transitorio(e.getMessagingErrorCode())) {
+                    logger.warn("Lote de push falhou (tentativa {}): {}", tentativa, e.getMessage());
+                    continue;
+                }
+                logger.error("Lote de push recusado pelo FCM: {}", e.getMessage());
+                break;
+            } catch (RuntimeException e) {
+                logger.error("Erro ao enviar lote de push: {}", e.getMessage());
+                break;
+            }
+
+            List<String> retentar = new ArrayList<>();
+            List<SendResponse> respostas = resposta.getResponses();
+            // Com a mensagem aceita para algum token, o problema não está no payload
+            boolean payloadAceito = !entregues.isEmpty() || respostas.stream().anyMatch(SendResponse::isSuccessful);
+            for (int i = 0; i < respostas.size(); i++) {
+                SendResponse envio = respostas.get(i);
+                if (envio.isSuccessful()) {
+                    entregues.add(pendentes.get(i));
+                    continue;
+                }
+                MessagingErrorCode codigo = envio.getException() != null
+                        ? envio.getException().getMessagingErrorCode()
+                        : null;
+                if (tokenMorto(codigo, payloadAceito)) {
+                    invalidos.add(pendentes.get(i));
+                } else if (transitorio(codigo)) {
+                    retentar.add(pendentes.get(i));
+                }
+            }
+            pendentes = retentar;
+        }
+
+        int enviados = entregues.size();
+        int falhas = lote.size() - enviados - invalidos.size();
+        mensagensEnviadas.increment(enviados);
+        mensagensFalhas.increment(falhas);
+        tokensInvalidos.increment(invalidos.size());
+        if (enviados == lote.size()) {
+            lotesSucesso.increment();
+        } else if (enviados == 0) {
+            lotesFalhos.increment();
+        } else {
+            lotesParciais.increment();
+        }
+        return new ResultadoLote(enviados, falhas, entregues, invalidos);
+    }
+
+    private int removerTokens(Set<String> invalidos) {
+        if (invalidos.isEmpty()) {
+            return 0;
+        }
+        List<String> tokens = new ArrayList<>(invalidos);
+        int removidos = 0;
+        for (int inicio = 0; inicio < tokens.size(); inicio += LOTE_LIMPEZA_TOKENS) {
+            List<String> bloco = tokens.subList(inicio, Math.min(inicio + LOTE_LIMPEZA_TOKENS, tokens.size()));
+            try {
+                Integer atualizados = transactionTemplate.execute(status ->
+                        userRepository.limparPushTokens(bloco, LocalDateTime.now()));
+                removidos += atualizados != null ? atualizados : 0;
+            } catch (RuntimeException e) {
+                // Os tokens voltam a falhar no próximo envio e são removidos então
+                logger.error("Erro ao remover tokens de push inválidos: {}", e.getMessage());
+            }
+        }
+        return removidos;
+    }
+
+    private static MulticastMessage criarMensagem(List<String> tokens, String titulo, String mensagem) {
+        return MulticastMessage.builder()
+                .addAllTokens(tokens)
+                .setNotification(Notification.builder()
+                        .setTitle(titulo)
+                        .setBody(mensagem)
+                        .build())
+                .putData("click_action", "FLUTTER_NOTIFICATION_CLICK")
+                .build();
+    }
+
+    // INVALID_ARGUMENT também é o que o FCM devolve para todos os tokens quando o payload é inválido
+    // (grande demais, chave de data proibida): só indica token morto se outro token do lote recebeu
+    private boolean tokenMorto(MessagingErrorCode codigo, boolean payloadAceito) {
+        return codigo == MessagingErrorCode.UNREGISTERED || codigo == MessagingErrorCode.SENDER_ID_MISMATCH
+                || (codigo == MessagingErrorCode.INVALID_ARGUMENT && payloadAceito);
+    }
+
+    private boolean transitorio(MessagingErrorCode codigo) {
+        return codigo == MessagingErrorCode.UNAVAILABLE || codigo == MessagingErrorCode.INTERNAL
+                || codigo == MessagingErrorCode.QUOTA_EXCEEDED;
+    }
+
+    private static Counter contador(MeterRegistry meterRegistry, String nome, String descricao, String resultado) {
+        return Counter.builder(nome)
+                .description(descricao)
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+
+    @FunctionalInterface
+    interface EnvioMulticast {
+        BatchResponse enviar(List<String> tokens, String titulo, String mensagem) throws FirebaseMessagingException;
+    }
+
+    record ResultadoLote(int enviados, int falhas, List<String> entregues, List<String> invalidos) {}
+
+    /**
+     * @param entregues tokens aceitos pelo FCM
+     * @param invalidos tokens mortos, já removidos dos usuários; não adianta retentar
+     */
+    public record ResultadoDisparo(int enviados, int falhas, int tokensRemovidos,
+                                   Set<String> entregues, Set<String> invalidos) {}
+}
@@ -2,8 +2,12 @@ package br.com.tourapp.service;
 
 import br.com.tourapp.entity.Inscricao;
 import br.com.tourapp.entity.Notificacao;
+import br.com.tourapp.service.EnvioEmailMassaService.EnvioEmMassa;
+import br.com.tourapp.service.ModeloEmailService.ModeloEmail;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
@@ -12,33 +16,39 @@ import org.springframework.stereotype.Service;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class EmailService {
 
+    private static final Logger logger = LoggerFactory.getLogger(EmailService.class);
+
     private final JavaMailSender mailSender;
     private final TemplateEngine templateEngine;
+    private final EnvioEmailMassaService envioEmailMassaService;
+    private final ModeloEmailService modeloEmailService;
     private final String fromEmail;
 
     public EmailService(JavaMailSender mailSender,
                         TemplateEngine templateEngine,
+                        EnvioEmailMassaService envioEmailMassaService,
+                        ModeloEmailService modeloEmailService,
                         @Value("${spring.mail.username}") String fromEmail) {
         this.mailSender = mailSender;
         this.templateEngine = templateEngine;
+        this.envioEmailMassaService = envioEmailMassaService;
+        this.modeloEmailService = modeloEmailService;
         this.fromEmail = fromEmail;
     }
 
     @Async
     public void enviarConfirmacaoInscricao(Inscricao inscricao) {
         try {
-            Context context = new Context();
-            context.setVariable("nomeCliente", inscricao.getUser().getFullName()); // AJUSTADO
-            context.setVariable("tituloExcursao", inscricao.getExcursao().getTitulo());
-            context.setVariable("dataExcursao", inscricao.getExcursao().getDataSaida());
-            context.setVariable("valorPago", inscricao.getValorPago());
-
-            String htmlContent = templateEngine.process("email/confirmacao-inscricao", context);
+            String htmlContent = renderizarInscricao("email/confirmacao-inscricao", inscricao);
 
             enviarEmail(
                     inscricao.getUser().getEmail(), // AJUSTADO
@@ -50,43 +60,106 @@ public class EmailService {
         }
     }
 
+    /**
+     * Síncrono: chamado pelo outbox, que retenta o envio se houver falha.
+     */
+    public void enviarConfirmacaoPagamento(Inscricao inscricao) throws MessagingException {
+        String htmlContent = renderizarInscricao("email/confirmacao-pagamento", inscricao);
+
+        enviarEmail(
+                inscricao.getUser().getEmail(),
+                "Pagamento Confirmado - " + inscricao.getExcursao().getTitulo(),
+                htmlContent
+        );
+    }
+
     @Async
-    public void enviarConfirmacaoPagamento(Inscricao inscricao) {
+    public void enviarConfirmacaoInscricaoGrupo(List<Inscricao> inscricoes) {
+        try {
+            enviarResumoGrupo(inscricoes, "email/confirmacao-inscricao-grupo", "Confirmação de Inscrição em Grupo - ");
+        } catch (Exception e) {
+            logger.error("Erro ao enviar email de confirmação de inscrição em grupo ({} inscrição(ões)): {}",
+                    inscricoes.size(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Síncrono: chamado pelo outbox, que retenta o envio se houver falha.
+     */
+    public void enviarConfirmacaoPagamentoGrupo(List<Inscricao> inscricoes) throws MessagingException {
+        enviarResumoGrupo(inscricoes, "email/confirmacao-pagamento-grupo", "Pagamento Confirmado - ");
+    }
+
+    @Async
+    public void enviarPromocaoListaEspera(String email, String nomeCliente, String tituloExcursao,
+                                          LocalDateTime dataExcursao, LocalDateTime prazoPagamento) {
         try {
             Context context = new Context();
-            context.setVariable("nomeCliente", inscricao.getUser().getFullName()); // AJUSTADO
-            context.setVariable("tituloExcursao", inscricao.getExcursao().getTitulo());
-            context.setVariable("dataExcursao", inscricao.getExcursao().getDataSaida());
-            context.setVariable("valorPago", inscricao.getValorPago());
+            context.setVariable("nomeCliente", nomeCliente);
+            context.setVariable("tituloExcursao", tituloExcursao);
+            context.setVariable("dataExcursao", dataExcursao);
+            context.setVariable("prazoPagamento", prazoPagamento);
 
-            String htmlContent = templateEngine.process("email/confirmacao-pagamento", context);
+            String htmlContent = templateEngine.process("email/promocao-lista-espera", context);
 
             enviarEmail(
-                    inscricao.getUser().getEmail(), // AJUSTADO
-                    "Pagamento Confirmado - " + inscricao.getExcursao().getTitulo(),
+                    email,
+                    "Vaga Disponível - " + tituloExcursao,
                     htmlContent
             );
         } catch (Exception e) {
-            System.err.println("Erro ao enviar email de confirmação de pagamento: " + e.getMessage());
+            logger.error("Erro ao enviar email de promoção da lista de espera para {}: {}", email, e.getMessage(), e);
         }
     }
 
-    @Async
-    public void enviarNotificacaoPersonalizada(Notificacao notificacao, List<String> emails) {
-        try {
-            Context context = new Context();
-            context.setVariable("titulo", notificacao.getTitulo());
-            context.setVariable("mensagem", notificacao.getMensagem());
-            context.setVariable("nomeOrganizador", notificacao.getCompania().getNomeEmpresa()); // AJUSTADO
+    /**
+     * Renderiza a notificação uma única vez e abre o envio em massa; os destinatários são
+     * entregues pelo chamador, em blocos.
+     */
+    public EnvioEmMassa iniciarNotificacaoPersonalizada(Notificacao notificacao) throws MessagingException {
+        Context context = new Context();
+        context.setVariable("titulo", notificacao.getTitulo());
+        context.setVariable("mensagem", notificacao.getMensagem());
+        context.setVariable("nomeOrganizador", notificacao.getCompania().getNomeEmpresa());
+
+        String htmlContent = templateEngine.process("email/notificacao-personalizada", context);
+        return envioEmailMassaService.iniciar(notificacao.getTitulo(), htmlContent);
+    }
 
-            String htmlContent = templateEngine.process("email/notificacao-personalizada", context);
+    private void enviarResumoGrupo(List<Inscricao> inscricoes, String template, String assunto) throws MessagingException {
+        Inscricao principal = inscricoes.get(0);
+        BigDecimal valorTotal = inscricoes.stream()
+                .map(Inscricao::getValorPago)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        Map<String, Object> variaveis = new HashMap<>();
+        variaveis.put("tituloExcursao", principal.getExcursao().getTitulo());
+        variaveis.put("dataExcursao", principal.getExcursao().getDataSaida());
+        variaveis.put("quantidadeVagas", inscricoes.size());
+        variaveis.put("valorTotal", valorTotal);
+
+        ModeloEmail modelo = modeloEmailService.compilar(template, variaveis, List.of("nomeCliente"));
+        String htmlContent = modelo.renderizar(principal.getUser().getFullName());
+
+        enviarEmail(
+                principal.getUser().getEmail(),
+                assunto + principal.getExcursao().getTitulo(),
+                htmlContent
+        );
+    }
 
-            for (String email : emails) {
-                enviarEmail(email, notificacao.getTitulo(), htmlContent);
-            }
-        } catch (Exception e) {
-            System.err.println("Erro ao enviar notificação personalizada: " + e.getMessage());
-        }
+    /**
+     * Só o nome do cliente varia entre as inscrições da mesma excursão e valor; o restante do
+     * template sai do modelo em cache.
+     */
+    private String renderizarInscricao(String template, Inscricao inscricao) {
+        Map<String, Object> variaveis = new HashMap<>();
+        variaveis.put("tituloExcursao", inscricao.getExcursao().getTitulo());
+        variaveis.put("dataExcursao", inscricao.getExcursao().getDataSaida());
+        variaveis.put("valorPago", inscricao.getValorPago());
+
+        ModeloEmail modelo = modeloEmailService.compilar(template, variaveis, List.of("nomeCliente"));
+        return modelo.renderizar(inscricao.getUser().getFullName());
     }
 
     private void enviarEmail(String to, String subject, String htmlContent) throws MessagingException {
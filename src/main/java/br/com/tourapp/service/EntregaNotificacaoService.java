@@ -0,0 +1,376 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.entity.EntregaNotificacao;
+import br.com.tourapp.entity.Notificacao;
+import br.com.tourapp.enums.CanalNotificacao;
+import br.com.tourapp.repository.EntregaNotificacaoRepository;
+import br.com.tourapp.repository.NotificacaoRepository;
+import br.com.tourapp.repository.UserRepository.DestinatarioNotificacao;
+import br.com.tourapp.service.DisparoPushService.ResultadoDisparo;
+import br.com.tourapp.service.EnvioEmailMassaService.EnvioEmMassa;
+import br.com.tourapp.service.EnvioEmailMassaService.ResultadoEnvio;
+import br.com.tourapp.service.EstatisticaNotificacaoService.Variacao;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.MessagingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Fila persistente de entrega das notificações.
+ *
+ * {@link #enfileirar} grava uma linha por destinatário e canal na transação do envio; reenfileirar
+ * a mesma notificação não duplica linhas. Os workers reservam lotes com FOR UPDATE SKIP LOCKED,
+ * agrupam por notificação e canal e enviam pelo email em massa e pelo FCM. Cada linha sabe se foi
+ * entregue: falhas voltam para a fila com backoff exponencial e, esgotadas as tentativas, ficam como
+ * FALHOU (dead letter) até um reenvio da notificação. Cada mudança de status também atualiza os
+ * contadores de {@link EstatisticaNotificacaoService}, na mesma transação.
+ */
+@Service
+public class EntregaNotificacaoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntregaNotificacaoService.class);
+
+    private static final String SQL_ENFILEIRAR =
+            "INSERT INTO entregas_notificacao (notificacao_id, user_id, canal, destino, status, tentativas, " +
+            "proxima_tentativa_em) VALUES (?, ?, ?, ?, 'PENDENTE', 0, ?) " +
+            "ON CONFLICT (notificacao_id, user_id, canal) DO NOTHING";
+
+    private final EntregaNotificacaoRepository entregaRepository;
+    private final NotificacaoRepository notificacaoRepository;
+    private final DestinatarioNotificacaoService destinatarioService;
+    private final EmailService emailService;
+    private final DisparoPushService disparoPushService;
+    private final EstatisticaNotificacaoService estatisticaService;
+    private final CaixaNotificacaoService caixaService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanhoLote;
+    private final int maxTentativas;
+    private final PoliticaRetentativa politicaRetentativa;
+    private final long bloqueioSegundos;
+
+    private final Counter enfileiradas;
+    private final Counter entregues;
+    private final Counter retentativas;
+    private final Counter falhas;
+    private final AtomicLong pendentes = new AtomicLong();
+
+    public EntregaNotificacaoService(EntregaNotificacaoRepository entregaRepository,
+                                     NotificacaoRepository notificacaoRepository,
+                                     DestinatarioNotificacaoService destinatarioService,
+                                     EmailService emailService,
+                                     DisparoPushService disparoPushService,
+                                     EstatisticaNotificacaoService estatisticaService,
+                                     CaixaNotificacaoService caixaService,
+                                     JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${app.notificacoes.entregas.lote:500}") int tamanhoLote,
+                                     @Value("${app.notificacoes.entregas.max-tentativas:5}") int maxTentativas,
+                                     @Value("${app.notificacoes.entregas.backoff-inicial-ms:30000}") long backoffInicialMs,
+                                     @Value("${app.notificacoes.entregas.backoff-maximo-ms:3600000}") long backoffMaximoMs,
+                                     @Value("${app.notificacoes.entregas.bloqueio-segundos:300}") long bloqueioSegundos) {
+        this.entregaRepository = entregaRepository;
+        this.notificacaoRepository = notificacaoRepository;
+        this.destinatarioService = destinatarioService;
+        this.emailService = emailService;
+        this.disparoPushService = disparoPushService;
+        this.estatisticaService = estatisticaService;
+        this.caixaService = caixaService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanhoLote = tamanhoLote;
+        this.maxTentativas = maxTentativas;
+        this.politicaRetentativa = new PoliticaRetentativa(backoffInicialMs, backoffMaximoMs);
+        this.bloqueioSegundos = bloqueioSegundos;
+
+        this.enfileiradas = contador(meterRegistry, "enfileirada");
+        this.entregues = contador(meterRegistry, "entregue");
+        this.retentativas = contador(meterRegistry, "retentativa");
+        this.falhas = contador(meterRegistry, "falhou");
+        Gauge.builder("tourapp.notificacoes.entregas.pendentes", pendentes, AtomicLong::get)
+                .description("Entregas de notificação aguardando envio")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Grava as entregas de todos os destinatários da notificação, em blocos, e soma a notificação às
+     * não lidas da caixa de cada um. Linhas que já existem (entregues ou não) são mantidas como estão.
+     *
+     * @return quantidade de destinatários encontrados
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long enfileirar(Notificacao notificacao) {
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        Map<CanalNotificacao, Long> inseridas = new EnumMap<>(CanalNotificacao.class);
+        long total = destinatarioService.percorrer(notificacao, lote -> {
+            List<Object[]> linhas = new ArrayList<>(lote.size() * 2);
+            for (DestinatarioNotificacao destinatario : lote) {
+                if (Boolean.TRUE.equals(destinatario.getEmailNotifications()) && preenchido(destinatario.getEmail())) {
+                    linhas.add(new Object[]{notificacao.getId(), destinatario.getId(), CanalNotificacao.EMAIL.name(),
+                            destinatario.getEmail(), agora});
+                }
+                if (preenchido(destinatario.getPushToken())) {
+                    linhas.add(new Object[]{notificacao.getId(), destinatario.getId(), CanalNotificacao.PUSH.name(),
+                            destinatario.getPushToken(), agora});
+                }
+            }
+            if (!linhas.isEmpty()) {
+                int[] resultados = jdbcTemplate.batchUpdate(SQL_ENFILEIRAR, linhas);
+                for (int i = 0; i < resultados.length; i++) {
+                    // ON CONFLICT DO NOTHING devolve 0 para a entrega que já existia
+                    if (resultados[i] != 0) {
+                        inseridas.merge(CanalNotificacao.valueOf((String) linhas.get(i)[2]), 1L, Long::sum);
+                    }
+                }
+                enfileiradas.increment(linhas.size());
+            }
+            caixaService.registrarNovas(lote.stream().map(DestinatarioNotificacao::getId).toList());
+        });
+
+        estatisticaService.registrar(inseridas.entrySet().stream()
+                .map(inserida -> Variacao.enfileiradas(notificacao.getId(), inserida.getKey(), inserida.getValue()))
+                .toList());
+        return total;
+    }
+
+    /**
+     * Devolve para a fila as entregas da notificação que foram para dead letter.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int reabrirFalhas(UUID notificacaoId) {
+        LocalDateTime agora = LocalDateTime.now();
+        int total = 0;
+        List<Variacao> variacoes = new ArrayList<>();
+        for (CanalNotificacao canal : CanalNotificacao.values()) {
+            int reabertas = entregaRepository.reabrirFalhas(notificacaoId, canal, agora);
+            variacoes.add(Variacao.falhas(notificacaoId, canal, -reabertas));
+            total += reabertas;
+        }
+        estatisticaService.registrar(variacoes);
+        return total;
+    }
+
+    /**
+     * Drena a fila em lotes enquanto houver entregas elegíveis.
+     */
+    @Scheduled(fixedDelayString = "${app.notificacoes.entregas.intervalo-ms:1000}")
+    public void drenar() {
+        try {
+            for (int rodada = 0; rodada < PoliticaRetentativa.MAX_RODADAS_POR_CICLO; rodada++) {
+                List<EntregaNotificacao> lote = reservarLote();
+                if (lote.isEmpty()) {
+                    return;
+                }
+                processarLote(lote);
+                if (lote.size() < tamanhoLote) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Erro ao drenar a fila de entregas de notificação: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.notificacoes.entregas.metricas-intervalo-ms:15000}")
+    public void atualizarMetricas() {
+        try {
+            LocalDateTime agora = LocalDateTime.now();
+            Integer liberadas = transactionTemplate.execute(status -> entregaRepository.liberarBloqueiosVencidos(agora));
+            if (liberadas != null && liberadas > 0) {
+                logger.warn("{} entrega(s) de notificação presas em processamento voltaram para a fila", liberadas);
+            }
+            pendentes.set(entregaRepository.countPendentes());
+        } catch (RuntimeException e) {
+            logger.error("Erro ao atualizar métricas das entregas de notificação: {}", e.getMessage());
+        }
+    }
+
+    private List<EntregaNotificacao> reservarLote() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime agora = LocalDateTime.now();
+            List<UUID> ids = entregaRepository.reservarProximas(agora, tamanhoLote);
+            if (ids.isEmpty()) {
+                return List.<EntregaNotificacao>of();
+            }
+            entregaRepository.marcarProcessando(ids, agora.plusSeconds(bloqueioSegundos), agora);
+            // Carregadas depois do UPDATE para já virem com a tentativa atual contada
+            return entregaRepository.findAllById(ids);
+        });
+    }
+
+    void processarLote(List<EntregaNotificacao> lote) {
+        Map<UUID, List<EntregaNotificacao>> porNotificacao = lote.stream()
+                .collect(Collectors.groupingBy(EntregaNotificacao::getNotificacaoId, LinkedHashMap::new,
+                        Collectors.toList()));
+
+        porNotificacao.forEach((notificacaoId, entregas) -> {
+            Optional<Notificacao> notificacao = notificacaoRepository.findComCompania(notificacaoId);
+            if (notificacao.isEmpty()) {
+                descartar(entregas, "Notificação não encontrada", false);
+                return;
+            }
+
+            Map<CanalNotificacao, List<EntregaNotificacao>> porCanal = entregas.stream()
+                    .collect(Collectors.groupingBy(EntregaNotificacao::getCanal));
+            porCanal.forEach((canal, doCanal) -> {
+                try {
+                    if (canal == CanalNotificacao.EMAIL) {
+                        enviarEmails(notificacao.get(), doCanal);
+                    } else {
+                        enviarPush(notificacao.get(), doCanal);
+                    }
+                } catch (Exception e) {
+                    logger.error("Erro ao entregar notificação {} por {}: {}", notificacaoId, canal, e.getMessage());
+                    registrarFalhas(doCanal, PoliticaRetentativa.resumirErro(e));
+                }
+            });
+        });
+    }
+
+    private void enviarEmails(Notificacao notificacao, List<EntregaNotificacao> entregas) throws MessagingException {
+        ResultadoEnvio resultado;
+        try (EnvioEmMassa envio = emailService.iniciarNotificacaoPersonalizada(notificacao)) {
+            envio.enviar(entregas.stream().map(EntregaNotificacao::getDestino).distinct().toList());
+            resultado = envio.concluir();
+        }
+
+        List<EntregaNotificacao> recusadas = new ArrayList<>();
+        List<EntregaNotificacao> aceitas = new ArrayList<>();
+        for (EntregaNotificacao entrega : entregas) {
+            (resultado.recusados().contains(entrega.getDestino()) ? recusadas : aceitas).add(entrega);
+        }
+        registrarEntregues(aceitas);
+        registrarFalhas(recusadas, "Email recusado ou servidor SMTP indisponível");
+    }
+
+    private void enviarPush(Notificacao notificacao, List<EntregaNotificacao> entregas) {
+        ResultadoDisparo resultado = disparoPushService.enviar(
+                entregas.stream().map(EntregaNotificacao::getDestino).toList(),
+                notificacao.getTitulo(), notificacao.getMensagem());
+
+        List<EntregaNotificacao> aceitas = new ArrayList<>();
+        List<EntregaNotificacao> invalidas = new ArrayList<>();
+        List<EntregaNotificacao> falharam = new ArrayList<>();
+        for (EntregaNotificacao entrega : entregas) {
+            if (resultado.entregues().contains(entrega.getDestino())) {
+                aceitas.add(entrega);
+            } else if (resultado.invalidos().contains(entrega.getDestino())) {
+                invalidas.add(entrega);
+            } else {
+                falharam.add(entrega);
+            }
+        }
+        registrarEntregues(aceitas);
+        // Token morto não volta a funcionar: direto para dead letter
+        descartar(invalidas, "Token de push inválido ou não registrado");
+        registrarFalhas(falharam, "Falha no envio pelo FCM");
+    }
+
+    private void registrarEntregues(List<EntregaNotificacao> entregas) {
+        if (entregas.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            int marcadas = entregaRepository.marcarEntregues(ids(entregas), LocalDateTime.now());
+            EntregaNotificacao primeira = entregas.get(0);
+            estatisticaService.registrar(List.of(
+                    Variacao.entregues(primeira.getNotificacaoId(), primeira.getCanal(), marcadas)));
+        });
+        entregues.increment(entregas.size());
+    }
+
+    private void registrarFalhas(List<EntregaNotificacao> entregas, String erro) {
+        if (entregas.isEmpty()) {
+            return;
+        }
+
+        List<EntregaNotificacao> esgotadas = new ArrayList<>();
+        Map<Integer, List<EntregaNotificacao>> porTentativa = new LinkedHashMap<>();
+        for (EntregaNotificacao entrega : entregas) {
+            if (entrega.getTentativas() >= maxTentativas) {
+                esgotadas.add(entrega);
+            } else {
+                porTentativa.computeIfAbsent(entrega.getTentativas(), t -> new ArrayList<>()).add(entrega);
+            }
+        }
+
+        descartar(esgotadas, erro);
+
+        LocalDateTime agora = LocalDateTime.now();
+        porTentativa.forEach((tentativas, doGrupo) -> {
+            LocalDateTime proximaTentativa = agora.plus(Duration.ofMillis(calcularBackoff(tentativas)));
+            transactionTemplate.executeWithoutResult(status ->
+                    entregaRepository.reagendar(ids(doGrupo), proximaTentativa, erro, agora));
+            retentativas.increment(doGrupo.size());
+        });
+    }
+
+    private void descartar(List<EntregaNotificacao> entregas, String erro) {
+        descartar(entregas, erro, true);
+    }
+
+    /**
+     * @param contabilizar false quando a notificação não existe mais e não há contadores a atualizar
+     */
+    private void descartar(List<EntregaNotificacao> entregas, String erro, boolean contabilizar) {
+        if (entregas.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            int marcadas = entregaRepository.marcarFalha(ids(entregas), erro, LocalDateTime.now());
+            if (contabilizar) {
+                EntregaNotificacao primeira = entregas.get(0);
+                estatisticaService.registrar(List.of(
+                        Variacao.falhas(primeira.getNotificacaoId(), primeira.getCanal(), marcadas)));
+            }
+        });
+        falhas.increment(entregas.size());
+        logger.warn("{} entrega(s) da notificação {} foram para dead letter: {}",
+                entregas.size(), entregas.get(0).getNotificacaoId(), erro);
+    }
+
+    long calcularBackoff(int tentativas) {
+        return politicaRetentativa.backoff(tentativas);
+    }
+
+    private static Set<UUID> ids(Collection<EntregaNotificacao> entregas) {
+        return entregas.stream().map(EntregaNotificacao::getId).collect(Collectors.toSet());
+    }
+
+    private static boolean preenchido(String valor) {
+        return valor != null && !valor.isBlank();
+    }
+
+    private static Counter contador(MeterRegistry meterRegistry, String resultado) {
+        return Counter.builder("tourapp.notificacoes.entregas")
+                .description("Entregas de notificação por resultado")
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+}
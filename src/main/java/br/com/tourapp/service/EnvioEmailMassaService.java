@@ -0,0 +1,329 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.util.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Envio de um mesmo email para muitos destinatários.
+ *
+ * A mensagem é montada uma vez por envio e copiada por lote; só o destinatário e o Message-ID mudam.
+ * Os lotes saem por um pool de conexões SMTP persistentes ({@code app.email.massa.conexoes}), que
+ * também limita a concorrência, com taxa global limitada por um token bucket. Quem produz os
+ * destinatários fica bloqueado quando há {@code lotes-em-espera} lotes pendentes, então a memória
+ * não cresce com a audiência.
+ *
+ * Os lotes rodam em threads de plataforma, uma por conexão: connect e sendMessage do jakarta.mail
+ * são synchronized e prenderiam uma thread virtual ao carrier durante todo o I/O do SMTP.
+ */
+@Service
+public class EnvioEmailMassaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnvioEmailMassaService.class);
+
+    // Abaixo disso a conexão é reaproveitada sem NOOP de verificação
+    private static final long OCIOSIDADE_VERIFICACAO_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final JavaMailSender mailSender;
+    private final JavaMailSenderImpl smtp;
+    private final String remetente;
+    private final BlockingQueue<ConexaoSmtp> conexoes;
+    private final TokenBucket limiteEnvio;
+    private final long esperaTokenMillis;
+    private final int tamanhoLote;
+    private final int lotesEmEspera;
+    private final int maxMensagensPorConexao;
+    private final ExecutorService workers;
+
+    private final Counter enviadas;
+    private final Counter falhas;
+    private final Counter conexoesAbertas;
+    private final Timer duracaoLote;
+
+    public EnvioEmailMassaService(JavaMailSender mailSender,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${spring.mail.username:}") String remetente,
+                                  @Value("${app.email.massa.conexoes:4}") int quantidadeConexoes,
+                                  @Value("${app.email.massa.mensagens-por-segundo:20}") double mensagensPorSegundo,
+                                  @Value("${app.email.massa.lote:50}") int tamanhoLote,
+                                  @Value("${app.email.massa.lotes-em-espera:8}") int lotesEmEspera,
+                                  @Value("${app.email.massa.max-mensagens-por-conexao:100}") int maxMensagensPorConexao) {
+        this.mailSender = mailSender;
+        // Sem JavaMailSenderImpl não há como manter o Transport aberto; cada mensagem usa o send padrão
+        this.smtp = mailSender instanceof JavaMailSenderImpl impl ? impl : null;
+        this.remetente = remetente;
+        this.conexoes = new ArrayBlockingQueue<>(Math.max(1, quantidadeConexoes));
+        this.workers = Executors.newFixedThreadPool(Math.max(1, quantidadeConexoes),
+                Thread.ofPlatform().name("email-massa-", 1).daemon(true).factory());
+        for (int i = 0; i < Math.max(1, quantidadeConexoes); i++) {
+            conexoes.add(new ConexaoSmtp());
+        }
+        this.limiteEnvio = new TokenBucket(mensagensPorSegundo, Math.max(1, mensagensPorSegundo), System.nanoTime());
+        this.esperaTokenMillis = Math.max(1, (long) (1000 / mensagensPorSegundo));
+        this.tamanhoLote = Math.max(1, tamanhoLote);
+        this.lotesEmEspera = Math.max(1, lotesEmEspera);
+        this.maxMensagensPorConexao = Math.max(1, maxMensagensPorConexao);
+
+        this.enviadas = Counter.builder("tourapp.email.massa.mensagens")
+                .description("Emails em massa por resultado")
+                .tag("resultado", "enviada")
+                .register(meterRegistry);
+        this.falhas = Counter.builder("tourapp.email.massa.mensagens")
+                .description("Emails em massa por resultado")
+                .tag("resultado", "falhou")
+                .register(meterRegistry);
+        this.conexoesAbertas = Counter.builder("tourapp.email.massa.conexoes.abertas")
+                .description("Conexões SMTP abertas pelo envio em massa")
+                .register(meterRegistry);
+        this.duracaoLote = Timer.builder("tourapp.email.massa.lote.duracao")
+                .description("Duração do envio de um lote de emails")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Prepara o envio de um email já renderizado. Os destinatários são entregues em seguida, em
+     * quantos blocos forem necessários, por {@link EnvioEmMassa#enviar}.
+     */
+    public EnvioEmMassa iniciar(String assunto, String html) throws MessagingException {
+        MimeMessage modelo = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(modelo, true, "UTF-8");
+        helper.setFrom(remetente);
+        helper.setSubject(assunto);
+        helper.setText(html, true);
+        modelo.saveChanges();
+        return new EnvioEmMassa(modelo);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        workers.shutdown();
+        conexoes.forEach(ConexaoSmtp::fechar);
+    }
+
+    private void enviarLote(MimeMessage modelo, List<String> destinatarios, EnvioEmMassa envio) throws InterruptedException {
+        ConexaoSmtp conexao = conexoes.take();
+        long inicio = System.nanoTime();
+        try {
+            MimeMessage mensagem = new MimeMessage(modelo);
+            for (String destinatario : destinatarios) {
+                aguardarVez();
+                if (enviarUma(conexao, mensagem, destinatario)) {
+                    envio.totalEnviadas.incrementAndGet();
+                    enviadas.increment();
+                } else {
+                    envio.registrarFalhas(List.of(destinatario));
+                    falhas.increment();
+                }
+            }
+        } catch (MessagingException e) {
+            logger.error("Erro ao preparar lote de emails: {}", e.getMessage());
+            envio.registrarFalhas(destinatarios);
+            falhas.increment(destinatarios.size());
+        } finally {
+            conexoes.add(conexao);
+            duracaoLote.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private boolean enviarUma(ConexaoSmtp conexao, MimeMessage mensagem, String destinatario) {
+        try {
+            mensagem.setRecipient(Message.RecipientType.TO, new InternetAddress(destinatario));
+            mensagem.setHeader("Message-ID", "<" + UUID.randomUUID() + "@tourapp>");
+        } catch (MessagingException e) {
+            logger.warn("Destinatário inválido {}: {}", destinatario, e.getMessage());
+            return false;
+        }
+
+        if (smtp == null) {
+            try {
+                mailSender.send(mensagem);
+                return true;
+            } catch (RuntimeException e) {
+                logger.warn("Falha ao enviar email para {}: {}", destinatario, e.getMessage());
+                return false;
+            }
+        }
+
+        // Uma nova tentativa, em outra conexão, se o servidor derrubou a atual
+        for (int tentativa = 1; tentativa <= 2; tentativa++) {
+            try {
+                conexao.obter().sendMessage(mensagem, mensagem.getAllRecipients());
+                conexao.registrarEnvio();
+                return true;
+            } catch (SendFailedException | AddressException e) {
+                logger.warn("Email recusado para {}: {}", destinatario, e.getMessage());
+                return false;
+            } catch (MessagingException e) {
+                conexao.fechar();
+                if (tentativa == 2) {
+                    logger.warn("Falha ao enviar email para {}: {}", destinatario, e.getMessage());
+                }
+            }
+        }
+        return false;
+    }
+
+    private void aguardarVez() throws InterruptedException {
+        while (!limiteEnvio.tentarConsumir(System.nanoTime())) {
+            Thread.sleep(esperaTokenMillis);
+        }
+    }
+
+    /**
+     * Um envio em andamento. {@link #enviar} pode ser chamado várias vezes; {@link #concluir} espera
+     * os lotes pendentes e devolve o total.
+     */
+    public final class EnvioEmMassa implements AutoCloseable {
+
+        private final MimeMessage modelo;
+        private final Semaphore pendentes = new Semaphore(lotesEmEspera);
+        private final AtomicInteger totalEnviadas = new AtomicInteger();
+        private final Set<String> recusados = ConcurrentHashMap.newKeySet();
+
+        private EnvioEmMassa(MimeMessage modelo) {
+            this.modelo = modelo;
+        }
+
+        /**
+         * Divide os destinatários em lotes e os agenda. Bloqueia enquanto houver lotes demais em espera.
+         */
+        public void enviar(Collection<String> destinatarios) {
+            List<String> lista = List.copyOf(destinatarios);
+            for (int inicio = 0; inicio < lista.size(); inicio += tamanhoLote) {
+                List<String> lote = lista.subList(inicio, Math.min(inicio + tamanhoLote, lista.size()));
+                adquirir(1);
+                try {
+                    workers.execute(() -> {
+                        try {
+                            enviarLote(modelo, lote, this);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            registrarFalhas(lote);
+                        } finally {
+                            pendentes.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    pendentes.release();
+                    throw e;
+                }
+            }
+        }
+
+        public ResultadoEnvio concluir() {
+            // Todas as permissões livres = nenhum lote pendente
+            adquirir(lotesEmEspera);
+            pendentes.release(lotesEmEspera);
+            return new ResultadoEnvio(totalEnviadas.get(), recusados.size(), Set.copyOf(recusados));
+        }
+
+        @Override
+        public void close() {
+            concluir();
+        }
+
+        private void registrarFalhas(Collection<String> destinatarios) {
+            recusados.addAll(destinatarios);
+        }
+
+        private void adquirir(int permissoes) {
+            try {
+                pendentes.acquire(permissoes);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Envio de emails interrompido", e);
+            }
+        }
+    }
+
+    /**
+     * @param recusados destinatários que não receberam o email, para quem precisa retentar
+     */
+    public record ResultadoEnvio(int enviadas, int falhas, Set<String> recusados) {}
+
+    /**
+     * Transport SMTP reaproveitado entre mensagens; usado por um lote de cada vez.
+     */
+    private final class ConexaoSmtp {
+
+        private Transport transport;
+        private int mensagens;
+        private long ultimoUso;
+
+        Transport obter() throws MessagingException {
+            if (transport != null && mensagens >= maxMensagensPorConexao) {
+                // Provedores costumam limitar mensagens por conexão
+                fechar();
+            }
+            if (transport != null && System.nanoTime() - ultimoUso > OCIOSIDADE_VERIFICACAO_NANOS
+                    && !transport.isConnected()) {
+                fechar();
+            }
+            if (transport == null) {
+                transport = abrir();
+                mensagens = 0;
+                conexoesAbertas.increment();
+            }
+            ultimoUso = System.nanoTime();
+            return transport;
+        }
+
+        void registrarEnvio() {
+            mensagens++;
+        }
+
+        void fechar() {
+            if (transport == null) {
+                return;
+            }
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                logger.debug("Erro ao fechar conexão SMTP: {}", e.getMessage());
+            }
+            transport = null;
+        }
+
+        private Transport abrir() throws MessagingException {
+            Transport novo = smtp.getSession().getTransport(smtp.getProtocol() != null ? smtp.getProtocol() : "smtp");
+            String usuario = smtp.getUsername();
+            String senha = smtp.getPassword();
+            if (usuario == null || usuario.isEmpty()) {
+                usuario = null;
+                senha = null;
+            }
+            novo.connect(smtp.getHost(), smtp.getPort(), usuario, senha);
+            return novo;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.dto.response.EstatisticasNotificacaoResponse;
+import br.com.tourapp.dto.response.EstatisticasNotificacaoResponse.EstatisticaCanal;
+import br.com.tourapp.entity.EstatisticaNotificacao;
+import br.com.tourapp.entity.Notificacao;
+import br.com.tourapp.enums.CanalNotificacao;
+import br.com.tourapp.repository.EstatisticaNotificacaoRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Contadores de entrega por notificação e canal (estatisticas_notificacao).
+ *
+ * Os workers da fila informam quanto cada lote mudou e os incrementos vão em um único batch de
+ * INSERT ... ON CONFLICT DO UPDATE, na mesma transação que muda o status das entregas. Assim a
+ * consulta das estatísticas lê uma linha por canal, sem contar entregas_notificacao.
+ */
+@Service
+public class EstatisticaNotificacaoService {
+
+    private static final String SQL_INCREMENTAR =
+            "INSERT INTO estatisticas_notificacao (notificacao_id, canal, enfileiradas, entregues, falhas, " +
+            "ultima_entrega_em) VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (notificacao_id, canal) DO UPDATE SET " +
+            "enfileiradas = estatisticas_notificacao.enfileiradas + EXCLUDED.enfileiradas, " +
+            "entregues = estatisticas_notificacao.entregues + EXCLUDED.entregues, " +
+            "falhas = estatisticas_notificacao.falhas + EXCLUDED.falhas, " +
+            "ultima_entrega_em = COALESCE(EXCLUDED.ultima_entrega_em, estatisticas_notificacao.ultima_entrega_em)";
+
+    private final EstatisticaNotificacaoRepository estatisticaRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public EstatisticaNotificacaoService(EstatisticaNotificacaoRepository estatisticaRepository,
+                                         JdbcTemplate jdbcTemplate) {
+        this.estatisticaRepository = estatisticaRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Soma as variações aos contadores. Variações zeradas são ignoradas.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(Collection<Variacao> variacoes) {
+        List<Object[]> linhas = variacoes.stream()
+                .filter(variacao -> !variacao.vazia())
+                .map(variacao -> new Object[]{variacao.notificacaoId(), variacao.canal().name(),
+                        variacao.enfileiradas(), variacao.entregues(), variacao.falhas(),
+                        variacao.entregues() > 0 ? Timestamp.valueOf(variacao.instante()) : null})
+                .toList();
+        if (!linhas.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_INCREMENTAR, linhas);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public EstatisticasNotificacaoResponse obter(Notificacao notificacao) {
+        EstatisticasNotificacaoResponse response = new EstatisticasNotificacaoResponse();
+        response.setNotificacaoId(notificacao.getId());
+        response.setTotalDestinatarios(notificacao.getTotalDestinatarios());
+        response.setEnviadaEm(notificacao.getEnviadaEm());
+
+        long enfileiradas = 0;
+        long entregues = 0;
+        long falhas = 0;
+        LocalDateTime ultimaEntregaEm = null;
+        Map<CanalNotificacao, EstatisticaCanal> porCanal = new EnumMap<>(CanalNotificacao.class);
+        for (EstatisticaNotificacao estatistica : estatisticaRepository.findByNotificacaoId(notificacao.getId())) {
+            EstatisticaCanal canal = new EstatisticaCanal();
+            canal.setEnfileiradas(estatistica.getEnfileiradas());
+            canal.setEntregues(estatistica.getEntregues());
+            canal.setFalhas(estatistica.getFalhas());
+            canal.setPendentes(estatistica.getPendentes());
+            canal.setUltimaEntregaEm(estatistica.getUltimaEntregaEm());
+            porCanal.put(estatistica.getCanal(), canal);
+
+            enfileiradas += estatistica.getEnfileiradas();
+            entregues += estatistica.getEntregues();
+            falhas += estatistica.getFalhas();
+            if (estatistica.getUltimaEntregaEm() != null
+                    && (ultimaEntregaEm == null || estatistica.getUltimaEntregaEm().isAfter(ultimaEntregaEm))) {
+                ultimaEntregaEm = estatistica.getUltimaEntregaEm();
+            }
+        }
+
+        response.setEnfileiradas(enfileiradas);
+        response.setEntregues(entregues);
+        response.setFalhas(falhas);
+        response.setPendentes(Math.max(0, enfileiradas - entregues - falhas));
+        response.setUltimaEntregaEm(ultimaEntregaEm);
+        response.setPorCanal(porCanal);
+        return response;
+    }
+
+    /**
+     * Quanto um lote mudou os contadores de uma notificação em um canal. Falhas negativas são
+     * entregas que saíram da dead letter num reenvio.
+     */
+    public record Variacao(UUID notificacaoId, CanalNotificacao canal, long enfileiradas, long entregues,
+                           long falhas, LocalDateTime instante) {
+
+        public static Variacao enfileiradas(UUID notificacaoId, CanalNotificacao canal, long quantidade) {
+            return new Variacao(notificacaoId, canal, quantidade, 0, 0, LocalDateTime.now());
+        }
+
+        public static Variacao entregues(UUID notificacaoId, CanalNotificacao canal, long quantidade) {
+            return new Variacao(notificacaoId, canal, 0, quantidade, 0, LocalDateTime.now());
+        }
+
+        public static Variacao falhas(UUID notificacaoId, CanalNotificacao canal, long quantidade) {
+            return new Variacao(notificacaoId, canal, 0, 0, quantidade, LocalDateTime.now());
+        }
+
+        boolean vazia() {
+            return enfileiradas == 0 && entregues == 0 && falhas == 0;
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.dto.response.TicketFilaResponse;
+import br.com.tourapp.entity.FilaAdmissao;
+import br.com.tourapp.exception.FilaAdmissaoException;
+import br.com.tourapp.exception.NotFoundException;
+import br.com.tourapp.repository.ExcursaoRepository;
+import br.com.tourapp.repository.FilaAdmissaoRepository;
+import br.com.tourapp.repository.FilaAdmissaoRepository.PosicoesFila;
+import br.com.tourapp.repository.InscricaoRepository;
+import br.com.tourapp.util.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Sala de espera virtual para lançamentos concorridos.
+ *
+ * Cada excursão tem um token bucket que limita a taxa de criação de inscrições e pagamentos neste nó.
+ * Enquanto não há fila, quem encontra token é admitido na hora; os demais recebem um ticket assinado
+ * com sua posição e são admitidos quando a fronteira da fila alcança essa posição.
+ *
+ * As posições são distribuídas em blocos a partir da tabela fila_admissao, para que vários nós
+ * compartilhem a mesma ordem sem ir ao banco a cada ticket. O estado local fica em um
+ * ConcurrentHashMap por excursão, então excursões diferentes não disputam o mesmo lock.
+ *
+ * Cada ticket admite uma única requisição: a posição é gravada em fila_admissao_tickets_usados
+ * ao ser admitida, e um ticket reapresentado é tratado como se não houvesse ticket.
+ */
+@Service
+public class FilaAdmissaoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FilaAdmissaoService.class);
+
+    private static final String ALGORITMO_ASSINATURA = "HmacSHA256";
+    private static final long NANOS_POR_SEGUNDO = 1_000_000_000L;
+    private static final long OCIOSIDADE_MAXIMA_NANOS = 10 * 60 * NANOS_POR_SEGUNDO;
+    private static final String MENSAGEM_FILA =
+            "Muita procura por esta excursão. Você está na fila e será atendido em instantes";
+
+    private final FilaAdmissaoRepository filaAdmissaoRepository;
+    private final ExcursaoRepository excursaoRepository;
+    private final InscricaoRepository inscricaoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<UUID, EstadoFila> filas = new ConcurrentHashMap<>();
+    private final ThreadLocal<Mac> assinadores;
+
+    private final boolean habilitada;
+    private final double taxaPorSegundo;
+    private final int capacidadeRajada;
+    private final int blocoTickets;
+    private final long validadeTicketMillis;
+
+    private final Counter admitidasDireto;
+    private final Counter admitidasPorTicket;
+    private final Counter enfileiradas;
+    private final Counter ticketsReusados;
+
+    public FilaAdmissaoService(FilaAdmissaoRepository filaAdmissaoRepository,
+                               ExcursaoRepository excursaoRepository,
+                               InscricaoRepository inscricaoRepository,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.admissao.habilitada:true}") boolean habilitada,
+                               @Value("${app.admissao.taxa-por-segundo:20}") double taxaPorSegundo,
+                               @Value("${app.admissao.capacidade-rajada:50}") int capacidadeRajada,
+                               @Value("${app.admissao.bloco-tickets:20}") int blocoTickets,
+                               @Value("${app.admissao.ticket-validade-minutos:30}") long validadeTicketMinutos,
+                               @Value("${app.admissao.segredo:${app.jwt.secret}}") String segredo) {
+        this.filaAdmissaoRepository = filaAdmissaoRepository;
+        this.excursaoRepository = excursaoRepository;
+        this.inscricaoRepository = inscricaoRepository;
+        this.habilitada = habilitada;
+        this.taxaPorSegundo = taxaPorSegundo;
+        this.capacidadeRajada = capacidadeRajada;
+        this.blocoTickets = blocoTickets;
+        this.validadeTicketMillis = validadeTicketMinutos * 60_000L;
+
+        // Blocos e fronteira são gravados fora da transação da requisição, que pode nem existir
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        byte[] chave = segredo.getBytes(StandardCharsets.UTF_8);
+        this.assinadores = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITMO_ASSINATURA);
+                mac.init(new SecretKeySpec(chave, ALGORITMO_ASSINATURA));
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Não foi possível inicializar a assinatura dos tickets", e);
+            }
+        });
+
+        this.admitidasDireto = Counter.builder("tourapp.admissao")
+                .description("Requisições avaliadas pela fila de admissão por resultado")
+                .tag("resultado", "direto")
+                .register(meterRegistry);
+        this.admitidasPorTicket = Counter.builder("tourapp.admissao")
+                .description("Requisições avaliadas pela fila de admissão por resultado")
+                .tag("resultado", "ticket")
+                .register(meterRegistry);
+        this.enfileiradas = Counter.builder("tourapp.admissao")
+                .description("Requisições avaliadas pela fila de admissão por resultado")
+                .tag("resultado", "enfileirada")
+                .register(meterRegistry);
+        this.ticketsReusados = Counter.builder("tourapp.admissao")
+                .description("Requisições avaliadas pela fila de admissão por resultado")
+                .tag("resultado", "ticket-reusado")
+                .register(meterRegistry);
+        Gauge.builder("tourapp.admissao.aguardando", filas, this::contarAguardando)
+                .description("Posições emitidas e ainda não admitidas")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admite a criação de inscrição na excursão ou lança {@link FilaAdmissaoException} com o ticket da fila.
+     */
+    public void admitirInscricao(UUID excursaoId, UUID clienteId, String ticket) {
+        admitir(excursaoId, clienteId, ticket);
+    }
+
+    public void admitirPagamento(UUID inscricaoId, UUID clienteId, String ticket) {
+        if (!habilitada) {
+            return;
+        }
+        UUID excursaoId = inscricaoRepository.findExcursaoIdById(inscricaoId)
+                .orElseThrow(() -> new NotFoundException("Inscrição não encontrada"));
+        admitir(excursaoId, clienteId, ticket);
+    }
+
+    public void admitirPagamentoGrupo(UUID grupoId, UUID clienteId, String ticket) {
+        if (!habilitada) {
+            return;
+        }
+        UUID excursaoId = inscricaoRepository.findExcursaoIdByGrupoId(grupoId)
+                .orElseThrow(() -> new NotFoundException("Grupo de inscrições não encontrado"));
+        admitir(excursaoId, clienteId, ticket);
+    }
+
+    /**
+     * Avança a fronteira de cada fila com os tokens acumulados e sincroniza as posições com os outros nós.
+     */
+    @Scheduled(fixedDelayString = "${app.admissao.tick-ms:250}")
+    public void avancarFilas() {
+        if (!habilitada || filas.isEmpty()) {
+            return;
+        }
+
+        long agora = System.nanoTime();
+        filas.forEach((excursaoId, estado) -> {
+            if (!estado.temFila() && agora - estado.ultimoAcesso > OCIOSIDADE_MAXIMA_NANOS) {
+                filas.remove(excursaoId, estado);
+                return;
+            }
+            try {
+                long pendentes = estado.ultimaPosicaoGlobal - estado.fronteira;
+                long liberadas = pendentes > 0 ? estado.bucket.consumirAte(pendentes, agora) : 0;
+
+                PosicoesFila posicoes = transactionTemplate.execute(status -> {
+                    if (liberadas > 0) {
+                        filaAdmissaoRepository.avancarFronteira(excursaoId, liberadas, LocalDateTime.now());
+                    }
+                    return filaAdmissaoRepository.findPosicoes(excursaoId).orElse(null);
+                });
+                if (posicoes != null) {
+                    estado.atualizar(posicoes.getUltimaPosicao(), posicoes.getFronteira());
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Falha ao avançar a fila de admissão da excursão {}: {}", excursaoId, e.getMessage());
+            }
+        });
+    }
+
+    private void admitir(UUID excursaoId, UUID clienteId, String ticket) {
+        if (!habilitada) {
+            return;
+        }
+
+        long agora = System.nanoTime();
+        EstadoFila estado = filas.computeIfAbsent(excursaoId,
+                id -> new EstadoFila(new TokenBucket(taxaPorSegundo, capacidadeRajada, agora)));
+        estado.ultimoAcesso = agora;
+
+        Long posicao = ticket != null ? validarTicket(ticket, excursaoId, clienteId) : null;
+        if (posicao != null) {
+            if (posicao > estado.fronteira) {
+                enfileiradas.increment();
+                throw new FilaAdmissaoException(responder(estado, ticket, posicao));
+            }
+            if (consumirTicket(excursaoId, posicao)) {
+                admitidasPorTicket.increment();
+                return;
+            }
+            ticketsReusados.increment();
+        }
+
+        // Sem fila, quem encontra token passa direto; com fila, ninguém fura a ordem
+        if (!estado.temFila() && estado.bucket.tentarConsumir(agora)) {
+            admitidasDireto.increment();
+            return;
+        }
+
+        long novaPosicao = estado.proximaPosicao(() -> reservarBloco(excursaoId), blocoTickets);
+        enfileiradas.increment();
+        throw new FilaAdmissaoException(
+                responder(estado, emitirTicket(excursaoId, clienteId, novaPosicao), novaPosicao));
+    }
+
+    private boolean consumirTicket(UUID excursaoId, long posicao) {
+        Integer consumido = transactionTemplate.execute(status ->
+                filaAdmissaoRepository.consumirTicket(excursaoId, posicao, LocalDateTime.now()));
+        return consumido != null && consumido > 0;
+    }
+
+    /**
+     * Remove os tickets usados que já passaram da validade e não podem mais ser reapresentados.
+     */
+    @Scheduled(fixedDelayString = "${app.admissao.limpeza-ms:600000}")
+    public void removerTicketsVencidos() {
+        if (!habilitada) {
+            return;
+        }
+        try {
+            LocalDateTime limite = LocalDateTime.now().minus(validadeTicketMillis, ChronoUnit.MILLIS);
+            Integer removidos = transactionTemplate.execute(status ->
+                    filaAdmissaoRepository.removerTicketsUsadosAntesDe(limite));
+            logger.debug("{} ticket(s) usado(s) removido(s) da fila de admissão", removidos);
+        } catch (RuntimeException e) {
+            logger.warn("Falha ao remover tickets usados da fila de admissão: {}", e.getMessage());
+        }
+    }
+
+    private TicketFilaResponse responder(EstadoFila estado, String ticket, long posicao) {
+        long aFrente = Math.max(0, posicao - estado.fronteira - 1);
+        long esperaSegundos = Math.max(1, (long) Math.ceil((aFrente + 1) / taxaPorSegundo));
+        return new TicketFilaResponse(MENSAGEM_FILA, ticket, posicao, aFrente, esperaSegundos);
+    }
+
+    /**
+     * Reserva o próximo bloco de posições no banco e devolve a última posição do bloco.
+     */
+    private long reservarBloco(UUID excursaoId) {
+        for (int tentativa = 0; tentativa < 2; tentativa++) {
+            Long ultimaPosicao = transactionTemplate.execute(status -> {
+                if (filaAdmissaoRepository.reservarBloco(excursaoId, blocoTickets, LocalDateTime.now()) == 0) {
+                    return null;
+                }
+                return filaAdmissaoRepository.findPosicoes(excursaoId)
+                        .map(PosicoesFila::getUltimaPosicao)
+                        .orElse(null);
+            });
+            if (ultimaPosicao != null) {
+                return ultimaPosicao;
+            }
+            criarFila(excursaoId);
+        }
+        throw new NotFoundException("Excursão não encontrada");
+    }
+
+    private void criarFila(UUID excursaoId) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> filaAdmissaoRepository.saveAndFlush(
+                    new FilaAdmissao(excursaoRepository.getReferenceById(excursaoId))));
+        } catch (DataIntegrityViolationException e) {
+            // Outro nó criou a fila ao mesmo tempo (ou a excursão não existe)
+            logger.debug("Fila de admissão da excursão {} não foi criada: {}", excursaoId, e.getMessage());
+        }
+    }
+
+    // Tickets: base64url("excursaoId:clienteId:posicao:emitidoEm").base64url(hmac)
+
+    private String emitirTicket(UUID excursaoId, UUID clienteId, long posicao) {
+        String conteudo = excursaoId + ":" + clienteId + ":" + posicao + ":" + System.currentTimeMillis();
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(conteudo.getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString(assinar(conteudo));
+    }
+
+    /**
+     * @return posição do ticket, ou null se ele for inválido, expirado ou de outra excursão/cliente
+     */
+    private Long validarTicket(String ticket, UUID excursaoId, UUID clienteId) {
+        try {
+            int separador = ticket.indexOf('.');
+            if (separador < 0) {
+                return null;
+            }
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            String conteudo = new String(decoder.decode(ticket.substring(0, separador)), StandardCharsets.UTF_8);
+            byte[] assinatura = decoder.decode(ticket.substring(separador + 1));
+            if (!MessageDigest.isEqual(assinar(conteudo), assinatura)) {
+                return null;
+            }
+
+            String[] partes = conteudo.split(":");
+            if (partes.length != 4
+                    || !partes[0].equals(excursaoId.toString())
+                    || !partes[1].equals(String.valueOf(clienteId))
+                    || System.currentTimeMillis() - Long.parseLong(partes[3]) > validadeTicketMillis) {
+                return null;
+            }
+            return Long.parseLong(partes[2]);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private byte[] assinar(String conteudo) {
+        return assinadores.get().doFinal(conteudo.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private double contarAguardando(Map<UUID, EstadoFila> filas) {
+        return filas.values().stream()
+                .mapToLong(estado -> Math.max(0, estado.ultimaPosicaoGlobal - estado.fronteira))
+                .sum();
+    }
+
+    /**
+     * Estado local da fila de uma excursão.
+     *
+     * {@code ultimaPosicaoGlobal} conta posições reservadas em blocos, inclusive as ainda não emitidas;
+     * a fronteira passa por elas em poucos ticks, limitado ao tamanho do bloco.
+     */
+    private static final class EstadoFila {
+
+        private final TokenBucket bucket;
+        // Bloco de posições reservado por este nó
+        private long proximaPosicao = 1;
+        private long fimBloco = 0;
+        private volatile long fronteira;
+        private volatile long ultimaPosicaoGlobal;
+        private volatile long ultimoAcesso;
+
+        private EstadoFila(TokenBucket bucket) {
+            this.bucket = bucket;
+        }
+
+        private boolean temFila() {
+            return ultimaPosicaoGlobal > fronteira;
+        }
+
+        private synchronized long proximaPosicao(LongSupplier reservarBloco, int tamanhoBloco) {
+            if (proximaPosicao > fimBloco) {
+                fimBloco = reservarBloco.getAsLong();
+                proximaPosicao = fimBloco - tamanhoBloco + 1;
+            }
+            long posicao = proximaPosicao++;
+            if (posicao > ultimaPosicaoGlobal) {
+                ultimaPosicaoGlobal = posicao;
+            }
+            return posicao;
+        }
+
+        private void atualizar(long ultimaPosicao, long fronteiraGlobal) {
+            if (ultimaPosicao > ultimaPosicaoGlobal) {
+                ultimaPosicaoGlobal = ultimaPosicao;
+            }
+            if (fronteiraGlobal > fronteira) {
+                fronteira = fronteiraGlobal;
+            }
+        }
+    }
+}
@@ -9,24 +9,41 @@ import java.util.List;
 @Service
 public class FirebaseService {
 
+    private final DisparoPushService disparoPushService;
+
+    public FirebaseService(DisparoPushService disparoPushService) {
+        this.disparoPushService = disparoPushService;
+    }
+
     @Async
     public void enviarNotificacaoPush(String token, String titulo, String mensagem) {
         try {
-            Message message = Message.builder()
-                    .setToken(token)
-                    .setNotification(Notification.builder()
-                            .setTitle(titulo)
-                            .setBody(mensagem)
-                            .build())
-                    .putData("click_action", "FLUTTER_NOTIFICATION_CLICK")
-                    .build();
-
-            FirebaseMessaging.getInstance().send(message);
+            enviarNotificacaoPushSincrona(token, titulo, mensagem);
         } catch (Exception e) {
             System.err.println("Erro ao enviar notificação push: " + e.getMessage());
         }
     }
 
+    /**
+     * Envia na thread atual e propaga a falha, para quem precisa retentar (outbox).
+     */
+    public void enviarNotificacaoPushSincrona(String token, String titulo, String mensagem)
+            throws FirebaseMessagingException {
+        Message message = Message.builder()
+                .setToken(token)
+                .setNotification(Notification.builder()
+                        .setTitle(titulo)
+                        .setBody(mensagem)
+                        .build())
+                .putData("click_action", "FLUTTER_NOTIFICATION_CLICK")
+                .build();
+
+        FirebaseMessaging.getInstance().send(message);
+    }
+
+    /**
+     * Envio em massa: lotes de até 500 tokens em paralelo, com retentativa e limpeza de tokens mortos.
+     */
     @Async
     public void enviarNotificacaoMultipla(List<String> tokens, String titulo, String mensagem) {
         if (tokens == null || tokens.isEmpty()) {
@@ -34,18 +51,9 @@ public class FirebaseService {
         }
 
         try {
-            MulticastMessage message = MulticastMessage.builder()
-                    .addAllTokens(tokens)
-                    .setNotification(Notification.builder()
-                            .setTitle(titulo)
-                            .setBody(mensagem)
-                            .build())
-                    .putData("click_action", "FLUTTER_NOTIFICATION_CLICK")
-                    .build();
-
-            FirebaseMessaging.getInstance().sendMulticast(message);
+            disparoPushService.enviar(tokens, titulo, mensagem);
         } catch (Exception e) {
             System.err.println("Erro ao enviar notificações push múltiplas: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,35 @@
+package br.com.tourapp.service;
+
+import com.mercadopago.client.payment.PaymentCreateRequest;
+
+/**
+ * Acesso ao provedor de pagamentos (Mercado Pago).
+ *
+ * Recusas do provedor (dados inválidos, cartão negado na validação) chegam como BusinessException;
+ * indisponibilidade, erro 5xx ou tempo esgotado chegam como GatewayPagamentoException.
+ */
+public interface GatewayPagamento {
+
+    /**
+     * Cria a cobrança. Chamadas com a mesma chave de idempotência devolvem a cobrança já criada
+     * pela primeira, em vez de cobrar o cliente de novo (ex.: retentativa após tempo esgotado).
+     */
+    Resultado criar(PaymentCreateRequest request, String chaveIdempotencia);
+
+    Resultado consultar(String paymentId);
+
+    /**
+     * Cancela uma cobrança ainda não paga (ex.: PIX vencido), para que não possa mais ser quitada.
+     */
+    Resultado cancelar(String paymentId);
+
+    /**
+     * Devolve ao cliente o valor total de uma cobrança já aprovada.
+     */
+    void reembolsar(String paymentId);
+
+    /**
+     * Dados do pagamento usados pela aplicação. qrCode e qrCodeBase64 só vêm em cobranças PIX.
+     */
+    record Resultado(String id, String status, String qrCode, String qrCodeBase64) {}
+}
@@ -0,0 +1,194 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.exception.BusinessException;
+import br.com.tourapp.exception.GatewayPagamentoException;
+import br.com.tourapp.exception.NotFoundException;
+import br.com.tourapp.util.CircuitBreaker;
+import com.mercadopago.client.payment.PaymentCreateRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Protege a aplicação de um provedor de pagamentos lento ou fora do ar.
+ *
+ * Cada chamada roda em uma virtual thread, com no máximo {@code maxConcorrentes} em andamento
+ * (bulkhead); quem não consegue vaga em {@code esperaBulkheadMs} recebe 503 na hora. A requisição
+ * espera a resposta só até o prazo da operação; depois disso recebe 503 e a chamada termina em
+ * segundo plano, ainda ocupando sua vaga no bulkhead. Erros, 5xx e prazos estourados alimentam o
+ * circuit breaker, que enquanto aberto recusa as chamadas sem tocar no provedor.
+ */
+public class GatewayPagamentoResiliente implements GatewayPagamento {
+
+    private static final Logger logger = LoggerFactory.getLogger(GatewayPagamentoResiliente.class);
+
+    private static final String MENSAGEM_INDISPONIVEL =
+            "Serviço de pagamentos indisponível no momento. Tente novamente em instantes";
+
+    private final GatewayPagamento delegado;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore bulkhead;
+    private final long esperaBulkheadMs;
+    private final long timeoutCriacaoMs;
+    private final long timeoutConsultaMs;
+    private final CircuitBreaker circuito;
+    private final MeterRegistry meterRegistry;
+
+    public GatewayPagamentoResiliente(GatewayPagamento delegado, MeterRegistry meterRegistry,
+                                      int maxConcorrentes, long esperaBulkheadMs,
+                                      long timeoutCriacaoMs, long timeoutConsultaMs,
+                                      int janelaCircuito, int minimoChamadasCircuito,
+                                      double taxaFalhaCircuito, long circuitoAbertoMs,
+                                      int chamadasMeioAberto) {
+        this.delegado = delegado;
+        this.meterRegistry = meterRegistry;
+        this.bulkhead = new Semaphore(maxConcorrentes);
+        this.esperaBulkheadMs = esperaBulkheadMs;
+        this.timeoutCriacaoMs = timeoutCriacaoMs;
+        this.timeoutConsultaMs = timeoutConsultaMs;
+
+        Map<CircuitBreaker.Estado, Counter> transicoes = new EnumMap<>(CircuitBreaker.Estado.class);
+        for (CircuitBreaker.Estado estado : CircuitBreaker.Estado.values()) {
+            transicoes.put(estado, Counter.builder("tourapp.pagamentos.gateway.circuito.transicoes")
+                    .description("Mudanças de estado do circuit breaker do gateway de pagamentos")
+                    .tag("estado", estado.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        this.circuito = new CircuitBreaker(janelaCircuito, minimoChamadasCircuito, taxaFalhaCircuito,
+                TimeUnit.MILLISECONDS.toNanos(circuitoAbertoMs), chamadasMeioAberto, estado -> {
+                    transicoes.get(estado).increment();
+                    logger.warn("Circuit breaker do gateway de pagamentos: {}", estado);
+                });
+
+        Gauge.builder("tourapp.pagamentos.gateway.circuito.estado", circuito, c -> c.getEstado().ordinal())
+                .description("Estado do circuit breaker (0 = fechado, 1 = meio aberto, 2 = aberto)")
+                .register(meterRegistry);
+        Gauge.builder("tourapp.pagamentos.gateway.em.andamento", bulkhead,
+                        b -> maxConcorrentes - b.availablePermits())
+                .description("Chamadas ao provedor de pagamentos em andamento")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Resultado criar(PaymentCreateRequest request, String chaveIdempotencia) {
+        return executar("criar", timeoutCriacaoMs, () -> delegado.criar(request, chaveIdempotencia));
+    }
+
+    @Override
+    public Resultado consultar(String paymentId) {
+        return executar("consultar", timeoutConsultaMs, () -> delegado.consultar(paymentId));
+    }
+
+    @Override
+    public Resultado cancelar(String paymentId) {
+        return executar("cancelar", timeoutCriacaoMs, () -> delegado.cancelar(paymentId));
+    }
+
+    @Override
+    public void reembolsar(String paymentId) {
+        executar("reembolsar", timeoutCriacaoMs, () -> {
+            delegado.reembolsar(paymentId);
+            return null;
+        });
+    }
+
+    public CircuitBreaker.Estado getEstadoCircuito() {
+        return circuito.getEstado();
+    }
+
+    public void encerrar() {
+        executor.shutdownNow();
+    }
+
+    private <T> T executar(String operacao, long timeoutMs, Callable<T> chamada) {
+        long inicio = System.nanoTime();
+
+        if (!reservarVaga()) {
+            registrar(operacao, "bulkhead_cheio", inicio);
+            throw new GatewayPagamentoException(MENSAGEM_INDISPONIVEL);
+        }
+        if (!circuito.permitirChamada(inicio)) {
+            bulkhead.release();
+            registrar(operacao, "circuito_aberto", inicio);
+            throw new GatewayPagamentoException(MENSAGEM_INDISPONIVEL);
+        }
+
+        Future<T> futuro;
+        try {
+            futuro = executor.submit(() -> {
+                try {
+                    return chamada.call();
+                } finally {
+                    bulkhead.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            bulkhead.release();
+            circuito.registrarFalha(System.nanoTime());
+            throw new GatewayPagamentoException(MENSAGEM_INDISPONIVEL, e);
+        }
+
+        try {
+            T resultado = futuro.get(timeoutMs, TimeUnit.MILLISECONDS);
+            circuito.registrarSucesso(System.nanoTime());
+            registrar(operacao, "sucesso", inicio);
+            return resultado;
+        } catch (TimeoutException e) {
+            // Não interrompe a chamada: ela segue até o timeout de socket e só então libera a vaga
+            circuito.registrarFalha(System.nanoTime());
+            registrar(operacao, "timeout", inicio);
+            logger.warn("Mercado Pago não respondeu em {} ms ({})", timeoutMs, operacao);
+            throw new GatewayPagamentoException("Serviço de pagamentos não respondeu a tempo. Tente novamente", e);
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof BusinessException || causa instanceof NotFoundException) {
+                // Recusa da requisição: o provedor respondeu, então conta como chamada saudável
+                circuito.registrarSucesso(System.nanoTime());
+                registrar(operacao, "recusada", inicio);
+                throw (RuntimeException) causa;
+            }
+            circuito.registrarFalha(System.nanoTime());
+            registrar(operacao, "erro", inicio);
+            logger.error("Erro na chamada ao Mercado Pago ({}): {}", operacao, causa.getMessage());
+            throw new GatewayPagamentoException(MENSAGEM_INDISPONIVEL, causa);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // Sem resultado para avaliar; registra para não prender uma vaga de teste do meio aberto
+            circuito.registrarSucesso(System.nanoTime());
+            throw new GatewayPagamentoException("Chamada ao serviço de pagamentos interrompida", e);
+        }
+    }
+
+    private boolean reservarVaga() {
+        try {
+            return bulkhead.tryAcquire(esperaBulkheadMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void registrar(String operacao, String resultado, long inicio) {
+        Timer.builder("tourapp.pagamentos.gateway.chamadas")
+                .description("Chamadas ao provedor de pagamentos por operação e resultado")
+                .tag("operacao", operacao)
+                .tag("resultado", resultado)
+                .register(meterRegistry)
+                .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+    }
+}
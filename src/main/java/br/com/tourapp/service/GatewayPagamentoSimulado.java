@@ -0,0 +1,70 @@
+package br.com.tourapp.service;
+
+import com.mercadopago.client.payment.PaymentCreateRequest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mercado Pago simulado para testes de carga sem rede (app.pagamentos.gateway.tipo=simulado).
+ *
+ * Cada chamada espera uma latência aleatória entre o mínimo e o máximo configurados e falha com a
+ * probabilidade informada, como um 5xx do provedor. PIX fica pendente com um QR Code fictício;
+ * cartão e consultas retornam o status configurado.
+ */
+public class GatewayPagamentoSimulado implements GatewayPagamento {
+
+    private final long latenciaMinimaMs;
+    private final long latenciaMaximaMs;
+    private final double taxaErro;
+    private final String statusSimulado;
+    private final AtomicLong sequencia = new AtomicLong(System.currentTimeMillis());
+
+    public GatewayPagamentoSimulado(long latenciaMinimaMs, long latenciaMaximaMs, double taxaErro,
+                                    String statusSimulado) {
+        this.latenciaMinimaMs = latenciaMinimaMs;
+        this.latenciaMaximaMs = Math.max(latenciaMinimaMs, latenciaMaximaMs);
+        this.taxaErro = taxaErro;
+        this.statusSimulado = statusSimulado;
+    }
+
+    @Override
+    public Resultado criar(PaymentCreateRequest request, String chaveIdempotencia) {
+        simularChamada();
+        String id = String.valueOf(sequencia.incrementAndGet());
+        if ("pix".equals(request.getPaymentMethodId())) {
+            return new Resultado(id, "pending", "00020126580014br.gov.bcb.pix0136SIMULADO" + id, null);
+        }
+        return new Resultado(id, statusSimulado, null, null);
+    }
+
+    @Override
+    public Resultado consultar(String paymentId) {
+        simularChamada();
+        return new Resultado(paymentId, statusSimulado, null, null);
+    }
+
+    @Override
+    public Resultado cancelar(String paymentId) {
+        simularChamada();
+        return new Resultado(paymentId, "cancelled", null, null);
+    }
+
+    @Override
+    public void reembolsar(String paymentId) {
+        simularChamada();
+    }
+
+    private void simularChamada() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+            Thread.sleep(latenciaMinimaMs + random.nextLong(latenciaMaximaMs - latenciaMinimaMs + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Chamada simulada interrompida", e);
+        }
+        if (random.nextDouble() < taxaErro) {
+            throw new IllegalStateException("Erro simulado do Mercado Pago (500)");
+        }
+    }
+}
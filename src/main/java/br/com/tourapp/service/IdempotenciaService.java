@@ -0,0 +1,275 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.entity.IdempotenciaRequisicao;
+import br.com.tourapp.enums.StatusIdempotencia;
+import br.com.tourapp.exception.BusinessException;
+import br.com.tourapp.exception.DuplicateResourceException;
+import br.com.tourapp.repository.IdempotenciaRequisicaoRepository;
+import br.com.tourapp.util.LruCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Suporte ao header Idempotency-Key nas operações que criam inscrições e cobranças.
+ *
+ * A primeira requisição com a chave é executada e sua resposta gravada; as repetições recebem a
+ * resposta gravada sem chamar o serviço. As respostas ficam em um LRU limitado na frente da tabela
+ * idempotencia_requisicoes. Duplicatas simultâneas no mesmo nó aguardam o resultado da requisição
+ * em andamento; em outro nó, o registro EM_ANDAMENTO faz a duplicata receber 409.
+ */
+@Service
+public class IdempotenciaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotenciaService.class);
+
+    private static final int TAMANHO_MAXIMO_CHAVE = 255;
+
+    private final IdempotenciaRequisicaoRepository idempotenciaRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final LruCache<String, RespostaGravada> respostas;
+    private final Map<String, CompletableFuture<RespostaGravada>> emAndamento = new ConcurrentHashMap<>();
+    private final long validadeHoras;
+    private final long esperaMaximaSegundos;
+
+    private final Counter executadas;
+    private final Counter repetidas;
+    private final Counter aguardadas;
+
+    public IdempotenciaService(IdempotenciaRequisicaoRepository idempotenciaRepository,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.idempotencia.cache-tamanho:10000}") int tamanhoCache,
+                               @Value("${app.idempotencia.validade-horas:24}") long validadeHoras,
+                               @Value("${app.idempotencia.espera-maxima-segundos:60}") long esperaMaximaSegundos) {
+        this.idempotenciaRepository = idempotenciaRepository;
+        this.objectMapper = objectMapper;
+        this.respostas = new LruCache<>(tamanhoCache);
+        this.validadeHoras = validadeHoras;
+        this.esperaMaximaSegundos = esperaMaximaSegundos;
+
+        // O registro da chave precisa estar gravado antes da operação, fora da transação dela
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        this.executadas = Counter.builder("tourapp.idempotencia")
+                .description("Requisições com Idempotency-Key por resultado")
+                .tag("resultado", "executada")
+                .register(meterRegistry);
+        this.repetidas = Counter.builder("tourapp.idempotencia")
+                .description("Requisições com Idempotency-Key por resultado")
+                .tag("resultado", "repetida")
+                .register(meterRegistry);
+        this.aguardadas = Counter.builder("tourapp.idempotencia")
+                .description("Requisições com Idempotency-Key por resultado")
+                .tag("resultado", "aguardada")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Executa a operação uma única vez por chave e cliente.
+     *
+     * @param chave        valor do header Idempotency-Key; sem chave a operação é executada normalmente
+     * @param operacao     identifica o endpoint, para que a mesma chave não seja reaproveitada em outro
+     * @param requisicao   corpo da requisição; repetições com corpo diferente são recusadas
+     * @param tipoResposta tipo usado para reconstruir a resposta gravada
+     */
+    public <T> T executar(String chave, UUID userId, String operacao, Object requisicao,
+                          Class<T> tipoResposta, Supplier<T> acao) {
+        if (chave == null || chave.isBlank()) {
+            return acao.get();
+        }
+        if (chave.length() > TAMANHO_MAXIMO_CHAVE) {
+            throw new BusinessException("Idempotency-Key deve ter no máximo " + TAMANHO_MAXIMO_CHAVE + " caracteres");
+        }
+
+        String hash = calcularHash(operacao, requisicao);
+        String chaveCache = userId + ":" + chave;
+
+        RespostaGravada gravada = respostas.get(chaveCache);
+        if (gravada != null && gravada.expiraEm().isAfter(LocalDateTime.now())) {
+            return repetir(gravada, hash, tipoResposta);
+        }
+
+        CompletableFuture<RespostaGravada> execucao = new CompletableFuture<>();
+        CompletableFuture<RespostaGravada> existente = emAndamento.putIfAbsent(chaveCache, execucao);
+        if (existente != null) {
+            aguardadas.increment();
+            return repetir(aguardar(existente), hash, tipoResposta);
+        }
+
+        try {
+            // A execução anterior pode ter terminado entre a consulta ao cache e o putIfAbsent
+            gravada = respostas.get(chaveCache);
+            if (gravada != null && gravada.expiraEm().isAfter(LocalDateTime.now())) {
+                execucao.complete(gravada);
+                return repetir(gravada, hash, tipoResposta);
+            }
+
+            Optional<RespostaGravada> persistida = buscarResposta(userId, chave);
+            if (persistida.isPresent()) {
+                respostas.put(chaveCache, persistida.get());
+                execucao.complete(persistida.get());
+                return repetir(persistida.get(), hash, tipoResposta);
+            }
+
+            T resultado = executarERegistrar(chave, userId, operacao, hash, acao, execucao, chaveCache);
+            executadas.increment();
+            return resultado;
+        } catch (RuntimeException e) {
+            execucao.completeExceptionally(e);
+            throw e;
+        } finally {
+            emAndamento.remove(chaveCache, execucao);
+        }
+    }
+
+    /**
+     * Remove registros vencidos, inclusive os EM_ANDAMENTO abandonados por um nó que caiu.
+     */
+    @Scheduled(fixedDelayString = "${app.idempotencia.limpeza-intervalo-ms:3600000}")
+    public void removerExpiradas() {
+        Integer removidas = transactionTemplate.execute(status ->
+                idempotenciaRepository.removerExpiradas(LocalDateTime.now()));
+        if (removidas != null && removidas > 0) {
+            logger.info("{} registro(s) de idempotência expirados removidos", removidas);
+        }
+    }
+
+    private <T> T executarERegistrar(String chave, UUID userId, String operacao, String hash, Supplier<T> acao,
+                                     CompletableFuture<RespostaGravada> execucao, String chaveCache) {
+        UUID registroId = registrar(userId, chave, operacao, hash);
+
+        T resultado;
+        try {
+            resultado = acao.get();
+        } catch (RuntimeException e) {
+            transactionTemplate.executeWithoutResult(status -> idempotenciaRepository.liberar(registroId));
+            throw e;
+        }
+
+        LocalDateTime expiraEm = LocalDateTime.now().plusHours(validadeHoras);
+        RespostaGravada resposta = new RespostaGravada(hash, serializar(resultado), expiraEm);
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    idempotenciaRepository.concluir(registroId, resposta.corpo(), expiraEm, LocalDateTime.now()));
+        } catch (RuntimeException e) {
+            // A operação já foi feita; o registro EM_ANDAMENTO continua barrando repetições até vencer
+            logger.error("Erro ao gravar resposta da Idempotency-Key {}: {}", chave, e.getMessage());
+        }
+
+        respostas.put(chaveCache, resposta);
+        execucao.complete(resposta);
+        return resultado;
+    }
+
+    private Optional<RespostaGravada> buscarResposta(UUID userId, String chave) {
+        return transactionTemplate.execute(status -> {
+            Optional<IdempotenciaRequisicao> registro = idempotenciaRepository.findByUserIdAndChave(userId, chave);
+            if (registro.isEmpty()) {
+                return Optional.empty();
+            }
+
+            IdempotenciaRequisicao existente = registro.get();
+            if (!existente.getExpiraEm().isAfter(LocalDateTime.now())) {
+                idempotenciaRepository.delete(existente);
+                return Optional.empty();
+            }
+            if (existente.getStatus() == StatusIdempotencia.EM_ANDAMENTO) {
+                throw new DuplicateResourceException("Requisição com esta Idempotency-Key ainda está em processamento");
+            }
+            return Optional.of(new RespostaGravada(existente.getHashRequisicao(), existente.getCorpoResposta(),
+                    existente.getExpiraEm()));
+        });
+    }
+
+    private UUID registrar(UUID userId, String chave, String operacao, String hash) {
+        // Enquanto EM_ANDAMENTO, o registro vale só pelo tempo máximo de espera
+        LocalDateTime expiraEm = LocalDateTime.now().plusSeconds(esperaMaximaSegundos);
+        try {
+            return transactionTemplate.execute(status -> idempotenciaRepository.saveAndFlush(
+                    new IdempotenciaRequisicao(userId, chave, operacao, hash, expiraEm)).getId());
+        } catch (DataIntegrityViolationException e) {
+            // Outro nó registrou a mesma chave ao mesmo tempo
+            throw new DuplicateResourceException("Requisição com esta Idempotency-Key ainda está em processamento");
+        }
+    }
+
+    private RespostaGravada aguardar(CompletableFuture<RespostaGravada> execucao) {
+        try {
+            return execucao.get(esperaMaximaSegundos, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            // A duplicata recebe o mesmo erro da requisição original
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new DuplicateResourceException("Requisição com esta Idempotency-Key ainda está em processamento");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando requisição com a mesma Idempotency-Key", e);
+        }
+    }
+
+    private <T> T repetir(RespostaGravada gravada, String hash, Class<T> tipoResposta) {
+        if (!gravada.hash().equals(hash)) {
+            throw new BusinessException("Idempotency-Key já utilizada com uma requisição diferente");
+        }
+        repetidas.increment();
+        try {
+            return objectMapper.readValue(gravada.corpo(), tipoResposta);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Resposta gravada para Idempotency-Key é inválida", e);
+        }
+    }
+
+    private String calcularHash(String operacao, Object requisicao) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operacao.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(serializar(requisicao).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String serializar(Object valor) {
+        try {
+            return objectMapper.writeValueAsString(valor);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Não foi possível serializar para Idempotency-Key", e);
+        }
+    }
+
+    private record RespostaGravada(String hash, String corpo, LocalDateTime expiraEm) {}
+}
@@ -1,23 +1,31 @@
 package br.com.tourapp.service;
 
+import br.com.tourapp.dto.PagamentoConfirmadoEvento;
+import br.com.tourapp.dto.request.InscricaoGrupoRequest;
 import br.com.tourapp.dto.request.InscricaoRequest;
+import br.com.tourapp.dto.response.InscricaoGrupoResponse;
 import br.com.tourapp.dto.response.InscricaoResponse;
 import br.com.tourapp.entity.Excursao;
 import br.com.tourapp.entity.Inscricao;
 import br.com.tourapp.entity.UserEntity;
-import br.com.tourapp.enums.StatusExcursao;
 import br.com.tourapp.enums.StatusPagamento;
+import br.com.tourapp.enums.TipoEventoOutbox;
 import br.com.tourapp.exception.BusinessException;
 import br.com.tourapp.exception.NotFoundException;
 import br.com.tourapp.repository.InscricaoRepository;
 import br.com.tourapp.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -25,12 +33,20 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class InscricaoService {
 
+    private static final Logger logger = LoggerFactory.getLogger(InscricaoService.class);
+
+    private static final String MENSAGEM_LOTADA =
+            "Excursão está lotada. Entre na lista de espera para ser avisado quando surgir uma vaga";
+
     private final InscricaoRepository inscricaoRepository;
     private final ExcursaoService excursaoService;
     private final UserUseCase clienteService;
     private final EmailService emailService;
     private final ModelMapper modelMapper;
     private final UserRepository userRepository;
+    private final ReservaVagaService reservaVagaService;
+    private final ReservaTemporariaService reservaTemporariaService;
+    private final OutboxService outboxService;
 
     public InscricaoResponse criarInscricao(UUID excursaoId, InscricaoRequest request, UUID clienteId) {
         Excursao excursao = excursaoService.obterPorId(excursaoId);
@@ -43,13 +59,18 @@ public class InscricaoService {
         }
 
         if (!excursao.temVagasDisponiveis()) {
-            throw new BusinessException("Excursão está lotada");
+            throw new BusinessException(MENSAGEM_LOTADA);
         }
 
         if (inscricaoRepository.existsByClienteIdAndExcursaoId(clienteId, excursaoId)) {
             throw new BusinessException("Cliente já está inscrito nesta excursão");
         }
 
+        // Reservar a vaga de forma atômica (também marca LOTADA ao ocupar a última vaga)
+        if (!reservaVagaService.reservar(excursaoId, 1)) {
+            throw new BusinessException(MENSAGEM_LOTADA);
+        }
+
         // Criar inscrição
         Inscricao inscricao = new Inscricao();
         inscricao.setExcursao(excursao);
@@ -60,11 +81,8 @@ public class InscricaoService {
 
         inscricao = inscricaoRepository.save(inscricao);
 
-        // Atualizar vagas ocupadas
-        excursao.setVagasOcupadas(excursao.getVagasOcupadas() + 1);
-        if (excursao.getVagasOcupadas().equals(excursao.getVagasTotal())) {
-            excursao.setStatus(StatusExcursao.LOTADA);
-        }
+        // Segurar a vaga até o pagamento (expira e devolve a vaga se não for pago)
+        reservaTemporariaService.criar(inscricao, 1);
 
         // Enviar email de confirmação
         emailService.enviarConfirmacaoInscricao(inscricao);
@@ -72,6 +90,52 @@ public class InscricaoService {
         return converterParaResponse(inscricao);
     }
 
+    public InscricaoGrupoResponse criarInscricaoGrupo(UUID excursaoId, InscricaoGrupoRequest request, UUID clienteId) {
+        Excursao excursao = excursaoService.obterPorId(excursaoId);
+        UserEntity cliente = userRepository.findById(clienteId)
+                .orElseThrow(() -> new NotFoundException("Cliente não encontrado"));
+        int quantidade = request.getQuantidade();
+
+        // Validações
+        if (!excursao.isAtiva()) {
+            throw new BusinessException("Excursão não está disponível para inscrições");
+        }
+
+        if (excursao.getVagasDisponiveis() < quantidade) {
+            throw new BusinessException("Excursão não possui vagas suficientes para o grupo");
+        }
+
+        if (inscricaoRepository.existsByClienteIdAndExcursaoId(clienteId, excursaoId)) {
+            throw new BusinessException("Cliente já está inscrito nesta excursão");
+        }
+
+        // Todas as vagas em um único update condicional: ou o grupo inteiro entra, ou ninguém
+        if (!reservaVagaService.reservar(excursaoId, quantidade)) {
+            throw new BusinessException("Excursão não possui vagas suficientes para o grupo");
+        }
+
+        UUID grupoId = UUID.randomUUID();
+        List<Inscricao> inscricoes = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            Inscricao inscricao = new Inscricao(excursao, cliente, excursao.getPreco());
+            inscricao.setObservacoesCliente(request.getObservacoesCliente());
+            inscricao.setStatusPagamento(StatusPagamento.PENDENTE);
+            inscricao.setGrupoId(grupoId);
+            inscricoes.add(inscricao);
+        }
+
+        // INSERTs enviados em lote (hibernate.jdbc.batch_size)
+        inscricoes = inscricaoRepository.saveAll(inscricoes);
+        reservaTemporariaService.criarParaGrupo(inscricoes);
+
+        // Um único email para o grupo todo
+        emailService.enviarConfirmacaoInscricaoGrupo(inscricoes);
+
+        BigDecimal valorTotal = excursao.getPreco().multiply(BigDecimal.valueOf(quantidade));
+        return new InscricaoGrupoResponse(grupoId, valorTotal,
+                inscricoes.stream().map(this::converterParaResponse).toList());
+    }
+
     private InscricaoResponse converterParaResponse(Inscricao inscricao) {
         InscricaoResponse response = modelMapper.map(inscricao, InscricaoResponse.class);
         response.setTituloExcursao(inscricao.getExcursao().getTitulo());
@@ -118,14 +182,89 @@ public class InscricaoService {
                 .orElseThrow(() -> new NotFoundException("Inscrição não encontrada"));
     }
 
-    public void atualizarStatusPagamento(UUID inscricaoId, StatusPagamento novoStatus) {
+    @Transactional(readOnly = true)
+    public List<Inscricao> obterPorGrupo(UUID grupoId) {
+        List<Inscricao> inscricoes = inscricaoRepository.findByGrupoId(grupoId);
+        if (inscricoes.isEmpty()) {
+            throw new NotFoundException("Grupo de inscrições não encontrado");
+        }
+        return inscricoes;
+    }
+
+    /**
+     * @return o status aplicado à inscrição; REEMBOLSADO se o pagamento foi aprovado sem vaga para ocupar
+     */
+    public StatusPagamento atualizarStatusPagamento(UUID inscricaoId, StatusPagamento novoStatus) {
         Inscricao inscricao = obterPorId(inscricaoId);
-        inscricao.setStatusPagamento(novoStatus);
+        StatusPagamento aplicado = aplicarStatusPagamento(List.of(inscricao), novoStatus);
         inscricaoRepository.save(inscricao);
 
-        // Enviar notificação se aprovado
+        // Email e push saem pelo outbox, gravado nesta mesma transação
+        if (aplicado == StatusPagamento.APROVADO) {
+            outboxService.publicar(TipoEventoOutbox.PAGAMENTO_CONFIRMADO, inscricao.getId(),
+                    new PagamentoConfirmadoEvento(null, List.of(inscricao.getId())));
+        }
+        return aplicado;
+    }
+
+    /**
+     * @return o status aplicado às inscrições do grupo; REEMBOLSADO se o pagamento foi aprovado sem
+     *         vagas para o grupo inteiro
+     */
+    public StatusPagamento atualizarStatusPagamentoGrupo(UUID grupoId, StatusPagamento novoStatus) {
+        List<Inscricao> inscricoes = obterPorGrupo(grupoId);
+        StatusPagamento aplicado = aplicarStatusPagamento(inscricoes, novoStatus);
+        inscricaoRepository.saveAll(inscricoes);
+
+        if (aplicado == StatusPagamento.APROVADO) {
+            outboxService.publicar(TipoEventoOutbox.PAGAMENTO_CONFIRMADO, grupoId,
+                    new PagamentoConfirmadoEvento(grupoId, inscricoes.stream().map(Inscricao::getId).toList()));
+        }
+        return aplicado;
+    }
+
+    private StatusPagamento aplicarStatusPagamento(List<Inscricao> inscricoes, StatusPagamento novoStatus) {
         if (novoStatus == StatusPagamento.APROVADO) {
-            emailService.enviarConfirmacaoPagamento(inscricao);
+            return aprovar(inscricoes);
         }
+
+        for (Inscricao inscricao : inscricoes) {
+            inscricao.setStatusPagamento(novoStatus);
+            if (novoStatus == StatusPagamento.CANCELADO || novoStatus == StatusPagamento.REJEITADO
+                    || novoStatus == StatusPagamento.REEMBOLSADO) {
+                // Devolve a vaga (para a lista de espera, se houver)
+                reservaTemporariaService.cancelar(inscricao.getId());
+            }
+        }
+        return novoStatus;
+    }
+
+    private StatusPagamento aprovar(List<Inscricao> inscricoes) {
+        // Pagamento aprovado depois da expiração: a vaga já foi devolvida e precisa ser ocupada de novo
+        List<Inscricao> semVaga = new ArrayList<>();
+        for (Inscricao inscricao : inscricoes) {
+            if (!reservaTemporariaService.confirmar(inscricao.getId())
+                    && inscricao.getStatusPagamento() == StatusPagamento.EXPIRADO) {
+                semVaga.add(inscricao);
+            }
+        }
+
+        if (!semVaga.isEmpty()) {
+            UUID excursaoId = semVaga.get(0).getExcursao().getId();
+            if (!reservaVagaService.reservar(excursaoId, semVaga.size())) {
+                // Sem vaga não há inscrição: o pagamento é reembolsado, e as vagas que o grupo ainda tinha voltam
+                logger.warn("Pagamento aprovado após expiração da reserva, mas a excursão {} está lotada; " +
+                        "reembolsando {} inscrição(ões)", excursaoId, inscricoes.size());
+                for (Inscricao inscricao : inscricoes) {
+                    inscricao.setStatusPagamento(StatusPagamento.REEMBOLSADO);
+                    reservaTemporariaService.cancelar(inscricao.getId());
+                }
+                return StatusPagamento.REEMBOLSADO;
+            }
+            semVaga.forEach(inscricao -> reservaTemporariaService.reconfirmar(inscricao.getId()));
+        }
+
+        inscricoes.forEach(inscricao -> inscricao.setStatusPagamento(StatusPagamento.APROVADO));
+        return StatusPagamento.APROVADO;
     }
 }
@@ -0,0 +1,281 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.entity.Excursao;
+import br.com.tourapp.entity.Notificacao;
+import br.com.tourapp.enums.StatusExcursao;
+import br.com.tourapp.enums.TipoNotificacao;
+import br.com.tourapp.repository.ExcursaoRepository;
+import br.com.tourapp.repository.NotificacaoRepository;
+import br.com.tourapp.service.TarefaAgendada.Particao;
+import br.com.tourapp.util.StringUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Lembretes automáticos das excursões, enviados a {@code app.lembretes.horas-antes} da saída.
+ *
+ * As saídas próximas são lidas a cada {@code recarga-minutos} e cada lembrete ainda não enviado
+ * entra em um balde pelo instante de disparo; a cada execução só os baldes vencidos são
+ * percorridos. O lembrete vira uma notificação LEMBRETE da excursão, enfileirada para os inscritos
+ * pela fila de entregas (destinatários lidos em blocos, email e push).
+ *
+ * O registro em lembretes_enviados, a notificação e as entregas são gravados na mesma transação,
+ * e a chave única (excursão, horas antes, data de saída) impede que outro nó, ou o mesmo nó depois
+ * de reiniciar, envie o lembrete de novo. Se a saída mudar, os lembretes valem para a nova data.
+ * Quando vários lembretes já venceram (excursão criada perto da saída), só o mais próximo é enviado.
+ */
+@Service
+public class LembreteExcursaoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LembreteExcursaoService.class);
+
+    private static final DateTimeFormatter FORMATO_SAIDA = DateTimeFormatter.ofPattern("dd/MM/yyyy 'às' HH:mm");
+
+    private static final String SQL_REGISTRAR =
+            "INSERT INTO lembretes_enviados (excursao_id, horas_antes, data_saida) VALUES (?, ?, ?) " +
+            "ON CONFLICT (excursao_id, horas_antes, data_saida) DO NOTHING";
+    private static final String SQL_VINCULAR_NOTIFICACAO =
+            "UPDATE lembretes_enviados SET notificacao_id = ? " +
+            "WHERE excursao_id = ? AND horas_antes = ? AND data_saida = ?";
+    private static final String SQL_ENVIADOS =
+            "SELECT excursao_id, horas_antes, data_saida FROM lembretes_enviados WHERE data_saida > ?";
+
+    private final ExcursaoRepository excursaoRepository;
+    private final NotificacaoRepository notificacaoRepository;
+    private final DestinatarioNotificacaoService destinatarioService;
+    private final EntregaNotificacaoService entregaService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final List<Integer> horasAntes;
+    private final long baldeMillis;
+    private final Duration recarga;
+
+    private volatile Indice indice;
+
+    private final Counter enviados;
+    private final Counter ignorados;
+
+    public LembreteExcursaoService(ExcursaoRepository excursaoRepository,
+                                   NotificacaoRepository notificacaoRepository,
+                                   DestinatarioNotificacaoService destinatarioService,
+                                   EntregaNotificacaoService entregaService,
+                                   JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.lembretes.horas-antes:72,24,2}") List<Integer> horasAntes,
+                                   @Value("${app.lembretes.balde-segundos:60}") long baldeSegundos,
+                                   @Value("${app.lembretes.recarga-minutos:5}") long recargaMinutos) {
+        this.excursaoRepository = excursaoRepository;
+        this.notificacaoRepository = notificacaoRepository;
+        this.destinatarioService = destinatarioService;
+        this.entregaService = entregaService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Do mais distante da saída para o mais próximo
+        this.horasAntes = horasAntes.stream().filter(horas -> horas > 0).distinct()
+                .sorted(Comparator.reverseOrder()).toList();
+        if (this.horasAntes.isEmpty()) {
+            throw new IllegalArgumentException("app.lembretes.horas-antes deve ter pelo menos um valor positivo");
+        }
+        this.baldeMillis = Duration.ofSeconds(baldeSegundos).toMillis();
+        this.recarga = Duration.ofMinutes(recargaMinutos);
+
+        this.enviados = Counter.builder("tourapp.lembretes")
+                .description("Lembretes de excursão por resultado")
+                .tag("resultado", "enviado")
+                .register(meterRegistry);
+        this.ignorados = Counter.builder("tourapp.lembretes")
+                .description("Lembretes de excursão por resultado")
+                .tag("resultado", "ignorado")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Envia os lembretes vencidos das excursões da partição.
+     *
+     * @return quantidade de lembretes enviados
+     */
+    public int enviarVencidos(Particao particao) {
+        LocalDateTime agora = LocalDateTime.now();
+        NavigableMap<Long, Set<Lembrete>> baldes = obterIndice(agora).baldes();
+
+        int enviadosAgora = 0;
+        for (Map.Entry<Long, Set<Lembrete>> balde : baldes.headMap(balde(agora), true).entrySet()) {
+            for (Lembrete lembrete : balde.getValue()) {
+                if (!particao.contem(lembrete.excursaoId()) || lembrete.disparo().isAfter(agora)) {
+                    continue;
+                }
+                if (!lembrete.validoAte().isAfter(agora)) {
+                    // O lembrete seguinte já venceu e substitui este
+                    balde.getValue().remove(lembrete);
+                    ignorados.increment();
+                    continue;
+                }
+                try {
+                    if (enviar(lembrete)) {
+                        enviadosAgora++;
+                        enviados.increment();
+                    } else {
+                        ignorados.increment();
+                    }
+                    balde.getValue().remove(lembrete);
+                } catch (RuntimeException e) {
+                    // Fica no balde e é tentado de novo na próxima execução
+                    logger.error("Erro ao enviar lembrete de {}h da excursão {}: {}",
+                            lembrete.horasAntes(), lembrete.excursaoId(), e.getMessage());
+                }
+            }
+            if (balde.getValue().isEmpty()) {
+                baldes.remove(balde.getKey(), balde.getValue());
+            }
+        }
+        return enviadosAgora;
+    }
+
+    /**
+     * @return true se a notificação foi enfileirada; false se o lembrete já tinha sido enviado, a
+     * excursão mudou ou não há inscritos
+     */
+    boolean enviar(Lembrete lembrete) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            Excursao excursao = excursaoRepository.findById(lembrete.excursaoId()).orElse(null);
+            if (excursao == null || !podeReceberLembrete(excursao)
+                    || !lembrete.dataSaida().equals(excursao.getDataSaida())) {
+                // Cancelada ou remarcada: a próxima recarga indexa a nova data
+                return false;
+            }
+
+            Timestamp dataSaida = Timestamp.valueOf(lembrete.dataSaida());
+            // Espera a transação de outro nó com o mesmo lembrete e não grava nada se ela confirmou
+            if (jdbcTemplate.update(SQL_REGISTRAR, lembrete.excursaoId(), lembrete.horasAntes(), dataSaida) == 0) {
+                return false;
+            }
+
+            Notificacao notificacao = criarNotificacao(excursao, lembrete.horasAntes());
+            if (destinatarioService.contar(notificacao) == 0) {
+                // O registro fica sem notificação: sem inscritos, não há o que reenviar
+                return false;
+            }
+
+            notificacao.setEnviada(true);
+            notificacao.setEnviadaEm(LocalDateTime.now());
+            notificacao = notificacaoRepository.save(notificacao);
+            notificacao.setTotalDestinatarios(entregaService.enfileirar(notificacao));
+            jdbcTemplate.update(SQL_VINCULAR_NOTIFICACAO, notificacao.getId(), lembrete.excursaoId(),
+                    lembrete.horasAntes(), dataSaida);
+
+            logger.info("Lembrete de {}h da excursão {} enfileirado para {} destinatários",
+                    lembrete.horasAntes(), lembrete.excursaoId(), notificacao.getTotalDestinatarios());
+            return true;
+        }));
+    }
+
+    private Indice obterIndice(LocalDateTime agora) {
+        Indice atual = indice;
+        if (atual != null && atual.carregadoEm().plus(recarga).isAfter(agora)) {
+            return atual;
+        }
+        synchronized (this) {
+            if (indice == null || !indice.carregadoEm().plus(recarga).isAfter(agora)) {
+                indice = carregar(agora);
+            }
+            return indice;
+        }
+    }
+
+    private Indice carregar(LocalDateTime agora) {
+        // Cobre o lembrete mais distante de toda saída que pode vencer até a próxima recarga
+        LocalDateTime ate = agora.plusHours(horasAntes.get(0)).plus(recarga);
+        List<Excursao> excursoes = excursaoRepository.findExcursoesProximasSaida(agora, ate);
+        Set<ChaveLembrete> jaEnviados = carregarEnviados(agora);
+
+        NavigableMap<Long, Set<Lembrete>> baldes = new ConcurrentSkipListMap<>();
+        int total = 0;
+        for (Excursao excursao : excursoes) {
+            LocalDateTime saida = excursao.getDataSaida();
+            for (int i = 0; i < horasAntes.size(); i++) {
+                int horas = horasAntes.get(i);
+                LocalDateTime validoAte = i + 1 < horasAntes.size() ? saida.minusHours(horasAntes.get(i + 1)) : saida;
+                if (!validoAte.isAfter(agora) || jaEnviados.contains(new ChaveLembrete(excursao.getId(), horas, saida))) {
+                    continue;
+                }
+                Lembrete lembrete = new Lembrete(excursao.getId(), horas, saida, saida.minusHours(horas), validoAte);
+                baldes.computeIfAbsent(balde(lembrete.disparo()), b -> ConcurrentHashMap.newKeySet()).add(lembrete);
+                total++;
+            }
+        }
+
+        logger.debug("{} lembrete(s) de {} excursão(ões) indexados em {} balde(s)", total, excursoes.size(), baldes.size());
+        return new Indice(baldes, agora);
+    }
+
+    private Set<ChaveLembrete> carregarEnviados(LocalDateTime agora) {
+        Set<ChaveLembrete> enviadosAntes = new HashSet<>();
+        jdbcTemplate.query(SQL_ENVIADOS, resultado -> {
+            enviadosAntes.add(new ChaveLembrete(resultado.getObject("excursao_id", UUID.class),
+                    resultado.getInt("horas_antes"), resultado.getTimestamp("data_saida").toLocalDateTime()));
+        }, Timestamp.valueOf(agora));
+        return enviadosAntes;
+    }
+
+    private Notificacao criarNotificacao(Excursao excursao, int horasAntes) {
+        String titulo = StringUtil.truncate("Lembrete: " + excursao.getTitulo(), 100);
+        String mensagem = StringUtil.truncate(String.format(
+                "Sua excursão '%s' sai em %s, no dia %s. Prepare-se e chegue no horário!",
+                excursao.getTitulo(), descreverAntecedencia(horasAntes), excursao.getDataSaida().format(FORMATO_SAIDA)), 500);
+
+        Notificacao notificacao = new Notificacao(excursao.getCompania(), excursao.getCriador(), titulo, mensagem,
+                TipoNotificacao.LEMBRETE);
+        notificacao.setExcursao(excursao);
+        notificacao.setEnviarParaTodos(false);
+        return notificacao;
+    }
+
+    static String descreverAntecedencia(int horas) {
+        if (horas >= 48 && horas % 24 == 0) {
+            return (horas / 24) + " dias";
+        }
+        return horas == 1 ? "1 hora" : horas + " horas";
+    }
+
+    private static boolean podeReceberLembrete(Excursao excursao) {
+        return excursao.getStatus() == StatusExcursao.ATIVA || excursao.getStatus() == StatusExcursao.LOTADA;
+    }
+
+    private long balde(LocalDateTime instante) {
+        return Math.floorDiv(instante.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), baldeMillis);
+    }
+
+    /**
+     * Lembrete de {@code horasAntes} da saída, enviado entre {@code disparo} e {@code validoAte}
+     * (o disparo do lembrete seguinte, ou a própria saída).
+     */
+    record Lembrete(UUID excursaoId, int horasAntes, LocalDateTime dataSaida, LocalDateTime disparo,
+                    LocalDateTime validoAte) {}
+
+    private record ChaveLembrete(UUID excursaoId, int horasAntes, LocalDateTime dataSaida) {}
+
+    private record Indice(NavigableMap<Long, Set<Lembrete>> baldes, LocalDateTime carregadoEm) {}
+}
@@ -0,0 +1,277 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.dto.response.ListaEsperaResponse;
+import br.com.tourapp.entity.Excursao;
+import br.com.tourapp.entity.Inscricao;
+import br.com.tourapp.entity.ListaEspera;
+import br.com.tourapp.entity.UserEntity;
+import br.com.tourapp.enums.StatusExcursao;
+import br.com.tourapp.enums.StatusPagamento;
+import br.com.tourapp.exception.BusinessException;
+import br.com.tourapp.exception.NotFoundException;
+import br.com.tourapp.repository.ExcursaoRepository;
+import br.com.tourapp.repository.InscricaoRepository;
+import br.com.tourapp.repository.ListaEsperaRepository;
+import br.com.tourapp.repository.UserRepository;
+import br.com.tourapp.util.TransactionUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Lista de espera (FIFO) por excursão lotada.
+ *
+ * As entradas ficam no banco; cada nó mantém em memória a cabeça da fila de cada excursão,
+ * então promover alguém quando uma vaga é liberada custa um poll e um UPDATE condicional.
+ * O UPDATE só promove a entrada se ela ainda aguarda e não há ninguém mais antigo na fila,
+ * o que mantém a ordem e impede promoção dupla entre nós. Se a fila local estiver
+ * desatualizada, ela é recarregada do banco.
+ */
+@Service
+@Transactional
+public class ListaEsperaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListaEsperaService.class);
+
+    private static final int TENTATIVAS_PROMOCAO = 3;
+
+    private final ListaEsperaRepository listaEsperaRepository;
+    private final ExcursaoRepository excursaoRepository;
+    private final InscricaoRepository inscricaoRepository;
+    private final UserRepository userRepository;
+    private final ReservaVagaService reservaVagaService;
+    private final EmailService emailService;
+    private final FirebaseService firebaseService;
+
+    // Cabeça da fila de espera de cada excursão, carregada sob demanda
+    private final Map<UUID, Queue<UUID>> filas = new ConcurrentHashMap<>();
+
+    private final Counter entradas;
+    private final Counter promocoes;
+    private final Counter saidas;
+
+    @Value("${app.lista-espera.lote-carga:100}")
+    private int loteCarga;
+
+    public ListaEsperaService(ListaEsperaRepository listaEsperaRepository,
+                              ExcursaoRepository excursaoRepository,
+                              InscricaoRepository inscricaoRepository,
+                              UserRepository userRepository,
+                              ReservaVagaService reservaVagaService,
+                              EmailService emailService,
+                              FirebaseService firebaseService,
+                              MeterRegistry meterRegistry) {
+        this.listaEsperaRepository = listaEsperaRepository;
+        this.excursaoRepository = excursaoRepository;
+        this.inscricaoRepository = inscricaoRepository;
+        this.userRepository = userRepository;
+        this.reservaVagaService = reservaVagaService;
+        this.emailService = emailService;
+        this.firebaseService = firebaseService;
+
+        this.entradas = contador(meterRegistry, "entrada");
+        this.promocoes = contador(meterRegistry, "promovida");
+        this.saidas = contador(meterRegistry, "saida");
+    }
+
+    public ListaEsperaResponse entrar(UUID excursaoId, UUID clienteId) {
+        Excursao excursao = excursaoRepository.findById(excursaoId)
+                .orElseThrow(() -> new NotFoundException("Excursão não encontrada"));
+        UserEntity cliente = userRepository.findById(clienteId)
+                .orElseThrow(() -> new NotFoundException("Cliente não encontrado"));
+
+        if (excursao.getStatus() != StatusExcursao.ATIVA && excursao.getStatus() != StatusExcursao.LOTADA) {
+            throw new BusinessException("Excursão não está disponível para inscrições");
+        }
+
+        if (excursao.isAtiva() && excursao.temVagasDisponiveis()) {
+            throw new BusinessException("Excursão possui vagas disponíveis; faça a inscrição diretamente");
+        }
+
+        if (inscricaoRepository.existsByClienteIdAndExcursaoId(clienteId, excursaoId)) {
+            throw new BusinessException("Cliente já está inscrito nesta excursão");
+        }
+
+        if (listaEsperaRepository.findAguardandoByExcursaoIdAndUserId(excursaoId, clienteId).isPresent()) {
+            throw new BusinessException("Cliente já está na lista de espera desta excursão");
+        }
+
+        ListaEspera entrada = listaEsperaRepository.save(new ListaEspera(excursao, cliente));
+        entradas.increment();
+
+        // Só entra no fim da fila local se ela já estiver carregada; senão vem na próxima carga
+        UUID entradaId = entrada.getId();
+        TransactionUtil.aposCommit(() -> {
+            Queue<UUID> fila = filas.get(excursaoId);
+            if (fila != null) {
+                fila.add(entradaId);
+            }
+        });
+
+        return converterParaResponse(entrada);
+    }
+
+    public void sair(UUID excursaoId, UUID clienteId) {
+        if (listaEsperaRepository.cancelarAguardando(excursaoId, clienteId, LocalDateTime.now()) == 0) {
+            throw new NotFoundException("Cliente não está na lista de espera desta excursão");
+        }
+        saidas.increment();
+    }
+
+    @Transactional(readOnly = true)
+    public ListaEsperaResponse obterPosicao(UUID excursaoId, UUID clienteId) {
+        ListaEspera entrada = listaEsperaRepository.findAguardandoByExcursaoIdAndUserId(excursaoId, clienteId)
+                .orElseThrow(() -> new NotFoundException("Cliente não está na lista de espera desta excursão"));
+        return converterParaResponse(entrada);
+    }
+
+    /**
+     * Repassa vagas liberadas para os primeiros da lista de espera. Para cada cliente promovido
+     * é criada uma inscrição pendente que mantém a vaga ocupada; as vagas que sobrarem
+     * voltam para a excursão.
+     *
+     * @return inscrições criadas para os clientes promovidos
+     */
+    public List<Inscricao> repassarVagas(UUID excursaoId, int quantidade) {
+        List<Inscricao> promovidas = new ArrayList<>();
+        Excursao excursao = excursaoRepository.findById(excursaoId).orElse(null);
+
+        if (excursao != null && aceitaPromocao(excursao)) {
+            while (promovidas.size() < quantidade) {
+                ListaEspera entrada = reivindicarProxima(excursaoId);
+                if (entrada == null) {
+                    break;
+                }
+
+                Inscricao inscricao = criarInscricaoPromovida(entrada, excursao);
+                if (inscricao != null) {
+                    promovidas.add(inscricao);
+                }
+            }
+        }
+
+        int restantes = quantidade - promovidas.size();
+        if (restantes > 0) {
+            reservaVagaService.liberar(excursaoId, restantes);
+        }
+
+        if (!promovidas.isEmpty()) {
+            promocoes.increment(promovidas.size());
+            logger.info("{} cliente(s) promovido(s) da lista de espera da excursão {}", promovidas.size(), excursaoId);
+        }
+        return promovidas;
+    }
+
+    /**
+     * Avisa o cliente promovido (email e push) depois que a promoção for confirmada no banco.
+     */
+    public void notificarPromocao(Inscricao inscricao, LocalDateTime prazoPagamento) {
+        UserEntity cliente = inscricao.getUser();
+        String email = cliente.getEmail();
+        String nome = cliente.getFullName();
+        String pushToken = cliente.temPushToken() ? cliente.getPushToken() : null;
+        String tituloExcursao = inscricao.getExcursao().getTitulo();
+        LocalDateTime dataSaida = inscricao.getExcursao().getDataSaida();
+
+        TransactionUtil.aposCommit(() -> {
+            emailService.enviarPromocaoListaEspera(email, nome, tituloExcursao, dataSaida, prazoPagamento);
+            if (pushToken != null) {
+                firebaseService.enviarNotificacaoPush(pushToken, "Vaga disponível!",
+                        String.format("Surgiu uma vaga na excursão '%s'. Conclua o pagamento para garanti-la.",
+                                tituloExcursao));
+            }
+        });
+    }
+
+    private ListaEspera reivindicarProxima(UUID excursaoId) {
+        for (int tentativa = 0; tentativa < TENTATIVAS_PROMOCAO; tentativa++) {
+            UUID entradaId = proximaDaFila(excursaoId);
+            if (entradaId == null) {
+                return null;
+            }
+
+            if (listaEsperaRepository.promoverSePrimeira(entradaId, LocalDateTime.now()) > 0) {
+                return listaEsperaRepository.findById(entradaId).orElse(null);
+            }
+
+            // Entrada já atendida/cancelada ou fora de ordem: a fila local está desatualizada
+            filas.remove(excursaoId);
+        }
+
+        logger.warn("Não foi possível promover ninguém da lista de espera da excursão {} após {} tentativas",
+                excursaoId, TENTATIVAS_PROMOCAO);
+        return null;
+    }
+
+    private UUID proximaDaFila(UUID excursaoId) {
+        Queue<UUID> fila = filas.get(excursaoId);
+        UUID entradaId = fila != null ? fila.poll() : null;
+        if (entradaId != null) {
+            return entradaId;
+        }
+
+        // Fila local vazia: recarrega do banco (inclui entradas feitas em outros nós)
+        Queue<UUID> recarregada = new ConcurrentLinkedQueue<>(
+                listaEsperaRepository.findIdsAguardando(excursaoId, PageRequest.of(0, loteCarga)));
+        entradaId = recarregada.poll();
+        if (entradaId == null) {
+            filas.remove(excursaoId);
+        } else {
+            filas.put(excursaoId, recarregada);
+        }
+        return entradaId;
+    }
+
+    private Inscricao criarInscricaoPromovida(ListaEspera entrada, Excursao excursao) {
+        UUID clienteId = entrada.getUser().getId();
+        if (inscricaoRepository.existsByClienteIdAndExcursaoId(clienteId, excursao.getId())) {
+            logger.debug("Cliente {} já possui inscrição na excursão {}; entrada da lista ignorada",
+                    clienteId, excursao.getId());
+            return null;
+        }
+
+        Inscricao inscricao = new Inscricao(excursao, entrada.getUser(), excursao.getPreco());
+        inscricao.setStatusPagamento(StatusPagamento.PENDENTE);
+        inscricao = inscricaoRepository.save(inscricao);
+
+        entrada.setInscricao(inscricao);
+        return inscricao;
+    }
+
+    private boolean aceitaPromocao(Excursao excursao) {
+        return (excursao.getStatus() == StatusExcursao.ATIVA || excursao.getStatus() == StatusExcursao.LOTADA)
+                && excursao.getDataSaida().isAfter(LocalDateTime.now());
+    }
+
+    private ListaEsperaResponse converterParaResponse(ListaEspera entrada) {
+        ListaEsperaResponse response = new ListaEsperaResponse();
+        response.setId(entrada.getId());
+        response.setExcursaoId(entrada.getExcursao().getId());
+        response.setTituloExcursao(entrada.getExcursao().getTitulo());
+        response.setStatus(entrada.getStatus());
+        response.setCreatedAt(entrada.getCreatedAt());
+        response.setPosicao(listaEsperaRepository.countPosicao(entrada.getExcursao().getId(), entrada.getCreatedAt()));
+        return response;
+    }
+
+    private static Counter contador(MeterRegistry meterRegistry, String evento) {
+        return Counter.builder("tourapp.lista.espera")
+                .description("Movimentação da lista de espera por evento")
+                .tag("evento", evento)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,117 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.exception.BusinessException;
+import br.com.tourapp.exception.NotFoundException;
+import com.mercadopago.client.payment.PaymentClient;
+import com.mercadopago.client.payment.PaymentCreateRequest;
+import com.mercadopago.core.MPRequestOptions;
+import com.mercadopago.exceptions.MPApiException;
+import com.mercadopago.exceptions.MPException;
+import com.mercadopago.resources.payment.Payment;
+
+import java.util.Map;
+
+/**
+ * Chamadas diretas ao SDK do Mercado Pago, sem proteção própria.
+ * Usado por trás do {@link GatewayPagamentoResiliente}, que aplica bulkhead, prazo e circuit breaker.
+ */
+public class MercadoPagoGateway implements GatewayPagamento {
+
+    private static final String CABECALHO_IDEMPOTENCIA = "X-Idempotency-Key";
+
+    private final PaymentClient paymentClient;
+    private final int timeoutConexaoMs;
+    private final int timeoutCriacaoMs;
+    private final MPRequestOptions opcoesCriacao;
+    private final MPRequestOptions opcoesConsulta;
+
+    public MercadoPagoGateway(int timeoutConexaoMs, int timeoutCriacaoMs, int timeoutConsultaMs) {
+        this.paymentClient = new PaymentClient();
+        this.timeoutConexaoMs = timeoutConexaoMs;
+        this.timeoutCriacaoMs = timeoutCriacaoMs;
+        // Timeouts de socket alinhados ao prazo de cada chamada, para não deixar conexões penduradas
+        this.opcoesCriacao = MPRequestOptions.builder()
+                .connectionTimeout(timeoutConexaoMs)
+                .socketTimeout(timeoutCriacaoMs)
+                .build();
+        this.opcoesConsulta = MPRequestOptions.builder()
+                .connectionTimeout(timeoutConexaoMs)
+                .socketTimeout(timeoutConsultaMs)
+                .build();
+    }
+
+    @Override
+    public Resultado criar(PaymentCreateRequest request, String chaveIdempotencia) {
+        // Mesma chave, mesma cobrança: o Mercado Pago devolve a já criada se a chamada for repetida
+        MPRequestOptions opcoes = MPRequestOptions.builder()
+                .connectionTimeout(timeoutConexaoMs)
+                .socketTimeout(timeoutCriacaoMs)
+                .customHeaders(Map.of(CABECALHO_IDEMPOTENCIA, chaveIdempotencia))
+                .build();
+        try {
+            return converter(paymentClient.create(request, opcoes));
+        } catch (MPApiException e) {
+            throw traduzir(e, "Erro ao processar pagamento: ");
+        } catch (MPException e) {
+            throw new IllegalStateException("Erro ao criar pagamento no Mercado Pago: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Resultado consultar(String paymentId) {
+        try {
+            return converter(paymentClient.get(Long.parseLong(paymentId), opcoesConsulta));
+        } catch (MPApiException e) {
+            if (e.getStatusCode() == 404) {
+                throw new NotFoundException("Pagamento " + paymentId + " não encontrado no Mercado Pago");
+            }
+            throw traduzir(e, "Erro ao consultar pagamento " + paymentId + ": ");
+        } catch (MPException e) {
+            throw new IllegalStateException("Erro ao consultar pagamento " + paymentId + " no Mercado Pago: "
+                    + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Resultado cancelar(String paymentId) {
+        try {
+            return converter(paymentClient.cancel(Long.parseLong(paymentId), opcoesCriacao));
+        } catch (MPApiException e) {
+            throw traduzir(e, "Erro ao cancelar pagamento " + paymentId + ": ");
+        } catch (MPException e) {
+            throw new IllegalStateException("Erro ao cancelar pagamento " + paymentId + " no Mercado Pago: "
+                    + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void reembolsar(String paymentId) {
+        try {
+            paymentClient.refund(Long.parseLong(paymentId), opcoesCriacao);
+        } catch (MPApiException e) {
+            throw traduzir(e, "Erro ao reembolsar pagamento " + paymentId + ": ");
+        } catch (MPException e) {
+            throw new IllegalStateException("Erro ao reembolsar pagamento " + paymentId + " no Mercado Pago: "
+                    + e.getMessage(), e);
+        }
+    }
+
+    private RuntimeException traduzir(MPApiException e, String prefixo) {
+        // 4xx é recusa da requisição; o Mercado Pago está respondendo normalmente
+        if (e.getStatusCode() >= 400 && e.getStatusCode() < 500 && e.getStatusCode() != 429) {
+            return new BusinessException(prefixo + e.getMessage());
+        }
+        return new IllegalStateException(prefixo + e.getStatusCode() + " " + e.getMessage(), e);
+    }
+
+    private Resultado converter(Payment payment) {
+        String qrCode = null;
+        String qrCodeBase64 = null;
+        if (payment.getPointOfInteraction() != null &&
+                payment.getPointOfInteraction().getTransactionData() != null) {
+            qrCode = payment.getPointOfInteraction().getTransactionData().getQrCode();
+            qrCodeBase64 = payment.getPointOfInteraction().getTransactionData().getQrCodeBase64();
+        }
+        return new Resultado(payment.getId().toString(), payment.getStatus(), qrCode, qrCodeBase64);
+    }
+}
@@ -0,0 +1,164 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.util.LruCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.unbescape.html.HtmlEscape;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Templates de email pré-renderizados.
+ *
+ * O template é processado pelo Thymeleaf uma vez por combinação de variáveis fixas (a excursão, o
+ * valor), com uma marca no lugar de cada variável por destinatário. O HTML resultante é quebrado em
+ * trechos estáticos e, para cada destinatário, só os valores são escapados e concatenados. Os
+ * modelos ficam em um LRU.
+ *
+ * As variáveis por destinatário precisam ser texto escrito com th:text ou [[...]]: a marca não
+ * sobrevive a formatação ou transformação dentro do template.
+ */
+@Service
+public class ModeloEmailService {
+
+    // Caracteres de uso privado: não são escapados pelo Thymeleaf e não mudam com maiúsculas/minúsculas
+    private static final char INICIO_MARCA = '\uE000';
+    private static final char FIM_MARCA = '\uE001';
+
+    private final TemplateEngine templateEngine;
+    private final LruCache<ChaveModelo, ModeloEmail> modelos;
+
+    private final Counter acertosCache;
+    private final Counter faltasCache;
+
+    public ModeloEmailService(TemplateEngine templateEngine,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.email.modelos.cache-tamanho:200}") int tamanhoCache) {
+        this.templateEngine = templateEngine;
+        this.modelos = new LruCache<>(tamanhoCache);
+
+        this.acertosCache = Counter.builder("tourapp.email.modelos.cache")
+                .description("Templates de email por resultado no cache")
+                .tag("resultado", "acerto")
+                .register(meterRegistry);
+        this.faltasCache = Counter.builder("tourapp.email.modelos.cache")
+                .description("Templates de email por resultado no cache")
+                .tag("resultado", "falta")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Devolve o modelo do template para as variáveis fixas informadas, processando-o só na primeira vez.
+     *
+     * @param variaveisFixas valores iguais para todos os destinatários; fazem parte da chave do cache
+     * @param slots          nomes das variáveis preenchidas por destinatário, na ordem de
+     *                       {@link ModeloEmail#renderizar}
+     */
+    public ModeloEmail compilar(String template, Map<String, Object> variaveisFixas, List<String> slots) {
+        ChaveModelo chave = new ChaveModelo(template,
+                Collections.unmodifiableMap(new HashMap<>(variaveisFixas)), List.copyOf(slots));
+
+        ModeloEmail modelo = modelos.get(chave);
+        if (modelo != null) {
+            acertosCache.increment();
+            return modelo;
+        }
+
+        faltasCache.increment();
+        modelo = processar(chave);
+        modelos.put(chave, modelo);
+        return modelo;
+    }
+
+    private ModeloEmail processar(ChaveModelo chave) {
+        Context context = new Context();
+        chave.variaveisFixas().forEach(context::setVariable);
+        for (int i = 0; i < chave.slots().size(); i++) {
+            context.setVariable(chave.slots().get(i), String.valueOf(INICIO_MARCA) + i + FIM_MARCA);
+        }
+        return dividir(templateEngine.process(chave.template(), context), chave.slots().size());
+    }
+
+    private static ModeloEmail dividir(String html, int quantidadeSlots) {
+        List<String> trechos = new ArrayList<>();
+        List<Integer> indices = new ArrayList<>();
+
+        int inicioTrecho = 0;
+        int marca = html.indexOf(INICIO_MARCA);
+        while (marca >= 0) {
+            int fim = html.indexOf(FIM_MARCA, marca);
+            if (fim < 0) {
+                break;
+            }
+            int indice = Integer.parseInt(html, marca + 1, fim, 10);
+            if (indice >= quantidadeSlots) {
+                throw new IllegalStateException("Marca de variável inválida no template: " + indice);
+            }
+            trechos.add(html.substring(inicioTrecho, marca));
+            indices.add(indice);
+            inicioTrecho = fim + 1;
+            marca = html.indexOf(INICIO_MARCA, inicioTrecho);
+        }
+        trechos.add(html.substring(inicioTrecho));
+
+        return new ModeloEmail(trechos.toArray(String[]::new),
+                indices.stream().mapToInt(Integer::intValue).toArray(), quantidadeSlots);
+    }
+
+    /**
+     * Template já processado: trechos estáticos intercalados com as variáveis por destinatário.
+     */
+    public static final class ModeloEmail {
+
+        private final String[] trechos;
+        private final int[] slots;
+        private final int quantidadeSlots;
+        private final int tamanhoEstatico;
+
+        private ModeloEmail(String[] trechos, int[] slots, int quantidadeSlots) {
+            this.trechos = trechos;
+            this.slots = slots;
+            this.quantidadeSlots = quantidadeSlots;
+            int tamanho = 0;
+            for (String trecho : trechos) {
+                tamanho += trecho.length();
+            }
+            this.tamanhoEstatico = tamanho;
+        }
+
+        /**
+         * Monta o HTML de um destinatário. Os valores são escapados como o th:text faria.
+         */
+        public String renderizar(Object... valores) {
+            if (valores.length != quantidadeSlots) {
+                throw new IllegalArgumentException("Esperados " + quantidadeSlots + " valores, recebidos " + valores.length);
+            }
+
+            String[] escapados = new String[valores.length];
+            for (int i = 0; i < valores.length; i++) {
+                escapados[i] = valores[i] == null ? "" : HtmlEscape.escapeHtml4Xml(valores[i].toString());
+            }
+            int tamanho = tamanhoEstatico;
+            for (int slot : slots) {
+                tamanho += escapados[slot].length();
+            }
+
+            StringBuilder html = new StringBuilder(tamanho);
+            html.append(trechos[0]);
+            for (int i = 0; i < slots.length; i++) {
+                html.append(escapados[slots[i]]).append(trechos[i + 1]);
+            }
+            return html.toString();
+        }
+    }
+
+    private record ChaveModelo(String template, Map<String, Object> variaveisFixas, List<String> slots) {}
+}
@@ -2,6 +2,7 @@
 package br.com.tourapp.service;
 
 import br.com.tourapp.dto.request.NotificacaoRequest;
+import br.com.tourapp.dto.response.EstatisticasNotificacaoResponse;
 import br.com.tourapp.dto.response.NotificacaoResponse;
 import br.com.tourapp.dto.response.UserInfoResponse;
 import br.com.tourapp.entity.CompaniaEntity;
@@ -25,7 +26,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -40,10 +40,12 @@ public class NotificacaoService implements NotificationUseCase {
     private final NotificacaoRepository notificacaoRepository;
     private final ExcursaoService excursaoService;
     private final UserRepository userRepository; // AJUSTADO
-    private final EmailService emailService;
-    private final FirebaseService firebaseService;
     private final ModelMapper modelMapper;
     private final CompaniaRepository companiaRepository; // ADICIONADO
+    private final DestinatarioNotificacaoService destinatarioService;
+    private final EntregaNotificacaoService entregaService;
+    private final CotaNotificacaoService cotaService;
+    private final EstatisticaNotificacaoService estatisticaService;
 
     @Override
     public NotificacaoResponse criarNotificacao(NotificacaoRequest request, UUID organizadorId) {
@@ -60,7 +62,7 @@ public class NotificacaoService implements NotificationUseCase {
         CompaniaEntity compania = companias.get(0); // Usar primeira compania
 
         // Validações de negócio
-        validarNotificacao(request, organizadorId);
+        validarNotificacao(request);
 
         Notificacao notificacao = new Notificacao();
         notificacao.setCompania(compania); // AJUSTADO
@@ -93,14 +95,13 @@ public class NotificacaoService implements NotificationUseCase {
             notificacao.setClientesAlvo(request.getClientesAlvo());
         }
 
+        notificacao.setTotalDestinatarios(destinatarioService.contar(notificacao));
+        cotaService.consumir(notificacao.getTipo(), organizadorId, compania.getId());
         notificacao = notificacaoRepository.save(notificacao);
 
         logger.info("Notificação criada com ID: {}", notificacao.getId());
 
-        NotificacaoResponse response = converterParaResponse(notificacao);
-        response.setTotalDestinatarios(calcularTotalDestinatarios(notificacao));
-
-        return response;
+        return converterParaResponse(notificacao);
     }
 
     @Transactional(readOnly = true)
@@ -135,7 +136,13 @@ public class NotificacaoService implements NotificationUseCase {
         }
 
         if (notificacao.getEnviada()) {
-            throw new BusinessException("Notificação já foi enviada em: " + notificacao.getEnviadaEm());
+            // Reenvio: só as entregas que foram para dead letter voltam para a fila
+            int reabertas = entregaService.reabrirFalhas(notificacao.getId());
+            if (reabertas == 0) {
+                throw new BusinessException("Notificação já foi enviada em: " + notificacao.getEnviadaEm());
+            }
+            logger.info("Reenvio da notificação {}: {} entregas voltaram para a fila", notificacao.getId(), reabertas);
+            return;
         }
 
         if (!notificacao.podeSerEnviada()) {
@@ -143,70 +150,58 @@ public class NotificacaoService implements NotificationUseCase {
         }
 
         try {
-            // Obter lista de clientes destinatários
-            List<UserEntity> destinatarios = obterDestinatarios(notificacao);
-
-            if (destinatarios.isEmpty()) {
+            if (enfileirar(notificacao) == 0) {
                 throw new BusinessException("Nenhum cliente encontrado para enviar a notificação");
             }
-
-            logger.info("Enviando notificação para {} clientes", destinatarios.size());
-
-            // Enviar emails
-            List<String> emailsValidos = filtrarEmailsValidos(destinatarios);
-            if (!emailsValidos.isEmpty()) {
-                emailService.enviarNotificacaoPersonalizada(notificacao, emailsValidos);
-                logger.info("Emails enviados para {} destinatários", emailsValidos.size());
-            }
-
-            // Enviar push notifications
-            List<String> pushTokensValidos = filtrarPushTokensValidos(destinatarios);
-            if (!pushTokensValidos.isEmpty()) {
-                firebaseService.enviarNotificacaoMultipla(
-                        pushTokensValidos,
-                        notificacao.getTitulo(),
-                        notificacao.getMensagem()
-                );
-                logger.info("Push notifications enviadas para {} dispositivos", pushTokensValidos.size());
-            }
-
-            // Marcar como enviada
-            notificacao.setEnviada(true);
-            notificacao.setEnviadaEm(LocalDateTime.now());
-            notificacaoRepository.save(notificacao);
-
-            logger.info("Notificação {} enviada com sucesso para {} destinatários",
-                    notificacao.getId(), destinatarios.size());
-
         } catch (Exception e) {
             logger.error("Erro ao enviar notificação {}: {}", notificacao.getId(), e.getMessage(), e);
 
-            // Adicionar observação sobre o erro mas não marcar como enviada
-            String observacao = "Erro no envio: " + e.getMessage();
-            // Em uma implementação real, você poderia ter um campo para observações
-
             throw new BusinessException("Erro ao enviar notificação: " + e.getMessage());
         }
     }
 
+    /**
+     * Envio das notificações que o organizador criou e não enviou, chamado pelo agendador.
+     *
+     * @return true se a notificação foi enfileirada
+     */
+    public boolean enviarNotificacaoPendente(UUID notificacaoId) {
+        Notificacao notificacao = notificacaoRepository.findById(notificacaoId).orElse(null);
+        if (notificacao == null || !notificacao.podeSerEnviada()) {
+            return false;
+        }
+
+        if (enfileirar(notificacao) == 0) {
+            logger.warn("Notificação pendente {} não tem destinatários", notificacaoId);
+            return false;
+        }
+        return true;
+    }
+
     @Transactional(readOnly = true)
     public Page<NotificacaoResponse> listarNotificacoesPorOrganizador(UUID organizadorId, Pageable pageable) {
         logger.info("Listando notificações do organizador: {}", organizadorId);
 
         Page<Notificacao> notificacoes = notificacaoRepository.findByOrganizadorId(organizadorId, pageable);
 
-        return notificacoes.map(notificacao -> {
-            NotificacaoResponse response = converterParaResponse(notificacao);
-            response.setTotalDestinatarios(calcularTotalDestinatarios(notificacao));
-            return response;
-        });
+        return notificacoes.map(this::converterParaResponse);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public EstatisticasNotificacaoResponse obterEstatisticas(UUID notificacaoId, UUID organizadorId) {
+        Notificacao notificacao = notificacaoRepository.findByIdAndOrganizadorId(notificacaoId, organizadorId);
+        if (notificacao == null) {
+            throw new NotFoundException("Notificação não encontrada");
+        }
+        return estatisticaService.obter(notificacao);
     }
 
     @Transactional(readOnly = true)
-    public List<Notificacao> listarNotificacoesPendentes() {
+    public List<UUID> listarIdsNotificacoesPendentes() {
         // Buscar notificações criadas há mais de 5 minutos que ainda não foram enviadas
         LocalDateTime tempoLimite = LocalDateTime.now().minusMinutes(5);
-        return notificacaoRepository.findNotificacoesPendentes(tempoLimite);
+        return notificacaoRepository.findIdsNotificacoesPendentes(tempoLimite);
     }
 
     @Transactional(readOnly = true)
@@ -216,7 +211,26 @@ public class NotificacaoService implements NotificationUseCase {
 
     // Métodos auxiliares privados
 
-    private void validarNotificacao(NotificacaoRequest request, UUID organizadorId) {
+    /**
+     * Grava uma entrega por destinatário e canal e marca a notificação como enviada; os workers da
+     * fila fazem o envio. Sem destinatários, não marca.
+     */
+    private long enfileirar(Notificacao notificacao) {
+        long totalDestinatarios = entregaService.enfileirar(notificacao);
+        if (totalDestinatarios == 0) {
+            return 0;
+        }
+
+        notificacao.setEnviada(true);
+        notificacao.setEnviadaEm(LocalDateTime.now());
+        notificacao.setTotalDestinatarios(totalDestinatarios);
+        notificacaoRepository.save(notificacao);
+
+        logger.info("Notificação {} enfileirada para {} destinatários", notificacao.getId(), totalDestinatarios);
+        return totalDestinatarios;
+    }
+
+    private void validarNotificacao(NotificacaoRequest request) {
         // Validar título e mensagem
         if (request.getTitulo() == null || request.getTitulo().trim().isEmpty()) {
             throw new BusinessException("Título da notificação é obrigatório");
@@ -233,15 +247,6 @@ public class NotificacaoService implements NotificationUseCase {
             throw new BusinessException("É necessário especificar destinatários ou marcar 'enviar para todos'");
         }
 
-        // Validar tipo de notificação
-        if (request.getTipo() == TipoNotificacao.URGENTE) {
-            // Notificações urgentes têm regras especiais
-            Long notificacoesUrgentesHoje = contarNotificacoesUrgentesDoDia(organizadorId);
-            if (notificacoesUrgentesHoje >= 3) {
-                throw new BusinessException("Limite de 3 notificações urgentes por dia atingido");
-            }
-        }
-
         // Validar tamanho do título e mensagem
         if (request.getTitulo().length() > 100) {
             throw new BusinessException("Título não pode ter mais de 100 caracteres");
@@ -252,52 +257,13 @@ public class NotificacaoService implements NotificationUseCase {
         }
     }
 
-    private List<UserEntity> obterDestinatarios(Notificacao notificacao) {
-        List<UserEntity> destinatarios = new ArrayList<>();
-
-        if (notificacao.getEnviarParaTodos()) {
-            if (notificacao.getExcursao() != null) {
-                // Todos os clientes inscritos na excursão específica
-                destinatarios = userRepository.findByExcursaoId(notificacao.getExcursao().getId());
-            } else {
-                // Todos os clientes ativos da plataforma
-                destinatarios = userRepository.findByAtivoTrue();
-            }
-        } else if (notificacao.getExcursao() != null) {
-            // Clientes da excursão específica
-            destinatarios = userRepository.findByExcursaoId(notificacao.getExcursao().getId());
-        } else if (notificacao.getClientesAlvo() != null && !notificacao.getClientesAlvo().isEmpty()) {
-            // Clientes específicos
-            destinatarios = userRepository.findAllById(notificacao.getClientesAlvo());
-        }
-
-        // Filtrar apenas clientes ativos
-        return destinatarios.stream()
-                .filter(UserEntity::isAtivo)
-                .collect(Collectors.toList());
-    }
-
-    private List<String> filtrarEmailsValidos(List<UserEntity> clientes) {
-        return clientes.stream()
-                .filter(cliente -> cliente.getEmailNotifications() != null && cliente.getEmailNotifications())
-                .filter(cliente -> cliente.getEmail() != null && !cliente.getEmail().trim().isEmpty())
-                .map(UserEntity::getEmail)
-                .distinct()
-                .collect(Collectors.toList());
-    }
-
-    private List<String> filtrarPushTokensValidos(List<UserEntity> clientes) {
-        return clientes.stream()
-                .filter(cliente -> cliente.getPushToken() != null && !cliente.getPushToken().trim().isEmpty())
-                .map(UserEntity::getPushToken)
-                .distinct()
-                .collect(Collectors.toList());
-    }
-
     private Long calcularTotalDestinatarios(Notificacao notificacao) {
+        if (notificacao.getTotalDestinatarios() != null) {
+            return notificacao.getTotalDestinatarios();
+        }
+        // Notificações criadas antes da coluna total_destinatarios
         try {
-            List<UserEntity> destinatarios = obterDestinatarios(notificacao);
-            return (long) destinatarios.size();
+            return destinatarioService.contar(notificacao);
         } catch (Exception e) {
             logger.warn("Erro ao calcular total de destinatários para notificação {}: {}",
                     notificacao.getId(), e.getMessage());
@@ -305,19 +271,9 @@ public class NotificacaoService implements NotificationUseCase {
         }
     }
 
-    private Long contarNotificacoesUrgentesDoDia(UUID organizadorId) {
-        LocalDateTime inicioDoDia = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
-        LocalDateTime fimDoDia = LocalDateTime.now().withHour(23).withMinute(59).withSecond(59);
-
-        return notificacaoRepository.findByOrganizadorId(organizadorId, Pageable.unpaged())
-                .stream()
-                .filter(n -> n.getTipo() == TipoNotificacao.URGENTE)
-                .filter(n -> n.getCreatedAt().isAfter(inicioDoDia) && n.getCreatedAt().isBefore(fimDoDia))
-                .count();
-    }
-
     private NotificacaoResponse converterParaResponse(Notificacao notificacao) {
         NotificacaoResponse response = modelMapper.map(notificacao, NotificacaoResponse.class);
+        response.setTotalDestinatarios(calcularTotalDestinatarios(notificacao));
 
         // Adicionar dados da excursão se existir
         if (notificacao.getExcursao() != null) {
@@ -328,44 +284,6 @@ public class NotificacaoService implements NotificationUseCase {
         return response;
     }
 
-//    // Métodos para uso interno e agendamento
-//
-//    @Async
-//    public void enviarLembreteExcursao(UUID excursaoId) {
-//        logger.info("Enviando lembrete automático para excursão: {}", excursaoId);
-//
-//        try {
-//            // Buscar a excursão e seus inscritos
-//            List<UserEntity> inscritos = clienteRepository.findByExcursaoId(excursaoId);
-//
-//            if (inscritos.isEmpty()) {
-//                logger.info("Nenhum inscrito encontrado para a excursão: {}", excursaoId);
-//                return;
-//            }
-//
-//            // Criar mensagem de lembrete
-//            String titulo = "Lembrete: Sua excursão é amanhã!";
-//            String mensagem = "Não esqueça de sua excursão que acontece amanhã. Prepare-se e chegue no horário!";
-//
-//            // Enviar emails
-//            List<String> emails = filtrarEmailsValidos(inscritos);
-//            if (!emails.isEmpty()) {
-//                // Aqui você criaria uma notificação temporária ou enviaria diretamente
-//                logger.info("Enviando lembretes por email para {} clientes", emails.size());
-//            }
-//
-//            // Enviar push notifications
-//            List<String> pushTokens = filtrarPushTokensValidos(inscritos);
-//            if (!pushTokens.isEmpty()) {
-//                firebaseService.enviarNotificacaoMultipla(pushTokens, titulo, mensagem);
-//                logger.info("Enviando lembretes push para {} dispositivos", pushTokens.size());
-//            }
-//
-//        } catch (Exception e) {
-//            logger.error("Erro ao enviar lembrete para excursão {}: {}", excursaoId, e.getMessage(), e);
-//        }
-//    }
-
     @Async
     public void enviarConfirmacaoInscricao(UUID inscricaoId, String nomeCliente, String tituloExcursao) {
         logger.info("Enviando confirmação de inscrição para: {}", nomeCliente);
@@ -1,6 +1,7 @@
 package br.com.tourapp.service;
 
 import br.com.tourapp.dto.request.NotificacaoRequest;
+import br.com.tourapp.dto.response.EstatisticasNotificacaoResponse;
 import br.com.tourapp.dto.response.NotificacaoResponse;
 import br.com.tourapp.dto.response.UserInfoResponse;
 import jakarta.validation.Valid;
@@ -18,4 +19,6 @@ public interface NotificationUseCase {
     Page<NotificacaoResponse> listarNotificacoesPorOrganizador(UUID id, Pageable pageable);
 
     List<UserInfoResponse> listarClientesPorExcursao(UUID excursaoId, UUID id);
+
+    EstatisticasNotificacaoResponse obterEstatisticas(UUID notificacaoId, UUID organizadorId);
 }
@@ -0,0 +1,270 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.entity.EventoOutbox;
+import br.com.tourapp.enums.TipoEventoOutbox;
+import br.com.tourapp.repository.EventoOutboxRepository;
+import br.com.tourapp.repository.EventoOutboxRepository.ResumoOutbox;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Outbox transacional dos efeitos colaterais (email, push...).
+ *
+ * {@link #publicar} grava o evento na transação de quem o gerou, uma linha por consumidor; se a
+ * transação for desfeita, nada é enviado. O relay drena a tabela em lotes com FOR UPDATE SKIP LOCKED,
+ * então vários nós dividem o trabalho sem entregar o mesmo evento ao mesmo tempo. Falhas são
+ * retentadas com backoff exponencial até {@code max-tentativas}; a entrega é pelo menos uma vez.
+ */
+@Service
+public class OutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxService.class);
+
+    private final EventoOutboxRepository eventoRepository;
+    private final Map<String, ConsumidorOutbox> consumidores;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService workers;
+    private final int tamanhoLote;
+    private final int maxTentativas;
+    private final PoliticaRetentativa politicaRetentativa;
+    private final long bloqueioSegundos;
+    private final int retencaoDias;
+
+    private final Counter publicados;
+    private final Counter processados;
+    private final Counter retentativas;
+    private final Counter falhas;
+    private final Timer atrasoEntrega;
+    private final AtomicLong pendentes = new AtomicLong();
+    private final AtomicLong idadeMaisAntigoSegundos = new AtomicLong();
+
+    public OutboxService(EventoOutboxRepository eventoRepository,
+                         List<ConsumidorOutbox> consumidores,
+                         ObjectMapper objectMapper,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry,
+                         @Value("${app.outbox.workers:4}") int quantidadeWorkers,
+                         @Value("${app.outbox.lote:50}") int tamanhoLote,
+                         @Value("${app.outbox.max-tentativas:10}") int maxTentativas,
+                         @Value("${app.outbox.backoff-inicial-ms:2000}") long backoffInicialMs,
+                         @Value("${app.outbox.backoff-maximo-ms:600000}") long backoffMaximoMs,
+                         @Value("${app.outbox.bloqueio-segundos:120}") long bloqueioSegundos,
+                         @Value("${app.outbox.retencao-dias:7}") int retencaoDias) {
+        this.eventoRepository = eventoRepository;
+        this.consumidores = consumidores.stream()
+                .collect(Collectors.toMap(ConsumidorOutbox::getNome, Function.identity()));
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workers = Executors.newFixedThreadPool(quantidadeWorkers,
+                Thread.ofPlatform().name("outbox-relay-", 1).daemon(true).factory());
+        this.tamanhoLote = tamanhoLote;
+        this.maxTentativas = maxTentativas;
+        this.politicaRetentativa = new PoliticaRetentativa(backoffInicialMs, backoffMaximoMs);
+        this.bloqueioSegundos = bloqueioSegundos;
+        this.retencaoDias = retencaoDias;
+
+        this.publicados = contador(meterRegistry, "publicado");
+        this.processados = contador(meterRegistry, "processado");
+        this.retentativas = contador(meterRegistry, "retentativa");
+        this.falhas = contador(meterRegistry, "falhou");
+        this.atrasoEntrega = Timer.builder("tourapp.outbox.atraso")
+                .description("Tempo entre a publicação do evento e a entrega ao consumidor")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("tourapp.outbox.pendentes", pendentes, AtomicLong::get)
+                .description("Eventos do outbox aguardando entrega")
+                .register(meterRegistry);
+        Gauge.builder("tourapp.outbox.mais.antigo.segundos", idadeMaisAntigoSegundos, AtomicLong::get)
+                .description("Idade do evento pendente mais antigo do outbox")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Grava o evento para cada consumidor interessado. Precisa ser chamado dentro da transação
+     * da mudança de estado que o originou.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publicar(TipoEventoOutbox tipo, UUID agregadoId, Object payload) {
+        String json = serializar(payload);
+        LocalDateTime agora = LocalDateTime.now();
+        for (ConsumidorOutbox consumidor : consumidores.values()) {
+            if (consumidor.consome(tipo)) {
+                eventoRepository.save(new EventoOutbox(tipo, consumidor.getNome(), agregadoId, json, agora));
+                publicados.increment();
+            }
+        }
+    }
+
+    /**
+     * Drena o outbox em lotes enquanto houver eventos elegíveis.
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.intervalo-ms:500}")
+    public void drenar() {
+        try {
+            for (int rodada = 0; rodada < PoliticaRetentativa.MAX_RODADAS_POR_CICLO; rodada++) {
+                List<EventoOutbox> lote = reservarLote();
+                if (lote.isEmpty()) {
+                    return;
+                }
+                processarLote(lote);
+                if (lote.size() < tamanhoLote) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Erro ao drenar o outbox: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.metricas-intervalo-ms:15000}")
+    public void atualizarMetricas() {
+        try {
+            LocalDateTime agora = LocalDateTime.now();
+            Integer liberados = transactionTemplate.execute(status -> eventoRepository.liberarBloqueiosVencidos(agora));
+            if (liberados != null && liberados > 0) {
+                logger.warn("{} evento(s) do outbox presos em processamento voltaram para a fila", liberados);
+            }
+
+            ResumoOutbox resumo = eventoRepository.resumirPendentes();
+            pendentes.set(resumo.getQuantidade() != null ? resumo.getQuantidade() : 0);
+            idadeMaisAntigoSegundos.set(resumo.getMaisAntigo() != null
+                    ? Math.max(0, Duration.between(resumo.getMaisAntigo(), agora).toSeconds())
+                    : 0);
+        } catch (RuntimeException e) {
+            logger.error("Erro ao atualizar métricas do outbox: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.limpeza-intervalo-ms:3600000}")
+    public void removerProcessados() {
+        LocalDateTime limite = LocalDateTime.now().minusDays(retencaoDias);
+        Integer removidos = transactionTemplate.execute(status -> eventoRepository.removerProcessadosAte(limite));
+        if (removidos != null && removidos > 0) {
+            logger.info("{} evento(s) processados removidos do outbox", removidos);
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        workers.shutdown();
+    }
+
+    private List<EventoOutbox> reservarLote() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime agora = LocalDateTime.now();
+            List<UUID> ids = eventoRepository.reservarProximos(agora, tamanhoLote);
+            if (ids.isEmpty()) {
+                return List.<EventoOutbox>of();
+            }
+            eventoRepository.marcarProcessando(ids, agora.plusSeconds(bloqueioSegundos), agora);
+            // Carregados depois do UPDATE para já virem com a tentativa atual contada
+            return eventoRepository.findAllById(ids);
+        });
+    }
+
+    private void processarLote(List<EventoOutbox> lote) {
+        List<Future<?>> execucoes = new ArrayList<>(lote.size());
+        for (EventoOutbox evento : lote) {
+            execucoes.add(workers.submit(() -> processar(evento)));
+        }
+        for (Future<?> execucao : execucoes) {
+            try {
+                execucao.get(bloqueioSegundos, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException | TimeoutException e) {
+                // Falhas já são tratadas em processar; o bloqueio vencido devolve o evento à fila
+                logger.error("Worker do outbox não concluiu: {}", e.getMessage());
+            }
+        }
+    }
+
+    void processar(EventoOutbox evento) {
+        ConsumidorOutbox consumidor = consumidores.get(evento.getConsumidor());
+        try {
+            if (consumidor == null) {
+                throw new IllegalStateException("Consumidor do outbox não registrado: " + evento.getConsumidor());
+            }
+            consumidor.processar(evento);
+
+            transactionTemplate.executeWithoutResult(status ->
+                    eventoRepository.marcarProcessado(evento.getId(), LocalDateTime.now()));
+            processados.increment();
+            atrasoEntrega.record(Duration.between(evento.getCreatedAt(), LocalDateTime.now()));
+        } catch (Exception e) {
+            registrarFalha(evento, e);
+        }
+    }
+
+    private void registrarFalha(EventoOutbox evento, Exception erro) {
+        String mensagem = PoliticaRetentativa.resumirErro(erro);
+        LocalDateTime agora = LocalDateTime.now();
+
+        if (evento.getTentativas() >= maxTentativas) {
+            transactionTemplate.executeWithoutResult(status ->
+                    eventoRepository.marcarFalha(evento.getId(), mensagem, agora));
+            falhas.increment();
+            logger.error("Evento {} do outbox para {} foi para dead letter após {} tentativas: {}",
+                    evento.getTipo(), evento.getConsumidor(), evento.getTentativas(), mensagem);
+            return;
+        }
+
+        LocalDateTime proximaTentativa = agora.plus(Duration.ofMillis(calcularBackoff(evento.getTentativas())));
+        transactionTemplate.executeWithoutResult(status ->
+                eventoRepository.reagendar(evento.getId(), proximaTentativa, mensagem, agora));
+        retentativas.increment();
+        logger.warn("Falha ao entregar evento {} do outbox para {} (tentativa {}), nova tentativa às {}: {}",
+                evento.getTipo(), evento.getConsumidor(), evento.getTentativas(), proximaTentativa, mensagem);
+    }
+
+    long calcularBackoff(int tentativas) {
+        return politicaRetentativa.backoff(tentativas);
+    }
+
+    private String serializar(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Não foi possível serializar evento do outbox", e);
+        }
+    }
+
+    private static Counter contador(MeterRegistry meterRegistry, String evento) {
+        return Counter.builder("tourapp.outbox")
+                .description("Eventos do outbox por etapa")
+                .tag("evento", evento)
+                .register(meterRegistry);
+    }
+}
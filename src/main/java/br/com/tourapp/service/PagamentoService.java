@@ -1,33 +1,36 @@
 //src/main/java/br/com/tourapp/service/PagamentoService.java
 package br.com.tourapp.service;
 
+import br.com.tourapp.dto.CobrancaMercadoPagoEvento;
 import br.com.tourapp.dto.request.PagamentoCartaoRequest;
+import br.com.tourapp.dto.request.PagamentoPixGrupoRequest;
 import br.com.tourapp.dto.request.PagamentoPixRequest;
 import br.com.tourapp.dto.response.PagamentoResponse;
 import br.com.tourapp.entity.Inscricao;
 import br.com.tourapp.entity.Pagamento;
 import br.com.tourapp.enums.MetodoPagamento;
 import br.com.tourapp.enums.StatusPagamento;
+import br.com.tourapp.enums.TipoEventoOutbox;
 import br.com.tourapp.exception.BusinessException;
 import br.com.tourapp.exception.NotFoundException;
 import br.com.tourapp.repository.PagamentoRepository;
-import com.mercadopago.MercadoPagoConfig;
 import com.mercadopago.client.common.IdentificationRequest;
-import com.mercadopago.client.payment.PaymentClient;
 import com.mercadopago.client.payment.PaymentCreateRequest;
 import com.mercadopago.client.payment.PaymentPayerRequest;
-import com.mercadopago.exceptions.MPApiException;
-import com.mercadopago.exceptions.MPException;
-import com.mercadopago.resources.payment.Payment;
 import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -38,112 +41,136 @@ public class PagamentoService implements PaymentUseCase {
 
     private final PagamentoRepository pagamentoRepository;
     private final InscricaoService inscricaoService;
+    private final ReservaTemporariaService reservaTemporariaService;
     private final ModelMapper modelMapper;
-    private final PaymentClient paymentClient;
+    private final GatewayPagamento gatewayPagamento;
+    private final ArtefatoPixService artefatoPixService;
+    private final CanalStatusPagamentoService canalStatusPagamento;
+    private final OutboxService outboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final String contextPath;
 
     @Value("${app.mercadopago.sandbox:true}")
     private boolean sandbox;
 
     public PagamentoService(PagamentoRepository pagamentoRepository,
                             InscricaoService inscricaoService,
+                            ReservaTemporariaService reservaTemporariaService,
                             ModelMapper modelMapper,
-                            @Value("${app.mercadopago.access-token}") String accessToken) {
+                            GatewayPagamento gatewayPagamento,
+                            ArtefatoPixService artefatoPixService,
+                            CanalStatusPagamentoService canalStatusPagamento,
+                            OutboxService outboxService,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${server.servlet.context-path:}") String contextPath) {
         this.pagamentoRepository = pagamentoRepository;
         this.inscricaoService = inscricaoService;
+        this.reservaTemporariaService = reservaTemporariaService;
         this.modelMapper = modelMapper;
-
-        // Configurar Mercado Pago
-        MercadoPagoConfig.setAccessToken(accessToken);
-        this.paymentClient = new PaymentClient();
+        this.gatewayPagamento = gatewayPagamento;
+        this.artefatoPixService = artefatoPixService;
+        this.canalStatusPagamento = canalStatusPagamento;
+        this.outboxService = outboxService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.contextPath = contextPath;
 
         logger.info("PagamentoService inicializado. Sandbox: {}", sandbox);
     }
 
+    /**
+     * Roda sem transação: a validação e o registro da cobrança usam transações curtas,
+     * e a chamada ao Mercado Pago acontece entre elas sem segurar conexão do pool.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public PagamentoResponse criarPagamentoPix(PagamentoPixRequest request, UUID clienteId) {
         logger.info("Criando pagamento PIX para inscricao: {} do cliente: {}", request.getInscricaoId(), clienteId);
 
-        Inscricao inscricao = inscricaoService.obterPorId(request.getInscricaoId());
+        CobrancaPix cobranca = transactionTemplate.execute(status -> {
+            Inscricao inscricao = inscricaoService.obterPorId(request.getInscricaoId());
 
-        // Validações de negócio
-        validarInscricaoParaPagamento(inscricao, clienteId);
+            // Validações de negócio
+            validarInscricaoParaPagamento(inscricao, clienteId);
+            validarInscricaoIndividual(inscricao);
 
-        if (!inscricao.getExcursao().getAceitaPix()) {
-            throw new BusinessException("Esta excursão não aceita pagamento via PIX");
-        }
+            if (!inscricao.getExcursao().getAceitaPix()) {
+                throw new BusinessException("Esta excursão não aceita pagamento via PIX");
+            }
 
-        try {
-            // Criar pagamento no Mercado Pago
-            PaymentCreateRequest paymentCreateRequest = PaymentCreateRequest.builder()
-                    .transactionAmount(inscricao.getValorPago())
-                    .description("Excursão: " + inscricao.getExcursao().getTitulo())
-                    .paymentMethodId("pix")
-                    .payer(PaymentPayerRequest.builder()
-                            .email(inscricao.getCliente().getEmail())
-                            .firstName(inscricao.getCliente().getNome())
-                            .identification(IdentificationRequest.builder()
-                                    .type("CPF") // Pode ser CPF ou CNPJ
-                                    .number("11111111111") // Em produção, capturar do cliente
-                                    .build())
-                            .build())
-                    .externalReference(inscricao.getId().toString())
-                    .notificationUrl(construirUrlWebhook())
-                    .build();
+            return prepararCobrancaPix(inscricao, List.of(inscricao.getId()), inscricao.getValorPago(),
+                    "Excursão: " + inscricao.getExcursao().getTitulo(), inscricao.getId().toString(),
+                    null, "Pagamento PIX gerado automaticamente");
+        });
+
+        GatewayPagamento.Resultado payment = gatewayPagamento.criar(cobranca.request(), cobranca.chaveIdempotencia());
+        logger.info("Pagamento PIX criado no MP. ID: {}", payment.id());
+
+        return transactionTemplate.execute(status -> {
+            Pagamento pagamento = registrarCobrancaPix(cobranca, payment);
+            logger.info("Pagamento PIX salvo localmente. ID: {}", pagamento.getId());
+            return converterParaResponse(pagamento);
+        });
+    }
 
-            Payment payment = paymentClient.create(paymentCreateRequest);
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public PagamentoResponse criarPagamentoPixGrupo(PagamentoPixGrupoRequest request, UUID clienteId) {
+        logger.info("Criando pagamento PIX para o grupo: {} do cliente: {}", request.getGrupoId(), clienteId);
 
-            logger.info("Pagamento PIX criado no MP. ID: {}", payment.getId());
+        CobrancaPix cobranca = transactionTemplate.execute(status -> {
+            List<Inscricao> inscricoes = inscricaoService.obterPorGrupo(request.getGrupoId());
+            inscricoes.forEach(inscricao -> validarInscricaoParaPagamento(inscricao, clienteId));
 
-            // Salvar pagamento local
-            Pagamento pagamento = new Pagamento();
-            pagamento.setInscricao(inscricao);
-            pagamento.setValor(inscricao.getValorPago());
-            pagamento.setMetodoPagamento(MetodoPagamento.PIX);
-            pagamento.setStatus(StatusPagamento.PENDENTE);
-            pagamento.setMercadoPagoPaymentId(payment.getId().toString());
-
-            // Dados do PIX
-            if (payment.getPointOfInteraction() != null &&
-                    payment.getPointOfInteraction().getTransactionData() != null) {
-                pagamento.setQrCode(payment.getPointOfInteraction().getTransactionData().getQrCode());
-                pagamento.setQrCodeBase64(payment.getPointOfInteraction().getTransactionData().getQrCodeBase64());
+            Inscricao principal = inscricoes.get(0);
+            if (!principal.getExcursao().getAceitaPix()) {
+                throw new BusinessException("Esta excursão não aceita pagamento via PIX");
             }
 
-            pagamento.setDataVencimento(LocalDateTime.now().plusMinutes(30)); // PIX expira em 30 min
-            pagamento.setObservacoes("Pagamento PIX gerado automaticamente");
+            BigDecimal valorTotal = inscricoes.stream()
+                    .map(Inscricao::getValorPago)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
 
-            pagamento = pagamentoRepository.save(pagamento);
+            // Uma única cobrança para o grupo, vinculada à primeira inscrição
+            return prepararCobrancaPix(principal, inscricoes.stream().map(Inscricao::getId).toList(), valorTotal,
+                    "Excursão: " + principal.getExcursao().getTitulo() + " (" + inscricoes.size() + " vagas)",
+                    request.getGrupoId().toString(), request.getGrupoId(),
+                    "Pagamento PIX do grupo (" + inscricoes.size() + " inscrições)");
+        });
 
-            logger.info("Pagamento PIX salvo localmente. ID: {}", pagamento.getId());
+        GatewayPagamento.Resultado payment = gatewayPagamento.criar(cobranca.request(), cobranca.chaveIdempotencia());
+        logger.info("Pagamento PIX do grupo {} criado no MP. ID: {}", request.getGrupoId(), payment.id());
 
+        return transactionTemplate.execute(status -> {
+            Pagamento pagamento = registrarCobrancaPix(cobranca, payment);
+            logger.info("Pagamento PIX do grupo {} salvo localmente. ID: {}", request.getGrupoId(), pagamento.getId());
             return converterParaResponse(pagamento);
-
-        } catch (MPException | MPApiException e) {
-            logger.error("Erro ao criar pagamento PIX no Mercado Pago: {}", e.getMessage(), e);
-            throw new BusinessException("Erro ao processar pagamento PIX: " + e.getMessage());
-        } catch (Exception e) {
-            logger.error("Erro inesperado ao criar pagamento PIX: {}", e.getMessage(), e);
-            throw new BusinessException("Erro interno ao processar pagamento");
-        }
+        });
     }
 
-    public PagamentoResponse criarPagamentoCartao(PagamentoCartaoRequest request, UUID clienteId) {
+    /**
+     * A chave de idempotência do Mercado Pago vem do header Idempotency-Key do cliente: a retentativa
+     * depois de um tempo esgotado reutiliza o header e recebe a cobrança já criada, sem cobrar o cartão
+     * de novo. Sem o header, cada requisição é uma tentativa nova.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public PagamentoResponse criarPagamentoCartao(PagamentoCartaoRequest request, UUID clienteId,
+                                                  String idempotencyKey) {
         logger.info("Criando pagamento cartão para inscricao: {} do cliente: {}", request.getInscricaoId(), clienteId);
 
-        Inscricao inscricao = inscricaoService.obterPorId(request.getInscricaoId());
+        // Validar dados do cartão
+        validarDadosCartao(request);
+        String tokenCartao = gerarTokenCartao(request); // Em produção, usar SDK do MP no frontend
 
-        // Validações de negócio
-        validarInscricaoParaPagamento(inscricao, clienteId);
+        PaymentCreateRequest paymentCreateRequest = transactionTemplate.execute(status -> {
+            Inscricao inscricao = inscricaoService.obterPorId(request.getInscricaoId());
 
-        if (!inscricao.getExcursao().getAceitaCartao()) {
-            throw new BusinessException("Esta excursão não aceita pagamento via cartão");
-        }
+            // Validações de negócio
+            validarInscricaoParaPagamento(inscricao, clienteId);
+            validarInscricaoIndividual(inscricao);
 
-        // Validar dados do cartão
-        validarDadosCartao(request);
+            if (!inscricao.getExcursao().getAceitaCartao()) {
+                throw new BusinessException("Esta excursão não aceita pagamento via cartão");
+            }
 
-        try {
-            // Criar pagamento no Mercado Pago
-            PaymentCreateRequest paymentCreateRequest = PaymentCreateRequest.builder()
+            return PaymentCreateRequest.builder()
                     .transactionAmount(inscricao.getValorPago())
                     .description("Excursão: " + inscricao.getExcursao().getTitulo())
                     .installments(request.getParcelas())
@@ -156,95 +183,119 @@ public class PagamentoService implements PaymentUseCase {
                                     .number("11111111111") // Em produção, capturar do cliente
                                     .build())
                             .build())
-                    .token(gerarTokenCartao(request)) // Em produção, usar SDK do MP no frontend
+                    .token(tokenCartao)
                     .externalReference(inscricao.getId().toString())
                     .notificationUrl(construirUrlWebhook())
                     .build();
+        });
 
-            Payment payment = paymentClient.create(paymentCreateRequest);
+        String chaveIdempotencia = idempotencyKey != null && !idempotencyKey.isBlank()
+                ? "cartao:" + clienteId + ":" + idempotencyKey
+                : "cartao:" + request.getInscricaoId() + ":" + UUID.randomUUID();
+        GatewayPagamento.Resultado payment = gatewayPagamento.criar(paymentCreateRequest, chaveIdempotencia);
 
-            logger.info("Pagamento cartão criado no MP. ID: {}, Status: {}", payment.getId(), payment.getStatus());
+        logger.info("Pagamento cartão criado no MP. ID: {}, Status: {}", payment.id(), payment.status());
+
+        return transactionTemplate.execute(status -> {
+            Pagamento existente = pagamentoRepository.findByMercadoPagoPaymentId(payment.id()).orElse(null);
+            if (existente != null) {
+                return converterParaResponse(existente);
+            }
 
             // Salvar pagamento local
+            Inscricao inscricao = inscricaoService.obterPorId(request.getInscricaoId());
             Pagamento pagamento = new Pagamento();
             pagamento.setInscricao(inscricao);
             pagamento.setValor(inscricao.getValorPago());
             pagamento.setMetodoPagamento(MetodoPagamento.CARTAO_CREDITO);
-            pagamento.setStatus(mapearStatusMercadoPago(payment.getStatus()));
-            pagamento.setMercadoPagoPaymentId(payment.getId().toString());
+            pagamento.setStatus(mapearStatusMercadoPago(payment.status()));
+            pagamento.setMercadoPagoPaymentId(payment.id());
             pagamento.setDataProcessamento(LocalDateTime.now());
             pagamento.setObservacoes("Pagamento cartão - " + request.getParcelas() + "x");
 
-            // Se foi aprovado instantaneamente, processar
-            if (payment.getStatus().equals("approved")) {
-                pagamento.setDataProcessamento(LocalDateTime.now());
-            }
-
             pagamento = pagamentoRepository.save(pagamento);
 
             // Atualizar status da inscrição se aprovado
             if (pagamento.getStatus() == StatusPagamento.APROVADO) {
-                inscricaoService.atualizarStatusPagamento(inscricao.getId(), StatusPagamento.APROVADO);
-                logger.info("Pagamento cartão aprovado instantaneamente. Inscricao: {}", inscricao.getId());
+                if (inscricaoService.atualizarStatusPagamento(inscricao.getId(), StatusPagamento.APROVADO)
+                        == StatusPagamento.REEMBOLSADO) {
+                    solicitarReembolso(pagamento);
+                } else {
+                    logger.info("Pagamento cartão aprovado instantaneamente. Inscricao: {}", inscricao.getId());
+                }
             }
 
             return converterParaResponse(pagamento);
-
-        } catch (MPException | MPApiException e) {
-            logger.error("Erro ao criar pagamento cartão no Mercado Pago: {}", e.getMessage(), e);
-            throw new BusinessException("Erro ao processar pagamento: " + e.getMessage());
-        } catch (Exception e) {
-            logger.error("Erro inesperado ao criar pagamento cartão: {}", e.getMessage(), e);
-            throw new BusinessException("Erro interno ao processar pagamento");
-        }
+        });
     }
 
-    public void processarWebhookMercadoPago(String paymentId) {
-        logger.info("Processando webhook do Mercado Pago para pagamento: {}", paymentId);
-
-        try {
-            Payment payment = paymentClient.get(Long.parseLong(paymentId));
-
-            Pagamento pagamento = pagamentoRepository.findByMercadoPagoPaymentId(paymentId)
-                    .orElseThrow(() -> new NotFoundException("Pagamento não encontrado com ID MP: " + paymentId));
+    /**
+     * Consulta o status atual do pagamento no Mercado Pago.
+     * Roda sem transação para não segurar conexão do pool durante a chamada HTTP.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public String consultarStatusMercadoPago(String paymentId) {
+        return gatewayPagamento.consultar(paymentId).status();
+    }
 
-            StatusPagamento statusAnterior = pagamento.getStatus();
-            StatusPagamento novoStatus = mapearStatusMercadoPago(payment.getStatus());
+    /**
+     * Aplica o status do Mercado Pago ao pagamento local e às inscrições.
+     *
+     * @throws NotFoundException se o pagamento ainda não existe na base local
+     */
+    public void aplicarStatusMercadoPago(String paymentId, String statusMercadoPago) {
+        Pagamento pagamento = pagamentoRepository.findByMercadoPagoPaymentId(paymentId)
+                .orElseThrow(() -> new NotFoundException("Pagamento não encontrado com ID MP: " + paymentId));
+
+        StatusPagamento statusAnterior = pagamento.getStatus();
+        StatusPagamento novoStatus = mapearStatusMercadoPago(statusMercadoPago);
+
+        // PIX que venceu aqui e foi cancelado lá: a vaga já voltou, só falta registrar a confirmação
+        if (statusAnterior == StatusPagamento.EXPIRADO && novoStatus == StatusPagamento.CANCELADO) {
+            if (pagamento.getCancelamentoConfirmadoEm() == null) {
+                pagamento.setCancelamentoConfirmadoEm(LocalDateTime.now());
+                pagamentoRepository.save(pagamento);
+            }
+            return;
+        }
 
-            if (!statusAnterior.equals(novoStatus)) {
-                pagamento.setStatus(novoStatus);
-                pagamento.setDataProcessamento(LocalDateTime.now());
+        if (!statusAnterior.equals(novoStatus)) {
+            pagamento.setStatus(novoStatus);
+            pagamento.setDataProcessamento(LocalDateTime.now());
 
-                // Adicionar observações sobre a mudança de status
-                String observacao = String.format("Status alterado de %s para %s via webhook",
-                        statusAnterior, novoStatus);
-                pagamento.setObservacoes(pagamento.getObservacoes() + " | " + observacao);
+            // Adicionar observações sobre a mudança de status
+            String observacao = String.format("Status alterado de %s para %s via webhook",
+                    statusAnterior, novoStatus);
+            pagamento.setObservacoes(pagamento.getObservacoes() + " | " + observacao);
 
-                pagamentoRepository.save(pagamento);
+            pagamentoRepository.save(pagamento);
+            canalStatusPagamento.publicar(pagamento);
 
-                logger.info("Status do pagamento {} alterado de {} para {}",
-                        pagamento.getId(), statusAnterior, novoStatus);
+            logger.info("Status do pagamento {} alterado de {} para {}",
+                    pagamento.getId(), statusAnterior, novoStatus);
 
-                // Atualizar inscrição se foi aprovado
-                if (novoStatus == StatusPagamento.APROVADO && statusAnterior != StatusPagamento.APROVADO) {
-                    inscricaoService.atualizarStatusPagamento(pagamento.getInscricao().getId(), StatusPagamento.APROVADO);
+            // Atualizar inscrição se foi aprovado
+            if (novoStatus == StatusPagamento.APROVADO && statusAnterior != StatusPagamento.APROVADO) {
+                if (atualizarInscricoes(pagamento, StatusPagamento.APROVADO) == StatusPagamento.REEMBOLSADO) {
+                    solicitarReembolso(pagamento);
+                } else {
                     logger.info("Inscrição {} aprovada via webhook", pagamento.getInscricao().getId());
                 }
+            }
 
-                // Se foi cancelado/rejeitado, liberar vaga
-                if ((novoStatus == StatusPagamento.CANCELADO || novoStatus == StatusPagamento.REJEITADO) &&
-                        statusAnterior == StatusPagamento.APROVADO) {
-                    inscricaoService.atualizarStatusPagamento(pagamento.getInscricao().getId(), novoStatus);
-                    logger.info("Inscrição {} cancelada/rejeitada via webhook", pagamento.getInscricao().getId());
-                }
+            // Se foi cancelado/rejeitado/reembolsado, liberar vaga
+            if ((novoStatus == StatusPagamento.CANCELADO || novoStatus == StatusPagamento.REJEITADO
+                    || novoStatus == StatusPagamento.REEMBOLSADO) && statusAnterior == StatusPagamento.APROVADO) {
+                atualizarInscricoes(pagamento, novoStatus);
+                logger.info("Inscrição {} cancelada/rejeitada/reembolsada via webhook", pagamento.getInscricao().getId());
             }
 
-        } catch (NumberFormatException e) {
-            logger.error("ID de pagamento inválido: {}", paymentId);
-        } catch (NotFoundException e) {
-            logger.warn("Pagamento não encontrado na base local: {}", paymentId);
-        } catch (Exception e) {
-            logger.error("Erro ao processar webhook para pagamento {}: {}", paymentId, e.getMessage(), e);
+            // Cobrança cancelada/rejeitada antes da aprovação: devolver a vaga segura
+            if ((novoStatus == StatusPagamento.CANCELADO || novoStatus == StatusPagamento.REJEITADO) &&
+                    (statusAnterior == StatusPagamento.PENDENTE || statusAnterior == StatusPagamento.PROCESSANDO)) {
+                atualizarInscricoes(pagamento, novoStatus);
+                logger.info("Reserva da inscrição {} cancelada via webhook", pagamento.getInscricao().getId());
+            }
         }
     }
 
@@ -256,6 +307,73 @@ public class PagamentoService implements PaymentUseCase {
 
     // Métodos auxiliares privados
 
+    /**
+     * Monta a cobrança PIX. A chave de idempotência é a inscrição (ou o grupo): repetir a criação
+     * devolve a mesma cobrança do Mercado Pago em vez de gerar outra.
+     */
+    private CobrancaPix prepararCobrancaPix(Inscricao inscricao, List<UUID> inscricaoIds, BigDecimal valor,
+                                            String descricao, String referenciaExterna, UUID grupoId,
+                                            String observacoes) {
+        // PIX expira em 30 min, aqui e no Mercado Pago: depois disso o QR Code não aceita mais pagamento
+        LocalDateTime dataVencimento = LocalDateTime.now().plusMinutes(30);
+
+        PaymentCreateRequest paymentCreateRequest = PaymentCreateRequest.builder()
+                .transactionAmount(valor)
+                .description(descricao)
+                .paymentMethodId("pix")
+                .dateOfExpiration(dataVencimento.atZone(ZoneId.systemDefault()).toOffsetDateTime())
+                .payer(PaymentPayerRequest.builder()
+                        .email(inscricao.getCliente().getEmail())
+                        .firstName(inscricao.getCliente().getNome())
+                        .identification(IdentificationRequest.builder()
+                                .type("CPF") // Pode ser CPF ou CNPJ
+                                .number("11111111111") // Em produção, capturar do cliente
+                                .build())
+                        .build())
+                .externalReference(referenciaExterna)
+                .notificationUrl(construirUrlWebhook())
+                .build();
+
+        String chaveIdempotencia = grupoId != null ? "pix:grupo:" + grupoId : "pix:" + inscricao.getId();
+        return new CobrancaPix(inscricao.getId(), inscricaoIds, grupoId, valor, observacoes, dataVencimento,
+                paymentCreateRequest, chaveIdempotencia);
+    }
+
+    private Pagamento registrarCobrancaPix(CobrancaPix cobranca, GatewayPagamento.Resultado payment) {
+        // Criação repetida: o Mercado Pago devolveu a cobrança que já foi registrada
+        Pagamento existente = pagamentoRepository.findByMercadoPagoPaymentId(payment.id()).orElse(null);
+        if (existente != null) {
+            return existente;
+        }
+
+        // Salvar pagamento local
+        Pagamento pagamento = new Pagamento();
+        pagamento.setInscricao(inscricaoService.obterPorId(cobranca.inscricaoId()));
+        pagamento.setValor(cobranca.valor());
+        pagamento.setMetodoPagamento(MetodoPagamento.PIX);
+        pagamento.setStatus(StatusPagamento.PENDENTE);
+        pagamento.setMercadoPagoPaymentId(payment.id());
+        pagamento.setGrupoId(cobranca.grupoId());
+        pagamento.setObservacoes(cobranca.observacoes());
+
+        // PIX copia e cola fica no pagamento; a imagem do QR Code vai para pix_artefatos
+        pagamento.setQrCode(payment.qrCode());
+
+        pagamento.setDataVencimento(cobranca.dataVencimento());
+        pagamento = pagamentoRepository.save(pagamento);
+        artefatoPixService.salvar(pagamento, payment.qrCodeBase64());
+
+        // A vaga fica segura enquanto o PIX for válido
+        reservaTemporariaService.vincularAoPagamento(cobranca.inscricaoIds(), cobranca.dataVencimento());
+        return pagamento;
+    }
+
+    private void validarInscricaoIndividual(Inscricao inscricao) {
+        if (inscricao.getGrupoId() != null) {
+            throw new BusinessException("Inscrição faz parte de uma reserva em grupo; use o pagamento do grupo");
+        }
+    }
+
     private void validarInscricaoParaPagamento(Inscricao inscricao, UUID clienteId) {
         if (!inscricao.getCliente().getId().equals(clienteId)) {
             throw new BusinessException("Inscrição não pertence ao cliente");
@@ -265,6 +383,13 @@ public class PagamentoService implements PaymentUseCase {
             throw new BusinessException("Pagamento já foi aprovado para esta inscrição");
         }
 
+        if (inscricao.getStatusPagamento() == StatusPagamento.EXPIRADO
+                || inscricao.getStatusPagamento() == StatusPagamento.CANCELADO
+                || inscricao.getStatusPagamento() == StatusPagamento.REJEITADO
+                || inscricao.getStatusPagamento() == StatusPagamento.REEMBOLSADO) {
+            throw new BusinessException("A reserva da vaga para esta inscrição não está mais ativa");
+        }
+
         if (!inscricao.getExcursao().isAtiva()) {
             throw new BusinessException("Não é possível pagar por uma excursão inativa");
         }
@@ -331,6 +456,25 @@ public class PagamentoService implements PaymentUseCase {
         return "CARD_TOKEN_" + System.currentTimeMillis();
     }
 
+    private StatusPagamento atualizarInscricoes(Pagamento pagamento, StatusPagamento novoStatus) {
+        if (pagamento.getGrupoId() != null) {
+            return inscricaoService.atualizarStatusPagamentoGrupo(pagamento.getGrupoId(), novoStatus);
+        }
+        return inscricaoService.atualizarStatusPagamento(pagamento.getInscricao().getId(), novoStatus);
+    }
+
+    /**
+     * Pagamento aprovado depois que a reserva venceu e a vaga já foi para outro cliente.
+     * O estorno sai pelo outbox, na mesma transação; o status REEMBOLSADO chega depois pelo webhook.
+     */
+    private void solicitarReembolso(Pagamento pagamento) {
+        pagamento.setObservacoes(pagamento.getObservacoes() + " | Aprovado sem vaga disponível; reembolso solicitado");
+        pagamentoRepository.save(pagamento);
+        outboxService.publicar(TipoEventoOutbox.REEMBOLSO_SOLICITADO, pagamento.getId(),
+                new CobrancaMercadoPagoEvento(pagamento.getId(), pagamento.getMercadoPagoPaymentId()));
+        logger.warn("Pagamento {} aprovado sem vaga disponível; reembolso solicitado", pagamento.getId());
+    }
+
     private String construirUrlWebhook() {
         // Em produção, usar variável de ambiente com a URL real
         return "https://seu-app.railway.app/api/webhook/mercadopago";
@@ -355,6 +499,10 @@ public class PagamentoService implements PaymentUseCase {
     private PagamentoResponse converterParaResponse(Pagamento pagamento) {
         PagamentoResponse response = modelMapper.map(pagamento, PagamentoResponse.class);
 
+        if (pagamento.getMetodoPagamento() == MetodoPagamento.PIX && pagamento.getQrCode() != null) {
+            response.setQrCodeUrl(contextPath + "/pagamentos/" + pagamento.getId() + "/qrcode");
+        }
+
         // Adicionar link de pagamento se necessário
         if (pagamento.getMetodoPagamento() == MetodoPagamento.CARTAO_CREDITO
                 && pagamento.getMercadoPagoPaymentId() != null) {
@@ -370,4 +518,11 @@ public class PagamentoService implements PaymentUseCase {
 
         return response;
     }
-}
\ No newline at end of file
+
+    /**
+     * Cobrança PIX montada dentro da transação e registrada depois da chamada ao Mercado Pago.
+     */
+    private record CobrancaPix(UUID inscricaoId, List<UUID> inscricaoIds, UUID grupoId, BigDecimal valor,
+                               String observacoes, LocalDateTime dataVencimento, PaymentCreateRequest request,
+                               String chaveIdempotencia) {}
+}
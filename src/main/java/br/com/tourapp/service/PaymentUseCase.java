@@ -1,6 +1,7 @@
 package br.com.tourapp.service;
 
 import br.com.tourapp.dto.request.PagamentoCartaoRequest;
+import br.com.tourapp.dto.request.PagamentoPixGrupoRequest;
 import br.com.tourapp.dto.request.PagamentoPixRequest;
 import br.com.tourapp.dto.response.PagamentoResponse;
 import jakarta.validation.Valid;
@@ -10,7 +11,11 @@ import java.util.UUID;
 public interface PaymentUseCase {
     PagamentoResponse criarPagamentoPix(@Valid PagamentoPixRequest request, UUID id);
 
-    void processarWebhookMercadoPago(String paymentId);
+    PagamentoResponse criarPagamentoPixGrupo(@Valid PagamentoPixGrupoRequest request, UUID id);
 
-    PagamentoResponse criarPagamentoCartao(@Valid PagamentoCartaoRequest request, UUID id);
+    String consultarStatusMercadoPago(String paymentId);
+
+    void aplicarStatusMercadoPago(String paymentId, String statusMercadoPago);
+
+    PagamentoResponse criarPagamentoCartao(@Valid PagamentoCartaoRequest request, UUID id, String idempotencyKey);
 }
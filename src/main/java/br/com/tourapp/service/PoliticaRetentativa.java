@@ -0,0 +1,37 @@
+package br.com.tourapp.service;
+
+/**
+ * Regras comuns às filas persistentes com retentativa (outbox, inbox de webhooks e entregas de
+ * notificação): backoff exponencial limitado, quantas rodadas um ciclo de drenagem faz e como o
+ * erro é resumido antes de ir para ultimo_erro.
+ */
+final class PoliticaRetentativa {
+
+    /**
+     * Lotes cheios seguidos processados por um ciclo antes de devolver a thread ao agendador.
+     */
+    static final int MAX_RODADAS_POR_CICLO = 20;
+
+    private static final int TAMANHO_MAXIMO_ERRO = 1000;
+
+    private final long backoffInicialMs;
+    private final long backoffMaximoMs;
+
+    PoliticaRetentativa(long backoffInicialMs, long backoffMaximoMs) {
+        this.backoffInicialMs = backoffInicialMs;
+        this.backoffMaximoMs = backoffMaximoMs;
+    }
+
+    /**
+     * Espera antes da próxima tentativa: dobra a cada falha, a partir do inicial, até o máximo.
+     */
+    long backoff(int tentativas) {
+        int expoente = Math.min(Math.max(tentativas - 1, 0), 30);
+        return Math.min(backoffMaximoMs, backoffInicialMs << expoente);
+    }
+
+    static String resumirErro(Exception erro) {
+        String mensagem = erro.getMessage() != null ? erro.getMessage() : erro.getClass().getSimpleName();
+        return mensagem.length() > TAMANHO_MAXIMO_ERRO ? mensagem.substring(0, TAMANHO_MAXIMO_ERRO) : mensagem;
+    }
+}
@@ -0,0 +1,344 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.enums.MetodoPagamento;
+import br.com.tourapp.enums.StatusPagamento;
+import br.com.tourapp.repository.InscricaoRepository;
+import br.com.tourapp.repository.PagamentoRepository;
+import br.com.tourapp.repository.PagamentoRepository.CanalPagamento;
+import br.com.tourapp.repository.PagamentoRepository.PagamentoPendente;
+import br.com.tourapp.repository.PagamentoRepository.ResumoConciliacao;
+import br.com.tourapp.util.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Conciliação dos pagamentos que ficaram em aberto, para cobrir webhooks perdidos.
+ *
+ * Um único nó por vez (trava distribuída) percorre os pagamentos PENDENTE/PROCESSANDO mais antigos que
+ * {@code idadeMinima}, em páginas por chave (createdAt, id). Cada página é consultada no Mercado Pago
+ * em paralelo, limitada por um token bucket. Mudanças de status passam pelo mesmo caminho do webhook;
+ * PIX vencido e ainda não pago é cancelado no Mercado Pago e expirado localmente em lote.
+ * PIX já expirado aqui entra na varredura até o cancelamento ser confirmado no Mercado Pago,
+ * para que a cobrança não continue pagável depois que a vaga foi devolvida.
+ * Os não alterados são marcados como conciliados e só voltam a ser consultados depois de
+ * {@code intervaloReconsulta}.
+ */
+@Service
+public class ReconciliacaoPagamentoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReconciliacaoPagamentoService.class);
+
+    static final String TRAVA = "conciliacao-pagamentos";
+
+    private static final LocalDateTime INICIO_KEYSET = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final UUID MENOR_UUID = new UUID(0L, 0L);
+
+    private final PagamentoRepository pagamentoRepository;
+    private final InscricaoRepository inscricaoRepository;
+    private final PaymentUseCase pagamentoService;
+    private final GatewayPagamento gatewayPagamento;
+    private final ReservaTemporariaService reservaTemporariaService;
+    private final CanalStatusPagamentoService canalStatusPagamento;
+    private final TravaDistribuidaService travaDistribuidaService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean habilitada;
+    private final int lote;
+    private final Semaphore paralelismo;
+    private final TokenBucket limiteConsultas;
+    private final long esperaTokenMillis;
+    private final Duration idadeMinima;
+    private final Duration intervaloReconsulta;
+    private final Duration duracaoTrava;
+
+    private final AtomicLong pendentes = new AtomicLong();
+    private final AtomicLong atrasoSegundos = new AtomicLong();
+    private final Counter inalterados;
+    private final Counter atualizados;
+    private final Counter expirados;
+    private final Counter erros;
+    private final Timer tempoExecucao;
+
+    public ReconciliacaoPagamentoService(PagamentoRepository pagamentoRepository,
+                                         InscricaoRepository inscricaoRepository,
+                                         PaymentUseCase pagamentoService,
+                                         GatewayPagamento gatewayPagamento,
+                                         ReservaTemporariaService reservaTemporariaService,
+                                         CanalStatusPagamentoService canalStatusPagamento,
+                                         TravaDistribuidaService travaDistribuidaService,
+                                         PlatformTransactionManager transactionManager,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${app.conciliacao.habilitada:true}") boolean habilitada,
+                                         @Value("${app.conciliacao.lote:100}") int lote,
+                                         @Value("${app.conciliacao.paralelismo:4}") int paralelismo,
+                                         @Value("${app.conciliacao.consultas-por-segundo:5}") double consultasPorSegundo,
+                                         @Value("${app.conciliacao.idade-minima-minutos:10}") long idadeMinimaMinutos,
+                                         @Value("${app.conciliacao.intervalo-reconsulta-minutos:30}") long intervaloReconsultaMinutos,
+                                         @Value("${app.conciliacao.trava-segundos:300}") long travaSegundos) {
+        this.pagamentoRepository = pagamentoRepository;
+        this.inscricaoRepository = inscricaoRepository;
+        this.pagamentoService = pagamentoService;
+        this.gatewayPagamento = gatewayPagamento;
+        this.reservaTemporariaService = reservaTemporariaService;
+        this.canalStatusPagamento = canalStatusPagamento;
+        this.travaDistribuidaService = travaDistribuidaService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.habilitada = habilitada;
+        this.lote = lote;
+        this.paralelismo = new Semaphore(paralelismo);
+        this.limiteConsultas = new TokenBucket(consultasPorSegundo, Math.max(1, consultasPorSegundo), System.nanoTime());
+        this.esperaTokenMillis = Math.max(1, (long) (1000 / consultasPorSegundo));
+        this.idadeMinima = Duration.ofMinutes(idadeMinimaMinutos);
+        this.intervaloReconsulta = Duration.ofMinutes(intervaloReconsultaMinutos);
+        this.duracaoTrava = Duration.ofSeconds(travaSegundos);
+
+        this.inalterados = contador(meterRegistry, "inalterado");
+        this.atualizados = contador(meterRegistry, "atualizado");
+        this.expirados = contador(meterRegistry, "expirado");
+        this.erros = contador(meterRegistry, "erro");
+        this.tempoExecucao = Timer.builder("tourapp.conciliacao.execucao")
+                .description("Duração de cada execução da conciliação de pagamentos")
+                .register(meterRegistry);
+        Gauge.builder("tourapp.conciliacao.pendentes", pendentes, AtomicLong::get)
+                .description("Pagamentos em aberto aguardando conciliação")
+                .register(meterRegistry);
+        Gauge.builder("tourapp.conciliacao.atraso.segundos", atrasoSegundos, AtomicLong::get)
+                .description("Idade do pagamento mais antigo aguardando conciliação")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.conciliacao.intervalo-ms:60000}",
+            initialDelayString = "${app.conciliacao.atraso-inicial-ms:30000}")
+    public void conciliar() {
+        if (!habilitada || !travaDistribuidaService.adquirir(TRAVA, duracaoTrava)) {
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        try {
+            LocalDateTime agora = LocalDateTime.now();
+            LocalDateTime criadoAntesDe = agora.minus(idadeMinima);
+            LocalDateTime conciliadoAntesDe = agora.minus(intervaloReconsulta);
+            atualizarAtraso(criadoAntesDe, conciliadoAntesDe, agora);
+
+            LocalDateTime ultimoCriadoEm = INICIO_KEYSET;
+            UUID ultimoId = MENOR_UUID;
+            int total = 0;
+            while (true) {
+                List<PagamentoPendente> pagina = pagamentoRepository.findPendentesParaConciliar(criadoAntesDe,
+                        conciliadoAntesDe, ultimoCriadoEm, ultimoId, PageRequest.of(0, lote));
+                if (pagina.isEmpty()) {
+                    break;
+                }
+
+                conciliarPagina(pagina);
+                total += pagina.size();
+
+                PagamentoPendente ultimo = pagina.get(pagina.size() - 1);
+                ultimoCriadoEm = ultimo.getCreatedAt();
+                ultimoId = ultimo.getId();
+
+                // Páginas longas: renova a trava; se outro nó assumiu, para aqui
+                if (pagina.size() < lote || !travaDistribuidaService.adquirir(TRAVA, duracaoTrava)) {
+                    break;
+                }
+            }
+
+            atualizarAtraso(criadoAntesDe, conciliadoAntesDe, LocalDateTime.now());
+            if (total > 0) {
+                logger.info("Conciliação conferiu {} pagamento(s) em aberto; {} aguardando", total, pendentes.get());
+            }
+        } catch (Exception e) {
+            logger.error("Erro na conciliação de pagamentos: {}", e.getMessage(), e);
+        } finally {
+            tempoExecucao.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            travaDistribuidaService.liberar(TRAVA);
+        }
+    }
+
+    void conciliarPagina(List<PagamentoPendente> pagina) throws InterruptedException {
+        List<Future<String>> consultas = new ArrayList<>(pagina.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (PagamentoPendente pagamento : pagina) {
+                consultas.add(executor.submit(() -> consultar(pagamento.getMercadoPagoPaymentId())));
+            }
+        }
+
+        LocalDateTime agora = LocalDateTime.now();
+        List<UUID> semMudanca = new ArrayList<>();
+        List<UUID> cancelamentosConfirmados = new ArrayList<>();
+        List<PagamentoPendente> vencidos = new ArrayList<>();
+
+        for (int i = 0; i < pagina.size(); i++) {
+            PagamentoPendente pagamento = pagina.get(i);
+            String statusMercadoPago;
+            try {
+                statusMercadoPago = consultas.get(i).get();
+            } catch (ExecutionException e) {
+                erros.increment();
+                logger.warn("Conciliação não conseguiu consultar o pagamento {}: {}",
+                        pagamento.getMercadoPagoPaymentId(), e.getCause().getMessage());
+                continue;
+            }
+
+            if (pagamento.getStatus() == StatusPagamento.EXPIRADO) {
+                // Expirado aqui: falta cancelar lá (ou só registrar que já foi); se foi pago, vira pagamento tardio
+                if ("cancelled".equalsIgnoreCase(statusMercadoPago)) {
+                    cancelamentosConfirmados.add(pagamento.getId());
+                } else if (emAberto(statusMercadoPago)) {
+                    vencidos.add(pagamento);
+                } else {
+                    aplicar(pagamento, statusMercadoPago);
+                }
+            } else if (!inalterado(pagamento.getStatus(), statusMercadoPago)) {
+                aplicar(pagamento, statusMercadoPago);
+            } else if (pixVencido(pagamento, agora)) {
+                vencidos.add(pagamento);
+            } else {
+                semMudanca.add(pagamento.getId());
+            }
+        }
+
+        if (!semMudanca.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status ->
+                    pagamentoRepository.marcarConciliados(semMudanca, LocalDateTime.now()));
+            inalterados.increment(semMudanca.size());
+        }
+        if (!cancelamentosConfirmados.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status ->
+                    pagamentoRepository.confirmarCancelamentos(cancelamentosConfirmados, LocalDateTime.now()));
+        }
+        if (!vencidos.isEmpty()) {
+            expirar(vencidos);
+        }
+    }
+
+    private String consultar(String paymentId) throws InterruptedException {
+        paralelismo.acquire();
+        try {
+            while (!limiteConsultas.tentarConsumir(System.nanoTime())) {
+                Thread.sleep(esperaTokenMillis);
+            }
+            return gatewayPagamento.consultar(paymentId).status();
+        } finally {
+            paralelismo.release();
+        }
+    }
+
+    private void aplicar(PagamentoPendente pagamento, String statusMercadoPago) {
+        try {
+            pagamentoService.aplicarStatusMercadoPago(pagamento.getMercadoPagoPaymentId(), statusMercadoPago);
+            atualizados.increment();
+            logger.info("Conciliação: pagamento {} atualizado para '{}' (webhook perdido)",
+                    pagamento.getId(), statusMercadoPago);
+        } catch (RuntimeException e) {
+            erros.increment();
+            logger.error("Conciliação não conseguiu aplicar '{}' ao pagamento {}: {}",
+                    statusMercadoPago, pagamento.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Cancela no Mercado Pago as cobranças PIX vencidas e expira localmente, em lote, as que foram
+     * canceladas: pagamentos, inscrições e reservas de vaga. O cancelamento fica registrado como confirmado.
+     */
+    private void expirar(List<PagamentoPendente> vencidos) {
+        List<UUID> cancelados = new ArrayList<>();
+        for (PagamentoPendente pagamento : vencidos) {
+            try {
+                String status = gatewayPagamento.cancelar(pagamento.getMercadoPagoPaymentId()).status();
+                if ("cancelled".equalsIgnoreCase(status)) {
+                    cancelados.add(pagamento.getId());
+                }
+            } catch (RuntimeException e) {
+                // Pode ter sido pago neste meio tempo; a próxima execução consulta de novo
+                erros.increment();
+                logger.warn("Conciliação não conseguiu cancelar o PIX {}: {}",
+                        pagamento.getMercadoPagoPaymentId(), e.getMessage());
+            }
+        }
+        if (cancelados.isEmpty()) {
+            return;
+        }
+
+        Integer quantidade = transactionTemplate.execute(status -> {
+            LocalDateTime agora = LocalDateTime.now();
+            List<CanalPagamento> canais = pagamentoRepository.findCanaisPendentes(cancelados);
+            int atualizados = pagamentoRepository.atualizarStatusPendentes(cancelados, StatusPagamento.EXPIRADO, agora);
+            pagamentoRepository.confirmarCancelamentos(cancelados, agora);
+            // O UPDATE em lote não passa pelo PagamentoService: avisa aqui quem acompanha o checkout por SSE
+            canais.forEach(canal -> canalStatusPagamento.publicar(canal.getCanal(), canal.getPagamentoId(),
+                    StatusPagamento.EXPIRADO));
+            List<UUID> inscricaoIds = inscricaoRepository.findIdsPendentesDosPagamentos(
+                    cancelados, StatusPagamento.EXPIRADO);
+            if (!inscricaoIds.isEmpty()) {
+                inscricaoRepository.atualizarStatusPendentes(inscricaoIds, StatusPagamento.EXPIRADO, agora);
+                // Devolve as vagas que ainda estavam seguradas (a reserva pode já ter expirado sozinha)
+                inscricaoIds.forEach(reservaTemporariaService::cancelar);
+            }
+            return atualizados;
+        });
+
+        if (quantidade != null && quantidade > 0) {
+            expirados.increment(quantidade);
+            logger.info("Conciliação expirou {} cobrança(s) PIX vencida(s)", quantidade);
+        }
+    }
+
+    private void atualizarAtraso(LocalDateTime criadoAntesDe, LocalDateTime conciliadoAntesDe, LocalDateTime agora) {
+        ResumoConciliacao resumo = pagamentoRepository.resumirPendentesDeConciliacao(criadoAntesDe, conciliadoAntesDe);
+        pendentes.set(resumo.getTotal() != null ? resumo.getTotal() : 0);
+        atrasoSegundos.set(resumo.getMaisAntigo() != null
+                ? Duration.between(resumo.getMaisAntigo(), agora).toSeconds()
+                : 0);
+    }
+
+    private static boolean pixVencido(PagamentoPendente pagamento, LocalDateTime agora) {
+        return pagamento.getMetodoPagamento() == MetodoPagamento.PIX
+                && pagamento.getStatus() == StatusPagamento.PENDENTE
+                && pagamento.getDataVencimento() != null
+                && pagamento.getDataVencimento().isBefore(agora);
+    }
+
+    private static boolean emAberto(String statusMercadoPago) {
+        return "pending".equalsIgnoreCase(statusMercadoPago) || "in_process".equalsIgnoreCase(statusMercadoPago);
+    }
+
+    private static boolean inalterado(StatusPagamento statusLocal, String statusMercadoPago) {
+        return switch (statusMercadoPago == null ? "" : statusMercadoPago.toLowerCase()) {
+            case "pending" -> statusLocal == StatusPagamento.PENDENTE;
+            case "in_process" -> statusLocal == StatusPagamento.PROCESSANDO;
+            default -> false;
+        };
+    }
+
+    private static Counter contador(MeterRegistry meterRegistry, String resultado) {
+        return Counter.builder("tourapp.conciliacao.pagamentos")
+                .description("Pagamentos conferidos pela conciliação por resultado")
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,351 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.dto.CobrancaMercadoPagoEvento;
+import br.com.tourapp.entity.Inscricao;
+import br.com.tourapp.entity.ReservaTemporaria;
+import br.com.tourapp.enums.StatusPagamento;
+import br.com.tourapp.enums.StatusReservaTemporaria;
+import br.com.tourapp.enums.TipoEventoOutbox;
+import br.com.tourapp.repository.InscricaoRepository;
+import br.com.tourapp.repository.PagamentoRepository;
+import br.com.tourapp.repository.PagamentoRepository.CobrancaPix;
+import br.com.tourapp.repository.ReservaTemporariaRepository;
+import br.com.tourapp.repository.ReservaTemporariaRepository.PrazoReserva;
+import br.com.tourapp.util.TimerWheel;
+import br.com.tourapp.util.TransactionUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reservas temporárias de vagas (vaga segurada enquanto o pagamento não é confirmado).
+ *
+ * Os prazos ficam em uma {@link TimerWheel} em memória: a cada tick só os slots vencidos
+ * são percorridos, e as reservas expiradas são liberadas em lotes. O banco é consultado
+ * apenas por uma janela curta à frente (range scan no índice de expira_em), o que também
+ * recupera reservas criadas por outros nós ou perdidas em um restart.
+ *
+ * Ao expirar, o PIX ainda pendente é cancelado no Mercado Pago pelo outbox, para que não possa
+ * mais ser pago depois que a vaga foi devolvida.
+ */
+@Service
+public class ReservaTemporariaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservaTemporariaService.class);
+
+    private final ReservaTemporariaRepository reservaTemporariaRepository;
+    private final InscricaoRepository inscricaoRepository;
+    private final PagamentoRepository pagamentoRepository;
+    private final ListaEsperaService listaEsperaService;
+    private final OutboxService outboxService;
+    private final CanalStatusPagamentoService canalStatusPagamento;
+    private final TransactionTemplate transactionTemplate;
+    private final TimerWheel<UUID> roda;
+
+    private final Counter reservasCriadas;
+    private final Counter reservasConfirmadas;
+    private final Counter reservasExpiradas;
+    private final Counter reservasCanceladas;
+    private final Timer tempoLoteExpiracao;
+
+    @Value("${app.reservas.ttl-minutos:30}")
+    private long ttlMinutos;
+
+    @Value("${app.reservas.lote-expiracao:100}")
+    private int loteExpiracao;
+
+    @Value("${app.reservas.horizonte-limite:5000}")
+    private int limiteHorizonte;
+
+    private final long horizonteSegundos;
+
+    public ReservaTemporariaService(ReservaTemporariaRepository reservaTemporariaRepository,
+                                    InscricaoRepository inscricaoRepository,
+                                    PagamentoRepository pagamentoRepository,
+                                    ListaEsperaService listaEsperaService,
+                                    OutboxService outboxService,
+                                    CanalStatusPagamentoService canalStatusPagamento,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${app.reservas.tick-ms:1000}") long tickMillis,
+                                    @Value("${app.reservas.horizonte-segundos:120}") long horizonteSegundos) {
+        this.reservaTemporariaRepository = reservaTemporariaRepository;
+        this.inscricaoRepository = inscricaoRepository;
+        this.pagamentoRepository = pagamentoRepository;
+        this.listaEsperaService = listaEsperaService;
+        this.outboxService = outboxService;
+        this.canalStatusPagamento = canalStatusPagamento;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.horizonteSegundos = horizonteSegundos;
+
+        // Uma volta da roda cobre o horizonte carregado do banco
+        int quantidadeSlots = (int) Math.max(64, TimeUnit.SECONDS.toMillis(horizonteSegundos) / tickMillis);
+        this.roda = new TimerWheel<>(tickMillis, quantidadeSlots, System.currentTimeMillis());
+
+        this.reservasCriadas = contador(meterRegistry, "criada");
+        this.reservasConfirmadas = contador(meterRegistry, "confirmada");
+        this.reservasExpiradas = contador(meterRegistry, "expirada");
+        this.reservasCanceladas = contador(meterRegistry, "cancelada");
+        this.tempoLoteExpiracao = Timer.builder("tourapp.reservas.temporarias.expiracao")
+                .description("Tempo de processamento de cada lote de reservas expiradas")
+                .register(meterRegistry);
+        Gauge.builder("tourapp.reservas.temporarias.agendadas", roda, TimerWheel::tamanho)
+                .description("Reservas temporárias aguardando prazo na roda de temporização")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Cria a reserva temporária da vaga já ocupada pela inscrição.
+     */
+    @Transactional
+    public ReservaTemporaria criar(Inscricao inscricao, int quantidade) {
+        LocalDateTime expiraEm = LocalDateTime.now().plusMinutes(ttlMinutos);
+        ReservaTemporaria reserva = reservaTemporariaRepository.save(
+                new ReservaTemporaria(inscricao, inscricao.getExcursao(), quantidade, expiraEm));
+
+        UUID reservaId = reserva.getId();
+        TransactionUtil.aposCommit(() -> roda.agendar(reservaId, paraMillis(expiraEm)));
+        reservasCriadas.increment();
+        return reserva;
+    }
+
+    /**
+     * Cria as reservas temporárias de uma reserva em grupo, todas com o mesmo prazo.
+     */
+    @Transactional
+    public List<ReservaTemporaria> criarParaGrupo(List<Inscricao> inscricoes) {
+        LocalDateTime expiraEm = LocalDateTime.now().plusMinutes(ttlMinutos);
+        List<ReservaTemporaria> reservas = new ArrayList<>(inscricoes.size());
+        for (Inscricao inscricao : inscricoes) {
+            reservas.add(new ReservaTemporaria(inscricao, inscricao.getExcursao(), 1, expiraEm));
+        }
+        reservas = reservaTemporariaRepository.saveAll(reservas);
+
+        List<UUID> reservaIds = reservas.stream().map(ReservaTemporaria::getId).toList();
+        long prazo = paraMillis(expiraEm);
+        TransactionUtil.aposCommit(() -> reservaIds.forEach(id -> roda.agendar(id, prazo)));
+        reservasCriadas.increment(reservas.size());
+        return reservas;
+    }
+
+    /**
+     * Alinha o prazo da reserva ao vencimento do pagamento gerado (ex.: validade do PIX).
+     *
+     * @return true se havia reserva ativa para a inscrição
+     */
+    @Transactional
+    public boolean vincularAoPagamento(UUID inscricaoId, LocalDateTime dataVencimento) {
+        ReservaTemporaria reserva = reservaTemporariaRepository
+                .findByInscricaoIdAndStatus(inscricaoId, StatusReservaTemporaria.ATIVA)
+                .orElse(null);
+
+        if (reserva == null
+                || reservaTemporariaRepository.prorrogar(reserva.getId(), dataVencimento, LocalDateTime.now()) == 0) {
+            return false;
+        }
+
+        TransactionUtil.aposCommit(() -> roda.reagendar(reserva.getId(), paraMillis(dataVencimento)));
+        return true;
+    }
+
+    /**
+     * Alinha o prazo das reservas de um grupo ao vencimento do pagamento único do grupo.
+     *
+     * @return quantidade de reservas ativas prorrogadas
+     */
+    @Transactional
+    public int vincularAoPagamento(Collection<UUID> inscricaoIds, LocalDateTime dataVencimento) {
+        List<UUID> reservaIds = reservaTemporariaRepository
+                .findIdsByInscricaoIdsAndStatus(inscricaoIds, StatusReservaTemporaria.ATIVA);
+        if (reservaIds.isEmpty()) {
+            return 0;
+        }
+
+        int prorrogadas = reservaTemporariaRepository.prorrogarTodas(reservaIds, dataVencimento, LocalDateTime.now());
+        long prazo = paraMillis(dataVencimento);
+        TransactionUtil.aposCommit(() -> reservaIds.forEach(id -> roda.reagendar(id, prazo)));
+        return prorrogadas;
+    }
+
+    /**
+     * Confirma a reserva após a aprovação do pagamento; a vaga passa a ser definitiva.
+     *
+     * @return true se havia reserva ativa e ela foi confirmada
+     */
+    @Transactional
+    public boolean confirmar(UUID inscricaoId) {
+        return finalizar(inscricaoId, StatusReservaTemporaria.ATIVA, StatusReservaTemporaria.CONFIRMADA) != null;
+    }
+
+    /**
+     * Confirma a reserva de uma inscrição paga depois que ela expirou ou foi cancelada, quando a vaga
+     * pôde ser ocupada de novo. Assim um cancelamento ou reembolso posterior devolve a vaga.
+     *
+     * @return true se havia reserva encerrada e ela foi confirmada
+     */
+    @Transactional
+    public boolean reconfirmar(UUID inscricaoId) {
+        return finalizar(inscricaoId, StatusReservaTemporaria.EXPIRADA, StatusReservaTemporaria.CONFIRMADA) != null
+                || finalizar(inscricaoId, StatusReservaTemporaria.CANCELADA, StatusReservaTemporaria.CONFIRMADA) != null;
+    }
+
+    /**
+     * Cancela a reserva (ativa ou já confirmada) da inscrição e repassa a vaga:
+     * primeiro para a lista de espera, o restante volta para a excursão.
+     *
+     * @return true se havia reserva e ela foi cancelada
+     */
+    @Transactional
+    public boolean cancelar(UUID inscricaoId) {
+        ReservaTemporaria reserva = finalizar(inscricaoId, StatusReservaTemporaria.ATIVA, StatusReservaTemporaria.CANCELADA);
+        if (reserva == null) {
+            reserva = finalizar(inscricaoId, StatusReservaTemporaria.CONFIRMADA, StatusReservaTemporaria.CANCELADA);
+        }
+        if (reserva == null) {
+            return false;
+        }
+
+        devolverVagas(reserva.getExcursao().getId(), reserva.getQuantidade());
+        return true;
+    }
+
+    /**
+     * Avança a roda e expira as reservas vencidas, em lotes com transação própria.
+     */
+    @Scheduled(fixedDelayString = "${app.reservas.tick-ms:1000}")
+    public void processarReservasVencidas() {
+        List<UUID> vencidas = roda.avancar(System.currentTimeMillis());
+
+        for (int inicio = 0; inicio < vencidas.size(); inicio += loteExpiracao) {
+            List<UUID> lote = vencidas.subList(inicio, Math.min(inicio + loteExpiracao, vencidas.size()));
+            long inicioLote = System.nanoTime();
+            try {
+                Integer expiradas = transactionTemplate.execute(status -> expirarLote(lote));
+                logger.debug("{} reserva(s) temporária(s) expirada(s) de um lote de {}", expiradas, lote.size());
+            } catch (Exception e) {
+                // As reservas continuam ATIVAS no banco e voltam à roda na próxima carga do horizonte
+                logger.error("Erro ao expirar lote de {} reservas temporárias: {}", lote.size(), e.getMessage(), e);
+            } finally {
+                tempoLoteExpiracao.record(System.nanoTime() - inicioLote, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Carrega na roda as reservas ativas que vencem dentro do horizonte configurado.
+     */
+    @Scheduled(fixedDelayString = "${app.reservas.horizonte-intervalo-ms:30000}")
+    public void carregarHorizonte() {
+        LocalDateTime limite = LocalDateTime.now().plusSeconds(horizonteSegundos);
+        List<PrazoReserva> prazos = reservaTemporariaRepository.findPrazosAtivosAte(
+                limite, PageRequest.of(0, limiteHorizonte));
+
+        int agendadas = 0;
+        for (PrazoReserva prazo : prazos) {
+            if (roda.agendar(prazo.getId(), paraMillis(prazo.getExpiraEm()))) {
+                agendadas++;
+            }
+        }
+
+        if (agendadas > 0) {
+            logger.debug("{} reserva(s) temporária(s) carregada(s) na roda até {}", agendadas, limite);
+        }
+    }
+
+    private int expirarLote(List<UUID> reservaIds) {
+        LocalDateTime agora = LocalDateTime.now();
+        // Ordenado por excursão para que nós concorrentes travem as linhas sempre na mesma ordem
+        Map<UUID, Integer> vagasPorExcursao = new TreeMap<>();
+        List<UUID> inscricaoIds = new ArrayList<>();
+
+        for (ReservaTemporaria reserva : reservaTemporariaRepository.findAllById(reservaIds)) {
+            if (reservaTemporariaRepository.expirarSeVencida(reserva.getId(), agora) == 0) {
+                if (reserva.getStatus() == StatusReservaTemporaria.ATIVA && reserva.getExpiraEm().isAfter(agora)) {
+                    roda.agendar(reserva.getId(), paraMillis(reserva.getExpiraEm()));
+                }
+                continue;
+            }
+
+            vagasPorExcursao.merge(reserva.getExcursao().getId(), reserva.getQuantidade(), Integer::sum);
+            inscricaoIds.add(reserva.getInscricao().getId());
+        }
+
+        if (inscricaoIds.isEmpty()) {
+            return 0;
+        }
+
+        vagasPorExcursao.forEach(this::devolverVagas);
+        List<CobrancaPix> cobrancas = pagamentoRepository.findPixPendentesPorInscricao(inscricaoIds);
+        List<UUID> canais = inscricaoRepository.findCanaisPendentes(inscricaoIds);
+        inscricaoRepository.atualizarStatusPendentes(inscricaoIds, StatusPagamento.EXPIRADO, agora);
+        pagamentoRepository.atualizarStatusPendentesPorInscricao(inscricaoIds, StatusPagamento.EXPIRADO, agora);
+        // O UPDATE em lote não passa pelo PagamentoService: avisa aqui quem acompanha o checkout por SSE
+        canais.forEach(canal -> canalStatusPagamento.publicar(canal, null, StatusPagamento.EXPIRADO));
+        for (CobrancaPix cobranca : cobrancas) {
+            outboxService.publicar(TipoEventoOutbox.PIX_VENCIDO, cobranca.getId(),
+                    new CobrancaMercadoPagoEvento(cobranca.getId(), cobranca.getMercadoPagoPaymentId()));
+        }
+
+        reservasExpiradas.increment(inscricaoIds.size());
+        return inscricaoIds.size();
+    }
+
+    private void devolverVagas(UUID excursaoId, int quantidade) {
+        // Vagas repassadas à lista de espera continuam ocupadas, agora seguradas para o cliente promovido
+        for (Inscricao promovida : listaEsperaService.repassarVagas(excursaoId, quantidade)) {
+            ReservaTemporaria reserva = criar(promovida, 1);
+            listaEsperaService.notificarPromocao(promovida, reserva.getExpiraEm());
+        }
+    }
+
+    private ReservaTemporaria finalizar(UUID inscricaoId, StatusReservaTemporaria statusAtual,
+                                        StatusReservaTemporaria novoStatus) {
+        ReservaTemporaria reserva = reservaTemporariaRepository
+                .findByInscricaoIdAndStatus(inscricaoId, statusAtual)
+                .orElse(null);
+
+        if (reserva == null || reservaTemporariaRepository.alterarStatus(
+                reserva.getId(), statusAtual, novoStatus, LocalDateTime.now()) == 0) {
+            return null;
+        }
+
+        TransactionUtil.aposCommit(() -> roda.cancelar(reserva.getId()));
+        if (novoStatus == StatusReservaTemporaria.CONFIRMADA) {
+            reservasConfirmadas.increment();
+        } else {
+            reservasCanceladas.increment();
+        }
+        return reserva;
+    }
+
+    private static long paraMillis(LocalDateTime dataHora) {
+        return dataHora.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static Counter contador(MeterRegistry meterRegistry, String evento) {
+        return Counter.builder("tourapp.reservas.temporarias")
+                .description("Reservas temporárias por evento")
+                .tag("evento", evento)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,125 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.entity.Excursao;
+import br.com.tourapp.enums.StatusExcursao;
+import br.com.tourapp.exception.BusinessException;
+import br.com.tourapp.repository.ExcursaoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reserva de vagas em excursões.
+ *
+ * A vaga é reivindicada com um único UPDATE condicional (vagas_ocupadas + n <= vagas_total),
+ * que também muda o status para LOTADA quando a última vaga é ocupada. O banco serializa as
+ * disputas pela linha, então não há overbooking nem retentativas por conflito de @Version.
+ *
+ * O update em massa não passa pelo contexto de persistência: se a excursão já foi carregada na
+ * transação, ela é recarregada para não seguir com as vagas e o status anteriores.
+ */
+@Service
+@Transactional
+public class ReservaVagaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservaVagaService.class);
+
+    private final ExcursaoRepository excursaoRepository;
+    private final EntityManager entityManager;
+    private final Counter reservasConfirmadas;
+    private final Counter reservasRecusadas;
+    private final Counter vagasReservadas;
+    private final Counter vagasLiberadas;
+    private final Timer tempoReserva;
+
+    public ReservaVagaService(ExcursaoRepository excursaoRepository, EntityManager entityManager,
+                              MeterRegistry meterRegistry) {
+        this.excursaoRepository = excursaoRepository;
+        this.entityManager = entityManager;
+
+        this.reservasConfirmadas = Counter.builder("tourapp.reservas")
+                .description("Tentativas de reserva de vagas por resultado")
+                .tag("resultado", "confirmada")
+                .register(meterRegistry);
+        this.reservasRecusadas = Counter.builder("tourapp.reservas")
+                .description("Tentativas de reserva de vagas por resultado")
+                .tag("resultado", "conflito")
+                .register(meterRegistry);
+        this.vagasReservadas = Counter.builder("tourapp.reservas.vagas")
+                .description("Total de vagas reservadas")
+                .register(meterRegistry);
+        this.vagasLiberadas = Counter.builder("tourapp.reservas.vagas.liberadas")
+                .description("Total de vagas devolvidas às excursões")
+                .register(meterRegistry);
+        this.tempoReserva = Timer.builder("tourapp.reservas.duracao")
+                .description("Tempo do update condicional de reserva")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Tenta reservar {@code quantidade} vagas na excursão.
+     *
+     * @return true se as vagas foram reservadas; false se a excursão não está ativa
+     *         ou não há vagas suficientes
+     */
+    public boolean reservar(UUID excursaoId, int quantidade) {
+        if (quantidade < 1) {
+            throw new BusinessException("Quantidade de vagas deve ser maior que zero");
+        }
+
+        long inicio = System.nanoTime();
+        int atualizadas = excursaoRepository.reservarVagas(excursaoId, quantidade,
+                StatusExcursao.ATIVA, StatusExcursao.LOTADA, LocalDateTime.now());
+        tempoReserva.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+
+        if (atualizadas == 0) {
+            reservasRecusadas.increment();
+            logger.debug("Reserva de {} vaga(s) recusada para excursão {}", quantidade, excursaoId);
+            return false;
+        }
+
+        reservasConfirmadas.increment();
+        vagasReservadas.increment(quantidade);
+        recarregarSeCarregada(excursaoId);
+        return true;
+    }
+
+    /**
+     * Devolve {@code quantidade} vagas à excursão, reabrindo-a se estava LOTADA.
+     *
+     * @return true se as vagas foram devolvidas
+     */
+    public boolean liberar(UUID excursaoId, int quantidade) {
+        if (quantidade < 1) {
+            throw new BusinessException("Quantidade de vagas deve ser maior que zero");
+        }
+
+        int atualizadas = excursaoRepository.liberarVagas(excursaoId, quantidade,
+                StatusExcursao.ATIVA, StatusExcursao.LOTADA, LocalDateTime.now());
+        if (atualizadas == 0) {
+            logger.warn("Não foi possível liberar {} vaga(s) da excursão {}", quantidade, excursaoId);
+            return false;
+        }
+
+        vagasLiberadas.increment(quantidade);
+        recarregarSeCarregada(excursaoId);
+        return true;
+    }
+
+    private void recarregarSeCarregada(UUID excursaoId) {
+        // getReference não consulta o banco: devolve a instância já gerenciada ou um proxy ainda vazio
+        Excursao excursao = entityManager.getReference(Excursao.class, excursaoId);
+        if (entityManager.getEntityManagerFactory().getPersistenceUnitUtil().isLoaded(excursao)) {
+            entityManager.refresh(excursao);
+        }
+    }
+}
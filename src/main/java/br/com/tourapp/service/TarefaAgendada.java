@@ -0,0 +1,44 @@
+package br.com.tourapp.service;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Job periódico executado pelo {@link AgendadorService}. Basta declarar um novo bean para que ele
+ * passe a rodar no cluster, uma vez por intervalo e por partição.
+ *
+ * Cada partição tem sua própria trava, então nós diferentes podem executar partições diferentes ao
+ * mesmo tempo. Se um nó cair no meio da execução, outro repete a partição quando a trava vencer:
+ * {@link #executar} deve poder ser repetido sem efeito duplicado.
+ */
+public interface TarefaAgendada {
+
+    /**
+     * Nome usado nas travas e nas métricas; não deve mudar entre versões.
+     */
+    String getNome();
+
+    /**
+     * Tempo entre o fim de uma execução da partição e o início da próxima.
+     */
+    Duration getIntervalo();
+
+    default int getParticoes() {
+        return 1;
+    }
+
+    /**
+     * @return quantidade de itens processados, para as métricas
+     */
+    int executar(Particao particao) throws Exception;
+
+    /**
+     * Fatia {@code indice} de {@code total}; os itens são divididos pelo hash do id.
+     */
+    record Particao(int indice, int total) {
+
+        public boolean contem(UUID id) {
+            return total <= 1 || Math.floorMod(id.hashCode(), total) == indice;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package br.com.tourapp.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Envia os lembretes de excursão vencidos. As excursões são divididas entre as partições pelo id.
+ */
+@Service
+public class TarefaLembretesExcursao implements TarefaAgendada {
+
+    private final LembreteExcursaoService lembreteService;
+    private final Duration intervalo;
+    private final int particoes;
+
+    public TarefaLembretesExcursao(LembreteExcursaoService lembreteService,
+                                   @Value("${app.agendador.lembretes.intervalo-segundos:60}") long intervaloSegundos,
+                                   @Value("${app.agendador.lembretes.particoes:2}") int particoes) {
+        this.lembreteService = lembreteService;
+        this.intervalo = Duration.ofSeconds(intervaloSegundos);
+        this.particoes = particoes;
+    }
+
+    @Override
+    public String getNome() {
+        return "lembretes-excursao";
+    }
+
+    @Override
+    public Duration getIntervalo() {
+        return intervalo;
+    }
+
+    @Override
+    public int getParticoes() {
+        return particoes;
+    }
+
+    @Override
+    public int executar(Particao particao) {
+        return lembreteService.enviarVencidos(particao);
+    }
+}
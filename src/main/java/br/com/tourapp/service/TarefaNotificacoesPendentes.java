@@ -0,0 +1,67 @@
+package br.com.tourapp.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Enfileira as notificações criadas há mais de 5 minutos e ainda não enviadas. Cada notificação
+ * é enviada na sua própria transação; uma já enviada por outro nó é ignorada.
+ */
+@Service
+public class TarefaNotificacoesPendentes implements TarefaAgendada {
+
+    private static final Logger logger = LoggerFactory.getLogger(TarefaNotificacoesPendentes.class);
+
+    private final NotificacaoService notificacaoService;
+    private final Duration intervalo;
+    private final int particoes;
+
+    public TarefaNotificacoesPendentes(NotificacaoService notificacaoService,
+                                       @Value("${app.agendador.notificacoes-pendentes.intervalo-segundos:60}") long intervaloSegundos,
+                                       @Value("${app.agendador.notificacoes-pendentes.particoes:2}") int particoes) {
+        this.notificacaoService = notificacaoService;
+        this.intervalo = Duration.ofSeconds(intervaloSegundos);
+        this.particoes = particoes;
+    }
+
+    @Override
+    public String getNome() {
+        return "notificacoes-pendentes";
+    }
+
+    @Override
+    public Duration getIntervalo() {
+        return intervalo;
+    }
+
+    @Override
+    public int getParticoes() {
+        return particoes;
+    }
+
+    @Override
+    public int executar(Particao particao) {
+        List<UUID> ids = notificacaoService.listarIdsNotificacoesPendentes().stream()
+                .filter(particao::contem)
+                .toList();
+
+        int enviadas = 0;
+        for (UUID id : ids) {
+            try {
+                if (notificacaoService.enviarNotificacaoPendente(id)) {
+                    enviadas++;
+                }
+            } catch (RuntimeException e) {
+                // Uma notificação com problema não impede as demais
+                logger.error("Erro ao enviar notificação pendente {}: {}", id, e.getMessage());
+            }
+        }
+        return enviadas;
+    }
+}
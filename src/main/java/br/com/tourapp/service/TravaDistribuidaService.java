@@ -0,0 +1,93 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.entity.TravaDistribuida;
+import br.com.tourapp.repository.TravaDistribuidaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Travas com prazo na tabela travas_distribuidas, para que um job rode em um único nó por vez.
+ *
+ * Quem adquire a trava deve renová-la antes do prazo enquanto trabalha; se o nó cair, a trava
+ * vence e outro nó assume na próxima execução.
+ */
+@Service
+public class TravaDistribuidaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TravaDistribuidaService.class);
+
+    private final TravaDistribuidaRepository travaRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String dono;
+
+    public TravaDistribuidaService(TravaDistribuidaRepository travaRepository,
+                                   PlatformTransactionManager transactionManager) {
+        this.travaRepository = travaRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.dono = identificarNo();
+    }
+
+    /**
+     * Adquire ou renova a trava por {@code duracao}.
+     *
+     * @return true se este nó detém a trava até o fim do prazo
+     */
+    public boolean adquirir(String nome, Duration duracao) {
+        LocalDateTime agora = LocalDateTime.now();
+        LocalDateTime expiraEm = agora.plus(duracao);
+
+        Integer tomadas = transactionTemplate.execute(status -> travaRepository.tomar(nome, dono, expiraEm, agora));
+        if (tomadas != null && tomadas > 0) {
+            return true;
+        }
+
+        try {
+            Boolean criada = transactionTemplate.execute(status -> {
+                if (travaRepository.existsByNome(nome)) {
+                    return false;
+                }
+                travaRepository.saveAndFlush(new TravaDistribuida(nome, dono, expiraEm));
+                return true;
+            });
+            return Boolean.TRUE.equals(criada);
+        } catch (DataIntegrityViolationException e) {
+            // Outro nó criou a trava ao mesmo tempo
+            return false;
+        }
+    }
+
+    public void liberar(String nome) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> travaRepository.liberar(nome, dono, LocalDateTime.now()));
+        } catch (RuntimeException e) {
+            // A trava vence sozinha no fim do prazo
+            logger.warn("Erro ao liberar trava {}: {}", nome, e.getMessage());
+        }
+    }
+
+    public String getDono() {
+        return dono;
+    }
+
+    private static String identificarNo() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "desconhecido";
+        }
+        return host + ":" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,314 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.entity.WebhookRecebido;
+import br.com.tourapp.repository.WebhookRecebidoRepository;
+import br.com.tourapp.repository.WebhookRecebidoRepository.ResumoInbox;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Inbox dos webhooks do Mercado Pago.
+ *
+ * O controller só grava a notificação e responde; um pool de workers drena a inbox em lotes,
+ * consultando o Mercado Pago e aplicando o status. Notificações do mesmo pagamento são processadas
+ * em ordem de chegada, uma por vez. Falhas são retentadas com backoff exponencial até
+ * {@code max-tentativas}; depois disso a notificação fica como FALHOU (dead letter).
+ *
+ * Notificações novas só ficam elegíveis depois da janela de coalescência. Todas as notificações
+ * pendentes do mesmo pagamento são reservadas juntas e resolvidas com uma única consulta ao Mercado Pago.
+ */
+@Service
+public class WebhookInboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookInboxService.class);
+
+    private final WebhookRecebidoRepository webhookRepository;
+    private final PaymentUseCase pagamentoService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService workers;
+
+    private final int tamanhoLote;
+    private final int maxTentativas;
+    private final PoliticaRetentativa politicaRetentativa;
+    private final long bloqueioSegundos;
+    private final int retencaoDias;
+    private final long janelaCoalescenciaMs;
+
+    private final Counter recebidos;
+    private final Counter processados;
+    private final Counter retentativas;
+    private final Counter falhas;
+    private final Counter consultasEvitadas;
+    private final Timer atrasoProcessamento;
+    private final AtomicLong pendentes = new AtomicLong();
+    private final AtomicLong idadeMaisAntigoSegundos = new AtomicLong();
+
+    public WebhookInboxService(WebhookRecebidoRepository webhookRepository,
+                               PaymentUseCase pagamentoService,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.webhook.inbox.workers:4}") int quantidadeWorkers,
+                               @Value("${app.webhook.inbox.lote:50}") int tamanhoLote,
+                               @Value("${app.webhook.inbox.max-tentativas:8}") int maxTentativas,
+                               @Value("${app.webhook.inbox.backoff-inicial-ms:1000}") long backoffInicialMs,
+                               @Value("${app.webhook.inbox.backoff-maximo-ms:300000}") long backoffMaximoMs,
+                               @Value("${app.webhook.inbox.bloqueio-segundos:120}") long bloqueioSegundos,
+                               @Value("${app.webhook.inbox.retencao-dias:7}") int retencaoDias,
+                               @Value("${app.webhook.inbox.janela-coalescencia-ms:2000}") long janelaCoalescenciaMs) {
+        this.webhookRepository = webhookRepository;
+        this.pagamentoService = pagamentoService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workers = Executors.newFixedThreadPool(quantidadeWorkers,
+                Thread.ofPlatform().name("webhook-inbox-", 1).daemon(true).factory());
+        this.tamanhoLote = tamanhoLote;
+        this.maxTentativas = maxTentativas;
+        this.politicaRetentativa = new PoliticaRetentativa(backoffInicialMs, backoffMaximoMs);
+        this.bloqueioSegundos = bloqueioSegundos;
+        this.retencaoDias = retencaoDias;
+        this.janelaCoalescenciaMs = janelaCoalescenciaMs;
+
+        this.recebidos = Counter.builder("tourapp.webhook.inbox")
+                .description("Notificações da inbox de webhooks por evento")
+                .tag("evento", "recebido")
+                .register(meterRegistry);
+        this.processados = Counter.builder("tourapp.webhook.inbox")
+                .description("Notificações da inbox de webhooks por evento")
+                .tag("evento", "processado")
+                .register(meterRegistry);
+        this.retentativas = Counter.builder("tourapp.webhook.inbox")
+                .description("Notificações da inbox de webhooks por evento")
+                .tag("evento", "retentativa")
+                .register(meterRegistry);
+        this.falhas = Counter.builder("tourapp.webhook.inbox")
+                .description("Notificações da inbox de webhooks por evento")
+                .tag("evento", "falhou")
+                .register(meterRegistry);
+        this.consultasEvitadas = Counter.builder("tourapp.webhook.inbox.consultas.evitadas")
+                .description("Consultas ao Mercado Pago evitadas por coalescência de notificações")
+                .register(meterRegistry);
+        this.atrasoProcessamento = Timer.builder("tourapp.webhook.inbox.atraso")
+                .description("Tempo entre o recebimento da notificação e o fim do processamento")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("tourapp.webhook.inbox.pendentes", pendentes, AtomicLong::get)
+                .description("Notificações aguardando processamento")
+                .register(meterRegistry);
+        Gauge.builder("tourapp.webhook.inbox.mais.antigo.segundos", idadeMaisAntigoSegundos, AtomicLong::get)
+                .description("Idade da notificação pendente mais antiga")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Grava a notificação na inbox. Se a gravação falhar, a exceção sobe e o Mercado Pago reenvia.
+     */
+    public void registrar(Map<String, Object> payload) {
+        // Verificar se é um evento de pagamento
+        if (!"payment".equals(payload.get("type")) || !(payload.get("data") instanceof Map<?, ?> data)) {
+            return;
+        }
+
+        String paymentId = String.valueOf(data.get("id"));
+        if (!paymentId.matches("\\d{1,50}")) {
+            logger.warn("Webhook ignorado: ID de pagamento inválido: {}", paymentId);
+            return;
+        }
+
+        // Aguarda a janela para juntar as demais notificações da mesma rajada
+        LocalDateTime elegivelEm = LocalDateTime.now().plus(Duration.ofMillis(janelaCoalescenciaMs));
+        webhookRepository.save(new WebhookRecebido(paymentId, "payment", serializar(payload), elegivelEm));
+        recebidos.increment();
+    }
+
+    /**
+     * Drena a inbox em lotes enquanto houver notificações elegíveis.
+     */
+    @Scheduled(fixedDelayString = "${app.webhook.inbox.intervalo-ms:200}")
+    public void drenar() {
+        try {
+            for (int rodada = 0; rodada < PoliticaRetentativa.MAX_RODADAS_POR_CICLO; rodada++) {
+                List<NotificacoesPagamento> lote = reservarLote();
+                if (lote.isEmpty()) {
+                    return;
+                }
+                processarLote(lote);
+                if (lote.size() < tamanhoLote) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Erro ao drenar a inbox de webhooks: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.webhook.inbox.metricas-intervalo-ms:15000}")
+    public void atualizarMetricas() {
+        try {
+            LocalDateTime agora = LocalDateTime.now();
+            Integer liberados = transactionTemplate.execute(status -> webhookRepository.liberarBloqueiosVencidos(agora));
+            if (liberados != null && liberados > 0) {
+                logger.warn("{} notificação(ões) de webhook presas em processamento voltaram para a fila", liberados);
+            }
+
+            ResumoInbox resumo = webhookRepository.resumirPendentes();
+            pendentes.set(resumo.getQuantidade() != null ? resumo.getQuantidade() : 0);
+            idadeMaisAntigoSegundos.set(resumo.getMaisAntigo() != null
+                    ? Math.max(0, Duration.between(resumo.getMaisAntigo(), agora).toSeconds())
+                    : 0);
+        } catch (RuntimeException e) {
+            logger.error("Erro ao atualizar métricas da inbox de webhooks: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.webhook.inbox.limpeza-intervalo-ms:3600000}")
+    public void removerProcessados() {
+        LocalDateTime limite = LocalDateTime.now().minusDays(retencaoDias);
+        Integer removidos = transactionTemplate.execute(status -> webhookRepository.removerProcessadosAte(limite));
+        if (removidos != null && removidos > 0) {
+            logger.info("{} notificação(ões) de webhook processadas removidas da inbox", removidos);
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        workers.shutdown();
+    }
+
+    private List<NotificacoesPagamento> reservarLote() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime agora = LocalDateTime.now();
+            List<UUID> ids = webhookRepository.reservarProximos(agora, tamanhoLote);
+            if (ids.isEmpty()) {
+                return List.<NotificacoesPagamento>of();
+            }
+
+            List<WebhookRecebido> principais = webhookRepository.findAllById(ids);
+            List<String> paymentIds = principais.stream().map(WebhookRecebido::getPaymentId).toList();
+            // As demais notificações pendentes dos mesmos pagamentos não são elegíveis em outro nó
+            // enquanto a principal estiver bloqueada, então podem ser reservadas junto
+            List<WebhookRecebido> pendentesDosPagamentos = webhookRepository.findPendentesByPaymentIds(paymentIds);
+
+            Map<String, List<UUID>> idsPorPagamento = new HashMap<>();
+            for (WebhookRecebido webhook : principais) {
+                idsPorPagamento.computeIfAbsent(webhook.getPaymentId(), id -> new ArrayList<>()).add(webhook.getId());
+            }
+            for (WebhookRecebido webhook : pendentesDosPagamentos) {
+                List<UUID> idsDoPagamento = idsPorPagamento.get(webhook.getPaymentId());
+                if (!idsDoPagamento.contains(webhook.getId())) {
+                    idsDoPagamento.add(webhook.getId());
+                }
+            }
+
+            List<UUID> todos = idsPorPagamento.values().stream().flatMap(List::stream).toList();
+            webhookRepository.marcarProcessando(todos, agora.plusSeconds(bloqueioSegundos), agora);
+
+            return principais.stream()
+                    .map(principal -> new NotificacoesPagamento(principal, idsPorPagamento.get(principal.getPaymentId())))
+                    .toList();
+        });
+    }
+
+    private void processarLote(List<NotificacoesPagamento> lote) {
+        // O lote tem no máximo um grupo por pagamento, então pode ser processado em paralelo
+        List<Future<?>> execucoes = new ArrayList<>(lote.size());
+        for (NotificacoesPagamento notificacoes : lote) {
+            execucoes.add(workers.submit(() -> processar(notificacoes)));
+        }
+        for (Future<?> execucao : execucoes) {
+            try {
+                execucao.get(bloqueioSegundos, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException | TimeoutException e) {
+                // Falhas já são tratadas em processar; o bloqueio vencido devolve a notificação à fila
+                logger.error("Worker da inbox de webhooks não concluiu: {}", e.getMessage());
+            }
+        }
+    }
+
+    void processar(NotificacoesPagamento notificacoes) {
+        WebhookRecebido principal = notificacoes.principal();
+        try {
+            // Uma única consulta e aplicação para todas as notificações do pagamento
+            String statusMercadoPago = pagamentoService.consultarStatusMercadoPago(principal.getPaymentId());
+            pagamentoService.aplicarStatusMercadoPago(principal.getPaymentId(), statusMercadoPago);
+
+            transactionTemplate.executeWithoutResult(status ->
+                    webhookRepository.marcarProcessados(notificacoes.ids(), LocalDateTime.now()));
+            processados.increment(notificacoes.ids().size());
+            consultasEvitadas.increment(notificacoes.ids().size() - 1);
+            atrasoProcessamento.record(Duration.between(principal.getCreatedAt(), LocalDateTime.now()));
+        } catch (RuntimeException e) {
+            registrarFalha(notificacoes, e);
+        }
+    }
+
+    private void registrarFalha(NotificacoesPagamento notificacoes, RuntimeException erro) {
+        WebhookRecebido principal = notificacoes.principal();
+        String mensagem = PoliticaRetentativa.resumirErro(erro);
+        LocalDateTime agora = LocalDateTime.now();
+
+        if (principal.getTentativas() >= maxTentativas) {
+            transactionTemplate.executeWithoutResult(status ->
+                    webhookRepository.marcarFalha(notificacoes.ids(), mensagem, agora));
+            falhas.increment(notificacoes.ids().size());
+            logger.error("Webhook do pagamento {} foi para dead letter após {} tentativas: {}",
+                    principal.getPaymentId(), principal.getTentativas(), mensagem);
+            return;
+        }
+
+        LocalDateTime proximaTentativa = agora.plus(Duration.ofMillis(calcularBackoff(principal.getTentativas())));
+        transactionTemplate.executeWithoutResult(status ->
+                webhookRepository.reagendar(notificacoes.ids(), proximaTentativa, mensagem, agora));
+        retentativas.increment();
+        logger.warn("Falha ao processar webhook do pagamento {} (tentativa {}), nova tentativa às {}: {}",
+                principal.getPaymentId(), principal.getTentativas(), proximaTentativa, mensagem);
+    }
+
+    long calcularBackoff(int tentativas) {
+        return politicaRetentativa.backoff(tentativas);
+    }
+
+    private String serializar(Map<String, Object> payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Notificação mais antiga de um pagamento e os ids de todas as notificações coalescidas com ela.
+     */
+    record NotificacoesPagamento(WebhookRecebido principal, List<UUID> ids) {}
+}
@@ -0,0 +1,132 @@
+package br.com.tourapp.util;
+
+import java.util.function.Consumer;
+
+/**
+ * Circuit breaker por contagem para chamadas a serviços externos.
+ *
+ * Fechado, guarda o resultado das últimas {@code janela} chamadas e abre quando a taxa de falha
+ * atinge o limite (com pelo menos {@code minimoChamadas} na janela). Aberto, recusa chamadas até
+ * passar {@code duracaoAbertoNanos}; então deixa passar algumas chamadas de teste (meio aberto),
+ * fechando se todas tiverem sucesso e reabrindo na primeira falha.
+ * O relógio é informado pelo chamador em nanos ({@link System#nanoTime()}), o que facilita testes.
+ */
+public final class CircuitBreaker {
+
+    public enum Estado { FECHADO, MEIO_ABERTO, ABERTO }
+
+    private final boolean[] falhas;
+    private final int minimoChamadas;
+    private final double taxaFalhaLimite;
+    private final long duracaoAbertoNanos;
+    private final int chamadasMeioAberto;
+    private final Consumer<Estado> aoMudarEstado;
+
+    private Estado estado = Estado.FECHADO;
+    private int posicao;
+    private int registradas;
+    private int falhasNaJanela;
+    private long abertoEm;
+    private int testesLiberados;
+    private int testesComSucesso;
+
+    public CircuitBreaker(int janela, int minimoChamadas, double taxaFalhaLimite, long duracaoAbertoNanos,
+                          int chamadasMeioAberto, Consumer<Estado> aoMudarEstado) {
+        if (janela <= 0 || minimoChamadas <= 0 || chamadasMeioAberto <= 0) {
+            throw new IllegalArgumentException("janela, mínimo de chamadas e chamadas de teste devem ser positivos");
+        }
+        this.falhas = new boolean[janela];
+        this.minimoChamadas = Math.min(minimoChamadas, janela);
+        this.taxaFalhaLimite = taxaFalhaLimite;
+        this.duracaoAbertoNanos = duracaoAbertoNanos;
+        this.chamadasMeioAberto = chamadasMeioAberto;
+        this.aoMudarEstado = aoMudarEstado;
+    }
+
+    /**
+     * @return true se a chamada pode ser feita; toda chamada permitida deve ter o resultado registrado
+     */
+    public synchronized boolean permitirChamada(long agoraNanos) {
+        if (estado == Estado.ABERTO) {
+            if (agoraNanos - abertoEm < duracaoAbertoNanos) {
+                return false;
+            }
+            mudarPara(Estado.MEIO_ABERTO);
+            testesLiberados = 0;
+            testesComSucesso = 0;
+        }
+        if (estado == Estado.MEIO_ABERTO) {
+            if (testesLiberados >= chamadasMeioAberto) {
+                return false;
+            }
+            testesLiberados++;
+        }
+        return true;
+    }
+
+    public synchronized void registrarSucesso(long agoraNanos) {
+        if (estado == Estado.MEIO_ABERTO) {
+            if (++testesComSucesso >= chamadasMeioAberto) {
+                limparJanela();
+                mudarPara(Estado.FECHADO);
+            }
+            return;
+        }
+        if (estado == Estado.FECHADO) {
+            registrar(false);
+        }
+    }
+
+    public synchronized void registrarFalha(long agoraNanos) {
+        if (estado == Estado.MEIO_ABERTO) {
+            abrir(agoraNanos);
+            return;
+        }
+        if (estado == Estado.FECHADO) {
+            registrar(true);
+            if (registradas >= minimoChamadas && (double) falhasNaJanela / registradas >= taxaFalhaLimite) {
+                abrir(agoraNanos);
+            }
+        }
+    }
+
+    public synchronized Estado getEstado() {
+        return estado;
+    }
+
+    private void registrar(boolean falha) {
+        if (registradas == falhas.length) {
+            if (falhas[posicao]) {
+                falhasNaJanela--;
+            }
+        } else {
+            registradas++;
+        }
+        falhas[posicao] = falha;
+        if (falha) {
+            falhasNaJanela++;
+        }
+        posicao = (posicao + 1) % falhas.length;
+    }
+
+    private void abrir(long agoraNanos) {
+        abertoEm = agoraNanos;
+        limparJanela();
+        mudarPara(Estado.ABERTO);
+    }
+
+    private void limparJanela() {
+        posicao = 0;
+        registradas = 0;
+        falhasNaJanela = 0;
+    }
+
+    private void mudarPara(Estado novoEstado) {
+        if (estado != novoEstado) {
+            estado = novoEstado;
+            if (aoMudarEstado != null) {
+                aoMudarEstado.accept(novoEstado);
+            }
+        }
+    }
+}
@@ -13,6 +13,8 @@ public final class Constants {
     // Headers HTTP
     public static final String AUTHORIZATION_HEADER = "Authorization";
     public static final String BEARER_PREFIX = "Bearer ";
+    public static final String FILA_TICKET_HEADER = "X-Fila-Ticket";
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
 
     // Formatos de data
     public static final String DATE_FORMAT = "yyyy-MM-dd";
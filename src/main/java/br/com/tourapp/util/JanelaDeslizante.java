@@ -0,0 +1,59 @@
+package br.com.tourapp.util;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+
+/**
+ * Contador de janela deslizante: guarda o instante de cada registro dentro da janela e descarta os
+ * que saíram dela a cada consulta. A memória fica limitada ao maior limite usado.
+ *
+ * O relógio é informado pelo chamador em millis, o que facilita testes.
+ */
+public final class JanelaDeslizante {
+
+    private final long duracaoMillis;
+    private final Deque<Long> registros = new ArrayDeque<>();
+
+    /**
+     * @param registrosIniciais instantes já ocorridos, em ordem crescente
+     */
+    public JanelaDeslizante(long duracaoMillis, Collection<Long> registrosIniciais) {
+        if (duracaoMillis <= 0) {
+            throw new IllegalArgumentException("duração deve ser positiva");
+        }
+        this.duracaoMillis = duracaoMillis;
+        this.registros.addAll(registrosIniciais);
+    }
+
+    /**
+     * Registra o instante se a janela ainda tiver menos de {@code limite} registros.
+     */
+    public synchronized boolean tentarRegistrar(long agoraMillis, int limite) {
+        descartarVencidos(agoraMillis);
+        if (registros.size() >= limite) {
+            return false;
+        }
+        registros.addLast(agoraMillis);
+        return true;
+    }
+
+    /**
+     * Desfaz um registro, quando a operação que ele contava não se confirmou.
+     */
+    public synchronized void remover(long instanteMillis) {
+        registros.removeLastOccurrence(instanteMillis);
+    }
+
+    public synchronized int contar(long agoraMillis) {
+        descartarVencidos(agoraMillis);
+        return registros.size();
+    }
+
+    private void descartarVencidos(long agoraMillis) {
+        long inicio = agoraMillis - duracaoMillis;
+        while (!registros.isEmpty() && registros.peekFirst() <= inicio) {
+            registros.pollFirst();
+        }
+    }
+}
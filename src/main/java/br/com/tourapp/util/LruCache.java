@@ -0,0 +1,51 @@
+package br.com.tourapp.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache em memória limitado, que descarta o item usado há mais tempo quando enche.
+ * Thread-safe: todas as operações usam o mesmo lock.
+ */
+public final class LruCache<K, V> {
+
+    private final Map<K, V> entradas;
+
+    public LruCache(int capacidade) {
+        if (capacidade <= 0) {
+            throw new IllegalArgumentException("capacidade deve ser positiva");
+        }
+        // accessOrder = true: cada leitura move o item para o fim da ordem de descarte
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> maisAntiga) {
+                return size() > capacidade;
+            }
+        };
+    }
+
+    public synchronized V get(K chave) {
+        return entradas.get(chave);
+    }
+
+    public synchronized void put(K chave, V valor) {
+        entradas.put(chave, valor);
+    }
+
+    /**
+     * Guarda o valor só se a chave não existir.
+     *
+     * @return o valor já existente, ou null se {@code valor} foi guardado
+     */
+    public synchronized V putIfAbsent(K chave, V valor) {
+        return entradas.putIfAbsent(chave, valor);
+    }
+
+    public synchronized V remove(K chave) {
+        return entradas.remove(chave);
+    }
+
+    public synchronized int tamanho() {
+        return entradas.size();
+    }
+}
@@ -0,0 +1,111 @@
+package br.com.tourapp.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Roda de temporização (hashed timer wheel) para prazos em memória.
+ *
+ * Cada item cai no slot correspondente ao seu prazo; a cada avanço só os slots
+ * vencidos desde o último avanço são percorridos, sem varrer todos os itens.
+ * Agendar é thread-safe; {@link #avancar(long)} deve ser chamado por uma única thread.
+ */
+public final class TimerWheel<T> {
+
+    private final long tickMillis;
+    private final Queue<Entrada<T>>[] slots;
+    // Prazo vigente de cada item; entradas com prazo diferente são descartadas ao vencer
+    private final Map<T, Long> agendados = new ConcurrentHashMap<>();
+    private volatile long ultimoTick;
+
+    @SuppressWarnings("unchecked")
+    public TimerWheel(long tickMillis, int quantidadeSlots, long agoraMillis) {
+        if (tickMillis <= 0 || quantidadeSlots <= 0) {
+            throw new IllegalArgumentException("tick e quantidade de slots devem ser positivos");
+        }
+        this.tickMillis = tickMillis;
+        this.slots = new Queue[quantidadeSlots];
+        for (int i = 0; i < quantidadeSlots; i++) {
+            slots[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.ultimoTick = agoraMillis / tickMillis;
+    }
+
+    /**
+     * Agenda o item para o prazo informado. Itens já agendados são ignorados.
+     *
+     * @return true se o item foi agendado agora
+     */
+    public boolean agendar(T item, long prazoMillis) {
+        if (agendados.putIfAbsent(item, prazoMillis) != null) {
+            return false;
+        }
+        adicionar(item, prazoMillis);
+        return true;
+    }
+
+    /**
+     * Reagenda o item, descartando o prazo anterior.
+     */
+    public void reagendar(T item, long prazoMillis) {
+        agendados.put(item, prazoMillis);
+        adicionar(item, prazoMillis);
+    }
+
+    /**
+     * Remove o item da roda. A entrada antiga é descartada quando seu slot for percorrido.
+     */
+    public void cancelar(T item) {
+        agendados.remove(item);
+    }
+
+    /**
+     * Avança a roda até o instante informado e devolve os itens vencidos.
+     */
+    public List<T> avancar(long agoraMillis) {
+        List<T> vencidos = new ArrayList<>();
+        long tickAtual = agoraMillis / tickMillis;
+        // Percorre no máximo uma volta completa: depois disso todos os slots já foram vistos
+        long primeiroTick = Math.max(ultimoTick, tickAtual - slots.length + 1);
+
+        for (long tick = primeiroTick; tick <= tickAtual; tick++) {
+            Queue<Entrada<T>> slot = slots[slot(tick)];
+            int pendentes = slot.size();
+            for (int i = 0; i < pendentes; i++) {
+                Entrada<T> entrada = slot.poll();
+                if (entrada == null) {
+                    break;
+                }
+                if (entrada.prazoMillis() > agoraMillis) {
+                    // Prazo em uma volta futura da roda
+                    slot.add(entrada);
+                } else if (agendados.remove(entrada.item(), entrada.prazoMillis())) {
+                    vencidos.add(entrada.item());
+                }
+            }
+        }
+
+        ultimoTick = tickAtual;
+        return vencidos;
+    }
+
+    public int tamanho() {
+        return agendados.size();
+    }
+
+    private void adicionar(T item, long prazoMillis) {
+        // Prazos já vencidos entram no slot atual para sair no próximo avanço
+        long tick = Math.max(prazoMillis / tickMillis, ultimoTick);
+        slots[slot(tick)].add(new Entrada<>(item, prazoMillis));
+    }
+
+    private int slot(long tick) {
+        return (int) Math.floorMod(tick, (long) slots.length);
+    }
+
+    private record Entrada<T>(T item, long prazoMillis) {}
+}
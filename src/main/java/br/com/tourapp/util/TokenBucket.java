@@ -0,0 +1,61 @@
+package br.com.tourapp.util;
+
+/**
+ * Token bucket para limitar a taxa de uma operação.
+ *
+ * Os tokens são repostos continuamente a {@code taxaPorSegundo} até a capacidade (rajada máxima).
+ * O relógio é informado pelo chamador em nanos ({@link System#nanoTime()}), o que facilita testes.
+ */
+public final class TokenBucket {
+
+    private static final double NANOS_POR_SEGUNDO = 1_000_000_000d;
+
+    private final double capacidade;
+    private final double tokensPorNano;
+    private double tokens;
+    private long ultimaReposicao;
+
+    public TokenBucket(double taxaPorSegundo, double capacidade, long agoraNanos) {
+        if (taxaPorSegundo <= 0 || capacidade < 1) {
+            throw new IllegalArgumentException("taxa deve ser positiva e capacidade pelo menos 1");
+        }
+        this.capacidade = capacidade;
+        this.tokensPorNano = taxaPorSegundo / NANOS_POR_SEGUNDO;
+        this.tokens = capacidade;
+        this.ultimaReposicao = agoraNanos;
+    }
+
+    /**
+     * Consome um token se houver.
+     */
+    public synchronized boolean tentarConsumir(long agoraNanos) {
+        repor(agoraNanos);
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    /**
+     * Consome até {@code maximo} tokens inteiros disponíveis.
+     *
+     * @return quantidade de tokens consumidos
+     */
+    public synchronized long consumirAte(long maximo, long agoraNanos) {
+        repor(agoraNanos);
+        long consumidos = Math.min(maximo, (long) tokens);
+        if (consumidos > 0) {
+            tokens -= consumidos;
+        }
+        return consumidos;
+    }
+
+    private void repor(long agoraNanos) {
+        long decorrido = agoraNanos - ultimaReposicao;
+        if (decorrido > 0) {
+            tokens = Math.min(capacidade, tokens + decorrido * tokensPorNano);
+            ultimaReposicao = agoraNanos;
+        }
+    }
+}
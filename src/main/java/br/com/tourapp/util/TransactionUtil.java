@@ -0,0 +1,49 @@
+package br.com.tourapp.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Utilitários para ações que dependem do resultado da transação corrente.
+ */
+public final class TransactionUtil {
+
+    private TransactionUtil() {
+        // Utility class
+    }
+
+    /**
+     * Executa a ação somente após o commit da transação corrente, ou na hora se não houver transação.
+     */
+    public static void aposCommit(Runnable acao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            acao.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                acao.run();
+            }
+        });
+    }
+
+    /**
+     * Executa a ação se a transação corrente for desfeita; sem transação, não faz nada.
+     */
+    public static void aposRollback(Runnable acao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    acao.run();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,33 @@
+-- ===========================================
+-- V14__create_reservas_temporarias_table.sql
+-- Vagas seguradas enquanto o pagamento não é confirmado
+-- ===========================================
+
+CREATE TABLE IF NOT EXISTS reservas_temporarias (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    google_id VARCHAR(255) UNIQUE,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT DEFAULT 0,
+
+    inscricao_id UUID NOT NULL REFERENCES inscricoes(id) ON DELETE CASCADE,
+    excursao_id UUID NOT NULL REFERENCES excursoes(id) ON DELETE CASCADE,
+    quantidade INTEGER NOT NULL DEFAULT 1,
+    expira_em TIMESTAMP NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'ATIVA',
+
+    CONSTRAINT uk_reservas_temporarias_inscricao UNIQUE (inscricao_id),
+    CONSTRAINT chk_reservas_temporarias_quantidade CHECK (quantidade > 0),
+    CONSTRAINT chk_reservas_temporarias_status CHECK (status IN ('ATIVA', 'CONFIRMADA', 'EXPIRADA', 'CANCELADA'))
+);
+
+-- Carga do horizonte de expiração: range scan só sobre as reservas ativas
+CREATE INDEX IF NOT EXISTS idx_reservas_temporarias_ativas_expira_em
+    ON reservas_temporarias(expira_em) WHERE status = 'ATIVA';
+
+CREATE INDEX IF NOT EXISTS idx_reservas_temporarias_excursao_id ON reservas_temporarias(excursao_id);
+
+DROP TRIGGER IF EXISTS update_reservas_temporarias_updated_at ON reservas_temporarias;
+CREATE TRIGGER update_reservas_temporarias_updated_at
+    BEFORE UPDATE ON reservas_temporarias
+    FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
@@ -0,0 +1,33 @@
+-- ===========================================
+-- V15__create_lista_espera_table.sql
+-- Lista de espera (FIFO) para excursões lotadas
+-- ===========================================
+
+CREATE TABLE IF NOT EXISTS lista_espera (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    google_id VARCHAR(255) UNIQUE,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT DEFAULT 0,
+
+    excursao_id UUID NOT NULL REFERENCES excursoes(id) ON DELETE CASCADE,
+    user_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    status VARCHAR(20) NOT NULL DEFAULT 'AGUARDANDO',
+    promovida_em TIMESTAMP,
+    inscricao_id UUID REFERENCES inscricoes(id) ON DELETE SET NULL,
+
+    CONSTRAINT chk_lista_espera_status CHECK (status IN ('AGUARDANDO', 'PROMOVIDA', 'CANCELADA'))
+);
+
+-- Um cliente aguarda no máximo uma vez por excursão
+CREATE UNIQUE INDEX IF NOT EXISTS uk_lista_espera_aguardando
+    ON lista_espera(excursao_id, user_id) WHERE status = 'AGUARDANDO';
+
+-- Cabeça da fila, posição e verificação "ninguém mais antigo aguardando"
+CREATE INDEX IF NOT EXISTS idx_lista_espera_fila
+    ON lista_espera(excursao_id, created_at) WHERE status = 'AGUARDANDO';
+
+DROP TRIGGER IF EXISTS update_lista_espera_updated_at ON lista_espera;
+CREATE TRIGGER update_lista_espera_updated_at
+    BEFORE UPDATE ON lista_espera
+    FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
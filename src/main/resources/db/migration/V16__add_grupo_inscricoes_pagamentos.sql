@@ -0,0 +1,16 @@
+-- ===========================================
+-- V16__add_grupo_inscricoes_pagamentos.sql
+-- Reserva em grupo: várias inscrições do mesmo cliente pagas com uma única cobrança
+-- ===========================================
+
+ALTER TABLE inscricoes ADD COLUMN IF NOT EXISTS grupo_id UUID;
+ALTER TABLE pagamentos ADD COLUMN IF NOT EXISTS grupo_id UUID;
+
+-- Um cliente continua com no máximo uma inscrição individual por excursão;
+-- as inscrições de um grupo compartilham cliente e excursão
+ALTER TABLE inscricoes DROP CONSTRAINT IF EXISTS uk_inscricao_cliente_excursao;
+CREATE UNIQUE INDEX IF NOT EXISTS uk_inscricoes_user_excursao_individual
+    ON inscricoes(user_id, excursao_id) WHERE grupo_id IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_inscricoes_grupo_id ON inscricoes(grupo_id) WHERE grupo_id IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_pagamentos_grupo_id ON pagamentos(grupo_id) WHERE grupo_id IS NOT NULL;
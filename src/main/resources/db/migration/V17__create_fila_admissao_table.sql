@@ -0,0 +1,23 @@
+-- ===========================================
+-- V17__create_fila_admissao_table.sql
+-- Fila de admissão (sala de espera) compartilhada entre os nós
+-- ===========================================
+
+CREATE TABLE IF NOT EXISTS fila_admissao (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    google_id VARCHAR(255) UNIQUE,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT DEFAULT 0,
+
+    excursao_id UUID NOT NULL UNIQUE REFERENCES excursoes(id) ON DELETE CASCADE,
+    ultima_posicao BIGINT NOT NULL DEFAULT 0,
+    fronteira BIGINT NOT NULL DEFAULT 0,
+
+    CONSTRAINT chk_fila_admissao_posicoes CHECK (fronteira >= 0 AND fronteira <= ultima_posicao)
+);
+
+DROP TRIGGER IF EXISTS update_fila_admissao_updated_at ON fila_admissao;
+CREATE TRIGGER update_fila_admissao_updated_at
+    BEFORE UPDATE ON fila_admissao
+    FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
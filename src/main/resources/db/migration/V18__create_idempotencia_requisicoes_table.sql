@@ -0,0 +1,31 @@
+-- ===========================================
+-- V18__create_idempotencia_requisicoes_table.sql
+-- Respostas gravadas por Idempotency-Key (inscrições e pagamentos)
+-- ===========================================
+
+CREATE TABLE IF NOT EXISTS idempotencia_requisicoes (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    google_id VARCHAR(255) UNIQUE,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT DEFAULT 0,
+
+    user_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    chave VARCHAR(255) NOT NULL,
+    operacao VARCHAR(100) NOT NULL,
+    hash_requisicao VARCHAR(64) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'EM_ANDAMENTO',
+    corpo_resposta TEXT,
+    expira_em TIMESTAMP NOT NULL,
+
+    CONSTRAINT uk_idempotencia_user_chave UNIQUE (user_id, chave),
+    CONSTRAINT chk_idempotencia_status CHECK (status IN ('EM_ANDAMENTO', 'CONCLUIDA'))
+);
+
+-- Limpeza periódica dos registros vencidos
+CREATE INDEX IF NOT EXISTS idx_idempotencia_expira_em ON idempotencia_requisicoes(expira_em);
+
+DROP TRIGGER IF EXISTS update_idempotencia_requisicoes_updated_at ON idempotencia_requisicoes;
+CREATE TRIGGER update_idempotencia_requisicoes_updated_at
+    BEFORE UPDATE ON idempotencia_requisicoes
+    FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
@@ -0,0 +1,42 @@
+-- ===========================================
+-- V19__create_webhook_inbox_table.sql
+-- Inbox dos webhooks do Mercado Pago (processamento assíncrono)
+-- ===========================================
+
+CREATE TABLE IF NOT EXISTS webhook_inbox (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    google_id VARCHAR(255) UNIQUE,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT DEFAULT 0,
+
+    payment_id VARCHAR(50) NOT NULL,
+    tipo VARCHAR(50) NOT NULL,
+    payload TEXT,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDENTE',
+    tentativas INTEGER NOT NULL DEFAULT 0,
+    proxima_tentativa_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    bloqueado_ate TIMESTAMP,
+    processado_em TIMESTAMP,
+    ultimo_erro TEXT,
+
+    CONSTRAINT chk_webhook_inbox_status CHECK (status IN ('PENDENTE', 'PROCESSANDO', 'PROCESSADO', 'FALHOU')),
+    CONSTRAINT chk_webhook_inbox_tentativas CHECK (tentativas >= 0)
+);
+
+-- Próximas notificações a processar
+CREATE INDEX IF NOT EXISTS idx_webhook_inbox_pendentes
+    ON webhook_inbox(created_at) WHERE status = 'PENDENTE';
+
+-- Ordem por pagamento: "existe notificação anterior ou em processamento?"
+CREATE INDEX IF NOT EXISTS idx_webhook_inbox_pagamento_ativos
+    ON webhook_inbox(payment_id, created_at) WHERE status IN ('PENDENTE', 'PROCESSANDO');
+
+-- Limpeza das notificações já processadas
+CREATE INDEX IF NOT EXISTS idx_webhook_inbox_processados
+    ON webhook_inbox(processado_em) WHERE status = 'PROCESSADO';
+
+DROP TRIGGER IF EXISTS update_webhook_inbox_updated_at ON webhook_inbox;
+CREATE TRIGGER update_webhook_inbox_updated_at
+    BEFORE UPDATE ON webhook_inbox
+    FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
@@ -0,0 +1,27 @@
+-- ===========================================
+-- V20__create_travas_distribuidas_and_conciliacao.sql
+-- Travas com prazo entre nós e conciliação de pagamentos pendentes
+-- ===========================================
+
+CREATE TABLE IF NOT EXISTS travas_distribuidas (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    google_id VARCHAR(255) UNIQUE,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT DEFAULT 0,
+
+    nome VARCHAR(100) NOT NULL UNIQUE,
+    dono VARCHAR(255) NOT NULL,
+    expira_em TIMESTAMP NOT NULL
+);
+
+DROP TRIGGER IF EXISTS update_travas_distribuidas_updated_at ON travas_distribuidas;
+CREATE TRIGGER update_travas_distribuidas_updated_at
+    BEFORE UPDATE ON travas_distribuidas
+    FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
+
+ALTER TABLE pagamentos ADD COLUMN IF NOT EXISTS conciliado_em TIMESTAMP;
+
+-- Paginação por chave (created_at, id) dos pagamentos ainda em aberto
+CREATE INDEX IF NOT EXISTS idx_pagamentos_em_aberto
+    ON pagamentos(created_at, id) WHERE status IN ('PENDENTE', 'PROCESSANDO');
@@ -0,0 +1,36 @@
+-- ===========================================
+-- V21__create_pix_artefatos_table.sql
+-- Imagem do QR Code PIX fora da tabela pagamentos
+-- ===========================================
+
+CREATE TABLE IF NOT EXISTS pix_artefatos (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    google_id VARCHAR(255) UNIQUE,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT DEFAULT 0,
+
+    pagamento_id UUID NOT NULL UNIQUE REFERENCES pagamentos(id) ON DELETE CASCADE,
+    imagem BYTEA NOT NULL,
+    etag VARCHAR(64) NOT NULL
+);
+
+DROP TRIGGER IF EXISTS update_pix_artefatos_updated_at ON pix_artefatos;
+CREATE TRIGGER update_pix_artefatos_updated_at
+    BEFORE UPDATE ON pix_artefatos
+    FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
+
+-- Move as imagens já gravadas em pagamentos.qr_code_base64
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_name = 'pagamentos' AND column_name = 'qr_code_base64') THEN
+        INSERT INTO pix_artefatos (pagamento_id, imagem, etag)
+        SELECT id, decode(qr_code_base64, 'base64'), encode(sha256(decode(qr_code_base64, 'base64')), 'hex')
+        FROM pagamentos
+        WHERE qr_code_base64 IS NOT NULL AND qr_code_base64 <> ''
+        ON CONFLICT (pagamento_id) DO NOTHING;
+
+        ALTER TABLE pagamentos DROP COLUMN qr_code_base64;
+    END IF;
+END $$;
@@ -0,0 +1,47 @@
+-- ===========================================
+-- V22__create_outbox_eventos_table.sql
+-- Outbox transacional dos efeitos colaterais (email, push...)
+-- ===========================================
+
+CREATE TABLE IF NOT EXISTS outbox_eventos (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    google_id VARCHAR(255) UNIQUE,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT DEFAULT 0,
+
+    tipo VARCHAR(50) NOT NULL,
+    consumidor VARCHAR(50) NOT NULL,
+    agregado_id UUID NOT NULL,
+    payload TEXT,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDENTE',
+    tentativas INTEGER NOT NULL DEFAULT 0,
+    proxima_tentativa_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    bloqueado_ate TIMESTAMP,
+    processado_em TIMESTAMP,
+    ultimo_erro TEXT,
+
+    CONSTRAINT chk_outbox_eventos_status CHECK (status IN ('PENDENTE', 'PROCESSANDO', 'PROCESSADO', 'FALHOU')),
+    CONSTRAINT chk_outbox_eventos_tentativas CHECK (tentativas >= 0)
+);
+
+-- Próximos eventos a entregar (reservados com FOR UPDATE SKIP LOCKED)
+CREATE INDEX IF NOT EXISTS idx_outbox_eventos_pendentes
+    ON outbox_eventos(proxima_tentativa_em) WHERE status = 'PENDENTE';
+
+-- Eventos presos por um nó que caiu
+CREATE INDEX IF NOT EXISTS idx_outbox_eventos_processando
+    ON outbox_eventos(bloqueado_ate) WHERE status = 'PROCESSANDO';
+
+-- Limpeza dos eventos já entregues
+CREATE INDEX IF NOT EXISTS idx_outbox_eventos_processados
+    ON outbox_eventos(processado_em) WHERE status = 'PROCESSADO';
+
+-- Consulta dos eventos de um agregado (inscrição ou grupo)
+CREATE INDEX IF NOT EXISTS idx_outbox_eventos_agregado
+    ON outbox_eventos(agregado_id);
+
+DROP TRIGGER IF EXISTS update_outbox_eventos_updated_at ON outbox_eventos;
+CREATE TRIGGER update_outbox_eventos_updated_at
+    BEFORE UPDATE ON outbox_eventos
+    FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
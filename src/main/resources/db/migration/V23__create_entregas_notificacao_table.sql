@@ -0,0 +1,46 @@
+-- ===========================================
+-- V23__create_entregas_notificacao_table.sql
+-- Fila de entrega das notificações: uma linha por destinatário e canal
+-- ===========================================
+
+CREATE TABLE IF NOT EXISTS entregas_notificacao (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    google_id VARCHAR(255) UNIQUE,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT DEFAULT 0,
+
+    notificacao_id UUID NOT NULL REFERENCES notificacoes(id) ON DELETE CASCADE,
+    user_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    canal VARCHAR(10) NOT NULL,
+    destino VARCHAR(512) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDENTE',
+    tentativas INTEGER NOT NULL DEFAULT 0,
+    proxima_tentativa_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    bloqueado_ate TIMESTAMP,
+    entregue_em TIMESTAMP,
+    ultimo_erro TEXT,
+
+    CONSTRAINT chk_entregas_notificacao_canal CHECK (canal IN ('EMAIL', 'PUSH')),
+    CONSTRAINT chk_entregas_notificacao_status CHECK (status IN ('PENDENTE', 'PROCESSANDO', 'ENTREGUE', 'FALHOU')),
+    CONSTRAINT chk_entregas_notificacao_tentativas CHECK (tentativas >= 0),
+    -- Reenfileirar a mesma notificação não duplica entregas
+    CONSTRAINT uk_entregas_notificacao_destinatario UNIQUE (notificacao_id, user_id, canal)
+);
+
+-- Próximas entregas (reservadas com FOR UPDATE SKIP LOCKED)
+CREATE INDEX IF NOT EXISTS idx_entregas_notificacao_pendentes
+    ON entregas_notificacao(proxima_tentativa_em) WHERE status = 'PENDENTE';
+
+-- Entregas presas por um worker que caiu
+CREATE INDEX IF NOT EXISTS idx_entregas_notificacao_processando
+    ON entregas_notificacao(bloqueado_ate) WHERE status = 'PROCESSANDO';
+
+-- Dead letter de uma notificação, reaberta no reenvio
+CREATE INDEX IF NOT EXISTS idx_entregas_notificacao_falhas
+    ON entregas_notificacao(notificacao_id) WHERE status = 'FALHOU';
+
+DROP TRIGGER IF EXISTS update_entregas_notificacao_updated_at ON entregas_notificacao;
+CREATE TRIGGER update_entregas_notificacao_updated_at
+    BEFORE UPDATE ON entregas_notificacao
+    FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
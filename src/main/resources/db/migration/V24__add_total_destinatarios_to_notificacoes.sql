@@ -0,0 +1,6 @@
+-- ===========================================
+-- V24__add_total_destinatarios_to_notificacoes.sql
+-- Tamanho da audiência gravado na notificação
+-- ===========================================
+
+ALTER TABLE notificacoes ADD COLUMN IF NOT EXISTS total_destinatarios BIGINT;
@@ -0,0 +1,19 @@
+-- ===========================================
+-- V25__add_cota_indexes_to_notificacoes.sql
+-- Índices das cotas de notificação (criações por dono e tipo dentro da janela)
+-- ===========================================
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_name = 'notificacoes' AND column_name = 'criador_id') THEN
+        CREATE INDEX IF NOT EXISTS idx_notificacoes_criador_tipo_criacao
+            ON notificacoes(criador_id, tipo, created_at);
+    END IF;
+
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_name = 'notificacoes' AND column_name = 'compania_id') THEN
+        CREATE INDEX IF NOT EXISTS idx_notificacoes_compania_tipo_criacao
+            ON notificacoes(compania_id, tipo, created_at);
+    END IF;
+END $$;
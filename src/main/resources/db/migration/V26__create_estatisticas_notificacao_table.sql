@@ -0,0 +1,40 @@
+-- ===========================================
+-- V26__create_estatisticas_notificacao_table.sql
+-- Contadores de entrega por notificação e canal, atualizados pelos workers da fila
+-- ===========================================
+
+CREATE TABLE IF NOT EXISTS estatisticas_notificacao (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    google_id VARCHAR(255) UNIQUE,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT DEFAULT 0,
+
+    notificacao_id UUID NOT NULL REFERENCES notificacoes(id) ON DELETE CASCADE,
+    canal VARCHAR(10) NOT NULL,
+    enfileiradas BIGINT NOT NULL DEFAULT 0,
+    entregues BIGINT NOT NULL DEFAULT 0,
+    falhas BIGINT NOT NULL DEFAULT 0,
+    ultima_entrega_em TIMESTAMP,
+
+    CONSTRAINT chk_estatisticas_notificacao_canal CHECK (canal IN ('EMAIL', 'PUSH')),
+    -- Incrementos em lote com INSERT ... ON CONFLICT DO UPDATE
+    CONSTRAINT uk_estatisticas_notificacao_canal UNIQUE (notificacao_id, canal)
+);
+
+DROP TRIGGER IF EXISTS update_estatisticas_notificacao_updated_at ON estatisticas_notificacao;
+CREATE TRIGGER update_estatisticas_notificacao_updated_at
+    BEFORE UPDATE ON estatisticas_notificacao
+    FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
+
+-- Entregas gravadas antes desta tabela
+INSERT INTO estatisticas_notificacao (notificacao_id, canal, enfileiradas, entregues, falhas, ultima_entrega_em)
+SELECT notificacao_id,
+       canal,
+       COUNT(*),
+       COUNT(*) FILTER (WHERE status = 'ENTREGUE'),
+       COUNT(*) FILTER (WHERE status = 'FALHOU'),
+       MAX(entregue_em)
+FROM entregas_notificacao
+GROUP BY notificacao_id, canal
+ON CONFLICT (notificacao_id, canal) DO NOTHING;
@@ -0,0 +1,30 @@
+-- ===========================================
+-- V27__create_lembretes_enviados_table.sql
+-- Lembretes automáticos de excursão já enviados (um por excursão, antecedência e data de saída)
+-- ===========================================
+
+CREATE TABLE IF NOT EXISTS lembretes_enviados (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    google_id VARCHAR(255) UNIQUE,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT DEFAULT 0,
+
+    excursao_id UUID NOT NULL REFERENCES excursoes(id) ON DELETE CASCADE,
+    horas_antes INTEGER NOT NULL,
+    data_saida TIMESTAMP NOT NULL,
+    -- Nulo quando a excursão não tinha inscritos
+    notificacao_id UUID REFERENCES notificacoes(id) ON DELETE SET NULL,
+
+    CONSTRAINT chk_lembretes_enviados_horas CHECK (horas_antes > 0),
+    -- Nenhum nó envia o mesmo lembrete duas vezes; remarcar a saída gera novos lembretes
+    CONSTRAINT uk_lembretes_enviados UNIQUE (excursao_id, horas_antes, data_saida)
+);
+
+-- Lembretes das saídas futuras, lidos a cada recarga do índice
+CREATE INDEX IF NOT EXISTS idx_lembretes_enviados_data_saida ON lembretes_enviados(data_saida);
+
+DROP TRIGGER IF EXISTS update_lembretes_enviados_updated_at ON lembretes_enviados;
+CREATE TRIGGER update_lembretes_enviados_updated_at
+    BEFORE UPDATE ON lembretes_enviados
+    FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
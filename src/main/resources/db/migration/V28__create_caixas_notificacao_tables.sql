@@ -0,0 +1,45 @@
+-- ===========================================
+-- V28__create_caixas_notificacao_tables.sql
+-- Caixa de notificações dos clientes: contador de não lidas e leituras individuais
+-- ===========================================
+
+CREATE TABLE IF NOT EXISTS caixas_notificacao (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    google_id VARCHAR(255) UNIQUE,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT DEFAULT 0,
+
+    user_id UUID NOT NULL UNIQUE REFERENCES users(id) ON DELETE CASCADE,
+    nao_lidas INTEGER NOT NULL DEFAULT 0,
+    -- Notificações enviadas até aqui contam como lidas
+    lidas_ate TIMESTAMP,
+
+    CONSTRAINT chk_caixas_notificacao_nao_lidas CHECK (nao_lidas >= 0)
+);
+
+DROP TRIGGER IF EXISTS update_caixas_notificacao_updated_at ON caixas_notificacao;
+CREATE TRIGGER update_caixas_notificacao_updated_at
+    BEFORE UPDATE ON caixas_notificacao
+    FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
+
+CREATE TABLE IF NOT EXISTS leituras_notificacao (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    google_id VARCHAR(255) UNIQUE,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT DEFAULT 0,
+
+    user_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    notificacao_id UUID NOT NULL REFERENCES notificacoes(id) ON DELETE CASCADE,
+    lida_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT uk_leituras_notificacao UNIQUE (user_id, notificacao_id)
+);
+
+-- Caixa montada na leitura: notificações enviadas, da mais recente para a mais antiga
+CREATE INDEX IF NOT EXISTS idx_notificacoes_enviadas_recentes
+    ON notificacoes(enviada_em DESC, id DESC) WHERE enviada = true;
+
+-- Notificações direcionadas a um cliente
+CREATE INDEX IF NOT EXISTS idx_notificacao_clientes_cliente ON notificacao_clientes(cliente_id);
@@ -0,0 +1,10 @@
+-- ===========================================
+-- V29__create_catalogo_excursoes_index.sql
+-- Catálogo público: paginação por cursor em (data_saida, id) das excursões ativas
+-- ===========================================
+
+-- Cobre as colunas da projeção do catálogo, para que cada página seja lida só do índice
+CREATE INDEX IF NOT EXISTS idx_excursoes_catalogo
+    ON excursoes(data_saida, id)
+    INCLUDE (titulo, data_retorno, preco, vagas_total, vagas_ocupadas, local_saida, local_destino)
+    WHERE status = 'ATIVA';
@@ -0,0 +1,6 @@
+-- ===========================================
+-- V30__add_cancelamento_confirmado_em_to_pagamentos.sql
+-- PIX expirado localmente: confirmação de que a cobrança foi cancelada no Mercado Pago
+-- ===========================================
+
+ALTER TABLE pagamentos ADD COLUMN IF NOT EXISTS cancelamento_confirmado_em TIMESTAMP;
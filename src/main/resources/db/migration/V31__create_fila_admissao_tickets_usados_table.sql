@@ -0,0 +1,15 @@
+-- ===========================================
+-- V31__create_fila_admissao_tickets_usados_table.sql
+-- Tickets da fila de admissão já usados: cada posição admite uma única requisição
+-- ===========================================
+
+CREATE TABLE IF NOT EXISTS fila_admissao_tickets_usados (
+    excursao_id UUID NOT NULL REFERENCES excursoes(id) ON DELETE CASCADE,
+    posicao BIGINT NOT NULL,
+    usado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    PRIMARY KEY (excursao_id, posicao)
+);
+
+-- Limpeza dos tickets que já passaram da validade
+CREATE INDEX IF NOT EXISTS idx_fila_admissao_tickets_usados_usado_em ON fila_admissao_tickets_usados(usado_em);
@@ -0,0 +1,12 @@
+-- ===========================================
+-- V32__widen_pagamentos_para_conciliar_index.sql
+-- A conciliação também percorre os PIX expirados localmente cujo cancelamento no
+-- Mercado Pago ainda não foi confirmado
+-- ===========================================
+
+CREATE INDEX IF NOT EXISTS idx_pagamentos_para_conciliar
+    ON pagamentos(created_at, id)
+    WHERE status IN ('PENDENTE', 'PROCESSANDO')
+       OR (status = 'EXPIRADO' AND metodo_pagamento = 'PIX' AND cancelamento_confirmado_em IS NULL);
+
+DROP INDEX IF EXISTS idx_pagamentos_em_aberto;
@@ -0,0 +1,172 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.service.TarefaAgendada.Particao;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AgendadorServiceTest {
+
+    private TravaDistribuidaService travaDistribuidaService;
+    private SimpleMeterRegistry meterRegistry;
+    private final List<Integer> particoesExecutadas = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        travaDistribuidaService = mock(TravaDistribuidaService.class);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void disparar_TravasLivres_ExecutaCadaParticaoUmaVez() {
+        // Given
+        when(travaDistribuidaService.adquirir(anyString(), any())).thenReturn(true);
+        AgendadorService agendador = criar(tarefa(3, false), 4);
+
+        // When
+        agendador.disparar();
+
+        // Then
+        assertEquals(List.of(0, 1, 2), particoesExecutadas.stream().sorted().toList());
+        verify(travaDistribuidaService, times(2)).adquirir(eq("agendador:teste:0/3"), any());
+        assertEquals(3, meterRegistry.get("tourapp.agendador.execucoes").tag("resultado", "sucesso").counter().count());
+    }
+
+    @Test
+    void disparar_AntesDoIntervalo_NaoRepete() {
+        // Given
+        when(travaDistribuidaService.adquirir(anyString(), any())).thenReturn(true);
+        AgendadorService agendador = criar(tarefa(1, false), 1);
+
+        // When
+        agendador.disparar();
+        agendador.disparar();
+
+        // Then
+        assertEquals(1, particoesExecutadas.size());
+    }
+
+    @Test
+    void disparar_ParticaoTravadaPorOutroNo_ExecutaSoAsLivres() {
+        // Given
+        when(travaDistribuidaService.adquirir(anyString(), any())).thenReturn(true);
+        when(travaDistribuidaService.adquirir(eq("agendador:teste:1/2"), any())).thenReturn(false);
+        AgendadorService agendador = criar(tarefa(2, false), 4);
+
+        // When
+        agendador.disparar();
+
+        // Then
+        assertEquals(List.of(0), particoesExecutadas);
+    }
+
+    @Test
+    void disparar_FalhaNaTarefa_ContaFalhaEMantemATrava() {
+        // Given
+        when(travaDistribuidaService.adquirir(anyString(), any())).thenReturn(true);
+        AgendadorService agendador = criar(tarefa(1, true), 1);
+
+        // When
+        agendador.disparar();
+
+        // Then
+        assertEquals(1, meterRegistry.get("tourapp.agendador.execucoes").tag("resultado", "falhou").counter().count());
+        // Renovada por um intervalo, não liberada: outro nó não repete a partição logo em seguida
+        verify(travaDistribuidaService).adquirir("agendador:teste:0/1", Duration.ofMinutes(1));
+        verify(travaDistribuidaService, never()).liberar(anyString());
+    }
+
+    @Test
+    void disparar_ExecucaoEmAndamento_RenovaATravaNoTick() {
+        // Given
+        when(travaDistribuidaService.adquirir(anyString(), any())).thenReturn(true);
+        AgendadorService[] agendador = new AgendadorService[1];
+        // Margem zero: a renovação fica devida já no primeiro tick durante a execução
+        agendador[0] = criar(tarefa(1, false, () -> agendador[0].disparar()), 1, 0);
+
+        // When
+        agendador[0].disparar();
+
+        // Then
+        assertEquals(List.of(0), particoesExecutadas);
+        // Trava inicial, renovação no tick durante a execução e renovação final
+        verify(travaDistribuidaService, times(3)).adquirir("agendador:teste:0/1", Duration.ofMinutes(1));
+    }
+
+    @Test
+    void disparar_SemExecucaoEmAndamento_NaoRenovaNoTick() {
+        // Given
+        when(travaDistribuidaService.adquirir(anyString(), any())).thenReturn(true);
+        AgendadorService agendador = criar(tarefa(1, false), 1);
+
+        // When
+        agendador.disparar();
+        agendador.disparar();
+
+        // Then
+        verify(travaDistribuidaService).adquirir("agendador:teste:0/1", Duration.ofMinutes(1).plusSeconds(300));
+        verify(travaDistribuidaService).adquirir("agendador:teste:0/1", Duration.ofMinutes(1));
+    }
+
+    @Test
+    void particao_DivideOsIdsSemSobreposicao() {
+        // Given
+        List<UUID> ids = IntStream.range(0, 1000).mapToObj(i -> UUID.randomUUID()).toList();
+        List<Particao> particoes = IntStream.range(0, 4).mapToObj(i -> new Particao(i, 4)).toList();
+
+        // When / Then
+        for (UUID id : ids) {
+            assertEquals(1, particoes.stream().filter(particao -> particao.contem(id)).count());
+        }
+        assertTrue(particoes.stream().allMatch(particao -> ids.stream().anyMatch(particao::contem)));
+    }
+
+    private AgendadorService criar(TarefaAgendada tarefa, int paralelismo) {
+        return criar(tarefa, paralelismo, 300);
+    }
+
+    private AgendadorService criar(TarefaAgendada tarefa, int paralelismo, long margemTravaSegundos) {
+        // Executor síncrono: a partição roda dentro de disparar()
+        return new AgendadorService(List.of(tarefa), travaDistribuidaService, meterRegistry, Runnable::run,
+                true, paralelismo, margemTravaSegundos);
+    }
+
+    private TarefaAgendada tarefa(int particoes, boolean falhar) {
+        return tarefa(particoes, falhar, () -> {});
+    }
+
+    private TarefaAgendada tarefa(int particoes, boolean falhar, Runnable durante) {
+        return new TarefaAgendada() {
+            @Override
+            public String getNome() { return "teste"; }
+
+            @Override
+            public Duration getIntervalo() { return Duration.ofMinutes(1); }
+
+            @Override
+            public int getParticoes() { return particoes; }
+
+            @Override
+            public int executar(Particao particao) {
+                particoesExecutadas.add(particao.indice());
+                durante.run();
+                if (falhar) {
+                    throw new IllegalStateException("Falha simulada");
+                }
+                return 1;
+            }
+        };
+    }
+}
@@ -0,0 +1,94 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.entity.ArtefatoPix;
+import br.com.tourapp.entity.Pagamento;
+import br.com.tourapp.exception.NotFoundException;
+import br.com.tourapp.repository.ArtefatoPixRepository;
+import br.com.tourapp.repository.ArtefatoPixRepository.ImagemPix;
+import br.com.tourapp.service.ArtefatoPixService.ImagemQrCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ArtefatoPixServiceTest {
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', 1, 2, 3};
+
+    private ArtefatoPixRepository artefatoPixRepository;
+    private ArtefatoPixService artefatoPixService;
+
+    @BeforeEach
+    void setUp() {
+        artefatoPixRepository = mock(ArtefatoPixRepository.class);
+        artefatoPixService = new ArtefatoPixService(artefatoPixRepository, new SimpleMeterRegistry(), 10);
+    }
+
+    @Test
+    void salvar_QrCodeBase64_GravaPngDecodificado() {
+        // Given
+        Pagamento pagamento = new Pagamento();
+
+        // When
+        artefatoPixService.salvar(pagamento, Base64.getEncoder().encodeToString(PNG));
+
+        // Then
+        ArgumentCaptor<ArtefatoPix> captor = ArgumentCaptor.forClass(ArtefatoPix.class);
+        verify(artefatoPixRepository).save(captor.capture());
+        assertArrayEquals(PNG, captor.getValue().getImagem());
+        assertEquals(64, captor.getValue().getEtag().length());
+        assertSame(pagamento, captor.getValue().getPagamento());
+    }
+
+    @Test
+    void salvar_SemImagem_NaoGrava() {
+        // When
+        artefatoPixService.salvar(new Pagamento(), null);
+
+        // Then
+        verifyNoInteractions(artefatoPixRepository);
+    }
+
+    @Test
+    void obterImagem_LeiturasRepetidas_ConsultaBancoUmaVez() {
+        // Given
+        UUID pagamentoId = UUID.randomUUID();
+        UUID clienteId = UUID.randomUUID();
+        when(artefatoPixRepository.findImagemByPagamentoId(pagamentoId)).thenReturn(Optional.of(imagem(clienteId)));
+
+        // When
+        ImagemQrCode primeira = artefatoPixService.obterImagem(pagamentoId, clienteId);
+        ImagemQrCode segunda = artefatoPixService.obterImagem(pagamentoId, clienteId);
+
+        // Then
+        verify(artefatoPixRepository, times(1)).findImagemByPagamentoId(pagamentoId);
+        assertArrayEquals(PNG, segunda.png());
+        assertEquals(primeira.etag(), segunda.etag());
+    }
+
+    @Test
+    void obterImagem_PagamentoDeOutroCliente_RetornaNaoEncontrado() {
+        // Given
+        UUID pagamentoId = UUID.randomUUID();
+        when(artefatoPixRepository.findImagemByPagamentoId(pagamentoId))
+                .thenReturn(Optional.of(imagem(UUID.randomUUID())));
+
+        // When / Then
+        assertThrows(NotFoundException.class, () -> artefatoPixService.obterImagem(pagamentoId, UUID.randomUUID()));
+    }
+
+    private static ImagemPix imagem(UUID clienteId) {
+        return new ImagemPix() {
+            @Override public byte[] getImagem() { return PNG; }
+            @Override public String getEtag() { return "abc123"; }
+            @Override public UUID getClienteId() { return clienteId; }
+        };
+    }
+}
@@ -0,0 +1,157 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.dto.response.CaixaNotificacoesResponse;
+import br.com.tourapp.entity.CaixaNotificacao;
+import br.com.tourapp.enums.TipoNotificacao;
+import br.com.tourapp.exception.BusinessException;
+import br.com.tourapp.repository.CaixaNotificacaoRepository;
+import br.com.tourapp.repository.NotificacaoRepository;
+import br.com.tourapp.repository.NotificacaoRepository.ItemCaixaNotificacao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CaixaNotificacaoServiceTest {
+
+    private final UUID userId = UUID.randomUUID();
+    private final LocalDateTime agora = LocalDateTime.now();
+
+    private NotificacaoRepository notificacaoRepository;
+    private CaixaNotificacaoRepository caixaRepository;
+    private CaixaNotificacaoService caixaService;
+
+    @BeforeEach
+    void setUp() {
+        notificacaoRepository = mock(NotificacaoRepository.class);
+        caixaRepository = mock(CaixaNotificacaoRepository.class);
+        caixaService = new CaixaNotificacaoService(notificacaoRepository, caixaRepository, mock(JdbcTemplate.class));
+    }
+
+    @Test
+    void listar_MaisItensQueAPagina_DevolveCursorDoUltimoItem() {
+        // Given
+        List<ItemCaixaNotificacao> itens = List.of(
+                item(UUID.randomUUID(), agora.minusMinutes(1)),
+                item(UUID.randomUUID(), agora.minusMinutes(2)),
+                item(UUID.randomUUID(), agora.minusMinutes(3)));
+        when(notificacaoRepository.findCaixaDoUsuario(eq(userId), any(), any(), any())).thenReturn(itens);
+        when(caixaRepository.findByUserId(userId)).thenReturn(Optional.of(caixa(5, null)));
+        when(caixaRepository.findLidas(eq(userId), any())).thenReturn(List.of(itens.get(0).getId()));
+
+        // When
+        CaixaNotificacoesResponse response = caixaService.listar(userId, null, 2);
+
+        // Then
+        assertEquals(2, response.getItens().size());
+        assertTrue(response.getItens().get(0).getLida());
+        assertFalse(response.getItens().get(1).getLida());
+        assertEquals(5, response.getNaoLidas());
+        CursorKeyset cursor = CursorKeyset.decodificar(response.getProximoCursor());
+        assertEquals(itens.get(1).getId(), cursor.id());
+        assertEquals(itens.get(1).getEnviadaEm(), cursor.instante());
+        verify(notificacaoRepository).findCaixaDoUsuario(eq(userId), any(), any(),
+                argThat((Pageable pageable) -> pageable.getPageSize() == 3));
+    }
+
+    @Test
+    void listar_UltimaPagina_SemCursorEMarcaLidasAteAMarca() {
+        // Given
+        ItemCaixaNotificacao antiga = item(UUID.randomUUID(), agora.minusDays(2));
+        ItemCaixaNotificacao recente = item(UUID.randomUUID(), agora.minusMinutes(1));
+        CursorKeyset cursor = new CursorKeyset(agora, UUID.randomUUID());
+        when(notificacaoRepository.findCaixaDoUsuario(userId, cursor.instante(), cursor.id(), Pageable.ofSize(21)))
+                .thenReturn(List.of(recente, antiga));
+        when(caixaRepository.findByUserId(userId)).thenReturn(Optional.of(caixa(1, agora.minusDays(1))));
+
+        // When
+        CaixaNotificacoesResponse response = caixaService.listar(userId,
+                CaixaNotificacaoService.codificar(item(cursor.id(), cursor.instante())), 20);
+
+        // Then
+        assertNull(response.getProximoCursor());
+        assertFalse(response.getItens().get(0).getLida());
+        assertTrue(response.getItens().get(1).getLida());
+    }
+
+    @Test
+    void listar_CursorInvalido_LancaBusinessException() {
+        assertThrows(BusinessException.class, () -> caixaService.listar(userId, "nao-e-um-cursor", 20));
+    }
+
+    @Test
+    void marcarComoLida_PrimeiraLeitura_DescontaDoContador() {
+        // Given
+        UUID notificacaoId = UUID.randomUUID();
+        when(notificacaoRepository.findNaCaixaDoUsuario(userId, notificacaoId))
+                .thenReturn(Optional.of(item(notificacaoId, agora.minusMinutes(5))));
+        when(caixaRepository.findByUserId(userId)).thenReturn(Optional.of(caixa(3, agora.minusDays(1))));
+        when(caixaRepository.registrarLeitura(eq(userId), eq(notificacaoId), any())).thenReturn(1, 0);
+
+        // When
+        caixaService.marcarComoLida(userId, notificacaoId);
+        caixaService.marcarComoLida(userId, notificacaoId);
+
+        // Then
+        verify(caixaRepository, times(1)).decrementarNaoLidas(eq(userId), any());
+    }
+
+    @Test
+    void marcarComoLida_AnteriorAMarca_NaoRegistraLeitura() {
+        // Given
+        UUID notificacaoId = UUID.randomUUID();
+        when(notificacaoRepository.findNaCaixaDoUsuario(userId, notificacaoId))
+                .thenReturn(Optional.of(item(notificacaoId, agora.minusDays(2))));
+        when(caixaRepository.findByUserId(userId)).thenReturn(Optional.of(caixa(0, agora.minusDays(1))));
+
+        // When
+        caixaService.marcarComoLida(userId, notificacaoId);
+
+        // Then
+        verify(caixaRepository, never()).registrarLeitura(any(), any(), any());
+        verify(caixaRepository, never()).decrementarNaoLidas(any(), any());
+    }
+
+    private CaixaNotificacao caixa(int naoLidas, LocalDateTime lidasAte) {
+        CaixaNotificacao caixa = new CaixaNotificacao();
+        caixa.setUserId(userId);
+        caixa.setNaoLidas(naoLidas);
+        caixa.setLidasAte(lidasAte);
+        return caixa;
+    }
+
+    private ItemCaixaNotificacao item(UUID id, LocalDateTime enviadaEm) {
+        return new ItemCaixaNotificacao() {
+            @Override
+            public UUID getId() { return id; }
+
+            @Override
+            public String getTitulo() { return "Aviso importante"; }
+
+            @Override
+            public String getMensagem() { return "A saída mudou para as 7h"; }
+
+            @Override
+            public TipoNotificacao getTipo() { return TipoNotificacao.INFO; }
+
+            @Override
+            public LocalDateTime getEnviadaEm() { return enviadaEm; }
+
+            @Override
+            public UUID getExcursaoId() { return null; }
+
+            @Override
+            public String getTituloExcursao() { return null; }
+        };
+    }
+}
@@ -0,0 +1,132 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.entity.Inscricao;
+import br.com.tourapp.entity.Pagamento;
+import br.com.tourapp.enums.StatusPagamento;
+import br.com.tourapp.exception.NotFoundException;
+import br.com.tourapp.repository.InscricaoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CanalStatusPagamentoServiceTest {
+
+    private InscricaoRepository inscricaoRepository;
+    private JdbcTemplate jdbcTemplate;
+    private CanalStatusPagamentoService canalStatusPagamento;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UUID clienteId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        inscricaoRepository = mock(InscricaoRepository.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+
+        // Fora do PostgreSQL a entrega é local, sem LISTEN/NOTIFY
+        canalStatusPagamento = new CanalStatusPagamentoService(inscricaoRepository, jdbcTemplate, new ObjectMapper(),
+                meterRegistry, "jdbc:h2:mem:teste", "sa", "", 60_000);
+        canalStatusPagamento.iniciar();
+    }
+
+    @AfterEach
+    void tearDown() {
+        canalStatusPagamento.encerrar();
+    }
+
+    @Test
+    void assinar_InscricaoDeOutroCliente_NaoEncontrada() {
+        // Given
+        when(inscricaoRepository.findByIdAndClienteId(any(), any())).thenReturn(Optional.empty());
+
+        // When / Then
+        assertThrows(NotFoundException.class, () -> canalStatusPagamento.assinar(UUID.randomUUID(), clienteId));
+        assertEquals(0, canalStatusPagamento.getConexoesAbertas());
+    }
+
+    @Test
+    void assinar_EnviaStatusAtual() {
+        // Given
+        Inscricao inscricao = criarInscricao(null);
+
+        // When
+        canalStatusPagamento.assinar(inscricao.getId(), clienteId);
+
+        // Then
+        assertEquals(1, canalStatusPagamento.getConexoesAbertas());
+        assertEquals(1, eventosEnviados());
+    }
+
+    @Test
+    void publicar_EntregaSoAoCanalDaInscricao() throws Exception {
+        // Given
+        Inscricao inscricao = criarInscricao(null);
+        Inscricao outra = criarInscricao(null);
+        canalStatusPagamento.assinar(inscricao.getId(), clienteId);
+        canalStatusPagamento.assinar(outra.getId(), clienteId);
+
+        // When
+        canalStatusPagamento.publicar(criarPagamento(inscricao, null, StatusPagamento.APROVADO));
+
+        // Then
+        aguardarEventos(3);
+        Thread.sleep(100);
+        assertEquals(3, eventosEnviados());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void publicar_PagamentoDeGrupo_EntregaAQualquerInscricaoDoGrupo() throws Exception {
+        // Given
+        UUID grupoId = UUID.randomUUID();
+        Inscricao principal = criarInscricao(grupoId);
+        Inscricao acompanhante = criarInscricao(grupoId);
+        canalStatusPagamento.assinar(acompanhante.getId(), clienteId);
+
+        // When
+        canalStatusPagamento.publicar(criarPagamento(principal, grupoId, StatusPagamento.APROVADO));
+
+        // Then
+        aguardarEventos(2);
+        assertEquals(2, eventosEnviados());
+    }
+
+    private Inscricao criarInscricao(UUID grupoId) {
+        Inscricao inscricao = new Inscricao();
+        inscricao.setId(UUID.randomUUID());
+        inscricao.setGrupoId(grupoId);
+        inscricao.setStatusPagamento(StatusPagamento.PENDENTE);
+        when(inscricaoRepository.findByIdAndClienteId(inscricao.getId(), clienteId)).thenReturn(Optional.of(inscricao));
+        return inscricao;
+    }
+
+    private Pagamento criarPagamento(Inscricao inscricao, UUID grupoId, StatusPagamento status) {
+        Pagamento pagamento = new Pagamento();
+        pagamento.setId(UUID.randomUUID());
+        pagamento.setInscricao(inscricao);
+        pagamento.setGrupoId(grupoId);
+        pagamento.setStatus(status);
+        return pagamento;
+    }
+
+    private double eventosEnviados() {
+        return meterRegistry.get("tourapp.pagamentos.sse.eventos").tag("resultado", "enviado").counter().count();
+    }
+
+    // A entrega roda em virtual threads, fora da thread do teste
+    private void aguardarEventos(int esperados) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 2000;
+        while (eventosEnviados() < esperados && System.currentTimeMillis() < limite) {
+            Thread.sleep(10);
+        }
+    }
+}
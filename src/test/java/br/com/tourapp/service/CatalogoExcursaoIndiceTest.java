@@ -0,0 +1,181 @@
+package br.com.tourapp.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Confere no PostgreSQL que o catálogo é lido só do índice de V29 em qualquer página: a consulta de
+ * ExcursaoRepository.findCatalogo vira um Index Only Scan em idx_excursoes_catalogo, sem Sort e sem
+ * ir à tabela, e a página 500 lê tantos blocos quanto a página 1.
+ *
+ * Precisa de um PostgreSQL de verdade, então só roda com TEST_POSTGRES_URL definida (ex.:
+ * jdbc:postgresql://localhost:5432/tourapp), com TEST_POSTGRES_USER e TEST_POSTGRES_PASSWORD. Os dados
+ * ficam num schema temporário, removido no fim.
+ */
+@EnabledIfEnvironmentVariable(named = "TEST_POSTGRES_URL", matches = ".+")
+class CatalogoExcursaoIndiceTest {
+
+    private static final int TAMANHO_PAGINA = 20;
+    private static final int PAGINAS = 500;
+    // Uma em cada cinco fica em rascunho, fora do índice parcial
+    private static final int EXCURSOES = PAGINAS * TAMANHO_PAGINA * 5 / 4 + 100;
+
+    // SQL que o Hibernate gera para findCatalogo, com o LIMIT do Pageable
+    private static final String CONSULTA_CATALOGO = "SELECT e.id, e.titulo, e.data_saida, e.data_retorno, e.preco, " +
+            "e.vagas_total, e.vagas_ocupadas, e.local_saida, e.local_destino " +
+            "FROM excursoes e WHERE e.status = 'ATIVA' AND e.data_saida > ? " +
+            "AND (e.data_saida > ? OR (e.data_saida = ? AND e.id > ?)) " +
+            "ORDER BY e.data_saida, e.id LIMIT " + TAMANHO_PAGINA;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Connection conexao;
+    private String schema;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        conexao = DriverManager.getConnection(System.getenv("TEST_POSTGRES_URL"),
+                System.getenv("TEST_POSTGRES_USER"), System.getenv("TEST_POSTGRES_PASSWORD"));
+        schema = "catalogo_teste_" + UUID.randomUUID().toString().replace("-", "");
+
+        try (Statement statement = conexao.createStatement()) {
+            statement.execute("CREATE SCHEMA " + schema);
+            statement.execute("SET search_path TO " + schema);
+            // Colunas de V3 lidas pelo catálogo, mais a descrição para a linha não caber no índice
+            statement.execute("CREATE TABLE excursoes (" +
+                    "id UUID PRIMARY KEY, " +
+                    "titulo VARCHAR(200) NOT NULL, " +
+                    "descricao TEXT NOT NULL, " +
+                    "data_saida TIMESTAMP NOT NULL, " +
+                    "data_retorno TIMESTAMP, " +
+                    "preco DECIMAL(10,2) NOT NULL, " +
+                    "vagas_total INTEGER NOT NULL, " +
+                    "vagas_ocupadas INTEGER NOT NULL DEFAULT 0, " +
+                    "local_saida VARCHAR(300), " +
+                    "local_destino VARCHAR(300), " +
+                    "status VARCHAR(20) NOT NULL DEFAULT 'RASCUNHO')");
+            statement.execute(lerMigracao("V29__create_catalogo_excursoes_index.sql"));
+
+            // Três excursões por horário de saída, para exercitar o desempate por id
+            statement.execute("INSERT INTO excursoes (id, titulo, descricao, data_saida, data_retorno, preco, " +
+                    "vagas_total, vagas_ocupadas, local_saida, local_destino, status) " +
+                    "SELECT gen_random_uuid(), 'Excursão ' || n, repeat('Roteiro da excursão. ', 50), " +
+                    "date_trunc('hour', now()) + make_interval(hours => 1 + n / 3), " +
+                    "date_trunc('hour', now()) + make_interval(hours => 49 + n / 3), " +
+                    "150.00, 40, 10, 'Rodoviária', 'Serra', " +
+                    "CASE WHEN n % 5 = 0 THEN 'RASCUNHO' ELSE 'ATIVA' END " +
+                    "FROM generate_series(1, " + EXCURSOES + ") AS n");
+            // O Index Only Scan só dispensa a tabela com o mapa de visibilidade em dia
+            statement.execute("VACUUM ANALYZE excursoes");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (conexao != null) {
+            try (Statement statement = conexao.createStatement()) {
+                statement.execute("DROP SCHEMA IF EXISTS " + schema + " CASCADE");
+            } finally {
+                conexao.close();
+            }
+        }
+    }
+
+    @Test
+    void findCatalogo_PrimeiraEUltimaPagina_LeemSoDoIndiceDoCatalogo() throws Exception {
+        // Given
+        LocalDateTime agora = LocalDateTime.now();
+        Object[] ultimoDaPagina499 = posicao(agora, (PAGINAS - 1) * TAMANHO_PAGINA - 1);
+
+        // When
+        JsonNode primeira = explicar(agora, agora, new UUID(0L, 0L));
+        JsonNode ultima = explicar(agora, (LocalDateTime) ultimoDaPagina499[0], (UUID) ultimoDaPagina499[1]);
+
+        // Then
+        for (JsonNode plano : List.of(primeira, ultima)) {
+            List<JsonNode> nos = nos(plano);
+            List<String> tipos = nos.stream().map(no -> no.path("Node Type").asText()).toList();
+            assertTrue(tipos.contains("Index Only Scan"), "Plano: " + plano);
+            assertFalse(tipos.contains("Sort"), "Plano: " + plano);
+            assertFalse(tipos.contains("Seq Scan"), "Plano: " + plano);
+
+            JsonNode varredura = nos.stream()
+                    .filter(no -> "Index Only Scan".equals(no.path("Node Type").asText()))
+                    .findFirst().orElseThrow();
+            assertEquals("idx_excursoes_catalogo", varredura.path("Index Name").asText(), "Plano: " + plano);
+            assertEquals(0, varredura.path("Heap Fetches").asLong(), "Plano: " + plano);
+            assertEquals(TAMANHO_PAGINA, plano.path("Actual Rows").asLong(), "Plano: " + plano);
+        }
+
+        // A página 500 desce a árvore como a página 1, em vez de percorrer as anteriores como o OFFSET
+        long blocosPrimeira = blocos(primeira);
+        long blocosUltima = blocos(ultima);
+        assertTrue(blocosUltima <= blocosPrimeira + 2,
+                "Blocos lidos: página 1 = " + blocosPrimeira + ", página " + PAGINAS + " = " + blocosUltima);
+    }
+
+    private JsonNode explicar(LocalDateTime agora, LocalDateTime cursorSaida, UUID cursorId) throws Exception {
+        try (PreparedStatement statement = conexao.prepareStatement(
+                "EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) " + CONSULTA_CATALOGO)) {
+            statement.setObject(1, agora);
+            statement.setObject(2, cursorSaida);
+            statement.setObject(3, cursorSaida);
+            statement.setObject(4, cursorId);
+            try (ResultSet resultado = statement.executeQuery()) {
+                assertTrue(resultado.next());
+                return objectMapper.readTree(resultado.getString(1)).get(0).get("Plan");
+            }
+        }
+    }
+
+    // (data_saida, id) da excursão na posição informada do catálogo
+    private Object[] posicao(LocalDateTime agora, int indice) throws Exception {
+        try (PreparedStatement statement = conexao.prepareStatement("SELECT data_saida, id FROM excursoes " +
+                "WHERE status = 'ATIVA' AND data_saida > ? ORDER BY data_saida, id OFFSET ? LIMIT 1")) {
+            statement.setObject(1, agora);
+            statement.setInt(2, indice);
+            try (ResultSet resultado = statement.executeQuery()) {
+                assertTrue(resultado.next(), "Catálogo com menos de " + (indice + 1) + " excursões");
+                return new Object[]{resultado.getObject(1, LocalDateTime.class), resultado.getObject(2, UUID.class)};
+            }
+        }
+    }
+
+    private static List<JsonNode> nos(JsonNode plano) {
+        List<JsonNode> nos = new ArrayList<>();
+        nos.add(plano);
+        for (JsonNode filho : plano.path("Plans")) {
+            nos.addAll(nos(filho));
+        }
+        return nos;
+    }
+
+    private static long blocos(JsonNode plano) {
+        return plano.path("Shared Hit Blocks").asLong() + plano.path("Shared Read Blocks").asLong();
+    }
+
+    private static String lerMigracao(String arquivo) throws Exception {
+        try (InputStream entrada = CatalogoExcursaoIndiceTest.class.getResourceAsStream("/db/migration/" + arquivo)) {
+            assertNotNull(entrada, "Migração não encontrada: " + arquivo);
+            return new String(entrada.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.dto.response.CatalogoExcursoesResponse;
+import br.com.tourapp.dto.response.CatalogoExcursoesResponse.ItemCatalogo;
+import br.com.tourapp.exception.BusinessException;
+import br.com.tourapp.repository.ExcursaoRepository;
+import br.com.tourapp.repository.ExcursaoRepository.ItemCatalogoExcursao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CatalogoExcursaoServiceTest {
+
+    private static final int TAMANHO_PAGINA = 20;
+    private static final int PAGINAS = 500;
+
+    private static final Comparator<ItemCatalogoExcursao> ORDEM_CATALOGO =
+            Comparator.comparing(ItemCatalogoExcursao::getDataSaida).thenComparing(ItemCatalogoExcursao::getId);
+
+    private ExcursaoRepository excursaoRepository;
+    private CatalogoExcursaoService catalogoService;
+
+    // Excursões ativas na ordem do índice de V29
+    private List<ItemCatalogoExcursao> excursoes;
+
+    @BeforeEach
+    void setUp() {
+        excursaoRepository = mock(ExcursaoRepository.class);
+        catalogoService = new CatalogoExcursaoService(excursaoRepository);
+
+        // Três excursões por horário de saída, para exercitar o desempate por id
+        LocalDateTime base = LocalDateTime.now().plusDays(1).withNano(0);
+        excursoes = new ArrayList<>();
+        for (int i = 0; i < PAGINAS * TAMANHO_PAGINA + 5; i++) {
+            excursoes.add(item(UUID.randomUUID(), base.plusHours(i / 3)));
+        }
+        excursoes.sort(ORDEM_CATALOGO);
+
+        when(excursaoRepository.findCatalogo(any(), any(), any(), any())).thenAnswer(invocation -> buscarPorCursor(
+                invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2),
+                invocation.<Pageable>getArgument(3).getPageSize()));
+    }
+
+    @Test
+    void listar_PercorrendoPeloCursor_VisitaTodasAsExcursoesUmaVezEmOrdem() {
+        // When
+        List<ItemCatalogo> visitados = new ArrayList<>();
+        String cursor = null;
+        int paginas = 0;
+        do {
+            CatalogoExcursoesResponse pagina = catalogoService.listar(cursor, TAMANHO_PAGINA);
+            visitados.addAll(pagina.getItens());
+            cursor = pagina.getProximoCursor();
+            paginas++;
+        } while (cursor != null);
+
+        // Then
+        assertEquals(PAGINAS + 1, paginas);
+        assertEquals(excursoes.size(), visitados.size());
+        assertEquals(excursoes.stream().map(ItemCatalogoExcursao::getId).toList(),
+                visitados.stream().map(ItemCatalogo::getId).toList());
+        assertEquals(excursoes.size(), new HashSet<>(visitados.stream().map(ItemCatalogo::getId).toList()).size());
+        assertEquals(30, visitados.get(0).getVagasDisponiveis());
+    }
+
+    @Test
+    void listar_CursorNoMeioDeUmHorario_ContinuaNoMesmoHorarioPeloId() {
+        // Given
+        ItemCatalogoExcursao primeira = excursoes.get(0);
+
+        // When
+        CursorKeyset cursor = CursorKeyset.decodificar(CatalogoExcursaoService.codificar(primeira));
+        CatalogoExcursoesResponse pagina = catalogoService.listar(CatalogoExcursaoService.codificar(primeira), 2);
+
+        // Then
+        assertEquals(primeira.getDataSaida(), cursor.instante());
+        assertEquals(primeira.getId(), cursor.id());
+        assertEquals(List.of(excursoes.get(1).getId(), excursoes.get(2).getId()),
+                pagina.getItens().stream().map(ItemCatalogo::getId).toList());
+        assertNotNull(pagina.getProximoCursor());
+    }
+
+    @Test
+    void listar_CursorInvalido_LancaExcecao() {
+        assertThrows(BusinessException.class, () -> catalogoService.listar("nao-e-um-cursor", TAMANHO_PAGINA));
+        verify(excursaoRepository, never()).findCatalogo(any(), any(), any(), any());
+    }
+
+    @Test
+    void listar_TamanhoAcimaDoMaximo_LimitaA100() {
+        // When
+        CatalogoExcursoesResponse pagina = catalogoService.listar(null, 10_000);
+
+        // Then
+        assertEquals(100, pagina.getItens().size());
+        assertNotNull(pagina.getProximoCursor());
+    }
+
+    private List<ItemCatalogoExcursao> buscarPorCursor(LocalDateTime agora, LocalDateTime cursorSaida, UUID cursorId,
+                                                       int limite) {
+        // Primeira posição depois de (cursorSaida, cursorId)
+        int inicio = 0;
+        int fim = excursoes.size();
+        while (inicio < fim) {
+            int meio = (inicio + fim) >>> 1;
+            ItemCatalogoExcursao item = excursoes.get(meio);
+            int comparacao = item.getDataSaida().compareTo(cursorSaida);
+            if (comparacao < 0 || (comparacao == 0 && item.getId().compareTo(cursorId) <= 0)) {
+                inicio = meio + 1;
+            } else {
+                fim = meio;
+            }
+        }
+
+        List<ItemCatalogoExcursao> itens = new ArrayList<>(limite);
+        for (int i = inicio; i < excursoes.size() && itens.size() < limite; i++) {
+            if (excursoes.get(i).getDataSaida().isAfter(agora)) {
+                itens.add(excursoes.get(i));
+            }
+        }
+        return itens;
+    }
+
+    private static ItemCatalogoExcursao item(UUID id, LocalDateTime dataSaida) {
+        return new ItemCatalogoExcursao() {
+            public UUID getId() { return id; }
+            public String getTitulo() { return "Excursão " + id; }
+            public LocalDateTime getDataSaida() { return dataSaida; }
+            public LocalDateTime getDataRetorno() { return dataSaida.plusDays(2); }
+            public BigDecimal getPreco() { return new BigDecimal("150.00"); }
+            public Integer getVagasTotal() { return 40; }
+            public Integer getVagasOcupadas() { return 10; }
+            public String getLocalSaida() { return "Rodoviária"; }
+            public String getLocalDestino() { return "Serra"; }
+        };
+    }
+}
@@ -0,0 +1,115 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.enums.TipoNotificacao;
+import br.com.tourapp.exception.BusinessException;
+import br.com.tourapp.repository.NotificacaoRepository;
+import br.com.tourapp.service.CotaNotificacaoService.Cota;
+import br.com.tourapp.service.CotaNotificacaoService.Escopo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CotaNotificacaoServiceTest {
+
+    private static final Duration JANELA = Duration.ofHours(24);
+
+    private NotificacaoRepository notificacaoRepository;
+    private CotaNotificacaoService cotaService;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final UUID organizadorId = UUID.randomUUID();
+    private final UUID companiaId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        notificacaoRepository = mock(NotificacaoRepository.class);
+        when(notificacaoRepository.findCriacoesRecentesDoOrganizador(any(), any(), any(), any())).thenReturn(List.of());
+        when(notificacaoRepository.findCriacoesRecentesDaCompania(any(), any(), any(), any())).thenReturn(List.of());
+
+        cotaService = new CotaNotificacaoService(notificacaoRepository, meterRegistry, 100, 60, Map.of(
+                TipoNotificacao.URGENTE, new Cota(Escopo.ORGANIZADOR, 3, JANELA),
+                TipoNotificacao.PROMOCAO, new Cota(Escopo.COMPANIA, 2, JANELA),
+                TipoNotificacao.INFO, new Cota(Escopo.COMPANIA, 0, JANELA)));
+    }
+
+    @Test
+    void consumir_UrgenteComCriacoesNaJanela_RecusaAoPassarDoLimite() {
+        // Given
+        LocalDateTime agora = LocalDateTime.now();
+        when(notificacaoRepository.findCriacoesRecentesDoOrganizador(eq(organizadorId), eq(TipoNotificacao.URGENTE), any(), any()))
+                .thenReturn(List.of(agora.minusHours(1), agora.minusHours(20)));
+
+        // When
+        cotaService.consumir(TipoNotificacao.URGENTE, organizadorId, companiaId);
+
+        // Then
+        assertThrows(BusinessException.class,
+                () -> cotaService.consumir(TipoNotificacao.URGENTE, organizadorId, companiaId));
+        verify(notificacaoRepository, times(1)).findCriacoesRecentesDoOrganizador(any(), any(), any(), any());
+        assertEquals(1, meterRegistry.get("tourapp.notificacoes.cotas").tag("resultado", "recusada").counter().count());
+    }
+
+    @Test
+    void consumir_CotaPorCompania_NaoAfetaOutraCompania() {
+        // Given
+        UUID outraCompania = UUID.randomUUID();
+        cotaService.consumir(TipoNotificacao.PROMOCAO, organizadorId, companiaId);
+        cotaService.consumir(TipoNotificacao.PROMOCAO, UUID.randomUUID(), companiaId);
+
+        // When
+        cotaService.consumir(TipoNotificacao.PROMOCAO, organizadorId, outraCompania);
+
+        // Then
+        assertThrows(BusinessException.class,
+                () -> cotaService.consumir(TipoNotificacao.PROMOCAO, organizadorId, companiaId));
+        verify(notificacaoRepository, never()).findCriacoesRecentesDoOrganizador(any(), any(), any(), any());
+    }
+
+    @Test
+    void consumir_TipoSemCota_NaoConsultaBanco() {
+        // When
+        for (int i = 0; i < 10; i++) {
+            cotaService.consumir(TipoNotificacao.INFO, organizadorId, companiaId);
+            cotaService.consumir(TipoNotificacao.LEMBRETE, organizadorId, companiaId);
+        }
+
+        // Then
+        verifyNoInteractions(notificacaoRepository);
+    }
+
+    @Test
+    void consumir_TransacaoDesfeita_DevolveACota() {
+        // Given
+        cotaService.consumir(TipoNotificacao.URGENTE, organizadorId, companiaId);
+        cotaService.consumir(TipoNotificacao.URGENTE, organizadorId, companiaId);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cotaService.consumir(TipoNotificacao.URGENTE, organizadorId, companiaId);
+
+            // When
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sincronizacao -> sincronizacao.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Then
+        assertDoesNotThrow(() -> cotaService.consumir(TipoNotificacao.URGENTE, organizadorId, companiaId));
+        assertThrows(BusinessException.class,
+                () -> cotaService.consumir(TipoNotificacao.URGENTE, organizadorId, companiaId));
+    }
+}
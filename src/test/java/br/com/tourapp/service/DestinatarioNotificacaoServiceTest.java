@@ -0,0 +1,168 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.entity.Excursao;
+import br.com.tourapp.entity.Notificacao;
+import br.com.tourapp.repository.UserRepository;
+import br.com.tourapp.repository.UserRepository.DestinatarioNotificacao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class DestinatarioNotificacaoServiceTest {
+
+    private static final int LOTE = 100;
+
+    // O PostgreSQL ordena UUID como bytes sem sinal; UUID.compareTo compara com sinal
+    private static final Comparator<UUID> COMO_POSTGRES = Comparator
+            .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    private UserRepository userRepository;
+    private DestinatarioNotificacaoService destinatarioService;
+    private List<UUID> usuarios;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        destinatarioService = new DestinatarioNotificacaoService(userRepository, LOTE);
+
+        usuarios = IntStream.range(0, 250).mapToObj(i -> UUID.randomUUID()).sorted(COMO_POSTGRES).toList();
+        when(userRepository.findDestinatariosAtivos(any(), any())).thenAnswer(invocation ->
+                paginar(invocation.getArgument(0), invocation.getArgument(1)));
+        when(userRepository.findDestinatariosDaExcursao(any(), any(), any())).thenAnswer(invocation ->
+                paginar(invocation.getArgument(1), invocation.getArgument(2)));
+        when(userRepository.findDestinatariosPorIds(any())).thenAnswer(invocation -> {
+            Collection<UUID> ids = invocation.getArgument(0);
+            return ids.stream().map(this::destinatario).toList();
+        });
+    }
+
+    @Test
+    void percorrer_EnviarParaTodos_LeEmBlocosPorKeyset() {
+        // Given
+        Notificacao notificacao = new Notificacao();
+        notificacao.setEnviarParaTodos(true);
+        List<Integer> tamanhos = new ArrayList<>();
+        List<UUID> lidos = new ArrayList<>();
+
+        // When
+        long total = destinatarioService.percorrer(notificacao, lote -> {
+            tamanhos.add(lote.size());
+            lote.forEach(destinatario -> lidos.add(destinatario.getId()));
+        });
+
+        // Then
+        assertEquals(250, total);
+        assertEquals(List.of(100, 100, 50), tamanhos);
+        assertEquals(usuarios, lidos);
+        verify(userRepository, times(3)).findDestinatariosAtivos(any(), any());
+    }
+
+    @Test
+    void percorrer_ComExcursao_UsaInscritosMesmoComEnviarParaTodos() {
+        // Given
+        Excursao excursao = new Excursao();
+        excursao.setId(UUID.randomUUID());
+        Notificacao notificacao = new Notificacao();
+        notificacao.setEnviarParaTodos(true);
+        notificacao.setExcursao(excursao);
+
+        // When
+        long total = destinatarioService.percorrer(notificacao, lote -> {});
+
+        // Then
+        assertEquals(250, total);
+        verify(userRepository, never()).findDestinatariosAtivos(any(), any());
+    }
+
+    @Test
+    void percorrer_ClientesAlvo_RemoveRepetidosEDivideEmBlocos() {
+        // Given
+        List<UUID> alvo = new ArrayList<>(usuarios.subList(0, 150));
+        alvo.addAll(usuarios.subList(0, 10));
+        Notificacao notificacao = new Notificacao();
+        notificacao.setEnviarParaTodos(false);
+        notificacao.setClientesAlvo(alvo);
+
+        // When
+        long total = destinatarioService.percorrer(notificacao, lote -> assertTrue(lote.size() <= LOTE));
+
+        // Then
+        assertEquals(150, total);
+        verify(userRepository, times(2)).findDestinatariosPorIds(any());
+    }
+
+    @Test
+    void contar_ComExcursao_ContaInscritosSemLerDestinatarios() {
+        // Given
+        Excursao excursao = new Excursao();
+        excursao.setId(UUID.randomUUID());
+        Notificacao notificacao = new Notificacao();
+        notificacao.setEnviarParaTodos(true);
+        notificacao.setExcursao(excursao);
+        when(userRepository.countDestinatariosDaExcursao(excursao.getId())).thenReturn(42L);
+
+        // When
+        long total = destinatarioService.contar(notificacao);
+
+        // Then
+        assertEquals(42, total);
+        verify(userRepository, never()).countDestinatariosAtivos();
+        verify(userRepository, never()).findDestinatariosDaExcursao(any(), any(), any());
+    }
+
+    @Test
+    void contar_ClientesAlvo_RemoveRepetidosESomaOsBlocos() {
+        // Given
+        List<UUID> alvo = new ArrayList<>(usuarios.subList(0, 150));
+        alvo.addAll(usuarios.subList(0, 10));
+        Notificacao notificacao = new Notificacao();
+        notificacao.setEnviarParaTodos(false);
+        notificacao.setClientesAlvo(alvo);
+        when(userRepository.countDestinatariosPorIds(any())).thenAnswer(invocation ->
+                (long) invocation.<Collection<UUID>>getArgument(0).size());
+
+        // When
+        long total = destinatarioService.contar(notificacao);
+
+        // Then
+        assertEquals(150, total);
+        verify(userRepository, times(2)).countDestinatariosPorIds(any());
+        verify(userRepository, never()).findDestinatariosPorIds(any());
+    }
+
+    private List<DestinatarioNotificacao> paginar(UUID ultimoId, Pageable pageable) {
+        return usuarios.stream()
+                .filter(id -> COMO_POSTGRES.compare(id, ultimoId) > 0)
+                .limit(pageable.getPageSize())
+                .map(this::destinatario)
+                .toList();
+    }
+
+    private DestinatarioNotificacao destinatario(UUID id) {
+        return new DestinatarioNotificacao() {
+            @Override
+            public UUID getId() { return id; }
+
+            @Override
+            public String getEmail() { return id + "@teste.com"; }
+
+            @Override
+            public String getPushToken() { return null; }
+
+            @Override
+            public Boolean getEmailNotifications() { return true; }
+        };
+    }
+}
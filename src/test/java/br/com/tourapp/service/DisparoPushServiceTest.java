@@ -0,0 +1,182 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.repository.UserRepository;
+import br.com.tourapp.service.DisparoPushService.ResultadoDisparo;
+import com.google.firebase.messaging.BatchResponse;
+import com.google.firebase.messaging.FirebaseMessagingException;
+import com.google.firebase.messaging.MessagingErrorCode;
+import com.google.firebase.messaging.SendResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class DisparoPushServiceTest {
+
+    private UserRepository userRepository;
+    private PlatformTransactionManager transactionManager;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // Resultado simulado do FCM por token; tokens sem entrada são entregues
+    private final Map<String, MessagingErrorCode> falhasPorToken = new ConcurrentHashMap<>();
+    private final List<Integer> tamanhosEnviados = new ArrayList<>();
+    private final AtomicInteger emAndamento = new AtomicInteger();
+    private final AtomicInteger maximoEmAndamento = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        when(userRepository.limparPushTokens(any(), any())).thenAnswer(invocation ->
+                ((Collection<?>) invocation.getArgument(0)).size());
+
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+    }
+
+    @Test
+    void enviar_MaisDe500Tokens_DivideEmLotesParalelosLimitados() {
+        // Given
+        DisparoPushService disparo = criar(simularFcm(), 2);
+
+        // When
+        ResultadoDisparo resultado = disparo.enviar(tokens(1200), "Titulo", "Mensagem");
+
+        // Then
+        assertEquals(1200, resultado.enviados());
+        assertEquals(List.of(200, 500, 500), tamanhosEnviados.stream().sorted().toList());
+        assertTrue(maximoEmAndamento.get() <= 2, "Paralelismo acima do limite: " + maximoEmAndamento.get());
+        assertEquals(3, meterRegistry.get("tourapp.push.lotes").tag("resultado", "sucesso").counter().count());
+    }
+
+    @Test
+    void enviar_TokensNaoRegistrados_SaoRemovidosEmLote() {
+        // Given: INVALID_ARGUMENT conta como token morto porque os demais tokens do lote receberam
+        falhasPorToken.put("token-3", MessagingErrorCode.UNREGISTERED);
+        falhasPorToken.put("token-7", MessagingErrorCode.INVALID_ARGUMENT);
+        DisparoPushService disparo = criar(simularFcm(), 2);
+
+        // When
+        ResultadoDisparo resultado = disparo.enviar(tokens(10), "Titulo", "Mensagem");
+
+        // Then
+        assertEquals(8, resultado.enviados());
+        assertEquals(0, resultado.falhas());
+        assertEquals(2, resultado.tokensRemovidos());
+        verify(userRepository, times(1)).limparPushTokens(argThat(removidos ->
+                removidos.size() == 2 && removidos.containsAll(List.of("token-3", "token-7"))), any());
+    }
+
+    @Test
+    void enviar_PayloadInvalidoParaTodosOsTokens_NaoRemoveTokens() {
+        // Given: o FCM recusa a mensagem em si, com INVALID_ARGUMENT em todos os tokens
+        tokens(10).forEach(token -> falhasPorToken.put(token, MessagingErrorCode.INVALID_ARGUMENT));
+        DisparoPushService disparo = criar(simularFcm(), 2);
+
+        // When
+        ResultadoDisparo resultado = disparo.enviar(tokens(10), "Titulo", "Mensagem");
+
+        // Then
+        assertEquals(0, resultado.enviados());
+        assertEquals(10, resultado.falhas());
+        assertEquals(0, resultado.tokensRemovidos());
+        verify(userRepository, never()).limparPushTokens(any(), any());
+    }
+
+    @Test
+    void enviarLote_FalhaTransitoria_RetentaSoOsTokensQueFalharam() throws Exception {
+        // Given
+        falhasPorToken.put("token-1", MessagingErrorCode.UNAVAILABLE);
+        DisparoPushService disparo = criar((tokens, titulo, mensagem) -> {
+            BatchResponse resposta = simularFcm().enviar(tokens, titulo, mensagem);
+            // Na segunda tentativa o FCM se recupera
+            falhasPorToken.remove("token-1");
+            return resposta;
+        }, 1);
+
+        // When
+        DisparoPushService.ResultadoLote resultado = disparo.enviarLote(tokens(3), "Titulo", "Mensagem");
+
+        // Then
+        assertEquals(3, resultado.enviados());
+        assertEquals(List.of(3, 1), tamanhosEnviados);
+    }
+
+    @Test
+    void enviarLote_FcmIndisponivelEmTodasAsTentativas_ContaFalha() throws Exception {
+        // Given
+        FirebaseMessagingException indisponivel = mock(FirebaseMessagingException.class);
+        when(indisponivel.getMessagingErrorCode()).thenReturn(MessagingErrorCode.UNAVAILABLE);
+        AtomicInteger chamadas = new AtomicInteger();
+        DisparoPushService disparo = criar((tokens, titulo, mensagem) -> {
+            chamadas.incrementAndGet();
+            throw indisponivel;
+        }, 1);
+
+        // When
+        DisparoPushService.ResultadoLote resultado = disparo.enviarLote(tokens(5), "Titulo", "Mensagem");
+
+        // Then
+        assertEquals(3, chamadas.get());
+        assertEquals(5, resultado.falhas());
+        assertEquals(1, meterRegistry.get("tourapp.push.lotes").tag("resultado", "falhou").counter().count());
+    }
+
+    private DisparoPushService criar(DisparoPushService.EnvioMulticast envio, int paralelismo) {
+        return new DisparoPushService(userRepository, transactionManager, meterRegistry, envio,
+                500, paralelismo, 3, 1);
+    }
+
+    /**
+     * Responde como o FCM: uma resposta por token, na mesma ordem.
+     */
+    private DisparoPushService.EnvioMulticast simularFcm() {
+        return (tokens, titulo, mensagem) -> {
+            int atual = emAndamento.incrementAndGet();
+            maximoEmAndamento.accumulateAndGet(atual, Math::max);
+            try {
+                Thread.sleep(20);
+                synchronized (tamanhosEnviados) {
+                    tamanhosEnviados.add(tokens.size());
+                }
+                List<SendResponse> respostas = tokens.stream().map(this::responder).toList();
+                BatchResponse resposta = mock(BatchResponse.class);
+                when(resposta.getResponses()).thenReturn(respostas);
+                return resposta;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } finally {
+                emAndamento.decrementAndGet();
+            }
+        };
+    }
+
+    private SendResponse responder(String token) {
+        SendResponse resposta = mock(SendResponse.class);
+        MessagingErrorCode erro = falhasPorToken.get(token);
+        when(resposta.isSuccessful()).thenReturn(erro == null);
+        if (erro != null) {
+            FirebaseMessagingException excecao = mock(FirebaseMessagingException.class);
+            when(excecao.getMessagingErrorCode()).thenReturn(erro);
+            when(resposta.getException()).thenReturn(excecao);
+        }
+        return resposta;
+    }
+
+    private List<String> tokens(int quantidade) {
+        return IntStream.range(0, quantidade).mapToObj(i -> "token-" + i).toList();
+    }
+}
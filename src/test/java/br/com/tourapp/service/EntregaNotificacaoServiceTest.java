@@ -0,0 +1,234 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.entity.EntregaNotificacao;
+import br.com.tourapp.entity.Notificacao;
+import br.com.tourapp.enums.CanalNotificacao;
+import br.com.tourapp.repository.EntregaNotificacaoRepository;
+import br.com.tourapp.repository.NotificacaoRepository;
+import br.com.tourapp.repository.UserRepository.DestinatarioNotificacao;
+import br.com.tourapp.service.DisparoPushService.ResultadoDisparo;
+import br.com.tourapp.service.EnvioEmailMassaService.EnvioEmMassa;
+import br.com.tourapp.service.EnvioEmailMassaService.ResultadoEnvio;
+import br.com.tourapp.service.EstatisticaNotificacaoService.Variacao;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class EntregaNotificacaoServiceTest {
+
+    private static final int MAX_TENTATIVAS = 3;
+
+    private EntregaNotificacaoRepository entregaRepository;
+    private DestinatarioNotificacaoService destinatarioService;
+    private EmailService emailService;
+    private DisparoPushService disparoPushService;
+    private EstatisticaNotificacaoService estatisticaService;
+    private JdbcTemplate jdbcTemplate;
+    private EntregaNotificacaoService entregaService;
+    private Notificacao notificacao;
+
+    @BeforeEach
+    void setUp() {
+        entregaRepository = mock(EntregaNotificacaoRepository.class);
+        destinatarioService = mock(DestinatarioNotificacaoService.class);
+        emailService = mock(EmailService.class);
+        disparoPushService = mock(DisparoPushService.class);
+        estatisticaService = mock(EstatisticaNotificacaoService.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+
+        notificacao = new Notificacao();
+        notificacao.setId(UUID.randomUUID());
+        notificacao.setTitulo("Aviso importante");
+        notificacao.setMensagem("A saída mudou para as 7h");
+        NotificacaoRepository notificacaoRepository = mock(NotificacaoRepository.class);
+        when(notificacaoRepository.findComCompania(notificacao.getId())).thenReturn(Optional.of(notificacao));
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+
+        entregaService = new EntregaNotificacaoService(entregaRepository, notificacaoRepository, destinatarioService,
+                emailService, disparoPushService, estatisticaService, mock(CaixaNotificacaoService.class), jdbcTemplate, transactionManager, new SimpleMeterRegistry(),
+                100, MAX_TENTATIVAS, 1000, 60000, 300);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void enfileirar_UmaLinhaPorDestinatarioECanal() {
+        // Given
+        UUID comTudo = UUID.randomUUID();
+        UUID semEmail = UUID.randomUUID();
+        when(destinatarioService.percorrer(eq(notificacao), any())).thenAnswer(invocation -> {
+            Consumer<List<DestinatarioNotificacao>> porLote = invocation.getArgument(1);
+            porLote.accept(List.of(
+                    destinatario(comTudo, "ana@teste.com", "token-ana", true),
+                    destinatario(semEmail, "bia@teste.com", "token-bia", false),
+                    destinatario(UUID.randomUUID(), null, null, true)));
+            return 3L;
+        });
+        ArgumentCaptor<List<Object[]>> linhas = ArgumentCaptor.forClass(List.class);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1, 1, 1});
+
+        // When
+        long total = entregaService.enfileirar(notificacao);
+
+        // Then
+        verify(jdbcTemplate).batchUpdate(anyString(), linhas.capture());
+        assertEquals(3, total);
+        assertEquals(3, linhas.getValue().size());
+        assertTrue(linhas.getValue().stream().anyMatch(linha -> comTudo.equals(linha[1]) && "EMAIL".equals(linha[2])));
+        assertTrue(linhas.getValue().stream().anyMatch(linha -> comTudo.equals(linha[1]) && "PUSH".equals(linha[2])));
+        assertTrue(linhas.getValue().stream().noneMatch(linha -> semEmail.equals(linha[1]) && "EMAIL".equals(linha[2])));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void enfileirar_ContaNasEstatisticasSoAsEntregasNovas() {
+        // Given
+        when(destinatarioService.percorrer(eq(notificacao), any())).thenAnswer(invocation -> {
+            Consumer<List<DestinatarioNotificacao>> porLote = invocation.getArgument(1);
+            porLote.accept(List.of(
+                    destinatario(UUID.randomUUID(), "ana@teste.com", "token-ana", true),
+                    destinatario(UUID.randomUUID(), "bia@teste.com", "token-bia", true)));
+            return 2L;
+        });
+        // A entrega de email da Ana já existia (reenfileiramento)
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{0, 1, 1, 1});
+        ArgumentCaptor<Collection<Variacao>> variacoes = ArgumentCaptor.forClass(Collection.class);
+
+        // When
+        entregaService.enfileirar(notificacao);
+
+        // Then
+        verify(estatisticaService).registrar(variacoes.capture());
+        assertEquals(1, variacoes.getValue().stream()
+                .filter(variacao -> variacao.canal() == CanalNotificacao.EMAIL)
+                .mapToLong(Variacao::enfileiradas).sum());
+        assertEquals(2, variacoes.getValue().stream()
+                .filter(variacao -> variacao.canal() == CanalNotificacao.PUSH)
+                .mapToLong(Variacao::enfileiradas).sum());
+    }
+
+    @Test
+    void processarLote_ContaNasEstatisticasAsLinhasQueMudaramDeStatus() {
+        // Given
+        EntregaNotificacao aceita = criarEntrega(CanalNotificacao.PUSH, "token-ok", 1);
+        EntregaNotificacao invalida = criarEntrega(CanalNotificacao.PUSH, "token-morto", 1);
+        when(disparoPushService.enviar(anyList(), anyString(), anyString())).thenReturn(
+                new ResultadoDisparo(1, 1, 1, Set.of("token-ok"), Set.of("token-morto")));
+        when(entregaRepository.marcarEntregues(any(), any())).thenReturn(1);
+        when(entregaRepository.marcarFalha(any(), any(), any())).thenReturn(1);
+
+        // When
+        entregaService.processarLote(List.of(aceita, invalida));
+
+        // Then
+        verify(estatisticaService).registrar(argThat(variacoes -> variacoes.stream().anyMatch(variacao ->
+                variacao.canal() == CanalNotificacao.PUSH && variacao.entregues() == 1)));
+        verify(estatisticaService).registrar(argThat(variacoes -> variacoes.stream().anyMatch(variacao ->
+                variacao.canal() == CanalNotificacao.PUSH && variacao.falhas() == 1)));
+    }
+
+    @Test
+    void processarLote_EmailRecusado_EntregaOsDemaisEReagendaORecusado() throws Exception {
+        // Given
+        EntregaNotificacao aceita = criarEntrega(CanalNotificacao.EMAIL, "ana@teste.com", 1);
+        EntregaNotificacao recusada = criarEntrega(CanalNotificacao.EMAIL, "bia@teste.com", 1);
+        EnvioEmMassa envio = mock(EnvioEmMassa.class);
+        when(envio.concluir()).thenReturn(new ResultadoEnvio(1, 1, Set.of("bia@teste.com")));
+        when(emailService.iniciarNotificacaoPersonalizada(notificacao)).thenReturn(envio);
+
+        // When
+        entregaService.processarLote(List.of(aceita, recusada));
+
+        // Then
+        verify(envio).enviar(List.of("ana@teste.com", "bia@teste.com"));
+        verify(entregaRepository).marcarEntregues(eq(Set.of(aceita.getId())), any());
+        verify(entregaRepository).reagendar(eq(Set.of(recusada.getId())), any(), anyString(), any());
+        verify(entregaRepository, never()).marcarFalha(any(), any(), any());
+    }
+
+    @Test
+    void processarLote_TokenInvalido_VaiDiretoParaDeadLetter() {
+        // Given
+        EntregaNotificacao aceita = criarEntrega(CanalNotificacao.PUSH, "token-ok", 1);
+        EntregaNotificacao invalida = criarEntrega(CanalNotificacao.PUSH, "token-morto", 1);
+        EntregaNotificacao transitoria = criarEntrega(CanalNotificacao.PUSH, "token-indisponivel", 1);
+        when(disparoPushService.enviar(anyList(), anyString(), anyString())).thenReturn(
+                new ResultadoDisparo(1, 1, 1, Set.of("token-ok"), Set.of("token-morto")));
+
+        // When
+        entregaService.processarLote(List.of(aceita, invalida, transitoria));
+
+        // Then
+        verify(entregaRepository).marcarEntregues(eq(Set.of(aceita.getId())), any());
+        verify(entregaRepository).marcarFalha(eq(Set.of(invalida.getId())), anyString(), any());
+        verify(entregaRepository).reagendar(eq(Set.of(transitoria.getId())), any(), anyString(), any());
+    }
+
+    @Test
+    void processarLote_FalhaNaUltimaTentativa_VaiParaDeadLetter() throws Exception {
+        // Given
+        EntregaNotificacao ultima = criarEntrega(CanalNotificacao.EMAIL, "ana@teste.com", MAX_TENTATIVAS);
+        EntregaNotificacao primeira = criarEntrega(CanalNotificacao.EMAIL, "bia@teste.com", 1);
+        when(emailService.iniciarNotificacaoPersonalizada(notificacao))
+                .thenThrow(new IllegalStateException("SMTP fora do ar"));
+
+        // When
+        entregaService.processarLote(List.of(ultima, primeira));
+
+        // Then
+        verify(entregaRepository).marcarFalha(eq(Set.of(ultima.getId())), eq("SMTP fora do ar"), any());
+        verify(entregaRepository).reagendar(eq(Set.of(primeira.getId())), any(), eq("SMTP fora do ar"), any());
+        verify(entregaRepository, never()).marcarEntregues(any(), any());
+    }
+
+    @Test
+    void calcularBackoff_CresceExponencialmenteAteOMaximo() {
+        assertEquals(1000, entregaService.calcularBackoff(1));
+        assertEquals(4000, entregaService.calcularBackoff(3));
+        assertEquals(60000, entregaService.calcularBackoff(20));
+    }
+
+    private EntregaNotificacao criarEntrega(CanalNotificacao canal, String destino, int tentativas) {
+        EntregaNotificacao entrega = new EntregaNotificacao(notificacao.getId(), UUID.randomUUID(), canal, destino,
+                LocalDateTime.now());
+        entrega.setId(UUID.randomUUID());
+        entrega.setTentativas(tentativas);
+        return entrega;
+    }
+
+    private DestinatarioNotificacao destinatario(UUID id, String email, String pushToken, boolean emailNotifications) {
+        return new DestinatarioNotificacao() {
+            @Override
+            public UUID getId() { return id; }
+
+            @Override
+            public String getEmail() { return email; }
+
+            @Override
+            public String getPushToken() { return pushToken; }
+
+            @Override
+            public Boolean getEmailNotifications() { return emailNotifications; }
+        };
+    }
+}
@@ -0,0 +1,160 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.service.EnvioEmailMassaService.EnvioEmMassa;
+import br.com.tourapp.service.EnvioEmailMassaService.ResultadoEnvio;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Um envio travado esperando o SMTP falha o teste em vez de pendurar a JVM do surefire
+@Timeout(value = 60, unit = TimeUnit.SECONDS)
+class EnvioEmailMassaServiceTest {
+
+    private static final String HTML = "<html><body><h1>Aviso</h1><p>Saída às 7h.</p></body></html>";
+
+    private FakeSmtpServer smtp;
+    private EnvioEmailMassaService envioEmailMassa;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        smtp = new FakeSmtpServer(0);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (envioEmailMassa != null) {
+            envioEmailMassa.encerrar();
+        }
+        smtp.close();
+    }
+
+    @Test
+    void enviar_MilDestinatarios_ReaproveitaConexoesDoPool() throws Exception {
+        // Given
+        envioEmailMassa = criar(4, 100_000, 50, 8, 1000);
+
+        // When
+        ResultadoEnvio resultado;
+        try (EnvioEmMassa envio = envioEmailMassa.iniciar("Aviso", HTML)) {
+            envio.enviar(emails(0, 600));
+            envio.enviar(emails(600, 1000));
+            resultado = envio.concluir();
+        }
+
+        // Then
+        assertEquals(1000, resultado.enviadas());
+        assertEquals(0, resultado.falhas());
+        assertEquals(1000, smtp.getMensagens());
+        assertEquals(1000, smtp.getDestinatarios().size());
+        assertTrue(smtp.getConexoes() <= 4, "Conexões abertas: " + smtp.getConexoes());
+    }
+
+    @Test
+    void enviar_LimiteDeMensagensPorConexao_AbreNovaConexao() throws Exception {
+        // Given
+        envioEmailMassa = criar(1, 100_000, 50, 8, 10);
+
+        // When
+        ResultadoEnvio resultado;
+        try (EnvioEmMassa envio = envioEmailMassa.iniciar("Aviso", HTML)) {
+            envio.enviar(emails(0, 35));
+            resultado = envio.concluir();
+        }
+
+        // Then
+        assertEquals(35, resultado.enviadas());
+        assertEquals(4, smtp.getConexoes());
+    }
+
+    @Test
+    void enviar_TaxaLimitada_RespeitaMensagensPorSegundo() throws Exception {
+        // Given: rajada de 20 e depois 20 mensagens por segundo
+        envioEmailMassa = criar(4, 20, 5, 8, 1000);
+        long inicio = System.nanoTime();
+
+        // When
+        try (EnvioEmMassa envio = envioEmailMassa.iniciar("Aviso", HTML)) {
+            envio.enviar(emails(0, 30));
+            envio.concluir();
+        }
+
+        // Then
+        long decorridoMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+        assertTrue(decorridoMillis >= 400, "30 mensagens a 20/s saíram em " + decorridoMillis + " ms");
+        assertEquals(30, smtp.getMensagens());
+    }
+
+    /**
+     * Benchmark contra o caminho antigo (uma conexão SMTP por mensagem), com 2 ms de latência por
+     * comando no servidor falso. Compara tempo de parede, então roda só no perfil de benchmark
+     * (mvn test -Pbenchmark).
+     */
+    @Test
+    @Tag("benchmark")
+    void enviar_Benchmark_PoolSuperaConexaoPorMensagem() throws Exception {
+        // Given
+        smtp.close();
+        smtp = new FakeSmtpServer(2);
+        int quantidade = 200;
+        JavaMailSenderImpl mailSender = criarMailSender();
+
+        // When: caminho antigo
+        long inicio = System.nanoTime();
+        for (String email : emails(0, quantidade)) {
+            MimeMessage mensagem = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(mensagem, true, "UTF-8");
+            helper.setFrom("noreply@tourapp.com");
+            helper.setTo(email);
+            helper.setSubject("Aviso");
+            helper.setText(HTML, true);
+            mailSender.send(mensagem);
+        }
+        long antigoMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+        int conexoesAntigo = smtp.getConexoes();
+
+        // When: pool de conexões
+        envioEmailMassa = criar(4, 100_000, 25, 8, 1000);
+        inicio = System.nanoTime();
+        try (EnvioEmMassa envio = envioEmailMassa.iniciar("Aviso", HTML)) {
+            envio.enviar(emails(quantidade, 2 * quantidade));
+            envio.concluir();
+        }
+        long poolMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+        int conexoesPool = smtp.getConexoes() - conexoesAntigo;
+
+        // Then
+        assertEquals(2 * quantidade, smtp.getMensagens());
+        assertEquals(quantidade, conexoesAntigo);
+        assertTrue(conexoesPool <= 4, "Conexões do pool: " + conexoesPool);
+        assertTrue(poolMillis < antigoMillis, "Pool " + poolMillis + " ms vs " + antigoMillis + " ms");
+    }
+
+    private EnvioEmailMassaService criar(int conexoes, double mensagensPorSegundo, int lote, int lotesEmEspera,
+                                         int maxPorConexao) {
+        return new EnvioEmailMassaService(criarMailSender(), new SimpleMeterRegistry(), "noreply@tourapp.com",
+                conexoes, mensagensPorSegundo, lote, lotesEmEspera, maxPorConexao);
+    }
+
+    private JavaMailSenderImpl criarMailSender() {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtp.getPorta());
+        return mailSender;
+    }
+
+    private List<String> emails(int inicio, int fim) {
+        return IntStream.range(inicio, fim).mapToObj(i -> "cliente" + i + "@teste.com").toList();
+    }
+}
@@ -0,0 +1,115 @@
+package br.com.tourapp.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servidor SMTP mínimo para testes e benchmarks de envio: aceita tudo, conta conexões e mensagens
+ * e pode atrasar cada resposta para simular a latência de rede até o provedor.
+ */
+final class FakeSmtpServer implements AutoCloseable {
+
+    private final ServerSocket servidor;
+    private final ExecutorService atendimentos = Executors.newVirtualThreadPerTaskExecutor();
+    private final long latenciaPorComandoMillis;
+    private final AtomicInteger conexoes = new AtomicInteger();
+    private final AtomicInteger mensagens = new AtomicInteger();
+    private final Set<String> destinatarios = ConcurrentHashMap.newKeySet();
+
+    FakeSmtpServer(long latenciaPorComandoMillis) throws IOException {
+        this.latenciaPorComandoMillis = latenciaPorComandoMillis;
+        this.servidor = new ServerSocket(0, 500, InetAddress.getLoopbackAddress());
+        atendimentos.execute(this::aceitar);
+    }
+
+    int getPorta() {
+        return servidor.getLocalPort();
+    }
+
+    int getConexoes() {
+        return conexoes.get();
+    }
+
+    int getMensagens() {
+        return mensagens.get();
+    }
+
+    Set<String> getDestinatarios() {
+        return destinatarios;
+    }
+
+    @Override
+    public void close() throws IOException {
+        servidor.close();
+        atendimentos.shutdownNow();
+    }
+
+    private void aceitar() {
+        while (!servidor.isClosed()) {
+            try {
+                Socket socket = servidor.accept();
+                conexoes.incrementAndGet();
+                atendimentos.execute(() -> atender(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void atender(Socket socket) {
+        try (socket;
+             BufferedReader entrada = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer saida = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+            responder(saida, "220 fake-smtp ESMTP");
+            String linha;
+            while ((linha = entrada.readLine()) != null) {
+                String comando = linha.toUpperCase(Locale.ROOT);
+                if (comando.startsWith("EHLO") || comando.startsWith("HELO")) {
+                    responder(saida, "250 fake-smtp");
+                } else if (comando.startsWith("RCPT TO:")) {
+                    destinatarios.add(linha.substring(8).trim().replaceAll("[<>]", ""));
+                    responder(saida, "250 OK");
+                } else if (comando.startsWith("DATA")) {
+                    responder(saida, "354 End data with <CR><LF>.<CR><LF>");
+                    while ((linha = entrada.readLine()) != null && !linha.equals(".")) {
+                        // Corpo descartado
+                    }
+                    mensagens.incrementAndGet();
+                    responder(saida, "250 OK");
+                } else if (comando.startsWith("QUIT")) {
+                    responder(saida, "221 Bye");
+                    return;
+                } else if (comando.startsWith("MAIL FROM:") || comando.startsWith("RSET") || comando.startsWith("NOOP")) {
+                    responder(saida, "250 OK");
+                } else {
+                    responder(saida, "500 Command not recognized");
+                }
+            }
+        } catch (IOException e) {
+            // Cliente fechou a conexão
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void responder(Writer saida, String resposta) throws IOException, InterruptedException {
+        if (latenciaPorComandoMillis > 0) {
+            Thread.sleep(latenciaPorComandoMillis);
+        }
+        saida.write(resposta + "\r\n");
+        saida.flush();
+    }
+}
@@ -0,0 +1,242 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.exception.FilaAdmissaoException;
+import br.com.tourapp.repository.ExcursaoRepository;
+import br.com.tourapp.repository.FilaAdmissaoRepository;
+import br.com.tourapp.repository.FilaAdmissaoRepository.PosicoesFila;
+import br.com.tourapp.repository.InscricaoRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FilaAdmissaoServiceTest {
+
+    private static final double TAXA_POR_SEGUNDO = 200;
+    private static final int CAPACIDADE_RAJADA = 20;
+
+    // Backend simulado: 4 conexões, 10 ms por requisição => ~400 req/s
+    private static final int CONEXOES_BACKEND = 4;
+    private static final long TRABALHO_BACKEND_MILLIS = 10;
+
+    // Carga oferecida: 40 clientes a cada 10 ms => ~4000 req/s, 10x a capacidade do backend
+    private static final int CLIENTES = 40;
+    private static final long INTERVALO_CLIENTE_MILLIS = 10;
+    private static final long DURACAO_MILLIS = 2000;
+
+    private final AtomicLong ultimaPosicao = new AtomicLong();
+    private final AtomicLong fronteira = new AtomicLong();
+    private final Set<Long> ticketsUsados = ConcurrentHashMap.newKeySet();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private FilaAdmissaoService filaAdmissaoService;
+    private UUID excursaoId;
+
+    @BeforeEach
+    void setUp() {
+        FilaAdmissaoRepository repository = mock(FilaAdmissaoRepository.class);
+        when(repository.reservarBloco(any(), anyLong(), any())).thenAnswer(invocation -> {
+            ultimaPosicao.addAndGet(invocation.getArgument(1));
+            return 1;
+        });
+        when(repository.avancarFronteira(any(), anyLong(), any())).thenAnswer(invocation -> {
+            long quantidade = invocation.getArgument(1);
+            fronteira.updateAndGet(atual -> Math.min(ultimaPosicao.get(), atual + quantidade));
+            return 1;
+        });
+        when(repository.findPosicoes(any())).thenAnswer(invocation -> Optional.of(new PosicoesFila() {
+            private final long ultima = ultimaPosicao.get();
+            private final long atual = fronteira.get();
+
+            @Override
+            public Long getUltimaPosicao() { return ultima; }
+
+            @Override
+            public Long getFronteira() { return atual; }
+        }));
+        when(repository.consumirTicket(any(), anyLong(), any()))
+                .thenAnswer(invocation -> ticketsUsados.add(invocation.getArgument(1)) ? 1 : 0);
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+
+        filaAdmissaoService = new FilaAdmissaoService(repository, mock(ExcursaoRepository.class),
+                mock(InscricaoRepository.class), transactionManager, meterRegistry,
+                true, TAXA_POR_SEGUNDO, CAPACIDADE_RAJADA, 20, 30, "segredo-de-teste");
+        excursaoId = UUID.randomUUID();
+    }
+
+    @Test
+    void admitirInscricao_SemFila_AdmiteDireto() {
+        // When / Then
+        assertDoesNotThrow(() -> filaAdmissaoService.admitirInscricao(excursaoId, UUID.randomUUID(), null));
+        assertEquals(0, ultimaPosicao.get());
+    }
+
+    @Test
+    void admitirInscricao_ComTicket_AdmiteQuandoFronteiraAlcancaPosicao() throws Exception {
+        // Given
+        UUID clienteId = UUID.randomUUID();
+        FilaAdmissaoException enfileirada = esgotarRajada(clienteId);
+        String ticket = enfileirada.getTicket().getTicket();
+
+        // When
+        Thread.sleep(50);
+        filaAdmissaoService.avancarFilas();
+
+        // Then
+        assertEquals(1L, enfileirada.getTicket().getPosicao());
+        assertThrows(FilaAdmissaoException.class,
+                () -> filaAdmissaoService.admitirInscricao(excursaoId, UUID.randomUUID(), ticket));
+        assertDoesNotThrow(() -> filaAdmissaoService.admitirInscricao(excursaoId, clienteId, ticket));
+    }
+
+    @Test
+    void admitirInscricao_TicketJaUsado_NaoAdmitePeloTicketDeNovo() throws Exception {
+        // Given
+        UUID clienteId = UUID.randomUUID();
+        String ticket = esgotarRajada(clienteId).getTicket().getTicket();
+        Thread.sleep(50);
+        filaAdmissaoService.avancarFilas();
+        filaAdmissaoService.admitirInscricao(excursaoId, clienteId, ticket);
+
+        // When
+        try {
+            filaAdmissaoService.admitirInscricao(excursaoId, clienteId, ticket);
+        } catch (FilaAdmissaoException e) {
+            // Com fila, o ticket reapresentado vai para o fim dela
+            assertNotEquals(1L, e.getTicket().getPosicao());
+        }
+
+        // Then
+        assertEquals(1, contador("ticket"));
+        assertEquals(1, contador("ticket-reusado"));
+    }
+
+    @Test
+    void admitirInscricao_TicketAdulterado_EmiteNovaPosicao() {
+        // Given
+        UUID clienteId = UUID.randomUUID();
+        String ticket = esgotarRajada(clienteId).getTicket().getTicket();
+        // Mesma assinatura, conteúdo alterado para furar a fila
+        String conteudoAlterado = excursaoId + ":" + clienteId + ":0:" + System.currentTimeMillis();
+        String adulterado = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(conteudoAlterado.getBytes(StandardCharsets.UTF_8))
+                + ticket.substring(ticket.indexOf('.'));
+
+        // When
+        FilaAdmissaoException excecao = assertThrows(FilaAdmissaoException.class,
+                () -> filaAdmissaoService.admitirInscricao(excursaoId, clienteId, adulterado));
+
+        // Then
+        assertEquals(2L, excecao.getTicket().getPosicao());
+    }
+
+    /**
+     * Benchmark de sobrecarga: sem a fila, ~8000 requisições disputariam 4 conexões e a espera
+     * chegaria a segundos. Com a fila, o backend só recebe a taxa admitida e o p99 fica limitado.
+     * Mede tempo de parede, então roda só no perfil de benchmark (mvn test -Pbenchmark).
+     */
+    @Test
+    @Tag("benchmark")
+    void admitirInscricao_SobrecargaDezVezes_MantemP99Limitado() throws Exception {
+        // Given
+        Semaphore conexoes = new Semaphore(CONEXOES_BACKEND);
+        List<Long> latencias = Collections.synchronizedList(new ArrayList<>());
+        AtomicLong admitidas = new AtomicLong();
+        AtomicLong enfileiradas = new AtomicLong();
+        ExecutorService clientes = Executors.newFixedThreadPool(CLIENTES);
+        var tick = Executors.newSingleThreadScheduledExecutor();
+        tick.scheduleWithFixedDelay(filaAdmissaoService::avancarFilas, 0, 25, TimeUnit.MILLISECONDS);
+        long fim = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURACAO_MILLIS);
+
+        // When
+        List<Future<?>> execucoes = new ArrayList<>();
+        for (int c = 0; c < CLIENTES; c++) {
+            execucoes.add(clientes.submit(() -> {
+                UUID clienteId = UUID.randomUUID();
+                String ticket = null;
+                while (System.nanoTime() < fim) {
+                    long inicio = System.nanoTime();
+                    try {
+                        filaAdmissaoService.admitirInscricao(excursaoId, clienteId, ticket);
+                        conexoes.acquire();
+                        try {
+                            Thread.sleep(TRABALHO_BACKEND_MILLIS);
+                        } finally {
+                            conexoes.release();
+                        }
+                        admitidas.incrementAndGet();
+                        // Próxima requisição como um novo cliente
+                        clienteId = UUID.randomUUID();
+                        ticket = null;
+                    } catch (FilaAdmissaoException e) {
+                        enfileiradas.incrementAndGet();
+                        ticket = e.getTicket().getTicket();
+                    }
+                    latencias.add(System.nanoTime() - inicio);
+                    Thread.sleep(INTERVALO_CLIENTE_MILLIS);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> execucao : execucoes) {
+            execucao.get(30, TimeUnit.SECONDS);
+        }
+        clientes.shutdown();
+        tick.shutdownNow();
+
+        // Then
+        List<Long> ordenadas = new ArrayList<>(latencias);
+        Collections.sort(ordenadas);
+        long p99Millis = TimeUnit.NANOSECONDS.toMillis(ordenadas.get((int) (ordenadas.size() * 0.99) - 1));
+        long admitidasMaximas = CAPACIDADE_RAJADA + (long) (TAXA_POR_SEGUNDO * DURACAO_MILLIS / 1000 * 1.25);
+
+        assertTrue(enfileiradas.get() > admitidas.get(), "A carga deveria exceder a taxa de admissão");
+        assertTrue(admitidas.get() <= admitidasMaximas,
+                "Admitidas " + admitidas.get() + " acima do limite " + admitidasMaximas);
+        assertTrue(p99Millis < 100, "p99 de " + p99Millis + " ms com " + ordenadas.size() + " requisições");
+    }
+
+    private double contador(String resultado) {
+        return meterRegistry.get("tourapp.admissao").tag("resultado", resultado).counter().count();
+    }
+
+    /**
+     * Consome os tokens da rajada até o cliente ser enviado para a fila.
+     */
+    private FilaAdmissaoException esgotarRajada(UUID clienteId) {
+        for (int i = 0; i < 10 * CAPACIDADE_RAJADA; i++) {
+            try {
+                filaAdmissaoService.admitirInscricao(excursaoId, clienteId, null);
+            } catch (FilaAdmissaoException e) {
+                return e;
+            }
+        }
+        return fail("Cliente deveria ter entrado na fila");
+    }
+}
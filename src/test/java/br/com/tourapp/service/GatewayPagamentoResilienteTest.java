@@ -0,0 +1,191 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.exception.BusinessException;
+import br.com.tourapp.exception.GatewayPagamentoException;
+import br.com.tourapp.util.CircuitBreaker;
+import com.mercadopago.client.payment.PaymentCreateRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GatewayPagamentoResilienteTest {
+
+    private static final PaymentCreateRequest PIX = PaymentCreateRequest.builder().paymentMethodId("pix").build();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private GatewayPagamentoResiliente gateway;
+
+    @AfterEach
+    void tearDown() {
+        if (gateway != null) {
+            gateway.encerrar();
+        }
+    }
+
+    @Test
+    void consultar_RajadaDeErros_AbreCircuitoESuspendeChamadas() {
+        // Given
+        AtomicInteger chamadas = new AtomicInteger();
+        gateway = criar(consultas(chamadas, () -> {
+            throw new IllegalStateException("500");
+        }), 4, 200);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            assertThrows(GatewayPagamentoException.class, () -> gateway.consultar("1"));
+        }
+
+        // Then
+        assertEquals(CircuitBreaker.Estado.ABERTO, gateway.getEstadoCircuito());
+        assertEquals(5, chamadas.get(), "Chamadas seguintes não deveriam chegar ao provedor");
+        assertThrows(GatewayPagamentoException.class, () -> gateway.consultar("1"));
+        assertEquals(5, chamadas.get());
+        assertEquals(2, meterRegistry.get("tourapp.pagamentos.gateway.circuito.estado").gauge().value());
+        assertEquals(1, meterRegistry.get("tourapp.pagamentos.gateway.chamadas")
+                .tag("resultado", "circuito_aberto").timer().count());
+    }
+
+    @Test
+    void consultar_ProvedorLento_RespeitaPrazo() {
+        // Given
+        gateway = criar(consultas(new AtomicInteger(), () -> {
+            Thread.sleep(2000);
+            return "approved";
+        }), 4, 200);
+
+        // When
+        long inicio = System.nanoTime();
+        assertThrows(GatewayPagamentoException.class, () -> gateway.consultar("1"));
+        long decorridoMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+
+        // Then
+        assertTrue(decorridoMs < 1000, "Deveria desistir no prazo de 200 ms, levou " + decorridoMs + " ms");
+        assertEquals(1, meterRegistry.get("tourapp.pagamentos.gateway.chamadas")
+                .tag("resultado", "timeout").timer().count());
+    }
+
+    @Test
+    void consultar_BulkheadCheio_RecusaSemEsperarOProvedor() throws Exception {
+        // Given
+        CountDownLatch liberar = new CountDownLatch(1);
+        gateway = criar(consultas(new AtomicInteger(), () -> {
+            liberar.await();
+            return "approved";
+        }), 2, 10_000);
+        ExecutorService clientes = Executors.newFixedThreadPool(2);
+        List<Future<GatewayPagamento.Resultado>> ocupando = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            ocupando.add(clientes.submit(() -> gateway.consultar("1")));
+        }
+        while (meterRegistry.get("tourapp.pagamentos.gateway.em.andamento").gauge().value() < 2) {
+            Thread.sleep(5);
+        }
+
+        // When / Then
+        assertThrows(GatewayPagamentoException.class, () -> gateway.consultar("2"));
+        liberar.countDown();
+        for (Future<GatewayPagamento.Resultado> chamada : ocupando) {
+            assertEquals("approved", chamada.get(5, TimeUnit.SECONDS).status());
+        }
+        clientes.shutdown();
+    }
+
+    @Test
+    void criar_RecusaDoProvedor_NaoAbreCircuito() {
+        // Given
+        gateway = criar(new GatewayPagamento() {
+            @Override
+            public Resultado criar(PaymentCreateRequest request, String chaveIdempotencia) {
+                throw new BusinessException("Erro ao processar pagamento: cartão inválido");
+            }
+
+            @Override
+            public Resultado consultar(String paymentId) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Resultado cancelar(String paymentId) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void reembolsar(String paymentId) {
+                throw new UnsupportedOperationException();
+            }
+        }, 4, 200);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            assertThrows(BusinessException.class, () -> gateway.criar(PIX, "pix:teste"));
+        }
+
+        // Then
+        assertEquals(CircuitBreaker.Estado.FECHADO, gateway.getEstadoCircuito());
+    }
+
+    @Test
+    void criar_GatewaySimulado_GeraCobrancaPix() {
+        // Given
+        gateway = criar(new GatewayPagamentoSimulado(0, 5, 0, "approved"), 4, 1000);
+
+        // When
+        GatewayPagamento.Resultado resultado = gateway.criar(PIX, "pix:teste");
+
+        // Then
+        assertEquals("pending", resultado.status());
+        assertNotNull(resultado.id());
+        assertTrue(resultado.qrCode().contains(resultado.id()));
+    }
+
+    private GatewayPagamentoResiliente criar(GatewayPagamento delegado, int maxConcorrentes, long prazoMs) {
+        return new GatewayPagamentoResiliente(delegado, meterRegistry, maxConcorrentes, 0, prazoMs, prazoMs,
+                10, 5, 0.5, 30_000, 1);
+    }
+
+    private GatewayPagamento consultas(AtomicInteger chamadas, Consulta consulta) {
+        return new GatewayPagamento() {
+            @Override
+            public Resultado criar(PaymentCreateRequest request, String chaveIdempotencia) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Resultado consultar(String paymentId) {
+                chamadas.incrementAndGet();
+                try {
+                    return new Resultado(paymentId, consulta.status(), null, null);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+            }
+
+            @Override
+            public Resultado cancelar(String paymentId) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void reembolsar(String paymentId) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface Consulta {
+        String status() throws InterruptedException;
+    }
+}
@@ -0,0 +1,142 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.dto.request.PagamentoPixRequest;
+import br.com.tourapp.dto.response.PagamentoResponse;
+import br.com.tourapp.entity.IdempotenciaRequisicao;
+import br.com.tourapp.exception.BusinessException;
+import br.com.tourapp.repository.IdempotenciaRequisicaoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IdempotenciaServiceTest {
+
+    private static final String OPERACAO = "POST /pagamentos/pix";
+
+    private IdempotenciaService idempotenciaService;
+    private final AtomicInteger chamadas = new AtomicInteger();
+    private final UUID userId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        IdempotenciaRequisicaoRepository repository = mock(IdempotenciaRequisicaoRepository.class);
+        when(repository.findByUserIdAndChave(any(), any())).thenReturn(Optional.empty());
+        when(repository.saveAndFlush(any(IdempotenciaRequisicao.class))).thenAnswer(invocation -> {
+            IdempotenciaRequisicao registro = invocation.getArgument(0);
+            registro.setId(UUID.randomUUID());
+            return registro;
+        });
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        idempotenciaService = new IdempotenciaService(repository, objectMapper, transactionManager,
+                new SimpleMeterRegistry(), 100, 24, 10);
+    }
+
+    @Test
+    void executar_MesmaChave_RepeteRespostaSemChamarServico() {
+        // Given
+        PagamentoPixRequest request = new PagamentoPixRequest(UUID.randomUUID());
+        PagamentoResponse primeira = idempotenciaService.executar("chave-1", userId, OPERACAO, request,
+                PagamentoResponse.class, this::criarPagamento);
+
+        // When
+        PagamentoResponse repetida = idempotenciaService.executar("chave-1", userId, OPERACAO, request,
+                PagamentoResponse.class, this::criarPagamento);
+
+        // Then
+        assertEquals(1, chamadas.get());
+        assertEquals(primeira.getId(), repetida.getId());
+        assertEquals(primeira.getValor(), repetida.getValor());
+    }
+
+    @Test
+    void executar_MesmaChaveComOutraRequisicao_Recusa() {
+        // Given
+        idempotenciaService.executar("chave-1", userId, OPERACAO, new PagamentoPixRequest(UUID.randomUUID()),
+                PagamentoResponse.class, this::criarPagamento);
+
+        // When / Then
+        assertThrows(BusinessException.class, () -> idempotenciaService.executar("chave-1", userId, OPERACAO,
+                new PagamentoPixRequest(UUID.randomUUID()), PagamentoResponse.class, this::criarPagamento));
+        assertEquals(1, chamadas.get());
+    }
+
+    @Test
+    void executar_DuplicatasSimultaneas_AguardamExecucaoEmAndamento() throws Exception {
+        // Given
+        PagamentoPixRequest request = new PagamentoPixRequest(UUID.randomUUID());
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<PagamentoResponse>> respostas = new ArrayList<>();
+
+        for (int i = 0; i < threads; i++) {
+            respostas.add(executor.submit(() -> {
+                largada.await();
+                return idempotenciaService.executar("chave-concorrente", userId, OPERACAO, request,
+                        PagamentoResponse.class, () -> {
+                            try {
+                                Thread.sleep(200);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            return criarPagamento();
+                        });
+            }));
+        }
+
+        // When
+        largada.countDown();
+        List<UUID> ids = new ArrayList<>();
+        for (Future<PagamentoResponse> resposta : respostas) {
+            ids.add(resposta.get(10, TimeUnit.SECONDS).getId());
+        }
+        executor.shutdown();
+
+        // Then
+        assertEquals(1, chamadas.get());
+        assertEquals(1, ids.stream().distinct().count());
+    }
+
+    @Test
+    void executar_SemChave_ExecutaSempre() {
+        // When
+        idempotenciaService.executar(null, userId, OPERACAO, null, PagamentoResponse.class, this::criarPagamento);
+        idempotenciaService.executar(null, userId, OPERACAO, null, PagamentoResponse.class, this::criarPagamento);
+
+        // Then
+        assertEquals(2, chamadas.get());
+    }
+
+    private PagamentoResponse criarPagamento() {
+        chamadas.incrementAndGet();
+        PagamentoResponse response = new PagamentoResponse();
+        response.setId(UUID.randomUUID());
+        response.setValor(new BigDecimal("150.00"));
+        return response;
+    }
+}
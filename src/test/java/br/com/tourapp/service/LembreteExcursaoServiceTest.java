@@ -0,0 +1,160 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.entity.Excursao;
+import br.com.tourapp.entity.Notificacao;
+import br.com.tourapp.enums.StatusExcursao;
+import br.com.tourapp.enums.TipoNotificacao;
+import br.com.tourapp.repository.ExcursaoRepository;
+import br.com.tourapp.repository.NotificacaoRepository;
+import br.com.tourapp.service.TarefaAgendada.Particao;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+class LembreteExcursaoServiceTest {
+
+    private static final Particao TODAS = new Particao(0, 1);
+
+    private ExcursaoRepository excursaoRepository;
+    private NotificacaoRepository notificacaoRepository;
+    private DestinatarioNotificacaoService destinatarioService;
+    private EntregaNotificacaoService entregaService;
+    private JdbcTemplate jdbcTemplate;
+    private LembreteExcursaoService lembreteService;
+
+    @BeforeEach
+    void setUp() {
+        excursaoRepository = mock(ExcursaoRepository.class);
+        notificacaoRepository = mock(NotificacaoRepository.class);
+        destinatarioService = mock(DestinatarioNotificacaoService.class);
+        entregaService = mock(EntregaNotificacaoService.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+
+        when(jdbcTemplate.update(startsWith("INSERT INTO lembretes_enviados"), any(Object[].class))).thenReturn(1);
+        when(notificacaoRepository.save(any())).thenAnswer(invocation -> {
+            Notificacao notificacao = invocation.getArgument(0);
+            notificacao.setId(UUID.randomUUID());
+            return notificacao;
+        });
+        when(destinatarioService.contar(any())).thenReturn(10L);
+        when(entregaService.enfileirar(any())).thenReturn(10L);
+
+        lembreteService = new LembreteExcursaoService(excursaoRepository, notificacaoRepository, destinatarioService,
+                entregaService, jdbcTemplate, transactionManager, new SimpleMeterRegistry(), List.of(2, 72, 24), 60, 5);
+    }
+
+    @Test
+    void enviarVencidos_VariosLembretesVencidos_EnviaSoOMaisProximoDaSaida() {
+        // Given
+        Excursao excursao = criarExcursao(LocalDateTime.now().plusHours(20));
+        ArgumentCaptor<Notificacao> notificacao = ArgumentCaptor.forClass(Notificacao.class);
+
+        // When
+        int enviados = lembreteService.enviarVencidos(TODAS);
+
+        // Then
+        assertEquals(1, enviados);
+        verify(jdbcTemplate).update(startsWith("INSERT INTO lembretes_enviados"),
+                eq(excursao.getId()), eq(24), any());
+        verify(notificacaoRepository).save(notificacao.capture());
+        assertEquals(TipoNotificacao.LEMBRETE, notificacao.getValue().getTipo());
+        assertTrue(notificacao.getValue().getMensagem().contains("24 horas"));
+        assertTrue(notificacao.getValue().isEnviada());
+        verify(entregaService).enfileirar(notificacao.getValue());
+    }
+
+    @Test
+    void enviarVencidos_ExecucaoSeguinte_NaoReenviaLembreteJaProcessado() {
+        // Given
+        criarExcursao(LocalDateTime.now().plusHours(1));
+        lembreteService.enviarVencidos(TODAS);
+
+        // When
+        int enviados = lembreteService.enviarVencidos(TODAS);
+
+        // Then
+        assertEquals(0, enviados);
+        verify(entregaService, times(1)).enfileirar(any());
+    }
+
+    @Test
+    void enviarVencidos_LembreteJaRegistradoPorOutroNo_NaoCriaNotificacao() {
+        // Given
+        criarExcursao(LocalDateTime.now().plusHours(1));
+        when(jdbcTemplate.update(startsWith("INSERT INTO lembretes_enviados"), any(Object[].class))).thenReturn(0);
+
+        // When
+        int enviados = lembreteService.enviarVencidos(TODAS);
+
+        // Then
+        assertEquals(0, enviados);
+        verifyNoInteractions(notificacaoRepository, entregaService);
+    }
+
+    @Test
+    void enviarVencidos_ExcursaoRemarcada_IgnoraLembreteDaDataAntiga() {
+        // Given
+        Excursao excursao = criarExcursao(LocalDateTime.now().plusHours(1));
+        Excursao remarcada = new Excursao();
+        remarcada.setId(excursao.getId());
+        remarcada.setStatus(StatusExcursao.ATIVA);
+        remarcada.setDataSaida(excursao.getDataSaida().plusDays(7));
+        when(excursaoRepository.findById(excursao.getId())).thenReturn(Optional.of(remarcada));
+
+        // When
+        int enviados = lembreteService.enviarVencidos(TODAS);
+
+        // Then
+        assertEquals(0, enviados);
+        verify(jdbcTemplate, never()).update(startsWith("INSERT INTO lembretes_enviados"), any(Object[].class));
+    }
+
+    @Test
+    void enviarVencidos_LembreteFuturo_NaoConsultaAExcursao() {
+        // Given
+        criarExcursao(LocalDateTime.now().plusHours(80));
+
+        // When
+        int enviados = lembreteService.enviarVencidos(TODAS);
+
+        // Then
+        assertEquals(0, enviados);
+        verify(excursaoRepository, never()).findById(any());
+    }
+
+    @Test
+    void descreverAntecedencia_UsaDiasQuandoExato() {
+        assertEquals("3 dias", LembreteExcursaoService.descreverAntecedencia(72));
+        assertEquals("24 horas", LembreteExcursaoService.descreverAntecedencia(24));
+        assertEquals("1 hora", LembreteExcursaoService.descreverAntecedencia(1));
+    }
+
+    private Excursao criarExcursao(LocalDateTime dataSaida) {
+        Excursao excursao = new Excursao();
+        excursao.setId(UUID.randomUUID());
+        excursao.setTitulo("Serra da Canastra");
+        excursao.setStatus(StatusExcursao.ATIVA);
+        excursao.setDataSaida(dataSaida);
+        when(excursaoRepository.findExcursoesProximasSaida(any(), any())).thenReturn(List.of(excursao));
+        when(excursaoRepository.findById(excursao.getId())).thenReturn(Optional.of(excursao));
+        return excursao;
+    }
+}
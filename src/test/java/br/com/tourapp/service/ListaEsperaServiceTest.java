@@ -0,0 +1,270 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.entity.CompaniaEntity;
+import br.com.tourapp.entity.Excursao;
+import br.com.tourapp.entity.Inscricao;
+import br.com.tourapp.entity.ListaEspera;
+import br.com.tourapp.entity.ReservaTemporaria;
+import br.com.tourapp.entity.UserEntity;
+import br.com.tourapp.enums.StatusExcursao;
+import br.com.tourapp.enums.StatusListaEspera;
+import br.com.tourapp.enums.StatusPagamento;
+import br.com.tourapp.enums.StatusReservaTemporaria;
+import br.com.tourapp.repository.CompaniaRepository;
+import br.com.tourapp.repository.ExcursaoRepository;
+import br.com.tourapp.repository.InscricaoRepository;
+import br.com.tourapp.repository.ListaEsperaRepository;
+import br.com.tourapp.repository.ReservaTemporariaRepository;
+import br.com.tourapp.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ListaEsperaService.class, ReservaVagaService.class, ReservaTemporariaService.class,
+        ListaEsperaServiceTest.DependenciasConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ListaEsperaServiceTest {
+
+    private static final int VAGAS_TOTAL = 10;
+    private static final int AGUARDANDO = 3;
+
+    @Autowired
+    private ListaEsperaService listaEsperaService;
+
+    @Autowired
+    private ReservaTemporariaService reservaTemporariaService;
+
+    @Autowired
+    private ListaEsperaRepository listaEsperaRepository;
+
+    @Autowired
+    private ReservaTemporariaRepository reservaTemporariaRepository;
+
+    @Autowired
+    private InscricaoRepository inscricaoRepository;
+
+    @Autowired
+    private ExcursaoRepository excursaoRepository;
+
+    @Autowired
+    private CompaniaRepository companiaRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Excursao excursao;
+
+    // Entradas da lista de espera, da mais antiga para a mais nova
+    private List<ListaEspera> fila;
+
+    @BeforeEach
+    void setUp() {
+        reset((EmailService) AopTestUtils.getUltimateTargetObject(emailService));
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        UserEntity organizador = userRepository.save(novoUsuario("organizador"));
+
+        CompaniaEntity compania = companiaRepository.save(new CompaniaEntity("Turismo Teste", null));
+        excursao = new Excursao("Excursão Lotada", "Excursão usada no teste da lista de espera",
+                LocalDateTime.now().plusDays(30), new BigDecimal("150.00"), VAGAS_TOTAL, compania, organizador);
+        excursao.setStatus(StatusExcursao.LOTADA);
+        excursao.setVagasOcupadas(VAGAS_TOTAL);
+        excursao = excursaoRepository.save(excursao);
+
+        // Gravadas da mais nova para a mais antiga: a ordem de inserção não pode decidir a fila
+        LocalDateTime base = LocalDateTime.now().minusHours(1);
+        fila = new ArrayList<>();
+        for (int i = AGUARDANDO - 1; i >= 0; i--) {
+            ListaEspera entrada = listaEsperaRepository.save(new ListaEspera(excursao, userRepository.save(novoUsuario("espera"))));
+            LocalDateTime createdAt = base.plusMinutes(i);
+            transactionTemplate.executeWithoutResult(status -> entityManager
+                    .createQuery("UPDATE ListaEspera l SET l.createdAt = :createdAt WHERE l.id = :id")
+                    .setParameter("createdAt", createdAt)
+                    .setParameter("id", entrada.getId())
+                    .executeUpdate());
+            fila.add(0, entrada);
+        }
+    }
+
+    @Test
+    void promoverSePrimeira_EntradaAtrasDeOutraAguardando_NaoPromove() {
+        // When
+        int foraDeOrdem = promover(fila.get(1));
+        int primeira = promover(fila.get(0));
+        int segunda = promover(fila.get(1));
+        int repetida = promover(fila.get(0));
+
+        // Then
+        assertEquals(0, foraDeOrdem);
+        assertEquals(1, primeira);
+        assertEquals(1, segunda);
+        assertEquals(0, repetida);
+        assertEquals(StatusListaEspera.AGUARDANDO, listaEsperaRepository.findById(fila.get(2).getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void promoverSePrimeira_PrimeiraCancelada_PromoveASeguinte() {
+        // Given
+        transactionTemplate.executeWithoutResult(status -> listaEsperaRepository.cancelarAguardando(
+                excursao.getId(), fila.get(0).getUser().getId(), LocalDateTime.now()));
+
+        // When
+        int segunda = promover(fila.get(1));
+
+        // Then
+        assertEquals(1, segunda);
+    }
+
+    @Test
+    void promoverSePrimeira_EntradasNoMesmoInstante_SoPromoveAPrimeiraPeloId() {
+        // Given: as duas primeiras entradas empatadas em createdAt
+        LocalDateTime createdAt = listaEsperaRepository.findById(fila.get(0).getId()).orElseThrow().getCreatedAt();
+        transactionTemplate.executeWithoutResult(status -> entityManager
+                .createQuery("UPDATE ListaEspera l SET l.createdAt = :createdAt WHERE l.id = :id")
+                .setParameter("createdAt", createdAt)
+                .setParameter("id", fila.get(1).getId())
+                .executeUpdate());
+        // A ordem da fila desempata pelo id
+        List<UUID> ordem = listaEsperaRepository.findIdsAguardando(excursao.getId(), PageRequest.of(0, 2));
+
+        // When
+        int segunda = transactionTemplate.execute(status ->
+                listaEsperaRepository.promoverSePrimeira(ordem.get(1), LocalDateTime.now()));
+        int primeira = transactionTemplate.execute(status ->
+                listaEsperaRepository.promoverSePrimeira(ordem.get(0), LocalDateTime.now()));
+
+        // Then
+        assertEquals(0, segunda);
+        assertEquals(1, primeira);
+    }
+
+    @Test
+    void repassarVagas_MaisVagasQueClientesAguardando_PromoveEmOrdemEDevolveORestante() {
+        // When
+        List<UUID> clientes = transactionTemplate.execute(status -> listaEsperaService
+                .repassarVagas(excursao.getId(), AGUARDANDO + 2).stream()
+                .map(inscricao -> inscricao.getUser().getId())
+                .toList());
+
+        // Then
+        assertEquals(fila.stream().map(entrada -> entrada.getUser().getId()).toList(), clientes);
+        Excursao atualizada = excursaoRepository.findById(excursao.getId()).orElseThrow();
+        assertEquals(VAGAS_TOTAL - 2, atualizada.getVagasOcupadas());
+        assertEquals(StatusExcursao.ATIVA, atualizada.getStatus());
+    }
+
+    @Test
+    void cancelar_ReservaDeExcursaoComListaDeEspera_CriaReservaTemporariaParaOPromovido() {
+        // Given
+        UserEntity titular = userRepository.save(novoUsuario("titular"));
+        UUID inscricaoId = transactionTemplate.execute(status -> {
+            Inscricao inscricao = inscricaoRepository.save(new Inscricao(excursao, titular, excursao.getPreco()));
+            reservaTemporariaService.criar(inscricao, 1);
+            return inscricao.getId();
+        });
+
+        // When
+        Boolean cancelada = transactionTemplate.execute(status -> reservaTemporariaService.cancelar(inscricaoId));
+
+        // Then
+        assertTrue(cancelada);
+        UserEntity promovido = fila.get(0).getUser();
+        ListaEspera entrada = listaEsperaRepository.findById(fila.get(0).getId()).orElseThrow();
+        assertEquals(StatusListaEspera.PROMOVIDA, entrada.getStatus());
+
+        Inscricao inscricao = transactionTemplate.execute(status -> {
+            Inscricao promovida = listaEsperaRepository.findById(fila.get(0).getId()).orElseThrow().getInscricao();
+            assertEquals(promovido.getId(), promovida.getUser().getId());
+            return promovida;
+        });
+        assertEquals(StatusPagamento.PENDENTE, inscricaoRepository.findById(inscricao.getId()).orElseThrow().getStatusPagamento());
+
+        ReservaTemporaria reserva = reservaTemporariaRepository
+                .findByInscricaoIdAndStatus(inscricao.getId(), StatusReservaTemporaria.ATIVA).orElseThrow();
+        assertEquals(1, reserva.getQuantidade());
+        assertTrue(reserva.getExpiraEm().isAfter(LocalDateTime.now()));
+
+        // A vaga passou direto para o promovido: a excursão continua lotada
+        Excursao atualizada = excursaoRepository.findById(excursao.getId()).orElseThrow();
+        assertEquals(VAGAS_TOTAL, atualizada.getVagasOcupadas());
+        // O bean passa pelo proxy do @Async: a verificação vai direto ao mock, esperando a thread do envio
+        EmailService emailMock = AopTestUtils.getUltimateTargetObject(emailService);
+        verify(emailMock, timeout(5000)).enviarPromocaoListaEspera(eq(promovido.getEmail()), any(),
+                eq(excursao.getTitulo()), any(), any());
+    }
+
+    private int promover(ListaEspera entrada) {
+        return transactionTemplate.execute(status -> listaEsperaRepository.promoverSePrimeira(entrada.getId(), LocalDateTime.now()));
+    }
+
+    private static UserEntity novoUsuario(String prefixo) {
+        return new UserEntity(prefixo + "-" + UUID.randomUUID() + "@example.com", "Usuário Teste");
+    }
+
+    @TestConfiguration
+    static class DependenciasConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        EmailService emailService() {
+            return mock(EmailService.class);
+        }
+
+        @Bean
+        FirebaseService firebaseService() {
+            return mock(FirebaseService.class);
+        }
+
+        @Bean
+        OutboxService outboxService() {
+            return mock(OutboxService.class);
+        }
+
+        @Bean
+        CanalStatusPagamentoService canalStatusPagamentoService() {
+            return mock(CanalStatusPagamentoService.class);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.service.ModeloEmailService.ModeloEmail;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.templateresolver.StringTemplateResolver;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModeloEmailServiceTest {
+
+    // StringTemplateResolver: o nome do template é o próprio conteúdo
+    private static final String TEMPLATE = """
+            <html>
+            <body>
+              <h1>Olá, <span th:text="${nomeCliente}">Cliente</span>!</h1>
+              <p>Sua inscrição em <strong th:text="${tituloExcursao}">Excursão</strong> foi confirmada.</p>
+              <table>
+                <tr><td>Saída</td><td th:text="${#temporals.format(dataExcursao, 'dd/MM/yyyy HH:mm')}">data</td></tr>
+                <tr><td>Valor</td><td th:text="${'R$ ' + #numbers.formatDecimal(valorPago, 1, 'POINT', 2, 'COMMA')}">valor</td></tr>
+              </table>
+              <p th:if="${valorPago > 100}">Parcelamento disponível no app.</p>
+              <ul><li th:each="item : ${itens}" th:text="${item}">item</li></ul>
+              <p>Até breve, [[${nomeCliente}]].</p>
+            </body>
+            </html>
+            """;
+
+    private static final Map<String, Object> VARIAVEIS = Map.of(
+            "tituloExcursao", "Serra & Mar <Trilha>",
+            "dataExcursao", LocalDateTime.of(2026, 11, 20, 7, 30),
+            "valorPago", new BigDecimal("1250.90"),
+            "itens", List.of("Transporte", "Guia", "Seguro viagem", "Almoço"));
+
+    private SpringTemplateEngine templateEngine;
+    private ModeloEmailService modeloEmailService;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        StringTemplateResolver resolver = new StringTemplateResolver();
+        resolver.setCacheable(true);
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+
+        meterRegistry = new SimpleMeterRegistry();
+        modeloEmailService = new ModeloEmailService(templateEngine, meterRegistry, 10);
+    }
+
+    @Test
+    void renderizar_MesmoHtmlQueOProcessamentoCompleto() {
+        // Given
+        ModeloEmail modelo = modeloEmailService.compilar(TEMPLATE, VARIAVEIS, List.of("nomeCliente"));
+
+        for (String nome : List.of("Maria Silva", "João \"Jota\" D'Ávila", "<script>alert(1)</script> & cia")) {
+            // When
+            String html = modelo.renderizar(nome);
+
+            // Then
+            assertEquals(processarCompleto(nome), html);
+        }
+    }
+
+    @Test
+    void renderizar_ValorNulo_SaiVazioComoNoThymeleaf() {
+        // Given
+        ModeloEmail modelo = modeloEmailService.compilar(TEMPLATE, VARIAVEIS, List.of("nomeCliente"));
+
+        // When / Then
+        assertEquals(processarCompleto(null), modelo.renderizar((Object) null));
+    }
+
+    @Test
+    void compilar_MesmasVariaveis_ProcessaTemplateUmaVez() {
+        // When
+        ModeloEmail primeiro = modeloEmailService.compilar(TEMPLATE, VARIAVEIS, List.of("nomeCliente"));
+        ModeloEmail segundo = modeloEmailService.compilar(TEMPLATE, Map.copyOf(VARIAVEIS), List.of("nomeCliente"));
+        ModeloEmail outroValor = modeloEmailService.compilar(TEMPLATE,
+                Map.of("tituloExcursao", "Serra & Mar <Trilha>",
+                        "dataExcursao", LocalDateTime.of(2026, 11, 20, 7, 30),
+                        "valorPago", new BigDecimal("80.00"),
+                        "itens", List.of()),
+                List.of("nomeCliente"));
+
+        // Then
+        assertSame(primeiro, segundo);
+        assertNotSame(primeiro, outroValor);
+        assertEquals(1, meterRegistry.get("tourapp.email.modelos.cache").tag("resultado", "acerto").counter().count());
+        assertEquals(2, meterRegistry.get("tourapp.email.modelos.cache").tag("resultado", "falta").counter().count());
+    }
+
+    @Test
+    void renderizar_QuantidadeDeValoresErrada_Recusa() {
+        // Given
+        ModeloEmail modelo = modeloEmailService.compilar(TEMPLATE, VARIAVEIS, List.of("nomeCliente"));
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> modelo.renderizar("Maria", "extra"));
+    }
+
+    /**
+     * Benchmark contra o caminho antigo (templateEngine.process com um Context novo por email), já
+     * com o template parseado em cache nos dois casos. Cada lado tem aquecimento antes da medição.
+     * Compara tempo de parede, então roda só no perfil de benchmark (mvn test -Pbenchmark).
+     */
+    @Test
+    @Tag("benchmark")
+    void renderizar_Benchmark_MaisRapidoQueProcessarPorDestinatario() {
+        // Given
+        int aquecimento = 2_000;
+        int medicao = 20_000;
+        long tamanho = 0;
+        for (int i = 0; i < aquecimento; i++) {
+            tamanho += processarCompleto("Cliente " + i).length();
+            tamanho += modeloEmailService.compilar(TEMPLATE, VARIAVEIS, List.of("nomeCliente"))
+                    .renderizar("Cliente " + i).length();
+        }
+
+        // When: caminho antigo
+        long inicio = System.nanoTime();
+        for (int i = 0; i < medicao; i++) {
+            tamanho += processarCompleto("Cliente " + i).length();
+        }
+        long completoNanos = System.nanoTime() - inicio;
+
+        // When: modelo compilado, consultado no cache a cada email como faz o EmailService
+        inicio = System.nanoTime();
+        for (int i = 0; i < medicao; i++) {
+            tamanho += modeloEmailService.compilar(TEMPLATE, VARIAVEIS, List.of("nomeCliente"))
+                    .renderizar("Cliente " + i).length();
+        }
+        long compiladoNanos = System.nanoTime() - inicio;
+
+        // Then
+        assertTrue(tamanho > 0);
+        assertTrue(compiladoNanos * 3 < completoNanos,
+                "Compilado " + TimeUnit.NANOSECONDS.toMillis(compiladoNanos) + " ms vs processamento completo "
+                        + TimeUnit.NANOSECONDS.toMillis(completoNanos) + " ms para " + medicao + " emails");
+    }
+
+    private String processarCompleto(String nomeCliente) {
+        Context context = new Context();
+        VARIAVEIS.forEach(context::setVariable);
+        context.setVariable("nomeCliente", nomeCliente);
+        return templateEngine.process(TEMPLATE, context);
+    }
+}
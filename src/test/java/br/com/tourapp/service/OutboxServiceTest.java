@@ -0,0 +1,149 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.dto.PagamentoConfirmadoEvento;
+import br.com.tourapp.entity.EventoOutbox;
+import br.com.tourapp.enums.TipoEventoOutbox;
+import br.com.tourapp.repository.EventoOutboxRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OutboxServiceTest {
+
+    private static final int MAX_TENTATIVAS = 3;
+
+    private EventoOutboxRepository eventoRepository;
+    private ConsumidorOutbox email;
+    private ConsumidorOutbox push;
+    private OutboxService outboxService;
+
+    @BeforeEach
+    void setUp() {
+        eventoRepository = mock(EventoOutboxRepository.class);
+        email = criarConsumidor("email", true);
+        push = criarConsumidor("push", true);
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+
+        outboxService = new OutboxService(eventoRepository,
+                List.of(email, push, criarConsumidor("outro", false)), new ObjectMapper(),
+                transactionManager, new SimpleMeterRegistry(), 1, 10, MAX_TENTATIVAS, 1000, 60000, 120, 7);
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxService.encerrar();
+    }
+
+    @Test
+    void publicar_GravaUmEventoPorConsumidorInteressado() {
+        // Given
+        UUID inscricaoId = UUID.randomUUID();
+
+        // When
+        outboxService.publicar(TipoEventoOutbox.PAGAMENTO_CONFIRMADO, inscricaoId,
+                new PagamentoConfirmadoEvento(null, List.of(inscricaoId)));
+
+        // Then
+        verify(eventoRepository).save(argThat(evento -> "email".equals(evento.getConsumidor())
+                && evento.getPayload().contains(inscricaoId.toString())));
+        verify(eventoRepository).save(argThat(evento -> "push".equals(evento.getConsumidor())));
+        verify(eventoRepository, never()).save(argThat(evento -> "outro".equals(evento.getConsumidor())));
+    }
+
+    @Test
+    void processar_Sucesso_MarcaProcessado() throws Exception {
+        // Given
+        EventoOutbox evento = criarEvento("email", 1);
+
+        // When
+        outboxService.processar(evento);
+
+        // Then
+        verify(email).processar(evento);
+        verify(eventoRepository).marcarProcessado(eq(evento.getId()), any());
+        verify(eventoRepository, never()).reagendar(any(), any(), any(), any());
+    }
+
+    @Test
+    void processar_FalhaAntesDoLimite_Reagenda() throws Exception {
+        // Given
+        EventoOutbox evento = criarEvento("push", 1);
+        doThrow(new IllegalStateException("FCM indisponível")).when(push).processar(evento);
+
+        // When
+        outboxService.processar(evento);
+
+        // Then
+        verify(eventoRepository).reagendar(eq(evento.getId()), any(), eq("FCM indisponível"), any());
+        verify(eventoRepository, never()).marcarProcessado(any(), any());
+        verify(eventoRepository, never()).marcarFalha(any(), any(), any());
+    }
+
+    @Test
+    void processar_FalhaNaUltimaTentativa_VaiParaDeadLetter() throws Exception {
+        // Given
+        EventoOutbox evento = criarEvento("email", MAX_TENTATIVAS);
+        doThrow(new IllegalStateException("SMTP recusou")).when(email).processar(evento);
+
+        // When
+        outboxService.processar(evento);
+
+        // Then
+        verify(eventoRepository).marcarFalha(eq(evento.getId()), eq("SMTP recusou"), any());
+        verify(eventoRepository, never()).reagendar(any(), any(), any(), any());
+    }
+
+    @Test
+    void drenar_ReservaEProcessaLote() throws Exception {
+        // Given
+        EventoOutbox evento = criarEvento("push", 1);
+        when(eventoRepository.reservarProximos(any(), eq(10))).thenReturn(List.of(evento.getId()));
+        when(eventoRepository.findAllById(List.of(evento.getId()))).thenReturn(List.of(evento));
+
+        // When
+        outboxService.drenar();
+
+        // Then
+        verify(eventoRepository).marcarProcessando(eq(List.of(evento.getId())), any(), any());
+        verify(push).processar(evento);
+        verify(eventoRepository).marcarProcessado(eq(evento.getId()), any());
+    }
+
+    @Test
+    void calcularBackoff_CresceExponencialmenteAteOMaximo() {
+        assertEquals(1000, outboxService.calcularBackoff(1));
+        assertEquals(4000, outboxService.calcularBackoff(3));
+        assertEquals(60000, outboxService.calcularBackoff(20));
+    }
+
+    private ConsumidorOutbox criarConsumidor(String nome, boolean consome) {
+        ConsumidorOutbox consumidor = mock(ConsumidorOutbox.class);
+        when(consumidor.getNome()).thenReturn(nome);
+        when(consumidor.consome(any())).thenReturn(consome);
+        return consumidor;
+    }
+
+    private EventoOutbox criarEvento(String consumidor, int tentativas) {
+        EventoOutbox evento = new EventoOutbox(TipoEventoOutbox.PAGAMENTO_CONFIRMADO, consumidor,
+                UUID.randomUUID(), "{}", LocalDateTime.now());
+        evento.setId(UUID.randomUUID());
+        evento.setCreatedAt(LocalDateTime.now().minusSeconds(1));
+        evento.setTentativas(tentativas);
+        return evento;
+    }
+}
@@ -0,0 +1,150 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.dto.request.PagamentoCartaoRequest;
+import br.com.tourapp.dto.response.PagamentoResponse;
+import br.com.tourapp.entity.Excursao;
+import br.com.tourapp.entity.Inscricao;
+import br.com.tourapp.entity.Pagamento;
+import br.com.tourapp.entity.UserEntity;
+import br.com.tourapp.enums.StatusExcursao;
+import br.com.tourapp.enums.StatusPagamento;
+import br.com.tourapp.exception.GatewayPagamentoException;
+import br.com.tourapp.repository.PagamentoRepository;
+import com.mercadopago.client.payment.PaymentCreateRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PagamentoServiceTest {
+
+    private PagamentoRepository pagamentoRepository;
+    private InscricaoService inscricaoService;
+    private GatewayComTempoEsgotado gatewayPagamento;
+    private PagamentoService pagamentoService;
+
+    private UUID clienteId;
+    private Inscricao inscricao;
+
+    @BeforeEach
+    void setUp() {
+        pagamentoRepository = mock(PagamentoRepository.class);
+        inscricaoService = mock(InscricaoService.class);
+        gatewayPagamento = new GatewayComTempoEsgotado();
+        ModelMapper modelMapper = mock(ModelMapper.class);
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+
+        pagamentoService = new PagamentoService(pagamentoRepository, inscricaoService,
+                mock(ReservaTemporariaService.class), modelMapper, gatewayPagamento, mock(ArtefatoPixService.class),
+                mock(CanalStatusPagamentoService.class), mock(OutboxService.class), transactionManager, "");
+
+        UserEntity cliente = new UserEntity("cliente@example.com", "Cliente Teste");
+        clienteId = UUID.randomUUID();
+        cliente.setId(clienteId);
+        Excursao excursao = new Excursao("Excursão", "Descrição", LocalDateTime.now().plusDays(30),
+                new BigDecimal("150.00"), 40, null, cliente);
+        excursao.setStatus(StatusExcursao.ATIVA);
+        inscricao = new Inscricao(excursao, cliente, excursao.getPreco());
+        inscricao.setId(UUID.randomUUID());
+
+        when(inscricaoService.obterPorId(inscricao.getId())).thenReturn(inscricao);
+        when(inscricaoService.atualizarStatusPagamento(inscricao.getId(), StatusPagamento.APROVADO))
+                .thenReturn(StatusPagamento.APROVADO);
+        when(pagamentoRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(modelMapper.map(any(), eq(PagamentoResponse.class))).thenAnswer(invocation -> new PagamentoResponse());
+    }
+
+    @Test
+    void criarPagamentoCartao_RetentativaAposTempoEsgotado_CobraOCartaoUmaVez() {
+        // Given: o Mercado Pago cria a cobrança, mas a resposta não chega a tempo
+        gatewayPagamento.esgotarTempoNaPrimeiraChamada = true;
+        String idempotencyKey = UUID.randomUUID().toString();
+
+        // When: o cliente repete a requisição com o mesmo Idempotency-Key
+        assertThrows(GatewayPagamentoException.class,
+                () -> pagamentoService.criarPagamentoCartao(requisicao(), clienteId, idempotencyKey));
+        pagamentoService.criarPagamentoCartao(requisicao(), clienteId, idempotencyKey);
+
+        // Then
+        assertEquals(2, gatewayPagamento.chavesRecebidas.size());
+        assertEquals(gatewayPagamento.chavesRecebidas.get(0), gatewayPagamento.chavesRecebidas.get(1));
+        assertEquals(1, gatewayPagamento.cobrancas.size());
+        verify(pagamentoRepository, times(1)).save(any(Pagamento.class));
+    }
+
+    @Test
+    void criarPagamentoCartao_IdempotencyKeysDiferentes_SaoCobrancasDiferentes() {
+        // When
+        pagamentoService.criarPagamentoCartao(requisicao(), clienteId, UUID.randomUUID().toString());
+        pagamentoService.criarPagamentoCartao(requisicao(), clienteId, UUID.randomUUID().toString());
+
+        // Then
+        assertEquals(2, gatewayPagamento.cobrancas.size());
+    }
+
+    private PagamentoCartaoRequest requisicao() {
+        PagamentoCartaoRequest request = new PagamentoCartaoRequest();
+        request.setInscricaoId(inscricao.getId());
+        request.setNumeroCartao("4111111111111111");
+        request.setNomeCartao("Cliente Teste");
+        request.setMesExpiracao("12");
+        request.setAnoExpiracao(String.valueOf(LocalDateTime.now().getYear() + 2));
+        request.setCvv("123");
+        request.setParcelas(1);
+        return request;
+    }
+
+    /**
+     * Gateway que, como o Mercado Pago, devolve a cobrança já criada para a mesma chave de
+     * idempotência, e que pode perder a resposta da primeira chamada depois de criar a cobrança.
+     */
+    private static final class GatewayComTempoEsgotado implements GatewayPagamento {
+
+        private final Map<String, Resultado> cobrancas = new LinkedHashMap<>();
+        private final List<String> chavesRecebidas = new ArrayList<>();
+        private boolean esgotarTempoNaPrimeiraChamada;
+
+        @Override
+        public Resultado criar(PaymentCreateRequest request, String chaveIdempotencia) {
+            chavesRecebidas.add(chaveIdempotencia);
+            Resultado resultado = cobrancas.computeIfAbsent(chaveIdempotencia,
+                    chave -> new Resultado(String.valueOf(cobrancas.size() + 1), "approved", null, null));
+            if (esgotarTempoNaPrimeiraChamada) {
+                esgotarTempoNaPrimeiraChamada = false;
+                throw new GatewayPagamentoException("Tempo esgotado ao chamar o Mercado Pago");
+            }
+            return resultado;
+        }
+
+        @Override
+        public Resultado consultar(String paymentId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Resultado cancelar(String paymentId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void reembolsar(String paymentId) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.enums.MetodoPagamento;
+import br.com.tourapp.enums.StatusPagamento;
+import br.com.tourapp.repository.InscricaoRepository;
+import br.com.tourapp.repository.PagamentoRepository;
+import br.com.tourapp.repository.PagamentoRepository.CanalPagamento;
+import br.com.tourapp.repository.PagamentoRepository.PagamentoPendente;
+import br.com.tourapp.repository.PagamentoRepository.ResumoConciliacao;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ReconciliacaoPagamentoServiceTest {
+
+    private PagamentoRepository pagamentoRepository;
+    private InscricaoRepository inscricaoRepository;
+    private PaymentUseCase pagamentoService;
+    private GatewayPagamento gatewayPagamento;
+    private ReservaTemporariaService reservaTemporariaService;
+    private CanalStatusPagamentoService canalStatusPagamento;
+    private TravaDistribuidaService travaDistribuidaService;
+    private ReconciliacaoPagamentoService reconciliacaoService;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        pagamentoRepository = mock(PagamentoRepository.class);
+        inscricaoRepository = mock(InscricaoRepository.class);
+        pagamentoService = mock(PaymentUseCase.class);
+        gatewayPagamento = mock(GatewayPagamento.class);
+        reservaTemporariaService = mock(ReservaTemporariaService.class);
+        canalStatusPagamento = mock(CanalStatusPagamentoService.class);
+        travaDistribuidaService = mock(TravaDistribuidaService.class);
+
+        when(pagamentoRepository.resumirPendentesDeConciliacao(any(), any())).thenReturn(resumo(0L, null));
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+
+        reconciliacaoService = new ReconciliacaoPagamentoService(pagamentoRepository, inscricaoRepository,
+                pagamentoService, gatewayPagamento, reservaTemporariaService, canalStatusPagamento, travaDistribuidaService,
+                transactionManager, meterRegistry, true, 10, 4, 1000, 10, 30, 300);
+    }
+
+    @Test
+    void conciliar_OutroNoELider_NaoConsultaNada() {
+        // Given
+        when(travaDistribuidaService.adquirir(eq(ReconciliacaoPagamentoService.TRAVA), any())).thenReturn(false);
+
+        // When
+        reconciliacaoService.conciliar();
+
+        // Then
+        verifyNoInteractions(pagamentoRepository, gatewayPagamento);
+    }
+
+    @Test
+    void conciliar_WebhookPerdido_AplicaStatusDoMercadoPago() {
+        // Given
+        PagamentoPendente aprovado = pendente("101", MetodoPagamento.CARTAO_CREDITO, null);
+        PagamentoPendente semMudanca = pendente("102", MetodoPagamento.PIX, LocalDateTime.now().plusMinutes(10));
+        paginas(List.of(aprovado, semMudanca));
+        when(gatewayPagamento.consultar("101")).thenReturn(resultado("101", "approved"));
+        when(gatewayPagamento.consultar("102")).thenReturn(resultado("102", "pending"));
+
+        // When
+        reconciliacaoService.conciliar();
+
+        // Then
+        verify(pagamentoService).aplicarStatusMercadoPago("101", "approved");
+        verify(pagamentoService, never()).aplicarStatusMercadoPago(eq("102"), any());
+        verify(pagamentoRepository).marcarConciliados(eq(List.of(semMudanca.getId())), any());
+        verify(travaDistribuidaService).liberar(ReconciliacaoPagamentoService.TRAVA);
+    }
+
+    @Test
+    void conciliar_PixVencidoNaoPago_CancelaEExpiraEmLote() {
+        // Given
+        PagamentoPendente vencido = pendente("201", MetodoPagamento.PIX, LocalDateTime.now().minusMinutes(5));
+        paginas(List.of(vencido));
+        UUID inscricaoId = UUID.randomUUID();
+        when(gatewayPagamento.consultar("201")).thenReturn(resultado("201", "pending"));
+        when(gatewayPagamento.cancelar("201")).thenReturn(resultado("201", "cancelled"));
+        when(pagamentoRepository.atualizarStatusPendentes(any(), eq(StatusPagamento.EXPIRADO), any())).thenReturn(1);
+        when(inscricaoRepository.findIdsPendentesDosPagamentos(List.of(vencido.getId()), StatusPagamento.EXPIRADO))
+                .thenReturn(List.of(inscricaoId));
+        when(pagamentoRepository.findCanaisPendentes(List.of(vencido.getId())))
+                .thenReturn(List.of(canal(vencido.getId(), inscricaoId)));
+
+        // When
+        reconciliacaoService.conciliar();
+
+        // Then
+        verify(pagamentoRepository).atualizarStatusPendentes(eq(List.of(vencido.getId())),
+                eq(StatusPagamento.EXPIRADO), any());
+        verify(inscricaoRepository).atualizarStatusPendentes(eq(List.of(inscricaoId)),
+                eq(StatusPagamento.EXPIRADO), any());
+        verify(reservaTemporariaService).cancelar(inscricaoId);
+        verify(canalStatusPagamento).publicar(inscricaoId, vencido.getId(), StatusPagamento.EXPIRADO);
+        assertEquals(1, meterRegistry.get("tourapp.conciliacao.pagamentos")
+                .tag("resultado", "expirado").counter().count());
+    }
+
+    @Test
+    void conciliar_PixExpiradoAindaPendenteNoMercadoPago_CancelaEConfirma() {
+        // Given
+        PagamentoPendente expirado = pendente("401", StatusPagamento.EXPIRADO, MetodoPagamento.PIX,
+                LocalDateTime.now().minusMinutes(40));
+        paginas(List.of(expirado));
+        when(gatewayPagamento.consultar("401")).thenReturn(resultado("401", "pending"));
+        when(gatewayPagamento.cancelar("401")).thenReturn(resultado("401", "cancelled"));
+
+        // When
+        reconciliacaoService.conciliar();
+
+        // Then
+        verify(gatewayPagamento).cancelar("401");
+        verify(pagamentoRepository).confirmarCancelamentos(eq(List.of(expirado.getId())), any());
+        verify(pagamentoService, never()).aplicarStatusMercadoPago(eq("401"), any());
+    }
+
+    @Test
+    void conciliar_PixExpiradoJaCanceladoNoMercadoPago_SoConfirma() {
+        // Given
+        PagamentoPendente expirado = pendente("402", StatusPagamento.EXPIRADO, MetodoPagamento.PIX,
+                LocalDateTime.now().minusMinutes(40));
+        paginas(List.of(expirado));
+        when(gatewayPagamento.consultar("402")).thenReturn(resultado("402", "cancelled"));
+
+        // When
+        reconciliacaoService.conciliar();
+
+        // Then
+        verify(gatewayPagamento, never()).cancelar(any());
+        verify(pagamentoRepository).confirmarCancelamentos(eq(List.of(expirado.getId())), any());
+        verify(pagamentoService, never()).aplicarStatusMercadoPago(eq("402"), any());
+    }
+
+    @Test
+    void conciliar_PixExpiradoPagoNoMercadoPago_AplicaComoPagamentoTardio() {
+        // Given
+        PagamentoPendente expirado = pendente("403", StatusPagamento.EXPIRADO, MetodoPagamento.PIX,
+                LocalDateTime.now().minusMinutes(40));
+        paginas(List.of(expirado));
+        when(gatewayPagamento.consultar("403")).thenReturn(resultado("403", "approved"));
+
+        // When
+        reconciliacaoService.conciliar();
+
+        // Then
+        verify(pagamentoService).aplicarStatusMercadoPago("403", "approved");
+        verify(gatewayPagamento, never()).cancelar(any());
+    }
+
+    @Test
+    void conciliar_FalhaAoConsultar_ContaErroESegue() {
+        // Given
+        PagamentoPendente comErro = pendente("301", MetodoPagamento.PIX, LocalDateTime.now().plusMinutes(10));
+        PagamentoPendente semMudanca = pendente("302", MetodoPagamento.PIX, LocalDateTime.now().plusMinutes(10));
+        paginas(List.of(comErro, semMudanca));
+        when(gatewayPagamento.consultar("301")).thenThrow(new IllegalStateException("MP fora do ar"));
+        when(gatewayPagamento.consultar("302")).thenReturn(resultado("302", "pending"));
+
+        // When
+        reconciliacaoService.conciliar();
+
+        // Then
+        verify(pagamentoRepository).marcarConciliados(eq(List.of(semMudanca.getId())), any());
+        assertEquals(1, meterRegistry.get("tourapp.conciliacao.pagamentos")
+                .tag("resultado", "erro").counter().count());
+    }
+
+    private void paginas(List<PagamentoPendente> primeira) {
+        when(travaDistribuidaService.adquirir(eq(ReconciliacaoPagamentoService.TRAVA), any())).thenReturn(true);
+        when(pagamentoRepository.findPendentesParaConciliar(any(), any(), any(), any(), any()))
+                .thenReturn(primeira)
+                .thenReturn(List.of());
+    }
+
+    private static GatewayPagamento.Resultado resultado(String id, String status) {
+        return new GatewayPagamento.Resultado(id, status, null, null);
+    }
+
+    private static PagamentoPendente pendente(String paymentId, MetodoPagamento metodo, LocalDateTime vencimento) {
+        return pendente(paymentId, StatusPagamento.PENDENTE, metodo, vencimento);
+    }
+
+    private static PagamentoPendente pendente(String paymentId, StatusPagamento status, MetodoPagamento metodo,
+                                              LocalDateTime vencimento) {
+        UUID id = UUID.randomUUID();
+        LocalDateTime criadoEm = LocalDateTime.now().minusHours(1);
+        return new PagamentoPendente() {
+            @Override public UUID getId() { return id; }
+            @Override public String getMercadoPagoPaymentId() { return paymentId; }
+            @Override public StatusPagamento getStatus() { return status; }
+            @Override public MetodoPagamento getMetodoPagamento() { return metodo; }
+            @Override public LocalDateTime getDataVencimento() { return vencimento; }
+            @Override public LocalDateTime getCreatedAt() { return criadoEm; }
+        };
+    }
+
+    private static CanalPagamento canal(UUID pagamentoId, UUID canal) {
+        return new CanalPagamento() {
+            @Override public UUID getPagamentoId() { return pagamentoId; }
+            @Override public UUID getCanal() { return canal; }
+        };
+    }
+
+    private static ResumoConciliacao resumo(Long total, LocalDateTime maisAntigo) {
+        return new ResumoConciliacao() {
+            @Override public Long getTotal() { return total; }
+            @Override public LocalDateTime getMaisAntigo() { return maisAntigo; }
+        };
+    }
+}
@@ -0,0 +1,180 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.entity.CompaniaEntity;
+import br.com.tourapp.entity.Excursao;
+import br.com.tourapp.entity.UserEntity;
+import br.com.tourapp.enums.StatusExcursao;
+import br.com.tourapp.repository.CompaniaRepository;
+import br.com.tourapp.repository.ExcursaoRepository;
+import br.com.tourapp.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ReservaVagaService.class, ReservaVagaServiceTest.MetricasConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReservaVagaServiceTest {
+
+    private static final int VAGAS_TOTAL = 50;
+    private static final int TENTATIVAS = 2000;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private ReservaVagaService reservaVagaService;
+
+    @Autowired
+    private ExcursaoRepository excursaoRepository;
+
+    @Autowired
+    private CompaniaRepository companiaRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private UUID excursaoId;
+
+    @BeforeEach
+    void setUp() {
+        UserEntity organizador = userRepository.save(
+                new UserEntity("organizador-" + UUID.randomUUID() + "@example.com", "Organizador Teste"));
+
+        CompaniaEntity compania = companiaRepository.save(new CompaniaEntity("Turismo Teste", null));
+
+        Excursao excursao = new Excursao("Excursão Concorrida", "Excursão usada no teste de concorrência",
+                LocalDateTime.now().plusDays(30), new BigDecimal("150.00"), VAGAS_TOTAL, compania, organizador);
+        excursao.setStatus(StatusExcursao.ATIVA);
+        excursaoId = excursaoRepository.save(excursao).getId();
+    }
+
+    @Test
+    void reservar_InscricoesConcorrentes_NaoUltrapassaVagas() throws Exception {
+        // Given
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<Boolean>> resultados = new ArrayList<>();
+        double confirmadasAntes = contador("confirmada");
+        double conflitosAntes = contador("conflito");
+
+        for (int i = 0; i < TENTATIVAS; i++) {
+            resultados.add(executor.submit(() -> {
+                largada.await();
+                return transactionTemplate.execute(status -> reservaVagaService.reservar(excursaoId, 1));
+            }));
+        }
+
+        // When
+        largada.countDown();
+        int confirmadas = 0;
+        for (Future<Boolean> resultado : resultados) {
+            if (Boolean.TRUE.equals(resultado.get(60, TimeUnit.SECONDS))) {
+                confirmadas++;
+            }
+        }
+        executor.shutdown();
+
+        // Then
+        Excursao excursao = excursaoRepository.findById(excursaoId).orElseThrow();
+        assertEquals(VAGAS_TOTAL, confirmadas);
+        assertEquals(VAGAS_TOTAL, excursao.getVagasOcupadas());
+        assertEquals(StatusExcursao.LOTADA, excursao.getStatus());
+        assertEquals(VAGAS_TOTAL, contador("confirmada") - confirmadasAntes);
+        assertEquals(TENTATIVAS - VAGAS_TOTAL, contador("conflito") - conflitosAntes);
+    }
+
+    @Test
+    void reservar_QuantidadeMaiorQueVagasDisponiveis_Recusa() {
+        // Given
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // When
+        Boolean reservado = transactionTemplate.execute(status -> reservaVagaService.reservar(excursaoId, VAGAS_TOTAL + 1));
+
+        // Then
+        assertFalse(reservado);
+        Excursao excursao = excursaoRepository.findById(excursaoId).orElseThrow();
+        assertEquals(0, excursao.getVagasOcupadas());
+        assertEquals(StatusExcursao.ATIVA, excursao.getStatus());
+    }
+
+    @Test
+    void reservar_ExcursaoJaCarregadaNaTransacao_RecarregaVagasEStatus() {
+        // Given
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // When
+        Excursao excursao = transactionTemplate.execute(status -> {
+            Excursao carregada = excursaoRepository.findById(excursaoId).orElseThrow();
+            reservaVagaService.reservar(excursaoId, VAGAS_TOTAL);
+            return carregada;
+        });
+
+        // Then
+        assertEquals(VAGAS_TOTAL, excursao.getVagasOcupadas());
+        assertEquals(StatusExcursao.LOTADA, excursao.getStatus());
+    }
+
+    @Test
+    void reservar_ExcursaoCarregadaAntes_NaoEGravadaPorCimaDasVagas() {
+        // Given
+        Excursao antiga = excursaoRepository.findById(excursaoId).orElseThrow();
+        reservaVagaService.reservar(excursaoId, VAGAS_TOTAL);
+
+        // When / Then: a cópia de antes da reserva reabriria a excursão lotada
+        antiga.setStatus(StatusExcursao.ATIVA);
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> excursaoRepository.save(antiga));
+
+        Excursao atual = excursaoRepository.findById(excursaoId).orElseThrow();
+        assertEquals(VAGAS_TOTAL, atual.getVagasOcupadas());
+        assertEquals(StatusExcursao.LOTADA, atual.getStatus());
+        assertEquals(antiga.getVersion() + 1, atual.getVersion());
+    }
+
+    private double contador(String resultado) {
+        return meterRegistry.get("tourapp.reservas").tag("resultado", resultado).counter().count();
+    }
+
+    @TestConfiguration
+    static class MetricasConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package br.com.tourapp.service;
+
+import br.com.tourapp.entity.WebhookRecebido;
+import br.com.tourapp.exception.NotFoundException;
+import br.com.tourapp.repository.WebhookRecebidoRepository;
+import br.com.tourapp.service.WebhookInboxService.NotificacoesPagamento;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class WebhookInboxServiceTest {
+
+    private static final int MAX_TENTATIVAS = 3;
+
+    private WebhookRecebidoRepository webhookRepository;
+    private PaymentUseCase pagamentoService;
+    private WebhookInboxService webhookInboxService;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        webhookRepository = mock(WebhookRecebidoRepository.class);
+        pagamentoService = mock(PaymentUseCase.class);
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+
+        webhookInboxService = new WebhookInboxService(webhookRepository, pagamentoService, new ObjectMapper(),
+                transactionManager, meterRegistry, 1, 10, MAX_TENTATIVAS, 1000, 60000, 120, 7, 2000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        webhookInboxService.encerrar();
+    }
+
+    @Test
+    void registrar_EventoDePagamento_GravaNaInbox() {
+        // When
+        webhookInboxService.registrar(Map.of("type", "payment", "data", Map.of("id", 123456789L)));
+
+        // Then
+        verify(webhookRepository).save(argThat(webhook -> "123456789".equals(webhook.getPaymentId())));
+        verifyNoInteractions(pagamentoService);
+    }
+
+    @Test
+    void registrar_EventoDeOutroTipo_Ignora() {
+        // When
+        webhookInboxService.registrar(Map.of("type", "merchant_order", "data", Map.of("id", "1")));
+
+        // Then
+        verifyNoInteractions(webhookRepository);
+    }
+
+    @Test
+    void processar_Sucesso_MarcaProcessado() {
+        // Given
+        WebhookRecebido webhook = criarWebhook(1);
+        when(pagamentoService.consultarStatusMercadoPago("987")).thenReturn("approved");
+
+        // When
+        webhookInboxService.processar(new NotificacoesPagamento(webhook, List.of(webhook.getId())));
+
+        // Then
+        verify(pagamentoService).aplicarStatusMercadoPago("987", "approved");
+        verify(webhookRepository).marcarProcessados(eq(List.of(webhook.getId())), any());
+    }
+
+    @Test
+    void processar_NotificacoesCoalescidas_ConsultaMercadoPagoUmaVez() {
+        // Given
+        WebhookRecebido webhook = criarWebhook(1);
+        List<UUID> ids = List.of(webhook.getId(), UUID.randomUUID(), UUID.randomUUID());
+        when(pagamentoService.consultarStatusMercadoPago("987")).thenReturn("approved");
+
+        // When
+        webhookInboxService.processar(new NotificacoesPagamento(webhook, ids));
+
+        // Then
+        verify(pagamentoService, times(1)).consultarStatusMercadoPago("987");
+        verify(pagamentoService, times(1)).aplicarStatusMercadoPago("987", "approved");
+        verify(webhookRepository).marcarProcessados(eq(ids), any());
+        assertEquals(2, meterRegistry.get("tourapp.webhook.inbox.consultas.evitadas").counter().count());
+    }
+
+    @Test
+    void processar_FalhaAntesDoLimite_Reagenda() {
+        // Given
+        WebhookRecebido webhook = criarWebhook(1);
+        when(pagamentoService.consultarStatusMercadoPago("987")).thenReturn("approved");
+        doThrow(new NotFoundException("Pagamento não encontrado"))
+                .when(pagamentoService).aplicarStatusMercadoPago(anyString(), anyString());
+
+        // When
+        webhookInboxService.processar(new NotificacoesPagamento(webhook, List.of(webhook.getId())));
+
+        // Then
+        verify(webhookRepository).reagendar(eq(List.of(webhook.getId())), any(), eq("Pagamento não encontrado"), any());
+        verify(webhookRepository, never()).marcarFalha(any(), any(), any());
+    }
+
+    @Test
+    void processar_FalhaNaUltimaTentativa_VaiParaDeadLetter() {
+        // Given
+        WebhookRecebido webhook = criarWebhook(MAX_TENTATIVAS);
+        when(pagamentoService.consultarStatusMercadoPago("987")).thenThrow(new IllegalStateException("MP fora do ar"));
+
+        // When
+        webhookInboxService.processar(new NotificacoesPagamento(webhook, List.of(webhook.getId())));
+
+        // Then
+        verify(webhookRepository).marcarFalha(eq(List.of(webhook.getId())), eq("MP fora do ar"), any());
+        verify(webhookRepository, never()).reagendar(any(), any(), any(), any());
+    }
+
+    @Test
+    void calcularBackoff_CresceExponencialmenteAteOMaximo() {
+        assertEquals(1000, webhookInboxService.calcularBackoff(1));
+        assertEquals(2000, webhookInboxService.calcularBackoff(2));
+        assertEquals(8000, webhookInboxService.calcularBackoff(4));
+        assertEquals(60000, webhookInboxService.calcularBackoff(20));
+    }
+
+    private WebhookRecebido criarWebhook(int tentativas) {
+        WebhookRecebido webhook = new WebhookRecebido("987", "payment", null, LocalDateTime.now());
+        webhook.setId(UUID.randomUUID());
+        webhook.setCreatedAt(LocalDateTime.now().minusSeconds(2));
+        webhook.setTentativas(tentativas);
+        return webhook;
+    }
+}
@@ -0,0 +1,86 @@
+package br.com.tourapp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimerWheelTest {
+
+    private static final long TICK = 100;
+    private static final int SLOTS = 8;
+
+    @Test
+    void avancar_PrazoVencido_DevolveItemUmaVez() {
+        // Given
+        TimerWheel<String> roda = new TimerWheel<>(TICK, SLOTS, 0);
+        roda.agendar("a", 250);
+        roda.agendar("b", 500);
+
+        // When
+        List<String> primeiroAvanco = roda.avancar(300);
+        List<String> segundoAvanco = roda.avancar(400);
+
+        // Then
+        assertEquals(List.of("a"), primeiroAvanco);
+        assertTrue(segundoAvanco.isEmpty());
+        assertEquals(1, roda.tamanho());
+    }
+
+    @Test
+    void avancar_PrazoAlemDeUmaVolta_SoVenceNoPrazo() {
+        // Given
+        TimerWheel<String> roda = new TimerWheel<>(TICK, SLOTS, 0);
+        roda.agendar("longo", TICK * SLOTS * 3 + 50);
+
+        // When / Then
+        for (long agora = TICK; agora < TICK * SLOTS * 3; agora += TICK) {
+            assertTrue(roda.avancar(agora).isEmpty());
+        }
+        assertEquals(List.of("longo"), roda.avancar(TICK * SLOTS * 3 + 100));
+    }
+
+    @Test
+    void avancar_ItemReagendado_IgnoraPrazoAntigo() {
+        // Given
+        TimerWheel<String> roda = new TimerWheel<>(TICK, SLOTS, 0);
+        roda.agendar("a", 200);
+        roda.reagendar("a", 600);
+
+        // When
+        List<String> noPrazoAntigo = roda.avancar(300);
+        List<String> noPrazoNovo = roda.avancar(700);
+
+        // Then
+        assertTrue(noPrazoAntigo.isEmpty());
+        assertEquals(List.of("a"), noPrazoNovo);
+    }
+
+    @Test
+    void avancar_ItemCancelado_NaoVence() {
+        // Given
+        TimerWheel<String> roda = new TimerWheel<>(TICK, SLOTS, 0);
+        roda.agendar("a", 200);
+        roda.cancelar("a");
+
+        // When
+        List<String> vencidos = roda.avancar(1000);
+
+        // Then
+        assertTrue(vencidos.isEmpty());
+        assertEquals(0, roda.tamanho());
+    }
+
+    @Test
+    void agendar_PrazoJaVencido_SaiNoProximoAvanco() {
+        // Given
+        TimerWheel<String> roda = new TimerWheel<>(TICK, SLOTS, 5000);
+
+        // When
+        roda.agendar("atrasado", 100);
+
+        // Then
+        assertEquals(List.of("atrasado"), roda.avancar(5000));
+    }
+}